@@ -16,6 +16,7 @@
 package io.seata.common.util;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author funkye
@@ -66,14 +67,11 @@ public class IdWorker {
     private long workerId;
 
     /**
-     * Sequence in milliseconds (0 ~ 4095)
+     * The timestamp and the sequence of the last generated id, the timestamp (relative to twepoch) takes the high
+     * bits and the sequence takes the low 12 bits. Incrementing it reserves the next sequence, an overflow of the
+     * sequence carries into the timestamp, which borrows the next millisecond instead of waiting for it.
      */
-    private long sequence = 0L;
-
-    /**
-     * Time of last ID generation
-     */
-    private long lastTimestamp = -1L;
+    private final AtomicLong timestampAndSequence;
 
     /**
      * Constructor
@@ -87,48 +85,37 @@ public class IdWorker {
                 String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
         }
         this.workerId = workerId;
+        this.timestampAndSequence = new AtomicLong((timeGen() - twepoch) << sequenceBits);
     }
 
     /**
-     * Get the next ID (the method is thread-safe)
+     * Get the next ID (the method is thread-safe and lock-free)
+     * <p>
+     * The timestamp of the id never moves backwards, so the ids stay unique when the clock moves backwards, they
+     * just keep borrowing the milliseconds until the clock catches up.
      *
      * @return SnowflakeId
      */
     public long nextId() {
-        long timestamp = timeGen();
-
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format(
-                "clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
-        }
-
-        synchronized (this) {
-            if (lastTimestamp == timestamp) {
-                sequence = (sequence + 1) & sequenceMask;
-                if (sequence == 0) {
-                    timestamp = tilNextMillis(lastTimestamp);
-                }
-            } else {
-                sequence = 0L;
-            }
-            lastTimestamp = timestamp;
-        }
-        return ((timestamp - twepoch) << timestampLeftShift) | (workerId << workerIdShift) | sequence;
+        syncTimestamp();
+        long next = timestampAndSequence.incrementAndGet();
+        long timestamp = next >>> sequenceBits;
+        return (timestamp << timestampLeftShift) | (workerId << workerIdShift) | (next & sequenceMask);
     }
 
     /**
-     * Block until the next millisecond until a new timestamp is obtained
-     *
-     * @param lastTimestamp
-     *            Time of last ID generation
-     * @return Current timestamp
+     * Move the timestamp forward to the current time if the clock is ahead of the last id
      */
-    protected long tilNextMillis(long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
+    private void syncTimestamp() {
+        long current = timestampAndSequence.get();
+        long now = timeGen() - twepoch;
+        while ((current >>> sequenceBits) < now) {
+            // the next increment takes sequence 0 of the current millisecond
+            if (timestampAndSequence.compareAndSet(current, (now << sequenceBits) - 1)) {
+                return;
+            }
+            current = timestampAndSequence.get();
         }
-        return timestamp;
     }
 
     /**
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.common.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of the lock-free {@link IdWorker} against the former synchronized implementation.
+ * <p>
+ * Not run by the unit tests, run the main method from the test classpath of this module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdWorkerBenchmark {
+
+    private final IdWorker idWorker = new IdWorker(1L);
+
+    private final SynchronizedIdWorker synchronizedIdWorker = new SynchronizedIdWorker(1L);
+
+    @Benchmark
+    public long lockFree() {
+        return idWorker.nextId();
+    }
+
+    @Benchmark
+    public long synchronizedNextId() {
+        return synchronizedIdWorker.nextId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 2, 4, 8, 16, 32, 64}) {
+            Options options = new OptionsBuilder()
+                .include(IdWorkerBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+            new Runner(options).run();
+        }
+    }
+
+    /**
+     * The synchronized snowflake implementation replaced by {@link IdWorker}, kept for comparison.
+     */
+    private static class SynchronizedIdWorker {
+
+        private final long twepoch = 1588435200000L;
+
+        private final int workerIdBits = 10;
+
+        private final int sequenceBits = 12;
+
+        private final int workerIdShift = sequenceBits;
+
+        private final int timestampLeftShift = sequenceBits + workerIdBits;
+
+        private final long sequenceMask = ~(-1L << sequenceBits);
+
+        private final long workerId;
+
+        private long sequence = 0L;
+
+        private long lastTimestamp = -1L;
+
+        SynchronizedIdWorker(long workerId) {
+            this.workerId = workerId;
+        }
+
+        synchronized long nextId() {
+            long timestamp = System.currentTimeMillis();
+            if (timestamp < lastTimestamp) {
+                throw new RuntimeException(String.format(
+                    "clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+            }
+            if (lastTimestamp == timestamp) {
+                sequence = (sequence + 1) & sequenceMask;
+                if (sequence == 0) {
+                    while (timestamp <= lastTimestamp) {
+                        timestamp = System.currentTimeMillis();
+                    }
+                }
+            } else {
+                sequence = 0L;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - twepoch) << timestampLeftShift) | (workerId << workerIdShift) | sequence;
+        }
+    }
+}
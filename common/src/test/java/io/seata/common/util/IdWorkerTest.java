@@ -0,0 +1,92 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.common.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Id worker test.
+ */
+public class IdWorkerTest {
+
+    @Test
+    public void testUniqueInMultiThreads() throws InterruptedException {
+        IdWorker idWorker = new IdWorker(1L);
+        int threadSize = 8;
+        int countPerThread = 100000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(threadSize);
+        ExecutorService executor = Executors.newFixedThreadPool(threadSize);
+        for (int i = 0; i < threadSize; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < countPerThread; j++) {
+                    ids.add(idWorker.nextId());
+                }
+                latch.countDown();
+            });
+        }
+        Assertions.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assertions.assertEquals(threadSize * countPerThread, ids.size());
+    }
+
+    @Test
+    public void testSequenceOverflowAndClockBackwards() {
+        MockClockIdWorker idWorker = new MockClockIdWorker(1L);
+        long last = idWorker.nextId();
+        // more than one millisecond of sequences without the clock moving
+        for (int i = 0; i < 10000; i++) {
+            long id = idWorker.nextId();
+            Assertions.assertTrue(id > last);
+            last = id;
+        }
+        MockClockIdWorker.now -= 1000;
+        for (int i = 0; i < 100; i++) {
+            long id = idWorker.nextId();
+            Assertions.assertTrue(id > last);
+            last = id;
+        }
+        MockClockIdWorker.now += 60000;
+        long id = idWorker.nextId();
+        Assertions.assertTrue(id > last);
+        Assertions.assertEquals(MockClockIdWorker.now - 1588435200000L, id >>> 22);
+    }
+
+    private static class MockClockIdWorker extends IdWorker {
+
+        /**
+         * static, the constructor of IdWorker reads the clock before the fields of the subclass are initialized
+         */
+        private static long now = 1600000000000L;
+
+        MockClockIdWorker(long workerId) {
+            super(workerId);
+        }
+
+        @Override
+        protected long timeGen() {
+            return now;
+        }
+    }
+}
@@ -37,6 +37,26 @@ public class ConfigurationKeys {
      */
     public static final String STORE_MODE = STORE_PREFIX + "mode";
 
+    /**
+     * The constant STORE_SESSION_CACHE.
+     */
+    public static final String STORE_SESSION_CACHE = STORE_PREFIX + "sessionCache";
+
+    /**
+     * The constant STORE_SESSION_CACHE_SIZE.
+     */
+    public static final String STORE_SESSION_CACHE_SIZE = STORE_PREFIX + "sessionCacheSize";
+
+    /**
+     * The constant STORE_SESSION_CACHE_EXPIRE.
+     */
+    public static final String STORE_SESSION_CACHE_EXPIRE = STORE_PREFIX + "sessionCacheExpire";
+
+    /**
+     * The constant STORE_SESSION_CACHE_INVALIDATOR.
+     */
+    public static final String STORE_SESSION_CACHE_INVALIDATOR = STORE_PREFIX + "sessionCacheInvalidator";
+
     /**
      * The constant STORE_FILE_PREFIX
      */
@@ -113,6 +133,11 @@ public class ConfigurationKeys {
      */
     public static final String SERVICE_SESSION_RELOAD_READ_SIZE = STORE_FILE_PREFIX + "sessionReloadReadSize";
 
+    /**
+     * The constant SERVICE_SESSION_RELOAD_THREADS
+     */
+    public static final String SERVICE_SESSION_RELOAD_THREADS = STORE_FILE_PREFIX + "sessionReloadThreads";
+
     /**
      * The constant CLIENT_REPORT_SUCCESS_ENABLE.
      */
@@ -123,6 +148,11 @@ public class ConfigurationKeys {
      */
     public static final String CLIENT_SAGA_BRANCH_REGISTER_ENABLE = CLIENT_RM_PREFIX + "sagaBranchRegisterEnable";
 
+    /**
+     * The constant CLIENT_BINARY_LOCK_KEY_ENABLE.
+     */
+    public static final String CLIENT_BINARY_LOCK_KEY_ENABLE = CLIENT_RM_PREFIX + "binaryLockKeyEnable";
+
     /**
      * The constant CLIENT_SAGA_JSON_PARSER.
      */
@@ -174,6 +204,16 @@ public class ConfigurationKeys {
      */
     public static final String STORE_REDIS_PREFIX = "store.redis.";
 
+    /**
+     * The constant STORE_KV_PREFIX.
+     */
+    public static final String STORE_KV_PREFIX = "store.kv.";
+
+    /**
+     * The constant STORE_HYBRID_PREFIX.
+     */
+    public static final String STORE_HYBRID_PREFIX = "store.hybrid.";
+
     /**
      * The constant STORE_DB_GLOBAL_TABLE.
      */
@@ -234,11 +274,61 @@ public class ConfigurationKeys {
      */
     public static final String STORE_DB_LOG_QUERY_LIMIT = STORE_DB_PREFIX + "queryLimit";
 
+    /**
+     * The constant STORE_DB_BATCH_WRITE.
+     */
+    public static final String STORE_DB_BATCH_WRITE = STORE_DB_PREFIX + "batchWrite";
+
+    /**
+     * The constant STORE_DB_BATCH_WRITE_THREADS.
+     */
+    public static final String STORE_DB_BATCH_WRITE_THREADS = STORE_DB_PREFIX + "batchWriteThreads";
+
+    /**
+     * The constant STORE_DB_BATCH_WRITE_MAX_SIZE.
+     */
+    public static final String STORE_DB_BATCH_WRITE_MAX_SIZE = STORE_DB_PREFIX + "batchWriteMaxSize";
+
     /**
      * The constant LOCK_DB_TABLE.
      */
     public static final String LOCK_DB_TABLE = STORE_DB_PREFIX + "lockTable";
 
+    /**
+     * The constant STORE_DB_LOCK_INSERT_FIRST.
+     */
+    public static final String STORE_DB_LOCK_INSERT_FIRST = STORE_DB_PREFIX + "lockInsertFirst";
+
+    /**
+     * The constant STORE_DB_LOCK_CACHE.
+     */
+    public static final String STORE_DB_LOCK_CACHE = STORE_DB_PREFIX + "lockCache";
+
+    /**
+     * The constant STORE_DB_LOCK_CACHE_SIZE.
+     */
+    public static final String STORE_DB_LOCK_CACHE_SIZE = STORE_DB_PREFIX + "lockCacheSize";
+
+    /**
+     * The constant STORE_DB_LOCK_CACHE_EXPIRE.
+     */
+    public static final String STORE_DB_LOCK_CACHE_EXPIRE = STORE_DB_PREFIX + "lockCacheExpire";
+
+    /**
+     * The constant STORE_DB_LOCK_TABLE_SHARDS.
+     */
+    public static final String STORE_DB_LOCK_TABLE_SHARDS = STORE_DB_PREFIX + "lockTableShards";
+
+    /**
+     * The constant STORE_DB_LOCK_SHARD_URLS.
+     */
+    public static final String STORE_DB_LOCK_SHARD_URLS = STORE_DB_PREFIX + "lockShardUrls";
+
+    /**
+     * The constant STORE_DB_LOCK_SHARD_THREADS.
+     */
+    public static final String STORE_DB_LOCK_SHARD_THREADS = STORE_DB_PREFIX + "lockShardThreads";
+
     /**
      * The constant SERVER_PORT.
      */
@@ -268,6 +358,16 @@ public class ConfigurationKeys {
      */
     public static final String TIMEOUT_RETRY_PERIOD = RECOVERY_PREFIX + "timeoutRetryPeriod";
 
+    /**
+     * The constant RECOVERY_WORKER_SIZE.
+     */
+    public static final String RECOVERY_WORKER_SIZE = RECOVERY_PREFIX + "workerSize";
+
+    /**
+     * The constant MAX_RETRY_BACKOFF.
+     */
+    public static final String MAX_RETRY_BACKOFF = RECOVERY_PREFIX + "maxRetryBackoff";
+
     /**
      * The constant CLIENT_UNDO_PREFIX.
      */
@@ -355,6 +455,47 @@ public class ConfigurationKeys {
      */
     public static final String ROLLBACK_RETRY_TIMEOUT_UNLOCK_ENABLE = SERVER_PREFIX + "rollbackRetryTimeoutUnlockEnable";
 
+    /**
+     * The constant ENABLE_PARALLEL_HANDLE_BRANCH.
+     */
+    public static final String ENABLE_PARALLEL_HANDLE_BRANCH = SERVER_PREFIX + "enableParallelHandleBranch";
+
+    /**
+     * The constant PARALLEL_HANDLE_BRANCH_THREAD_SIZE.
+     */
+    public static final String PARALLEL_HANDLE_BRANCH_THREAD_SIZE = SERVER_PREFIX + "parallelHandleBranchThreadSize";
+
+    /**
+     * The constant ENABLE_BRANCH_CIRCUIT_BREAKER.
+     */
+    public static final String ENABLE_BRANCH_CIRCUIT_BREAKER = SERVER_PREFIX + "enableBranchCircuitBreaker";
+
+    /**
+     * The constant BRANCH_CIRCUIT_BREAKER_FAILURE_THRESHOLD.
+     */
+    public static final String BRANCH_CIRCUIT_BREAKER_FAILURE_THRESHOLD = SERVER_PREFIX
+        + "branchCircuitBreakerFailureThreshold";
+
+    /**
+     * The constant BRANCH_CIRCUIT_BREAKER_OPEN_DURATION.
+     */
+    public static final String BRANCH_CIRCUIT_BREAKER_OPEN_DURATION = SERVER_PREFIX + "branchCircuitBreakerOpenDuration";
+
+    /**
+     * The constant ENABLE_LOCK_WAIT.
+     */
+    public static final String ENABLE_LOCK_WAIT = SERVER_PREFIX + "enableLockWait";
+
+    /**
+     * The constant LOCK_WAIT_TIMEOUT.
+     */
+    public static final String LOCK_WAIT_TIMEOUT = SERVER_PREFIX + "lockWaitTimeout";
+
+    /**
+     * The constant LOCK_WAIT_MAX_WAITERS.
+     */
+    public static final String LOCK_WAIT_MAX_WAITERS = SERVER_PREFIX + "lockWaitMaxWaiters";
+
     /**
      * The constant TRANSPORT_TYPE
      */
@@ -480,6 +621,56 @@ public class ConfigurationKeys {
      */
     public static final String STORE_REDIS_QUERY_LIMIT = STORE_REDIS_PREFIX + "queryLimit";
 
+    /**
+     * The constant STORE_REDIS_MODE.
+     */
+    public static final String STORE_REDIS_MODE = STORE_REDIS_PREFIX + "mode";
+
+    /**
+     * The constant STORE_REDIS_CLUSTER_NODES.
+     */
+    public static final String STORE_REDIS_CLUSTER_NODES = STORE_REDIS_PREFIX + "clusterNodes";
+
+    /**
+     * The constant STORE_REDIS_CLUSTER_SHARDS.
+     */
+    public static final String STORE_REDIS_CLUSTER_SHARDS = STORE_REDIS_PREFIX + "clusterShards";
+
+    /**
+     * The constant STORE_KV_DIR.
+     */
+    public static final String STORE_KV_DIR = STORE_KV_PREFIX + "dir";
+
+    /**
+     * The constant STORE_KV_FLUSH_DISK_MODE.
+     */
+    public static final String STORE_KV_FLUSH_DISK_MODE = STORE_KV_PREFIX + "flushDiskMode";
+
+    /**
+     * The constant STORE_KV_FLUSH_INTERVAL.
+     */
+    public static final String STORE_KV_FLUSH_INTERVAL = STORE_KV_PREFIX + "flushInterval";
+
+    /**
+     * The constant STORE_KV_QUERY_LIMIT.
+     */
+    public static final String STORE_KV_QUERY_LIMIT = STORE_KV_PREFIX + "queryLimit";
+
+    /**
+     * The constant STORE_HYBRID_MAX_LAG.
+     */
+    public static final String STORE_HYBRID_MAX_LAG = STORE_HYBRID_PREFIX + "maxLag";
+
+    /**
+     * The constant STORE_HYBRID_MAX_BATCH_SIZE.
+     */
+    public static final String STORE_HYBRID_MAX_BATCH_SIZE = STORE_HYBRID_PREFIX + "maxBatchSize";
+
+    /**
+     * The constant STORE_HYBRID_ACK_TIMEOUT.
+     */
+    public static final String STORE_HYBRID_ACK_TIMEOUT = STORE_HYBRID_PREFIX + "ackTimeout";
+
     /**
      * The constant CLIENT_DEGRADE_CHECK_PERIOD.
      */
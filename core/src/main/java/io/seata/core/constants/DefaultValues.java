@@ -33,6 +33,7 @@ public class DefaultValues {
     public static final boolean DEFAULT_CLIENT_TABLE_META_CHECK_ENABLE = false;
     public static final boolean DEFAULT_TM_DEGRADE_CHECK = false;
     public static final boolean DEFAULT_CLIENT_SAGA_BRANCH_REGISTER_ENABLE = false;
+    public static final boolean DEFAULT_CLIENT_BINARY_LOCK_KEY_ENABLE = false;
     /**
      * Shutdown timeout default 3s
      */
@@ -89,4 +90,38 @@ public class DefaultValues {
     public static final String DEFAULT_SAGA_JSON_PARSER = "fastjson";
 
     public static final boolean DEFAULT_SERVER_ENABLE_CHECK_AUTH = true;
+
+    public static final boolean DEFAULT_ENABLE_PARALLEL_HANDLE_BRANCH = false;
+    public static final int DEFAULT_PARALLEL_HANDLE_BRANCH_THREAD_SIZE = 32;
+    public static final boolean DEFAULT_ENABLE_BRANCH_CIRCUIT_BREAKER = false;
+    public static final int DEFAULT_BRANCH_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_BRANCH_CIRCUIT_BREAKER_OPEN_DURATION = 10000L;
+    public static final boolean DEFAULT_ENABLE_LOCK_WAIT = false;
+    public static final long DEFAULT_LOCK_WAIT_TIMEOUT = 1000L;
+    public static final int DEFAULT_LOCK_WAIT_MAX_WAITERS = 100;
+
+    public static final int DEFAULT_RECOVERY_WORKER_SIZE = 1;
+    public static final long DEFAULT_MAX_RETRY_BACKOFF = 60000L;
+    public static final int DEFAULT_SESSION_RELOAD_THREADS = 4;
+    public static final boolean DEFAULT_STORE_DB_BATCH_WRITE = false;
+    public static final int DEFAULT_STORE_DB_BATCH_WRITE_THREADS = 4;
+    public static final int DEFAULT_STORE_DB_BATCH_WRITE_MAX_SIZE = 100;
+    public static final boolean DEFAULT_STORE_DB_LOCK_INSERT_FIRST = false;
+    public static final boolean DEFAULT_STORE_DB_LOCK_CACHE = false;
+    public static final long DEFAULT_STORE_DB_LOCK_CACHE_SIZE = 100000L;
+    public static final long DEFAULT_STORE_DB_LOCK_CACHE_EXPIRE = 5000L;
+    public static final int DEFAULT_STORE_DB_LOCK_TABLE_SHARDS = 1;
+    public static final int DEFAULT_STORE_DB_LOCK_SHARD_THREADS = 16;
+    public static final String DEFAULT_STORE_REDIS_MODE = "single";
+    public static final int DEFAULT_STORE_REDIS_CLUSTER_SHARDS = 64;
+    public static final String DEFAULT_STORE_KV_DIR = "kvStore";
+    public static final String DEFAULT_STORE_KV_FLUSH_DISK_MODE = "async";
+    public static final long DEFAULT_STORE_KV_FLUSH_INTERVAL = 1000L;
+    public static final int DEFAULT_STORE_KV_QUERY_LIMIT = 100;
+    public static final boolean DEFAULT_STORE_SESSION_CACHE = false;
+    public static final long DEFAULT_STORE_SESSION_CACHE_SIZE = 10000L;
+    public static final long DEFAULT_STORE_SESSION_CACHE_EXPIRE = 10000L;
+    public static final long DEFAULT_STORE_HYBRID_MAX_LAG = 1000L;
+    public static final int DEFAULT_STORE_HYBRID_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_STORE_HYBRID_ACK_TIMEOUT = 5000L;
 }
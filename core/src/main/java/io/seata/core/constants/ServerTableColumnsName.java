@@ -62,6 +62,11 @@ public class ServerTableColumnsName {
      */
     public static final String GLOBAL_TABLE_BEGIN_TIME = "begin_time";
 
+    /**
+     * The constant global_table column name deadline
+     */
+    public static final String GLOBAL_TABLE_DEADLINE = "deadline";
+
     /**
      * The constant global_table column name application_data
      */
@@ -0,0 +1,296 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.lock;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import io.seata.common.util.StringUtils;
+
+/**
+ * The binary form of the lock keys, the string form of which is {@code table1:pk1,pk2;table2:pk3}.
+ * <p>
+ * The layout is the format byte and the count of the tables, then each table is its name and the count of its
+ * primary keys followed by the keys. A name or a key is the unsigned short length and the UTF-8 bytes:
+ * <pre>
+ * | 0x01 | table count (int) | name length (short) | name | pk count (int) | pk length (short) | pk | ... |
+ * </pre>
+ * The rows are read one by one, so the lock keys are not split into the strings of their tables and rows.
+ */
+public final class BinaryLockKey {
+
+    /**
+     * The first byte of the binary lock keys, it can not be the first byte of a table name or of the compressed data.
+     */
+    public static final byte FORMAT = 0x01;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    /**
+     * The least bytes of a table, the length of an empty name and the count of its primary keys.
+     */
+    private static final int MIN_TABLE_LENGTH = 6;
+
+    /**
+     * The least bytes of a primary key, the length of an empty key.
+     */
+    private static final int MIN_PK_LENGTH = 2;
+
+    private BinaryLockKey() {
+    }
+
+    /**
+     * Whether the bytes are the binary lock keys.
+     *
+     * @param bytes the bytes
+     * @return the boolean
+     */
+    public static boolean isBinaryLockKey(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == FORMAT;
+    }
+
+    /**
+     * Visit the table name and the primary key of each row.
+     *
+     * @param lockKey  the binary lock keys
+     * @param consumer the consumer of the table name and the primary key
+     * @throws IllegalArgumentException if the lock keys are malformed
+     */
+    public static void forEachRow(byte[] lockKey, BiConsumer<String, String> consumer) {
+        ByteBuffer in = wrap(lockKey);
+        int tableCount = readCount(in, MIN_TABLE_LENGTH);
+        for (int i = 0; i < tableCount; i++) {
+            String tableName = readString(in);
+            int pkCount = readCount(in, MIN_PK_LENGTH);
+            for (int j = 0; j < pkCount; j++) {
+                consumer.accept(tableName, readString(in));
+            }
+        }
+    }
+
+    /**
+     * The string form of the binary lock keys.
+     *
+     * @param lockKey the binary lock keys
+     * @return the lock keys, such as {@code table1:pk1,pk2;table2:pk3}
+     * @throws IllegalArgumentException if the lock keys are malformed
+     */
+    public static String toLockKey(byte[] lockKey) {
+        ByteBuffer in = wrap(lockKey);
+        StringBuilder sb = new StringBuilder(lockKey.length);
+        int tableCount = readCount(in, MIN_TABLE_LENGTH);
+        for (int i = 0; i < tableCount; i++) {
+            String tableName = readString(in);
+            int pkCount = readCount(in, MIN_PK_LENGTH);
+            if (pkCount == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(tableName).append(':');
+            for (int j = 0; j < pkCount; j++) {
+                if (j > 0) {
+                    sb.append(',');
+                }
+                sb.append(readString(in));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The binary form of the lock keys.
+     *
+     * @param lockKey the lock keys, such as {@code table1:pk1,pk2;table2:pk3}
+     * @return the binary lock keys, or null if the lock keys are blank
+     */
+    public static byte[] fromLockKey(String lockKey) {
+        if (StringUtils.isBlank(lockKey)) {
+            return null;
+        }
+        Builder builder = new Builder();
+        int from = 0;
+        while (from < lockKey.length()) {
+            int end = lockKey.indexOf(';', from);
+            if (end < 0) {
+                end = lockKey.length();
+            }
+            int idx = lockKey.indexOf(':', from);
+            if (idx < 0 || idx > end) {
+                // the same as the string form is read by the server
+                break;
+            }
+            builder.table(lockKey.substring(from, idx));
+            int pkFrom = idx + 1;
+            while (pkFrom <= end) {
+                int pkEnd = lockKey.indexOf(',', pkFrom);
+                if (pkEnd < 0 || pkEnd > end) {
+                    pkEnd = end;
+                }
+                builder.pk(lockKey.substring(pkFrom, pkEnd));
+                pkFrom = pkEnd + 1;
+            }
+            from = end + 1;
+        }
+        return builder.build();
+    }
+
+    private static ByteBuffer wrap(byte[] lockKey) {
+        if (!isBinaryLockKey(lockKey)) {
+            throw new IllegalArgumentException("not the binary lock keys");
+        }
+        ByteBuffer in = ByteBuffer.wrap(lockKey);
+        in.get();
+        return in;
+    }
+
+    /**
+     * Read a count, each of the counted items takes at least the given bytes of the rest.
+     */
+    private static int readCount(ByteBuffer in, int minItemLength) {
+        if (in.remaining() < 4) {
+            throw malformed("the count is truncated at " + in.position());
+        }
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / minItemLength) {
+            throw malformed("the count " + count + " exceeds the rest " + in.remaining() + " at " + in.position());
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer in) {
+        if (in.remaining() < 2) {
+            throw malformed("the length is truncated at " + in.position());
+        }
+        int length = in.getShort() & MAX_STRING_LENGTH;
+        if (length > in.remaining()) {
+            throw malformed("the length " + length + " exceeds the rest " + in.remaining() + " at " + in.position());
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static IllegalArgumentException malformed(String message) {
+        return new IllegalArgumentException("malformed binary lock keys, " + message);
+    }
+
+    /**
+     * The builder of the binary lock keys, the primary keys are added after their table.
+     */
+    public static final class Builder {
+
+        private byte[] buffer = new byte[64];
+
+        private int size;
+
+        private int tableCount;
+
+        private int pkCountOffset = -1;
+
+        private int pkCount;
+
+        /**
+         * Instantiates a new Builder.
+         */
+        public Builder() {
+            ensureCapacity(HEADER_LENGTH);
+            buffer[size++] = FORMAT;
+            size += 4;
+        }
+
+        /**
+         * Start the primary keys of a table.
+         *
+         * @param tableName the table name
+         * @return the builder
+         */
+        public Builder table(String tableName) {
+            endTable();
+            writeString(tableName);
+            pkCountOffset = size;
+            ensureCapacity(4);
+            size += 4;
+            pkCount = 0;
+            tableCount++;
+            return this;
+        }
+
+        /**
+         * Add a primary key of the table, the blank one is skipped.
+         *
+         * @param pk the primary key
+         * @return the builder
+         */
+        public Builder pk(String pk) {
+            if (pkCountOffset < 0) {
+                throw new IllegalStateException("the table of the primary key is not set");
+            }
+            if (StringUtils.isNotBlank(pk)) {
+                writeString(pk);
+                pkCount++;
+            }
+            return this;
+        }
+
+        /**
+         * Build the binary lock keys.
+         *
+         * @return the binary lock keys
+         */
+        public byte[] build() {
+            endTable();
+            putInt(1, tableCount);
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void endTable() {
+            if (pkCountOffset >= 0) {
+                putInt(pkCountOffset, pkCount);
+            }
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_STRING_LENGTH) {
+                throw new IllegalArgumentException("the lock key is too long: " + value);
+            }
+            ensureCapacity(2 + bytes.length);
+            buffer[size++] = (byte)(bytes.length >>> 8);
+            buffer[size++] = (byte)bytes.length;
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void putInt(int offset, int value) {
+            buffer[offset] = (byte)(value >>> 24);
+            buffer[offset + 1] = (byte)(value >>> 16);
+            buffer[offset + 2] = (byte)(value >>> 8);
+            buffer[offset + 3] = (byte)value;
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+            }
+        }
+    }
+}
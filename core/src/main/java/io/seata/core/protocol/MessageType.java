@@ -70,6 +70,14 @@ public class MessageType {
      * The constant TYPE_GLOBAL_LOCK_QUERY_RESULT.
      */
     public static final short TYPE_GLOBAL_LOCK_QUERY_RESULT = 22;
+    /**
+     * The constant TYPE_BATCH_BRANCH_REGISTER.
+     */
+    public static final short TYPE_BATCH_BRANCH_REGISTER = 23;
+    /**
+     * The constant TYPE_BATCH_BRANCH_REGISTER_RESULT.
+     */
+    public static final short TYPE_BATCH_BRANCH_REGISTER_RESULT = 24;
 
     /**
      * The constant TYPE_BRANCH_COMMIT.
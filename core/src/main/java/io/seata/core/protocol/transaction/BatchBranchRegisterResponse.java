@@ -0,0 +1,68 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.protocol.transaction;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.seata.core.protocol.MessageType;
+
+/**
+ * The type Batch branch register response.
+ */
+public class BatchBranchRegisterResponse extends AbstractTransactionResponse implements Serializable {
+
+    private List<Long> branchIds = new ArrayList<>();
+
+    /**
+     * Gets the branch ids, in the order of the branches in the request.
+     *
+     * @return the branch ids
+     */
+    public List<Long> getBranchIds() {
+        return branchIds;
+    }
+
+    /**
+     * Sets the branch ids.
+     *
+     * @param branchIds the branch ids
+     */
+    public void setBranchIds(List<Long> branchIds) {
+        this.branchIds = branchIds;
+    }
+
+    @Override
+    public short getTypeCode() {
+        return MessageType.TYPE_BATCH_BRANCH_REGISTER_RESULT;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("BatchBranchRegisterResponse: branchIds=");
+        result.append(branchIds);
+        result.append(",");
+        result.append("result code =");
+        result.append(getResultCode());
+        result.append(",");
+        result.append("getMsg =");
+        result.append(getMsg());
+
+        return result.toString();
+    }
+}
@@ -34,6 +34,8 @@ public class BranchRegisterRequest extends AbstractTransactionRequestToTC  {
 
     private String lockKey;
 
+    private byte[] binaryLockKey;
+
     private String applicationData;
 
     /**
@@ -90,6 +92,25 @@ public class BranchRegisterRequest extends AbstractTransactionRequestToTC  {
         this.lockKey = lockKey;
     }
 
+    /**
+     * Gets the lock keys in the binary form, the server reads them instead of the lock key when they are set.
+     *
+     * @return the binary lock keys
+     * @see io.seata.core.lock.BinaryLockKey
+     */
+    public byte[] getBinaryLockKey() {
+        return binaryLockKey;
+    }
+
+    /**
+     * Sets the lock keys in the binary form.
+     *
+     * @param binaryLockKey the binary lock keys
+     */
+    public void setBinaryLockKey(byte[] binaryLockKey) {
+        this.binaryLockKey = binaryLockKey;
+    }
+
     /**
      * Gets resource id.
      *
@@ -150,6 +171,11 @@ public class BranchRegisterRequest extends AbstractTransactionRequestToTC  {
         result.append(",");
         result.append("lockKey=");
         result.append(lockKey);
+        if (binaryLockKey != null) {
+            result.append(",");
+            result.append("binaryLockKeyLength=");
+            result.append(binaryLockKey.length);
+        }
 
         return result.toString();
     }
@@ -60,6 +60,15 @@ public interface TCInboundHandler {
      */
     BranchRegisterResponse handle(BranchRegisterRequest branchRegister, RpcContext rpcContext);
 
+    /**
+     * Handle batch branch register response.
+     *
+     * @param batchBranchRegister the batch branch register
+     * @param rpcContext          the rpc context
+     * @return the batch branch register response
+     */
+    BatchBranchRegisterResponse handle(BatchBranchRegisterRequest batchBranchRegister, RpcContext rpcContext);
+
     /**
      * Handle branch report response.
      *
@@ -24,6 +24,7 @@ import io.seata.core.protocol.MessageFuture;
 import io.seata.core.protocol.RegisterRMResponse;
 import io.seata.core.protocol.RegisterTMResponse;
 import io.seata.core.protocol.RpcMessage;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchReportResponse;
 import io.seata.core.protocol.transaction.GlobalBeginResponse;
@@ -50,6 +51,7 @@ import java.util.concurrent.ConcurrentMap;
  * 3) {@link BranchRegisterResponse}
  * 4) {@link BranchReportResponse}
  * 5) {@link GlobalLockQueryResponse}
+ * 6) {@link BatchBranchRegisterResponse}
  * TM:
  * 1) {@link MergeResultMessage}
  * 2) {@link RegisterTMResponse}
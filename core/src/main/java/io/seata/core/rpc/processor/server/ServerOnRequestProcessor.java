@@ -22,6 +22,7 @@ import io.seata.core.protocol.AbstractResultMessage;
 import io.seata.core.protocol.MergeResultMessage;
 import io.seata.core.protocol.MergedWarpMessage;
 import io.seata.core.protocol.RpcMessage;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import io.seata.core.protocol.transaction.BranchReportRequest;
 import io.seata.core.protocol.transaction.GlobalBeginRequest;
@@ -47,6 +48,7 @@ import org.slf4j.LoggerFactory;
  * 2) {@link BranchRegisterRequest}
  * 3) {@link BranchReportRequest}
  * 4) {@link GlobalLockQueryRequest}
+ * 5) {@link BatchBranchRegisterRequest}
  * TM:
  * 1) {@link MergedWarpMessage}
  * 2) {@link GlobalBeginRequest}
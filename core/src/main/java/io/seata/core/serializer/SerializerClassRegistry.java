@@ -37,6 +37,8 @@ import io.seata.core.protocol.RegisterRMRequest;
 import io.seata.core.protocol.RegisterRMResponse;
 import io.seata.core.protocol.RegisterTMRequest;
 import io.seata.core.protocol.RegisterTMResponse;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchCommitRequest;
 import io.seata.core.protocol.transaction.BranchCommitResponse;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
@@ -100,6 +102,8 @@ public class SerializerClassRegistry {
         registerClass(BranchCommitResponse.class);
         registerClass(BranchRegisterRequest.class);
         registerClass(BranchRegisterResponse.class);
+        registerClass(BatchBranchRegisterRequest.class);
+        registerClass(BatchBranchRegisterResponse.class);
         registerClass(BranchReportRequest.class);
         registerClass(BranchReportResponse.class);
         registerClass(BranchRollbackRequest.class);
@@ -50,6 +50,25 @@ public interface LogStore {
      */
     List<GlobalTransactionDO> queryGlobalTransactionDO(int[] status, int limit);
 
+    /**
+     * Query a page of the global transaction do list of the statuses, in the order of the transaction id.
+     *
+     * @param statuses           the statuses
+     * @param afterTransactionId the last transaction id of the previous page
+     * @param limit              the limit
+     * @return the list
+     */
+    List<GlobalTransactionDO> queryGlobalTransactionDO(int[] statuses, long afterTransactionId, int limit);
+
+    /**
+     * Query the global transaction do list which are still begin and timeout, in the order of the deadline.
+     *
+     * @param now   the current time millis
+     * @param limit the limit
+     * @return the list, or null if the store does not support the query
+     */
+    List<GlobalTransactionDO> queryTimeoutGlobalTransactionDO(long now, int limit);
+
     /**
      * Insert global transaction do boolean.
      *
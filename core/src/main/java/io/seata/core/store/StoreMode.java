@@ -35,7 +35,17 @@ public enum StoreMode {
     /**
      * redis store
      */
-    REDIS("redis");
+    REDIS("redis"),
+
+    /**
+     * embedded key value store
+     */
+    KV("kv"),
+
+    /**
+     * in-memory sessions and locks, written behind to db
+     */
+    HYBRID("hybrid");
 
     private String name;
 
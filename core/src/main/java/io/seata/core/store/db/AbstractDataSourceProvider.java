@@ -15,6 +15,7 @@
  */
 package io.seata.core.store.db;
 
+import io.seata.common.exception.NotSupportYetException;
 import io.seata.common.exception.StoreException;
 import io.seata.common.executor.Initialize;
 import io.seata.common.util.StringUtils;
@@ -82,6 +83,15 @@ public abstract class AbstractDataSourceProvider implements DataSourceProvider,
      */
     public abstract DataSource generate();
 
+    /**
+     * generate a datasource on another url of the same db type, with the same settings
+     * @param url the url
+     * @return datasource
+     */
+    public DataSource generate(String url) {
+        throw new NotSupportYetException(getClass().getName() + " can not generate a datasource on another url");
+    }
+
     /**
      * Get db type db type.
      *
@@ -87,6 +87,12 @@ public class AbstractLockStoreSql implements LockStoreSql {
     private static final String QUERY_LOCK_SQL = "select " + ALL_COLUMNS + " from " + LOCK_TABLE_PLACE_HOLD
         + " where " + ServerTableColumnsName.LOCK_TABLE_ROW_KEY + " = ? ";
 
+    /**
+     * The constant QUERY_LOCK_BY_XIDS_SQL.
+     */
+    private static final String QUERY_LOCK_BY_XIDS_SQL = "select " + ALL_COLUMNS + " from " + LOCK_TABLE_PLACE_HOLD
+        + " where " + ServerTableColumnsName.LOCK_TABLE_XID + " in (" + IN_PARAMS_PLACE_HOLD + ")";
+
     /**
      * The constant CHECK_LOCK_SQL.
      */
@@ -99,6 +105,27 @@ public class AbstractLockStoreSql implements LockStoreSql {
         throw new NotSupportYetException("unknown dbType:" + CONFIG.getConfig(ConfigurationKeys.STORE_DB_TYPE));
     }
 
+    @Override
+    public String getBatchInsertLockSQL(String lockTable, int rowCount) {
+        return null;
+    }
+
+    /**
+     * Repeat the values of the single row insert sql for each row.
+     *
+     * @param insertLockSQL the single row insert sql
+     * @param rowCount      the count of the rows
+     * @return the multiple rows insert sql
+     */
+    protected static String repeatValues(String insertLockSQL, int rowCount) {
+        String values = insertLockSQL.substring(insertLockSQL.lastIndexOf(" values ") + " values ".length());
+        StringBuilder sql = new StringBuilder(insertLockSQL);
+        for (int i = 1; i < rowCount; i++) {
+            sql.append(", ").append(values);
+        }
+        return sql.toString();
+    }
+
     @Override
     public String getDeleteLockSql(String lockTable) {
         return DELETE_LOCK_SQL.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
@@ -126,6 +153,12 @@ public class AbstractLockStoreSql implements LockStoreSql {
         return QUERY_LOCK_SQL.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
     }
 
+    @Override
+    public String getQueryLockByXidsSql(String lockTable, String paramPlaceHold) {
+        return QUERY_LOCK_BY_XIDS_SQL.replace(LOCK_TABLE_PLACE_HOLD, lockTable).replace(IN_PARAMS_PLACE_HOLD,
+            paramPlaceHold);
+    }
+
     @Override
     public String getCheckLockableSql(String lockTable, String paramPlaceHold) {
         return CHECK_LOCK_SQL.replace(LOCK_TABLE_PLACE_HOLD, lockTable).replace(IN_PARAMS_PLACE_HOLD, paramPlaceHold);
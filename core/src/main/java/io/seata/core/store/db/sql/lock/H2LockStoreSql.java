@@ -37,4 +37,9 @@ public class H2LockStoreSql extends AbstractLockStoreSql {
         return INSERT_LOCK_SQL_H2.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
     }
 
+    @Override
+    public String getBatchInsertLockSQL(String lockTable, int rowCount) {
+        return repeatValues(getInsertLockSQL(lockTable), rowCount);
+    }
+
 }
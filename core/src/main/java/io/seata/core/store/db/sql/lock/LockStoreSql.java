@@ -31,6 +31,15 @@ public interface LockStoreSql {
      */
     String getInsertLockSQL(String lockTable);
 
+    /**
+     * Get the sql inserting the rows in one statement, the statement fails as a whole if any row key exists.
+     *
+     * @param lockTable the lock table
+     * @param rowCount  the count of the rows
+     * @return the sql, or null if the db type can not insert the rows in one statement
+     */
+    String getBatchInsertLockSQL(String lockTable, int rowCount);
+
     /**
      * Get delete lock sql string.
      *
@@ -73,6 +82,15 @@ public interface LockStoreSql {
      */
     String getQueryLockSql(String lockTable);
 
+    /**
+     * Get the sql querying the locks of the transactions.
+     *
+     * @param lockTable      the lock table
+     * @param paramPlaceHold the param place hold of the xids
+     * @return the string
+     */
+    String getQueryLockByXidsSql(String lockTable, String paramPlaceHold);
+
     /**
      * Get check lock sql string.
      *
@@ -37,4 +37,9 @@ public class MysqlLockStoreSql extends AbstractLockStoreSql {
         return INSERT_LOCK_SQL_MYSQL.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
     }
 
+    @Override
+    public String getBatchInsertLockSQL(String lockTable, int rowCount) {
+        return repeatValues(getInsertLockSQL(lockTable), rowCount);
+    }
+
 }
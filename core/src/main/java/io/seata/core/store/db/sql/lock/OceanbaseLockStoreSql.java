@@ -36,4 +36,9 @@ public class OceanbaseLockStoreSql extends AbstractLockStoreSql {
     public String getInsertLockSQL(String lockTable) {
         return INSERT_LOCK_SQL_OCEANBASE.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
     }
+
+    @Override
+    public String getBatchInsertLockSQL(String lockTable, int rowCount) {
+        return repeatValues(getInsertLockSQL(lockTable), rowCount);
+    }
 }
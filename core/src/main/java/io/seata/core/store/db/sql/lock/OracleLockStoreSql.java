@@ -37,4 +37,15 @@ public class OracleLockStoreSql extends AbstractLockStoreSql {
         return INSERT_LOCK_SQL_ORACLE.replace(LOCK_TABLE_PLACE_HOLD, lockTable);
     }
 
+    @Override
+    public String getBatchInsertLockSQL(String lockTable, int rowCount) {
+        // insert all into t values (...) into t values (...) select 1 from dual
+        String intoLockSQL = getInsertLockSQL(lockTable).substring("insert ".length());
+        StringBuilder sql = new StringBuilder("insert all");
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(' ').append(intoLockSQL);
+        }
+        return sql.append(" select 1 from dual").toString();
+    }
+
 }
@@ -154,6 +154,9 @@ public abstract class AbstractLogStoreSqls implements LogStoreSqls {
     @Override
     public abstract String getQueryGlobalTransactionSQLByStatus(String globalTable, String paramsPlaceHolder);
 
+    @Override
+    public abstract String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder);
+
     @Override
     public abstract String getQueryGlobalTransactionForRecoverySQL(String globalTable);
 
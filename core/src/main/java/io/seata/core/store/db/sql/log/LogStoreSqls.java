@@ -70,6 +70,16 @@ public interface LogStoreSqls {
      */
     String getQueryGlobalTransactionSQLByStatus(String globalTable, String paramsPlaceHolder);
 
+    /**
+     * Get query global transaction by status after a transaction id sql string, the params are the statuses, the
+     * last transaction id of the previous page and the limit, the rows are ordered by the transaction id.
+     *
+     * @param globalTable       the global table
+     * @param paramsPlaceHolder the params place holder of the statuses
+     * @return the string
+     */
+    String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder);
+
     /**
      * Get query global transaction for recovery sql string.
      *
@@ -78,6 +88,15 @@ public interface LogStoreSqls {
      */
     String getQueryGlobalTransactionForRecoverySQL(String globalTable);
 
+    /**
+     * Get query timeout global transaction sql string, the params are the status, the current time millis and the
+     * limit, the rows are ordered by the deadline.
+     *
+     * @param globalTable the global table
+     * @return the string
+     */
+    String getQueryTimeoutGlobalTransactionSQL(String globalTable);
+
     /**
      * Get insert branch transaction sql string.
      *
@@ -51,6 +51,18 @@ public class OracleLogStoreSqls extends AbstractLogStoreSqls {
             + " ) A"
             + " where ROWNUM <= ?";
 
+    /**
+     * The constant QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_ORACLE.
+     */
+    public static final String QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_ORACLE = "select A.* from ("
+            + " select " + ALL_GLOBAL_COLUMNS
+            + "   from " + GLOBAL_TABLE_PLACEHOLD
+            + "  where " + ServerTableColumnsName.GLOBAL_TABLE_STATUS + " in (" + PRAMETER_PLACEHOLD + ")"
+            + "    and " + ServerTableColumnsName.GLOBAL_TABLE_TRANSACTION_ID + " > ?"
+            + "  order by " + ServerTableColumnsName.GLOBAL_TABLE_TRANSACTION_ID
+            + " ) A"
+            + " where ROWNUM <= ?";
+
     /**
      * The constant QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_ORACLE.
      */
@@ -62,6 +74,18 @@ public class OracleLogStoreSqls extends AbstractLogStoreSqls {
             + " ) A"
             + " where ROWNUM <= ?";
 
+    /**
+     * The constant QUERY_TIMEOUT_GLOBAL_TRANSACTION_ORACLE.
+     */
+    public static final String QUERY_TIMEOUT_GLOBAL_TRANSACTION_ORACLE = "select A.* from ("
+            + " select " + ALL_GLOBAL_COLUMNS
+            + "   from " + GLOBAL_TABLE_PLACEHOLD
+            + "  where " + ServerTableColumnsName.GLOBAL_TABLE_STATUS + " = ?"
+            + "    and " + ServerTableColumnsName.GLOBAL_TABLE_DEADLINE + " < ?"
+            + "  order by " + ServerTableColumnsName.GLOBAL_TABLE_DEADLINE
+            + " ) A"
+            + " where ROWNUM <= ?";
+
     /**
      * The constant INSERT_BRANCH_TRANSACTION_ORACLE.
      */
@@ -94,11 +118,22 @@ public class OracleLogStoreSqls extends AbstractLogStoreSqls {
             .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
     }
 
+    @Override
+    public String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder) {
+        return QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_ORACLE.replace(GLOBAL_TABLE_PLACEHOLD, globalTable)
+            .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
+    }
+
     @Override
     public String getQueryGlobalTransactionForRecoverySQL(String globalTable) {
         return QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_ORACLE.replace(GLOBAL_TABLE_PLACEHOLD, globalTable);
     }
 
+    @Override
+    public String getQueryTimeoutGlobalTransactionSQL(String globalTable) {
+        return QUERY_TIMEOUT_GLOBAL_TRANSACTION_ORACLE.replace(GLOBAL_TABLE_PLACEHOLD, globalTable);
+    }
+
     @Override
     public String getInsertBranchTransactionSQL(String branchTable) {
         return INSERT_BRANCH_TRANSACTION_ORACLE.replace(BRANCH_TABLE_PLACEHOLD, branchTable);
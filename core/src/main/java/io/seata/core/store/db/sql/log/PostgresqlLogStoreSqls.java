@@ -49,6 +49,16 @@ public class PostgresqlLogStoreSqls extends AbstractLogStoreSqls {
             + " order by " + ServerTableColumnsName.GLOBAL_TABLE_GMT_MODIFIED
             + " limit ?";
 
+    /**
+     * The constant QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_POSTGRESQL.
+     */
+    public static final String QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_POSTGRESQL = "select " + ALL_GLOBAL_COLUMNS
+            + "  from " + GLOBAL_TABLE_PLACEHOLD
+            + " where " + ServerTableColumnsName.GLOBAL_TABLE_STATUS + " in (" + PRAMETER_PLACEHOLD + ")"
+            + "   and " + ServerTableColumnsName.GLOBAL_TABLE_TRANSACTION_ID + " > ?"
+            + " order by " + ServerTableColumnsName.GLOBAL_TABLE_TRANSACTION_ID
+            + " limit ?";
+
     /**
      * The constant QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_POSTGRESQL.
      */
@@ -58,6 +68,16 @@ public class PostgresqlLogStoreSqls extends AbstractLogStoreSqls {
             + " order by " + ServerTableColumnsName.GLOBAL_TABLE_GMT_MODIFIED
             + " limit ?";
 
+    /**
+     * The constant QUERY_TIMEOUT_GLOBAL_TRANSACTION_POSTGRESQL.
+     */
+    public static final String QUERY_TIMEOUT_GLOBAL_TRANSACTION_POSTGRESQL = "select " + ALL_GLOBAL_COLUMNS
+            + "  from " + GLOBAL_TABLE_PLACEHOLD
+            + " where " + ServerTableColumnsName.GLOBAL_TABLE_STATUS + " = ?"
+            + "   and " + ServerTableColumnsName.GLOBAL_TABLE_DEADLINE + " < ?"
+            + " order by " + ServerTableColumnsName.GLOBAL_TABLE_DEADLINE
+            + " limit ?";
+
     /**
      * The constant INSERT_BRANCH_TRANSACTION_POSTGRESQL.
      */
@@ -90,11 +110,22 @@ public class PostgresqlLogStoreSqls extends AbstractLogStoreSqls {
             .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
     }
 
+    @Override
+    public String getQueryGlobalTransactionSQLByStatusAfter(String globalTable, String paramsPlaceHolder) {
+        return QUERY_GLOBAL_TRANSACTION_BY_STATUS_AFTER_POSTGRESQL.replace(GLOBAL_TABLE_PLACEHOLD, globalTable)
+            .replace(PRAMETER_PLACEHOLD, paramsPlaceHolder);
+    }
+
     @Override
     public String getQueryGlobalTransactionForRecoverySQL(String globalTable) {
         return QUERY_GLOBAL_TRANSACTION_FOR_RECOVERY_POSTGRESQL.replace(GLOBAL_TABLE_PLACEHOLD, globalTable);
     }
 
+    @Override
+    public String getQueryTimeoutGlobalTransactionSQL(String globalTable) {
+        return QUERY_TIMEOUT_GLOBAL_TRANSACTION_POSTGRESQL.replace(GLOBAL_TABLE_PLACEHOLD, globalTable);
+    }
+
     @Override
     public String getInsertBranchTransactionSQL(String branchTable) {
         return INSERT_BRANCH_TRANSACTION_POSTGRESQL.replace(BRANCH_TABLE_PLACEHOLD, branchTable);
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.core.lock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test for {@link BinaryLockKey}
+ */
+public class BinaryLockKeyTest {
+
+    @Test
+    public void testRoundTrip() {
+        byte[] lockKey = BinaryLockKey.fromLockKey("t1:1,2;t2:3");
+        Assertions.assertTrue(BinaryLockKey.isBinaryLockKey(lockKey));
+        Assertions.assertEquals("t1:1,2;t2:3", BinaryLockKey.toLockKey(lockKey));
+
+        List<String> rows = new ArrayList<>();
+        BinaryLockKey.forEachRow(lockKey, (tableName, pk) -> rows.add(tableName + ":" + pk));
+        Assertions.assertEquals(Arrays.asList("t1:1", "t1:2", "t2:3"), rows);
+    }
+
+    @Test
+    public void testMalformed() {
+        byte[] lockKey = BinaryLockKey.fromLockKey("t1:1,2;t2:3");
+        // truncated in the middle of a primary key
+        assertMalformed(Arrays.copyOf(lockKey, lockKey.length - 1));
+        // truncated before the count of the primary keys
+        assertMalformed(Arrays.copyOf(lockKey, 9));
+
+        // the count of the tables is negative or more than the bytes can hold
+        byte[] negativeCount = lockKey.clone();
+        negativeCount[1] = (byte)0x80;
+        assertMalformed(negativeCount);
+        byte[] largeCount = lockKey.clone();
+        largeCount[1] = 0x7F;
+        assertMalformed(largeCount);
+
+        // the length of the table name is more than the rest
+        byte[] largeLength = lockKey.clone();
+        largeLength[5] = (byte)0xFF;
+        assertMalformed(largeLength);
+    }
+
+    private static void assertMalformed(byte[] lockKey) {
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> BinaryLockKey.toLockKey(lockKey));
+        Assertions.assertTrue(e.getMessage().startsWith("malformed binary lock keys"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> BinaryLockKey.forEachRow(lockKey, (tableName, pk) -> { }));
+    }
+}
@@ -52,8 +52,12 @@ public class LogStoreSqlsFactoryTest {
         Assertions.assertNotNull(sql);
         sql = mysqlLog.getQueryGlobalTransactionSQLByStatus(globalTable, "1");
         Assertions.assertNotNull(sql);
+        sql = mysqlLog.getQueryGlobalTransactionSQLByStatusAfter(globalTable, "1");
+        Assertions.assertNotNull(sql);
         sql = mysqlLog.getQueryGlobalTransactionForRecoverySQL(globalTable);
         Assertions.assertNotNull(sql);
+        sql = mysqlLog.getQueryTimeoutGlobalTransactionSQL(globalTable);
+        Assertions.assertNotNull(sql);
         sql = mysqlLog.getInsertBranchTransactionSQL(branchTable);
         Assertions.assertNotNull(sql);
         sql = mysqlLog.getUpdateBranchTransactionStatusSQL(branchTable);
@@ -87,8 +91,12 @@ public class LogStoreSqlsFactoryTest {
         Assertions.assertNotNull(sql);
         sql = oracleLog.getQueryGlobalTransactionSQLByStatus(globalTable, "1");
         Assertions.assertNotNull(sql);
+        sql = oracleLog.getQueryGlobalTransactionSQLByStatusAfter(globalTable, "1");
+        Assertions.assertNotNull(sql);
         sql = oracleLog.getQueryGlobalTransactionForRecoverySQL(globalTable);
         Assertions.assertNotNull(sql);
+        sql = oracleLog.getQueryTimeoutGlobalTransactionSQL(globalTable);
+        Assertions.assertNotNull(sql);
         sql = oracleLog.getInsertBranchTransactionSQL(branchTable);
         Assertions.assertNotNull(sql);
         sql = oracleLog.getUpdateBranchTransactionStatusSQL(branchTable);
@@ -122,8 +130,12 @@ public class LogStoreSqlsFactoryTest {
         Assertions.assertNotNull(sql);
         sql = pgLog.getQueryGlobalTransactionSQLByStatus(globalTable, "1");
         Assertions.assertNotNull(sql);
+        sql = pgLog.getQueryGlobalTransactionSQLByStatusAfter(globalTable, "1");
+        Assertions.assertNotNull(sql);
         sql = pgLog.getQueryGlobalTransactionForRecoverySQL(globalTable);
         Assertions.assertNotNull(sql);
+        sql = pgLog.getQueryTimeoutGlobalTransactionSQL(globalTable);
+        Assertions.assertNotNull(sql);
         sql = pgLog.getInsertBranchTransactionSQL(branchTable);
         Assertions.assertNotNull(sql);
         sql = pgLog.getUpdateBranchTransactionStatusSQL(branchTable);
@@ -157,8 +169,12 @@ public class LogStoreSqlsFactoryTest {
         Assertions.assertNotNull(sql);
         sql = h2Log.getQueryGlobalTransactionSQLByStatus(globalTable, "1");
         Assertions.assertNotNull(sql);
+        sql = h2Log.getQueryGlobalTransactionSQLByStatusAfter(globalTable, "1");
+        Assertions.assertNotNull(sql);
         sql = h2Log.getQueryGlobalTransactionForRecoverySQL(globalTable);
         Assertions.assertNotNull(sql);
+        sql = h2Log.getQueryTimeoutGlobalTransactionSQL(globalTable);
+        Assertions.assertNotNull(sql);
         sql = h2Log.getInsertBranchTransactionSQL(branchTable);
         Assertions.assertNotNull(sql);
         sql = h2Log.getUpdateBranchTransactionStatusSQL(branchTable);
@@ -192,8 +208,12 @@ public class LogStoreSqlsFactoryTest {
         Assertions.assertNotNull(sql);
         sql = oceanbase.getQueryGlobalTransactionSQLByStatus(globalTable, "1");
         Assertions.assertNotNull(sql);
+        sql = oceanbase.getQueryGlobalTransactionSQLByStatusAfter(globalTable, "1");
+        Assertions.assertNotNull(sql);
         sql = oceanbase.getQueryGlobalTransactionForRecoverySQL(globalTable);
         Assertions.assertNotNull(sql);
+        sql = oceanbase.getQueryTimeoutGlobalTransactionSQL(globalTable);
+        Assertions.assertNotNull(sql);
         sql = oceanbase.getInsertBranchTransactionSQL(branchTable);
         Assertions.assertNotNull(sql);
         sql = oceanbase.getUpdateBranchTransactionStatusSQL(branchTable);
@@ -23,6 +23,12 @@ package io.seata.metrics;
 public class IdConstants {
     public static final String SEATA_TRANSACTION = "seata.transaction";
 
+    public static final String SEATA_RECOVERY = "seata.recovery";
+
+    public static final String SEATA_CIRCUIT_BREAKER = "seata.circuitBreaker";
+
+    public static final String SEATA_STORE = "seata.store";
+
     public static final String NAME_KEY = "name";
 
     public static final String ROLE_KEY = "role";
@@ -62,4 +68,20 @@ public class IdConstants {
     public static final String STATUS_VALUE_COMMITTED = "committed";
 
     public static final String STATUS_VALUE_ROLLBACKED = "rollbacked";
+
+    public static final String STATUS_VALUE_OPEN = "open";
+
+    public static final String STATUS_VALUE_HALF_OPEN = "halfOpen";
+
+    public static final String STATUS_VALUE_REJECTED = "rejected";
+
+    public static final String NAME_VALUE_RETRY_ROLLBACKING = "retryRollbacking";
+
+    public static final String NAME_VALUE_RETRY_COMMITTING = "retryCommitting";
+
+    public static final String NAME_VALUE_ASYNC_COMMITTING = "asyncCommitting";
+
+    public static final String NAME_VALUE_TIMEOUT_CHECK = "timeoutCheck";
+
+    public static final String NAME_VALUE_GROUP_COMMIT = "groupCommit";
 }
@@ -16,14 +16,21 @@
 package io.seata.rm;
 
 import io.seata.common.exception.NotSupportYetException;
+import io.seata.common.util.StringUtils;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.exception.RmTransactionException;
 import io.seata.core.exception.TransactionException;
 import io.seata.core.exception.TransactionExceptionCode;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchStatus;
 import io.seata.core.model.BranchType;
 import io.seata.core.model.Resource;
 import io.seata.core.model.ResourceManager;
 import io.seata.core.protocol.ResultCode;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import io.seata.core.protocol.transaction.BranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchReportRequest;
@@ -32,6 +39,7 @@ import io.seata.core.rpc.netty.RmNettyRemotingClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -43,6 +51,9 @@ public abstract class AbstractResourceManager implements ResourceManager {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(AbstractResourceManager.class);
 
+    private static final boolean BINARY_LOCK_KEY_ENABLE = ConfigurationFactory.getInstance().getBoolean(
+        ConfigurationKeys.CLIENT_BINARY_LOCK_KEY_ENABLE, DefaultValues.DEFAULT_CLIENT_BINARY_LOCK_KEY_ENABLE);
+
     /**
      * registry branch record
      *
@@ -59,7 +70,7 @@ public abstract class AbstractResourceManager implements ResourceManager {
         try {
             BranchRegisterRequest request = new BranchRegisterRequest();
             request.setXid(xid);
-            request.setLockKey(lockKeys);
+            setLockKey(request, lockKeys);
             request.setResourceId(resourceId);
             request.setBranchType(branchType);
             request.setApplicationData(applicationData);
@@ -76,6 +87,53 @@ public abstract class AbstractResourceManager implements ResourceManager {
         }
     }
 
+    /**
+     * registry branch records of a global transaction in one request
+     *
+     * @param xid      the xid
+     * @param branches the branches to register
+     * @return the branch ids, in the order of the branches
+     * @throws TransactionException if any branch failed to register, none of them is registered
+     */
+    public List<Long> batchBranchRegister(String xid, List<BranchRegisterRequest> branches) throws TransactionException {
+        try {
+            BatchBranchRegisterRequest request = new BatchBranchRegisterRequest();
+            request.setXid(xid);
+            for (BranchRegisterRequest branch : branches) {
+                if (branch.getBinaryLockKey() == null) {
+                    setLockKey(branch, branch.getLockKey());
+                }
+            }
+            request.setBranchRegisterRequests(branches);
+
+            BatchBranchRegisterResponse response = (BatchBranchRegisterResponse) RmNettyRemotingClient.getInstance().sendSyncRequest(request);
+            if (response.getResultCode() == ResultCode.Failed) {
+                throw new RmTransactionException(response.getTransactionExceptionCode(), String.format("Response[ %s ]", response.getMsg()));
+            }
+            return response.getBranchIds();
+        } catch (TimeoutException toe) {
+            throw new RmTransactionException(TransactionExceptionCode.IO, "RPC Timeout", toe);
+        } catch (RuntimeException rex) {
+            throw new RmTransactionException(TransactionExceptionCode.BranchRegisterFailed, "Runtime", rex);
+        }
+    }
+
+    /**
+     * Set the lock keys of the request, they are sent in the binary form if it is enabled, which the servers read
+     * without splitting them. The servers of the earlier versions only read the string form.
+     *
+     * @param request  the request
+     * @param lockKeys the lock keys
+     */
+    protected static void setLockKey(BranchRegisterRequest request, String lockKeys) {
+        if (BINARY_LOCK_KEY_ENABLE && StringUtils.isNotBlank(lockKeys)) {
+            request.setLockKey(null);
+            request.setBinaryLockKey(BinaryLockKey.fromLockKey(lockKeys));
+        } else {
+            request.setLockKey(lockKeys);
+        }
+    }
+
     /**
      * report branch status
      *
@@ -13,9 +13,11 @@ CREATE TABLE IF NOT EXISTS `global_table`
     `application_data`          VARCHAR(2000),
     `gmt_create`                DATETIME,
     `gmt_modified`              DATETIME,
+    `deadline`                  BIGINT AS (`begin_time` + `timeout`) STORED,
     PRIMARY KEY (`xid`),
     KEY `idx_gmt_modified_status` (`gmt_modified`, `status`),
-    KEY `idx_transaction_id` (`transaction_id`)
+    KEY `idx_transaction_id` (`transaction_id`),
+    KEY `idx_status_deadline` (`status`, `deadline`)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8;
 
@@ -13,11 +13,13 @@ CREATE TABLE global_table
     application_data          VARCHAR2(2000),
     gmt_create                TIMESTAMP(0),
     gmt_modified              TIMESTAMP(0),
+    deadline                  NUMBER(19) GENERATED ALWAYS AS (begin_time + timeout) VIRTUAL,
     PRIMARY KEY (xid)
 );
 
 CREATE INDEX idx_gmt_modified_status ON global_table (gmt_modified, status);
 CREATE INDEX idx_transaction_id ON global_table (transaction_id);
+CREATE INDEX idx_status_deadline ON global_table (status, deadline);
 
 -- the table to store BranchSession data
 CREATE TABLE branch_table
@@ -13,11 +13,13 @@ CREATE TABLE IF NOT EXISTS public.global_table
     application_data          VARCHAR(2000),
     gmt_create                TIMESTAMP(0),
     gmt_modified              TIMESTAMP(0),
+    deadline                  BIGINT GENERATED ALWAYS AS (begin_time + timeout) STORED,
     CONSTRAINT pk_global_table PRIMARY KEY (xid)
 );
 
 CREATE INDEX idx_gmt_modified_status ON public.global_table (gmt_modified, status);
 CREATE INDEX idx_transaction_id ON public.global_table (transaction_id);
+CREATE INDEX idx_status_deadline ON public.global_table (status, deadline);
 
 -- the table to store BranchSession data
 CREATE TABLE IF NOT EXISTS public.branch_table
@@ -19,6 +19,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import static io.seata.core.constants.DefaultValues.DEFAULT_CLIENT_ASYNC_COMMIT_BUFFER_LIMIT;
+import static io.seata.core.constants.DefaultValues.DEFAULT_CLIENT_BINARY_LOCK_KEY_ENABLE;
 import static io.seata.core.constants.DefaultValues.DEFAULT_CLIENT_REPORT_RETRY_COUNT;
 import static io.seata.core.constants.DefaultValues.DEFAULT_CLIENT_REPORT_SUCCESS_ENABLE;
 import static io.seata.core.constants.DefaultValues.DEFAULT_CLIENT_SAGA_BRANCH_REGISTER_ENABLE;
@@ -36,6 +37,7 @@ public class RmProperties {
     private boolean tableMetaCheckEnable = DEFAULT_CLIENT_TABLE_META_CHECK_ENABLE;
     private boolean reportSuccessEnable = DEFAULT_CLIENT_REPORT_SUCCESS_ENABLE;
     private boolean sagaBranchRegisterEnable = DEFAULT_CLIENT_SAGA_BRANCH_REGISTER_ENABLE;
+    private boolean binaryLockKeyEnable = DEFAULT_CLIENT_BINARY_LOCK_KEY_ENABLE;
 
     public int getAsyncCommitBufferLimit() {
         return asyncCommitBufferLimit;
@@ -80,4 +82,13 @@ public class RmProperties {
     public void setSagaBranchRegisterEnable(boolean sagaBranchRegisterEnable) {
         this.sagaBranchRegisterEnable = sagaBranchRegisterEnable;
     }
+
+    public boolean isBinaryLockKeyEnable() {
+        return binaryLockKeyEnable;
+    }
+
+    public RmProperties setBinaryLockKeyEnable(boolean binaryLockKeyEnable) {
+        this.binaryLockKeyEnable = binaryLockKeyEnable;
+        return this;
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.serializer.protobuf.convertor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BranchRegisterRequest;
+import io.seata.serializer.protobuf.generated.AbstractMessageProto;
+import io.seata.serializer.protobuf.generated.AbstractTransactionRequestProto;
+import io.seata.serializer.protobuf.generated.BatchBranchRegisterRequestProto;
+import io.seata.serializer.protobuf.generated.BranchRegisterRequestProto;
+import io.seata.serializer.protobuf.generated.MessageTypeProto;
+
+/**
+ * The type Batch branch register request convertor.
+ */
+public class BatchBranchRegisterRequestConvertor
+    implements PbConvertor<BatchBranchRegisterRequest, BatchBranchRegisterRequestProto> {
+
+    private final BranchRegisterRequestConvertor branchRegisterRequestConvertor = new BranchRegisterRequestConvertor();
+
+    @Override
+    public BatchBranchRegisterRequestProto convert2Proto(BatchBranchRegisterRequest batchBranchRegisterRequest) {
+        final short typeCode = batchBranchRegisterRequest.getTypeCode();
+
+        final AbstractMessageProto abstractMessage = AbstractMessageProto.newBuilder().setMessageType(
+            MessageTypeProto.forNumber(typeCode)).build();
+
+        final AbstractTransactionRequestProto abstractTransactionRequestProto = AbstractTransactionRequestProto
+            .newBuilder().setAbstractMessage(abstractMessage).build();
+
+        final String xid = batchBranchRegisterRequest.getXid();
+        BatchBranchRegisterRequestProto.Builder builder = BatchBranchRegisterRequestProto.newBuilder()
+            .setAbstractTransactionRequest(abstractTransactionRequestProto).setXid(xid == null ? "" : xid);
+        for (BranchRegisterRequest branchRegisterRequest : batchBranchRegisterRequest.getBranchRegisterRequests()) {
+            builder.addBranchRegisterRequests(branchRegisterRequestConvertor.convert2Proto(branchRegisterRequest));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public BatchBranchRegisterRequest convert2Model(BatchBranchRegisterRequestProto batchBranchRegisterRequestProto) {
+        BatchBranchRegisterRequest batchBranchRegisterRequest = new BatchBranchRegisterRequest();
+        batchBranchRegisterRequest.setXid(batchBranchRegisterRequestProto.getXid());
+        List<BranchRegisterRequest> branchRegisterRequests = new ArrayList<>(
+            batchBranchRegisterRequestProto.getBranchRegisterRequestsCount());
+        for (BranchRegisterRequestProto branchRegisterRequestProto : batchBranchRegisterRequestProto
+            .getBranchRegisterRequestsList()) {
+            branchRegisterRequests.add(branchRegisterRequestConvertor.convert2Model(branchRegisterRequestProto));
+        }
+        batchBranchRegisterRequest.setBranchRegisterRequests(branchRegisterRequests);
+        return batchBranchRegisterRequest;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.serializer.protobuf.convertor;
+
+import java.util.ArrayList;
+
+import io.seata.core.exception.TransactionExceptionCode;
+import io.seata.core.protocol.ResultCode;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
+import io.seata.serializer.protobuf.generated.AbstractMessageProto;
+import io.seata.serializer.protobuf.generated.AbstractResultMessageProto;
+import io.seata.serializer.protobuf.generated.AbstractTransactionResponseProto;
+import io.seata.serializer.protobuf.generated.BatchBranchRegisterResponseProto;
+import io.seata.serializer.protobuf.generated.MessageTypeProto;
+import io.seata.serializer.protobuf.generated.ResultCodeProto;
+import io.seata.serializer.protobuf.generated.TransactionExceptionCodeProto;
+
+/**
+ * The type Batch branch register response convertor.
+ */
+public class BatchBranchRegisterResponseConvertor
+    implements PbConvertor<BatchBranchRegisterResponse, BatchBranchRegisterResponseProto> {
+    @Override
+    public BatchBranchRegisterResponseProto convert2Proto(BatchBranchRegisterResponse batchBranchRegisterResponse) {
+        final short typeCode = batchBranchRegisterResponse.getTypeCode();
+
+        final AbstractMessageProto abstractMessage = AbstractMessageProto.newBuilder().setMessageType(
+            MessageTypeProto.forNumber(typeCode)).build();
+
+        final String msg = batchBranchRegisterResponse.getMsg();
+        final AbstractResultMessageProto abstractResultMessageProto = AbstractResultMessageProto.newBuilder().setMsg(
+            msg == null ? "" : msg).setResultCode(
+            ResultCodeProto.valueOf(batchBranchRegisterResponse.getResultCode().name()))
+            .setAbstractMessage(abstractMessage).build();
+
+        AbstractTransactionResponseProto abstractTransactionResponseProto = AbstractTransactionResponseProto
+            .newBuilder().setAbstractResultMessage(abstractResultMessageProto).setTransactionExceptionCode(
+                TransactionExceptionCodeProto.valueOf(
+                    batchBranchRegisterResponse.getTransactionExceptionCode().name()))
+            .build();
+
+        return BatchBranchRegisterResponseProto.newBuilder().setAbstractTransactionResponse(
+            abstractTransactionResponseProto).addAllBranchIds(batchBranchRegisterResponse.getBranchIds()).build();
+    }
+
+    @Override
+    public BatchBranchRegisterResponse convert2Model(BatchBranchRegisterResponseProto batchBranchRegisterResponseProto) {
+        BatchBranchRegisterResponse batchBranchRegisterResponse = new BatchBranchRegisterResponse();
+        batchBranchRegisterResponse.setBranchIds(new ArrayList<>(batchBranchRegisterResponseProto.getBranchIdsList()));
+        final AbstractResultMessageProto abstractResultMessage = batchBranchRegisterResponseProto
+            .getAbstractTransactionResponse().getAbstractResultMessage();
+        batchBranchRegisterResponse.setMsg(abstractResultMessage.getMsg());
+        batchBranchRegisterResponse.setResultCode(ResultCode.valueOf(abstractResultMessage.getResultCode().name()));
+        batchBranchRegisterResponse.setTransactionExceptionCode(TransactionExceptionCode.valueOf(
+            batchBranchRegisterResponseProto.getAbstractTransactionResponse().getTransactionExceptionCode().name()));
+
+        return batchBranchRegisterResponse;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.seata.serializer.protobuf.convertor;
 
+import com.google.protobuf.ByteString;
 import io.seata.serializer.protobuf.generated.AbstractMessageProto;
 import io.seata.serializer.protobuf.generated.AbstractTransactionRequestProto;
 import io.seata.serializer.protobuf.generated.BranchRegisterRequestProto;
@@ -40,11 +41,13 @@ public class BranchRegisterRequestConvertor implements PbConvertor<BranchRegiste
         final String applicationData = branchRegisterRequest.getApplicationData();
         final String resourceId = branchRegisterRequest.getResourceId();
         final String lockKey = branchRegisterRequest.getLockKey();
+        final String xid = branchRegisterRequest.getXid();
         BranchRegisterRequestProto result = BranchRegisterRequestProto.newBuilder().setAbstractTransactionRequest(
             abstractTransactionRequestProto).setApplicationData(applicationData == null ? "" : applicationData)
             .setBranchType(BranchTypeProto.valueOf(branchRegisterRequest.getBranchType().name())).setLockKey(
                 lockKey == null ? "" : lockKey).setResourceId(resourceId == null ? "" : resourceId).setXid(
-                branchRegisterRequest.getXid()).build();
+                xid == null ? "" : xid).setBinaryLockKey(toByteString(branchRegisterRequest.getBinaryLockKey()))
+            .build();
         return result;
     }
 
@@ -54,8 +57,15 @@ public class BranchRegisterRequestConvertor implements PbConvertor<BranchRegiste
         branchRegisterRequest.setApplicationData(branchRegisterRequestProto.getApplicationData());
         branchRegisterRequest.setBranchType(BranchType.valueOf(branchRegisterRequestProto.getBranchType().name()));
         branchRegisterRequest.setLockKey(branchRegisterRequestProto.getLockKey());
+        if (!branchRegisterRequestProto.getBinaryLockKey().isEmpty()) {
+            branchRegisterRequest.setBinaryLockKey(branchRegisterRequestProto.getBinaryLockKey().toByteArray());
+        }
         branchRegisterRequest.setResourceId(branchRegisterRequestProto.getResourceId());
         branchRegisterRequest.setXid(branchRegisterRequestProto.getXid());
         return branchRegisterRequest;
     }
-}
\ No newline at end of file
+
+    private static ByteString toByteString(byte[] bytes) {
+        return bytes == null ? ByteString.EMPTY : ByteString.copyFrom(bytes);
+    }
+}
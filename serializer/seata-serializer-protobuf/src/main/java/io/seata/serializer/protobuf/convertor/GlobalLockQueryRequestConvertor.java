@@ -15,6 +15,7 @@
  */
 package io.seata.serializer.protobuf.convertor;
 
+import com.google.protobuf.ByteString;
 import io.seata.serializer.protobuf.generated.AbstractMessageProto;
 import io.seata.serializer.protobuf.generated.AbstractTransactionRequestProto;
 import io.seata.serializer.protobuf.generated.BranchRegisterRequestProto;
@@ -46,7 +47,8 @@ public class GlobalLockQueryRequestConvertor
                 applicationData == null ? "" : applicationData).setBranchType(
                 BranchTypeProto.valueOf(globalLockQueryRequest.getBranchType().name())).setLockKey(
                 lockKey == null ? "" : lockKey).setResourceId(globalLockQueryRequest.getResourceId()).setXid(
-                globalLockQueryRequest.getXid()).build();
+                globalLockQueryRequest.getXid()).setBinaryLockKey(
+                toByteString(globalLockQueryRequest.getBinaryLockKey())).build();
 
         GlobalLockQueryRequestProto result = GlobalLockQueryRequestProto.newBuilder().setBranchRegisterRequest(
             branchRegisterRequestProto).build();
@@ -61,8 +63,15 @@ public class GlobalLockQueryRequestConvertor
         branchRegisterRequest.setApplicationData(branchRegisterRequestProto.getApplicationData());
         branchRegisterRequest.setBranchType(BranchType.valueOf(branchRegisterRequestProto.getBranchType().name()));
         branchRegisterRequest.setLockKey(branchRegisterRequestProto.getLockKey());
+        if (!branchRegisterRequestProto.getBinaryLockKey().isEmpty()) {
+            branchRegisterRequest.setBinaryLockKey(branchRegisterRequestProto.getBinaryLockKey().toByteArray());
+        }
         branchRegisterRequest.setResourceId(branchRegisterRequestProto.getResourceId());
         branchRegisterRequest.setXid(branchRegisterRequestProto.getXid());
         return branchRegisterRequest;
     }
-}
\ No newline at end of file
+
+    private static ByteString toByteString(byte[] bytes) {
+        return bytes == null ? ByteString.EMPTY : ByteString.copyFrom(bytes);
+    }
+}
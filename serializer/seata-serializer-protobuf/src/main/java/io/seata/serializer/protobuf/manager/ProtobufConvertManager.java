@@ -17,6 +17,8 @@ package io.seata.serializer.protobuf.manager;
 
 import io.seata.serializer.protobuf.convertor.BranchCommitRequestConvertor;
 import io.seata.serializer.protobuf.convertor.BranchCommitResponseConvertor;
+import io.seata.serializer.protobuf.convertor.BatchBranchRegisterRequestConvertor;
+import io.seata.serializer.protobuf.convertor.BatchBranchRegisterResponseConvertor;
 import io.seata.serializer.protobuf.convertor.BranchRegisterRequestConvertor;
 import io.seata.serializer.protobuf.convertor.BranchRegisterResponseConvertor;
 import io.seata.serializer.protobuf.convertor.BranchReportRequestConvertor;
@@ -55,6 +57,8 @@ import io.seata.core.protocol.RegisterTMResponse;
 import io.seata.serializer.protobuf.convertor.UndoLogDeleteRequestConvertor;
 import io.seata.serializer.protobuf.generated.BranchCommitRequestProto;
 import io.seata.serializer.protobuf.generated.BranchCommitResponseProto;
+import io.seata.serializer.protobuf.generated.BatchBranchRegisterRequestProto;
+import io.seata.serializer.protobuf.generated.BatchBranchRegisterResponseProto;
 import io.seata.serializer.protobuf.generated.BranchRegisterRequestProto;
 import io.seata.serializer.protobuf.generated.BranchRegisterResponseProto;
 import io.seata.serializer.protobuf.generated.BranchReportRequestProto;
@@ -81,6 +85,8 @@ import io.seata.serializer.protobuf.generated.RegisterTMResponseProto;
 import io.seata.serializer.protobuf.generated.UndoLogDeleteRequestProto;
 import io.seata.core.protocol.transaction.BranchCommitRequest;
 import io.seata.core.protocol.transaction.BranchCommitResponse;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import io.seata.core.protocol.transaction.BranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchReportRequest;
@@ -130,6 +136,10 @@ public class ProtobufConvertManager {
                 new BranchRegisterRequestConvertor());
             protobufConvertManager.convertorMap.put(BranchRegisterResponse.class.getName(),
                 new BranchRegisterResponseConvertor());
+            protobufConvertManager.convertorMap.put(BatchBranchRegisterRequest.class.getName(),
+                new BatchBranchRegisterRequestConvertor());
+            protobufConvertManager.convertorMap.put(BatchBranchRegisterResponse.class.getName(),
+                new BatchBranchRegisterResponseConvertor());
             protobufConvertManager.convertorMap.put(BranchReportRequest.class.getName(),
                 new BranchReportRequestConvertor());
             protobufConvertManager.convertorMap.put(BranchReportResponse.class.getName(),
@@ -187,6 +197,10 @@ public class ProtobufConvertManager {
                 BranchRegisterRequestProto.class);
             protobufConvertManager.protoClazzMap.put(BranchRegisterResponseProto.getDescriptor().getFullName(),
                 BranchRegisterResponseProto.class);
+            protobufConvertManager.protoClazzMap.put(BatchBranchRegisterRequestProto.getDescriptor().getFullName(),
+                BatchBranchRegisterRequestProto.class);
+            protobufConvertManager.protoClazzMap.put(BatchBranchRegisterResponseProto.getDescriptor().getFullName(),
+                BatchBranchRegisterResponseProto.class);
             protobufConvertManager.protoClazzMap.put(BranchReportRequestProto.getDescriptor().getFullName(),
                 BranchReportRequestProto.class);
             protobufConvertManager.protoClazzMap.put(BranchReportResponseProto.getDescriptor().getFullName(),
@@ -245,6 +259,10 @@ public class ProtobufConvertManager {
                 new BranchRegisterRequestConvertor());
             protobufConvertManager.reverseConvertorMap.put(BranchRegisterResponseProto.class.getName(),
                 new BranchRegisterResponseConvertor());
+            protobufConvertManager.reverseConvertorMap.put(BatchBranchRegisterRequestProto.class.getName(),
+                new BatchBranchRegisterRequestConvertor());
+            protobufConvertManager.reverseConvertorMap.put(BatchBranchRegisterResponseProto.class.getName(),
+                new BatchBranchRegisterResponseConvertor());
             protobufConvertManager.reverseConvertorMap.put(BranchReportRequestProto.class.getName(),
                 new BranchReportRequestConvertor());
             protobufConvertManager.reverseConvertorMap.put(BranchReportResponseProto.class.getName(),
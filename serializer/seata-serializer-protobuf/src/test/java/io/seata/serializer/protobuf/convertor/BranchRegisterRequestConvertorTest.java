@@ -16,6 +16,7 @@
 package io.seata.serializer.protobuf.convertor;
 
 import io.seata.serializer.protobuf.generated.BranchRegisterRequestProto;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchType;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import org.junit.jupiter.api.Test;
@@ -49,4 +50,24 @@ public class BranchRegisterRequestConvertorTest {
         assertThat(real.getLockKey()).isEqualTo(branchRegisterRequest.getLockKey());
         assertThat(real.getResourceId()).isEqualTo(branchRegisterRequest.getResourceId());
     }
+
+    @Test
+    public void convertBinaryLockKey() {
+
+        BranchRegisterRequest branchRegisterRequest = new BranchRegisterRequest();
+        branchRegisterRequest.setBranchType(BranchType.AT);
+        branchRegisterRequest.setBinaryLockKey(BinaryLockKey.fromLockKey("a:1,2;b:3"));
+        branchRegisterRequest.setResourceId("resourceId");
+        branchRegisterRequest.setXid("xid");
+
+        BranchRegisterRequestConvertor convertor = new BranchRegisterRequestConvertor();
+        BranchRegisterRequestProto proto = convertor.convert2Proto(
+            branchRegisterRequest);
+        BranchRegisterRequest real = convertor.convert2Model(proto);
+
+        assertThat(real.getBinaryLockKey()).isEqualTo(branchRegisterRequest.getBinaryLockKey());
+        assertThat(BinaryLockKey.toLockKey(real.getBinaryLockKey())).isEqualTo("a:1,2;b:3");
+        assertThat(real.getXid()).isEqualTo(branchRegisterRequest.getXid());
+        assertThat(real.getResourceId()).isEqualTo(branchRegisterRequest.getResourceId());
+    }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
 package io.seata.serializer.protobuf.convertor;
 
 import io.seata.serializer.protobuf.generated.GlobalLockQueryRequestProto;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchType;
 import io.seata.core.protocol.transaction.GlobalLockQueryRequest;
 import org.junit.jupiter.api.Test;
@@ -49,4 +50,24 @@ public class GlobalLockQueryRequestConvertorTest {
         assertThat(real.getLockKey()).isEqualTo(globalLockQueryRequest.getLockKey());
         assertThat(real.getResourceId()).isEqualTo(globalLockQueryRequest.getResourceId());
     }
+
+    @Test
+    public void convertBinaryLockKey() {
+
+        GlobalLockQueryRequest globalLockQueryRequest = new GlobalLockQueryRequest();
+        globalLockQueryRequest.setBranchType(BranchType.AT);
+        globalLockQueryRequest.setBinaryLockKey(BinaryLockKey.fromLockKey("a:1,2;b:3"));
+        globalLockQueryRequest.setResourceId("resourceId");
+        globalLockQueryRequest.setXid("xid");
+
+        GlobalLockQueryRequestConvertor convertor = new GlobalLockQueryRequestConvertor();
+        GlobalLockQueryRequestProto proto = convertor.convert2Proto(
+            globalLockQueryRequest);
+        GlobalLockQueryRequest real = convertor.convert2Model(proto);
+
+        assertThat(real.getBinaryLockKey()).isEqualTo(globalLockQueryRequest.getBinaryLockKey());
+        assertThat(BinaryLockKey.toLockKey(real.getBinaryLockKey())).isEqualTo("a:1,2;b:3");
+        assertThat(real.getXid()).isEqualTo(globalLockQueryRequest.getXid());
+        assertThat(real.getResourceId()).isEqualTo(globalLockQueryRequest.getResourceId());
+    }
 }
\ No newline at end of file
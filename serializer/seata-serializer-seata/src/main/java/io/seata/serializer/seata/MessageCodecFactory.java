@@ -24,6 +24,8 @@ import io.seata.serializer.seata.protocol.RegisterRMRequestCodec;
 import io.seata.serializer.seata.protocol.RegisterRMResponseCodec;
 import io.seata.serializer.seata.protocol.RegisterTMRequestCodec;
 import io.seata.serializer.seata.protocol.RegisterTMResponseCodec;
+import io.seata.serializer.seata.protocol.transaction.BatchBranchRegisterRequestCodec;
+import io.seata.serializer.seata.protocol.transaction.BatchBranchRegisterResponseCodec;
 import io.seata.serializer.seata.protocol.transaction.BranchCommitRequestCodec;
 import io.seata.serializer.seata.protocol.transaction.BranchCommitResponseCodec;
 import io.seata.serializer.seata.protocol.transaction.BranchRegisterRequestCodec;
@@ -53,6 +55,8 @@ import io.seata.core.protocol.RegisterRMRequest;
 import io.seata.core.protocol.RegisterRMResponse;
 import io.seata.core.protocol.RegisterTMRequest;
 import io.seata.core.protocol.RegisterTMResponse;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchCommitRequest;
 import io.seata.core.protocol.transaction.BranchCommitResponse;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
@@ -175,6 +179,8 @@ public class MessageCodecFactory {
                 return new GlobalLockQueryRequestCodec();
             case MessageType.TYPE_BRANCH_REGISTER:
                 return new BranchRegisterRequestCodec();
+            case MessageType.TYPE_BATCH_BRANCH_REGISTER:
+                return new BatchBranchRegisterRequestCodec();
             case MessageType.TYPE_BRANCH_STATUS_REPORT:
                 return new BranchReportRequestCodec();
             case MessageType.TYPE_GLOBAL_REPORT:
@@ -204,6 +210,8 @@ public class MessageCodecFactory {
                 return new GlobalLockQueryResponseCodec();
             case MessageType.TYPE_BRANCH_REGISTER_RESULT:
                 return new BranchRegisterResponseCodec();
+            case MessageType.TYPE_BATCH_BRANCH_REGISTER_RESULT:
+                return new BatchBranchRegisterResponseCodec();
             case MessageType.TYPE_BRANCH_STATUS_REPORT_RESULT:
                 return new BranchReportResponseCodec();
             case MessageType.TYPE_BRANCH_COMMIT_RESULT:
@@ -301,6 +309,8 @@ public class MessageCodecFactory {
                 return new GlobalLockQueryRequest();
             case MessageType.TYPE_BRANCH_REGISTER:
                 return new BranchRegisterRequest();
+            case MessageType.TYPE_BATCH_BRANCH_REGISTER:
+                return new BatchBranchRegisterRequest();
             case MessageType.TYPE_BRANCH_STATUS_REPORT:
                 return new BranchReportRequest();
             case MessageType.TYPE_GLOBAL_REPORT:
@@ -330,6 +340,8 @@ public class MessageCodecFactory {
                 return new GlobalLockQueryResponse();
             case MessageType.TYPE_BRANCH_REGISTER_RESULT:
                 return new BranchRegisterResponse();
+            case MessageType.TYPE_BATCH_BRANCH_REGISTER_RESULT:
+                return new BatchBranchRegisterResponse();
             case MessageType.TYPE_BRANCH_STATUS_REPORT_RESULT:
                 return new BranchReportResponse();
             case MessageType.TYPE_BRANCH_COMMIT_RESULT:
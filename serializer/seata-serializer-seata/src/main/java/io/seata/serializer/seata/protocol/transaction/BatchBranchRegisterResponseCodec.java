@@ -0,0 +1,61 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.serializer.seata.protocol.transaction;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
+
+/**
+ * The type Batch branch register response codec.
+ */
+public class BatchBranchRegisterResponseCodec extends AbstractTransactionResponseCodec implements Serializable {
+
+    @Override
+    public Class<?> getMessageClassType() {
+        return BatchBranchRegisterResponse.class;
+    }
+
+    @Override
+    public <T> void encode(T t, ByteBuf out) {
+        super.encode(t, out);
+
+        BatchBranchRegisterResponse batchBranchRegisterResponse = (BatchBranchRegisterResponse)t;
+        List<Long> branchIds = batchBranchRegisterResponse.getBranchIds();
+        out.writeShort((short)branchIds.size());
+        for (Long branchId : branchIds) {
+            out.writeLong(branchId);
+        }
+    }
+
+    @Override
+    public <T> void decode(T t, ByteBuffer in) {
+        super.decode(t, in);
+
+        BatchBranchRegisterResponse batchBranchRegisterResponse = (BatchBranchRegisterResponse)t;
+        short size = in.getShort();
+        List<Long> branchIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            branchIds.add(in.getLong());
+        }
+        batchBranchRegisterResponse.setBranchIds(branchIds);
+    }
+
+}
@@ -18,6 +18,7 @@ package io.seata.serializer.seata.protocol.transaction;
 import java.nio.ByteBuffer;
 
 import io.netty.buffer.ByteBuf;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchType;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 
@@ -43,8 +44,9 @@ public class BranchRegisterRequestCodec extends AbstractTransactionRequestToTCCo
         String lockKey = branchRegisterRequest.getLockKey();
         String applicationData = branchRegisterRequest.getApplicationData();
 
-        byte[] lockKeyBytes = null;
-        if (lockKey != null) {
+        // the binary lock key is sent in the place of the lock key, they are told apart by the first byte
+        byte[] lockKeyBytes = branchRegisterRequest.getBinaryLockKey();
+        if (lockKeyBytes == null && lockKey != null) {
             lockKeyBytes = lockKey.getBytes(UTF8);
         }
         byte[] applicationDataBytes = null;
@@ -77,7 +79,7 @@ public class BranchRegisterRequestCodec extends AbstractTransactionRequestToTCCo
         }
 
         // 4. Lock Key
-        if (lockKey != null) {
+        if (lockKeyBytes != null) {
             out.writeInt(lockKeyBytes.length);
             if (lockKeyBytes.length > 0) {
                 out.writeBytes(lockKeyBytes);
@@ -119,7 +121,11 @@ public class BranchRegisterRequestCodec extends AbstractTransactionRequestToTCCo
         if (iLen > 0) {
             byte[] bs = new byte[iLen];
             in.get(bs);
-            branchRegisterRequest.setLockKey(new String(bs, UTF8));
+            if (BinaryLockKey.isBinaryLockKey(bs)) {
+                branchRegisterRequest.setBinaryLockKey(bs);
+            } else {
+                branchRegisterRequest.setLockKey(new String(bs, UTF8));
+            }
         }
 
         int applicationDataLen = in.getInt();
@@ -0,0 +1,71 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.serializer.seata.protocol.transaction;
+
+import java.util.Arrays;
+
+import io.seata.serializer.seata.SeataSerializer;
+import io.seata.core.model.BranchType;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BranchRegisterRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Batch branch register request codec test.
+ */
+public class BatchBranchRegisterRequestSerializerTest {
+
+    /**
+     * The Seata codec.
+     */
+    SeataSerializer seataSerializer = new SeataSerializer();
+
+    /**
+     * Test codec.
+     */
+    @Test
+    public void test_codec() {
+        BranchRegisterRequest atBranch = new BranchRegisterRequest();
+        atBranch.setBranchType(BranchType.AT);
+        atBranch.setLockKey("a:1,b:2");
+        atBranch.setResourceId("124");
+        BranchRegisterRequest tccBranch = new BranchRegisterRequest();
+        tccBranch.setBranchType(BranchType.TCC);
+        tccBranch.setApplicationData("abc");
+        tccBranch.setResourceId("tccAction");
+        BatchBranchRegisterRequest batchBranchRegisterRequest = new BatchBranchRegisterRequest();
+        batchBranchRegisterRequest.setXid("abc134");
+        batchBranchRegisterRequest.setBranchRegisterRequests(Arrays.asList(atBranch, tccBranch));
+
+        byte[] bytes = seataSerializer.serialize(batchBranchRegisterRequest);
+
+        BatchBranchRegisterRequest batchBranchRegisterRequest2 = seataSerializer.deserialize(bytes);
+
+        assertThat(batchBranchRegisterRequest2.getXid()).isEqualTo(batchBranchRegisterRequest.getXid());
+        assertThat(batchBranchRegisterRequest2.getBranchRegisterRequests()).hasSize(2);
+        BranchRegisterRequest atBranch2 = batchBranchRegisterRequest2.getBranchRegisterRequests().get(0);
+        assertThat(atBranch2.getBranchType()).isEqualTo(atBranch.getBranchType());
+        assertThat(atBranch2.getLockKey()).isEqualTo(atBranch.getLockKey());
+        assertThat(atBranch2.getResourceId()).isEqualTo(atBranch.getResourceId());
+        BranchRegisterRequest tccBranch2 = batchBranchRegisterRequest2.getBranchRegisterRequests().get(1);
+        assertThat(tccBranch2.getBranchType()).isEqualTo(tccBranch.getBranchType());
+        assertThat(tccBranch2.getApplicationData()).isEqualTo(tccBranch.getApplicationData());
+        assertThat(tccBranch2.getLockKey()).isNull();
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.serializer.seata.protocol.transaction;
+
+import java.util.Arrays;
+
+import io.seata.serializer.seata.SeataSerializer;
+import io.seata.core.exception.TransactionExceptionCode;
+import io.seata.core.protocol.ResultCode;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The type Batch branch register response codec test.
+ */
+public class BatchBranchRegisterResponseSerializerTest {
+
+    /**
+     * The Seata codec.
+     */
+    SeataSerializer seataSerializer = new SeataSerializer();
+
+    /**
+     * Test codec.
+     */
+    @Test
+    public void test_codec() {
+        BatchBranchRegisterResponse batchBranchRegisterResponse = new BatchBranchRegisterResponse();
+        batchBranchRegisterResponse.setBranchIds(Arrays.asList(1346L, 1347L));
+        batchBranchRegisterResponse.setMsg("addd");
+        batchBranchRegisterResponse.setResultCode(ResultCode.Failed);
+        batchBranchRegisterResponse.setTransactionExceptionCode(TransactionExceptionCode.LockKeyConflict);
+
+        byte[] bytes = seataSerializer.serialize(batchBranchRegisterResponse);
+
+        BatchBranchRegisterResponse batchBranchRegisterResponse2 = seataSerializer.deserialize(bytes);
+
+        assertThat(batchBranchRegisterResponse2.getBranchIds()).isEqualTo(batchBranchRegisterResponse.getBranchIds());
+        assertThat(batchBranchRegisterResponse2.getMsg()).isEqualTo(batchBranchRegisterResponse.getMsg());
+        assertThat(batchBranchRegisterResponse2.getResultCode()).isEqualTo(batchBranchRegisterResponse.getResultCode());
+        assertThat(batchBranchRegisterResponse2.getTransactionExceptionCode())
+            .isEqualTo(batchBranchRegisterResponse.getTransactionExceptionCode());
+    }
+
+}
@@ -16,6 +16,7 @@
 package io.seata.serializer.seata.protocol.transaction;
 
 import io.seata.serializer.seata.SeataSerializer;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchType;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import org.junit.jupiter.api.Test;
@@ -58,4 +59,26 @@ public class BranchRegisterRequestSerializerTest {
 
     }
 
+    /**
+     * Test codec of the binary lock key.
+     */
+    @Test
+    public void test_codec_binaryLockKey() {
+        BranchRegisterRequest branchRegisterRequest = new BranchRegisterRequest();
+        branchRegisterRequest.setBranchType(BranchType.AT);
+        branchRegisterRequest.setBinaryLockKey(BinaryLockKey.fromLockKey("a:1,2;b:3"));
+        branchRegisterRequest.setResourceId("124");
+        branchRegisterRequest.setXid("abc134");
+
+        byte[] bytes = seataSerializer.serialize(branchRegisterRequest);
+
+        BranchRegisterRequest branchRegisterRequest2 = seataSerializer.deserialize(bytes);
+
+        assertThat(branchRegisterRequest2.getLockKey()).isNull();
+        assertThat(branchRegisterRequest2.getBinaryLockKey()).isEqualTo(branchRegisterRequest.getBinaryLockKey());
+        assertThat(BinaryLockKey.toLockKey(branchRegisterRequest2.getBinaryLockKey())).isEqualTo("a:1,2;b:3");
+        assertThat(branchRegisterRequest2.getResourceId()).isEqualTo(branchRegisterRequest.getResourceId());
+        assertThat(branchRegisterRequest2.getXid()).isEqualTo(branchRegisterRequest.getXid());
+    }
+
 }
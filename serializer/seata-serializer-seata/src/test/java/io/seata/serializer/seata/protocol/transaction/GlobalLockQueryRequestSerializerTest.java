@@ -16,6 +16,7 @@
 package io.seata.serializer.seata.protocol.transaction;
 
 import io.seata.serializer.seata.SeataSerializer;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchType;
 import io.seata.core.protocol.transaction.GlobalLockQueryRequest;
 import org.junit.jupiter.api.Test;
@@ -56,4 +57,26 @@ public class GlobalLockQueryRequestSerializerTest {
         assertThat(globalLockQueryRequest2.getXid()).isEqualTo(globalLockQueryRequest.getXid());
     }
 
+    /**
+     * Test codec of the binary lock key.
+     */
+    @Test
+    public void test_codec_binaryLockKey() {
+        GlobalLockQueryRequest globalLockQueryRequest = new GlobalLockQueryRequest();
+        globalLockQueryRequest.setBranchType(BranchType.AT);
+        globalLockQueryRequest.setBinaryLockKey(BinaryLockKey.fromLockKey("a:1,2;b:3"));
+        globalLockQueryRequest.setXid("aaa");
+        globalLockQueryRequest.setResourceId("1s");
+
+        byte[] bytes = seataSerializer.serialize(globalLockQueryRequest);
+
+        GlobalLockQueryRequest globalLockQueryRequest2 = seataSerializer.deserialize(bytes);
+
+        assertThat(globalLockQueryRequest2.getLockKey()).isNull();
+        assertThat(globalLockQueryRequest2.getBinaryLockKey()).isEqualTo(globalLockQueryRequest.getBinaryLockKey());
+        assertThat(BinaryLockKey.toLockKey(globalLockQueryRequest2.getBinaryLockKey())).isEqualTo("a:1,2;b:3");
+        assertThat(globalLockQueryRequest2.getResourceId()).isEqualTo(globalLockQueryRequest.getResourceId());
+        assertThat(globalLockQueryRequest2.getXid()).isEqualTo(globalLockQueryRequest.getXid());
+    }
+
 }
@@ -22,6 +22,8 @@ import io.seata.core.exception.TransactionExceptionCode;
 import io.seata.core.model.GlobalStatus;
 import io.seata.core.protocol.transaction.AbstractGlobalEndRequest;
 import io.seata.core.protocol.transaction.AbstractGlobalEndResponse;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import io.seata.core.protocol.transaction.BranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchReportRequest;
@@ -202,6 +204,37 @@ public abstract class AbstractTCInboundHandler extends AbstractExceptionHandler
     protected abstract void doBranchRegister(BranchRegisterRequest request, BranchRegisterResponse response,
                                              RpcContext rpcContext) throws TransactionException;
 
+    @Override
+    public BatchBranchRegisterResponse handle(BatchBranchRegisterRequest request, final RpcContext rpcContext) {
+        BatchBranchRegisterResponse response = new BatchBranchRegisterResponse();
+        exceptionHandleTemplate(new AbstractCallback<BatchBranchRegisterRequest, BatchBranchRegisterResponse>() {
+            @Override
+            public void execute(BatchBranchRegisterRequest request, BatchBranchRegisterResponse response)
+                throws TransactionException {
+                try {
+                    doBatchBranchRegister(request, response, rpcContext);
+                } catch (StoreException e) {
+                    throw new TransactionException(TransactionExceptionCode.FailedStore, String
+                        .format("batch branch register request failed. xid=%s, msg=%s", request.getXid(),
+                            e.getMessage()), e);
+                }
+            }
+        }, request, response);
+        return response;
+    }
+
+    /**
+     * Do batch branch register.
+     *
+     * @param request    the request
+     * @param response   the response
+     * @param rpcContext the rpc context
+     * @throws TransactionException the transaction exception
+     */
+    protected abstract void doBatchBranchRegister(BatchBranchRegisterRequest request,
+                                                  BatchBranchRegisterResponse response, RpcContext rpcContext)
+        throws TransactionException;
+
     @Override
     public BranchReportResponse handle(BranchReportRequest request, final RpcContext rpcContext) {
         BranchReportResponse response = new BranchReportResponse();
@@ -18,6 +18,7 @@ package io.seata.server.coordinator;
 import java.io.IOException;
 import java.util.concurrent.TimeoutException;
 
+import io.seata.common.XID;
 import io.seata.core.exception.BranchTransactionException;
 import io.seata.core.exception.GlobalTransactionException;
 import io.seata.core.exception.TransactionException;
@@ -31,6 +32,7 @@ import io.seata.core.protocol.transaction.BranchRollbackRequest;
 import io.seata.core.protocol.transaction.BranchRollbackResponse;
 import io.seata.core.rpc.RemotingServer;
 import io.seata.server.lock.LockManager;
+import io.seata.server.lock.LockWaitQueue;
 import io.seata.server.lock.LockerManagerFactory;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
@@ -59,6 +61,10 @@ public abstract class AbstractCore implements Core {
 
     protected RemotingServer remotingServer;
 
+    protected BranchCircuitBreaker branchCircuitBreaker = BranchCircuitBreaker.get();
+
+    protected LockWaitQueue lockWaitQueue = LockWaitQueue.get();
+
     public AbstractCore(RemotingServer remotingServer) {
         this.remotingServer = remotingServer;
     }
@@ -68,27 +74,60 @@ public abstract class AbstractCore implements Core {
     @Override
     public Long branchRegister(BranchType branchType, String resourceId, String clientId, String xid,
                                String applicationData, String lockKeys) throws TransactionException {
-        GlobalSession globalSession = assertGlobalSessionNotNull(xid, false);
-        return SessionHolder.lockAndExecute(globalSession, () -> {
-            globalSessionStatusCheck(globalSession);
-            globalSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-            BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, branchType, resourceId,
-                    applicationData, lockKeys, clientId);
-            branchSessionLock(globalSession, branchSession);
-            try {
-                globalSession.addBranch(branchSession);
-            } catch (RuntimeException ex) {
-                branchSessionUnlock(branchSession);
-                throw new BranchTransactionException(FailedToAddBranch, String
-                        .format("Failed to store branch xid = %s branchId = %s", globalSession.getXid(),
-                                branchSession.getBranchId()), ex);
-            }
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.info("Register branch successfully, xid = {}, branchId = {}, resourceId = {} ,lockKeys = {}",
-                    globalSession.getXid(), branchSession.getBranchId(), resourceId, lockKeys);
-            }
-            return branchSession.getBranchId();
-        });
+        return branchRegister(branchType, resourceId, clientId, xid, applicationData, lockKeys, null);
+    }
+
+    @Override
+    public Long branchRegister(BranchType branchType, String resourceId, String clientId, String xid,
+                               String applicationData, String lockKeys, byte[] binaryLockKey)
+        throws TransactionException {
+        // park outside of the global session lock
+        return lockWaitQueue.execute(XID.getTransactionId(xid),
+            () -> LockWaitQueue.rowKeys(resourceId, lockKeys, binaryLockKey), () -> {
+                GlobalSession globalSession = assertGlobalSessionNotNull(xid, false);
+                return SessionHolder.lockAndExecute(globalSession, () -> registerBranch(globalSession, branchType,
+                    resourceId, clientId, applicationData, lockKeys, binaryLockKey).getBranchId());
+            });
+    }
+
+    /**
+     * Register a branch into the global session, the caller must hold the global session lock.
+     *
+     * @param globalSession   the global session
+     * @param branchType      the branch type
+     * @param resourceId      the resource id
+     * @param clientId        the client id
+     * @param applicationData the application data
+     * @param lockKeys        the lock keys
+     * @param binaryLockKey   the lock keys in the binary form, it is used instead of the lock keys when it is set
+     * @return the registered branch session
+     * @throws TransactionException the transaction exception
+     */
+    protected BranchSession registerBranch(GlobalSession globalSession, BranchType branchType, String resourceId,
+                                           String clientId, String applicationData, String lockKeys,
+                                           byte[] binaryLockKey)
+        throws TransactionException {
+        globalSessionStatusCheck(globalSession);
+        globalSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
+        BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, branchType, resourceId,
+                applicationData, lockKeys, clientId);
+        if (binaryLockKey != null) {
+            branchSession.setBinaryLockKey(binaryLockKey);
+        }
+        branchSessionLock(globalSession, branchSession);
+        try {
+            globalSession.addBranch(branchSession);
+        } catch (RuntimeException ex) {
+            branchSessionUnlock(branchSession);
+            throw new BranchTransactionException(FailedToAddBranch, String
+                    .format("Failed to store branch xid = %s branchId = %s", globalSession.getXid(),
+                            branchSession.getBranchId()), ex);
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Register branch successfully, xid = {}, branchId = {}, resourceId = {} ,lockKeys = {}",
+                globalSession.getXid(), branchSession.getBranchId(), resourceId, lockKeys);
+        }
+        return branchSession;
     }
 
     protected void globalSessionStatusCheck(GlobalSession globalSession) throws GlobalTransactionException {
@@ -143,11 +182,22 @@ public abstract class AbstractCore implements Core {
     @Override
     public boolean lockQuery(BranchType branchType, String resourceId, String xid, String lockKeys)
             throws TransactionException {
+        return lockQuery(branchType, resourceId, xid, lockKeys, null);
+    }
+
+    @Override
+    public boolean lockQuery(BranchType branchType, String resourceId, String xid, String lockKeys,
+                             byte[] binaryLockKey) throws TransactionException {
         return true;
     }
 
     @Override
     public BranchStatus branchCommit(GlobalSession globalSession, BranchSession branchSession) throws TransactionException {
+        if (!branchCircuitBreaker.tryAcquire(branchSession.getResourceId(), branchSession.getClientId())) {
+            throw new BranchTransactionException(FailedToSendBranchCommitRequest,
+                    String.format("Circuit breaker is open, skip branch commit, xid = %s branchId = %s resourceId = %s",
+                            branchSession.getXid(), branchSession.getBranchId(), branchSession.getResourceId()));
+        }
         try {
             BranchCommitRequest request = new BranchCommitRequest();
             request.setXid(branchSession.getXid());
@@ -155,11 +205,17 @@ public abstract class AbstractCore implements Core {
             request.setResourceId(branchSession.getResourceId());
             request.setApplicationData(branchSession.getApplicationData());
             request.setBranchType(branchSession.getBranchType());
-            return branchCommitSend(request, globalSession, branchSession);
+            BranchStatus branchStatus = branchCommitSend(request, globalSession, branchSession);
+            branchCircuitBreaker.onSuccess(branchSession.getResourceId(), branchSession.getClientId());
+            return branchStatus;
         } catch (IOException | TimeoutException e) {
+            branchCircuitBreaker.onFailure(branchSession.getResourceId(), branchSession.getClientId());
             throw new BranchTransactionException(FailedToSendBranchCommitRequest,
                     String.format("Send branch commit failed, xid = %s branchId = %s", branchSession.getXid(),
                             branchSession.getBranchId()), e);
+        } catch (RuntimeException e) {
+            branchCircuitBreaker.onFailure(branchSession.getResourceId(), branchSession.getClientId());
+            throw e;
         }
     }
 
@@ -172,6 +228,11 @@ public abstract class AbstractCore implements Core {
 
     @Override
     public BranchStatus branchRollback(GlobalSession globalSession, BranchSession branchSession) throws TransactionException {
+        if (!branchCircuitBreaker.tryAcquire(branchSession.getResourceId(), branchSession.getClientId())) {
+            throw new BranchTransactionException(FailedToSendBranchRollbackRequest,
+                    String.format("Circuit breaker is open, skip branch rollback, xid = %s branchId = %s resourceId = %s",
+                            branchSession.getXid(), branchSession.getBranchId(), branchSession.getResourceId()));
+        }
         try {
             BranchRollbackRequest request = new BranchRollbackRequest();
             request.setXid(branchSession.getXid());
@@ -179,11 +240,17 @@ public abstract class AbstractCore implements Core {
             request.setResourceId(branchSession.getResourceId());
             request.setApplicationData(branchSession.getApplicationData());
             request.setBranchType(branchSession.getBranchType());
-            return branchRollbackSend(request, globalSession, branchSession);
+            BranchStatus branchStatus = branchRollbackSend(request, globalSession, branchSession);
+            branchCircuitBreaker.onSuccess(branchSession.getResourceId(), branchSession.getClientId());
+            return branchStatus;
         } catch (IOException | TimeoutException e) {
+            branchCircuitBreaker.onFailure(branchSession.getResourceId(), branchSession.getClientId());
             throw new BranchTransactionException(FailedToSendBranchRollbackRequest,
                     String.format("Send branch rollback failed, xid = %s branchId = %s",
                             branchSession.getXid(), branchSession.getBranchId()), e);
+        } catch (RuntimeException e) {
+            branchCircuitBreaker.onFailure(branchSession.getResourceId(), branchSession.getClientId());
+            throw e;
         }
     }
 
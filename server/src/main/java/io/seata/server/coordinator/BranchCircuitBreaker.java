@@ -0,0 +1,256 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.coordinator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.netty.channel.Channel;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
+import io.seata.core.rpc.netty.ChannelManager;
+import io.seata.metrics.Counter;
+import io.seata.metrics.registry.Registry;
+import io.seata.server.metrics.MeterIdConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker of the phase two requests, keyed by resource id and client id.
+ * <p>
+ * After the failure threshold of continuous send failures the breaker opens and the requests fail fast, so the
+ * branches go to the retry queue without waiting for the rpc timeout. An open breaker lets one probe request
+ * through once the open duration elapsed, or earlier when {@link ChannelManager} shows another channel for the
+ * RM. The probe closes the breaker on success and opens it again on failure.
+ */
+public class BranchCircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BranchCircuitBreaker.class);
+
+    private static final long CHANNEL_CHECK_INTERVAL = 1000L;
+
+    private static class SingletonHolder {
+        private static BranchCircuitBreaker INSTANCE = new BranchCircuitBreaker(
+            ConfigurationFactory.getInstance().getBoolean(ConfigurationKeys.ENABLE_BRANCH_CIRCUIT_BREAKER,
+                DefaultValues.DEFAULT_ENABLE_BRANCH_CIRCUIT_BREAKER),
+            ConfigurationFactory.getInstance().getInt(ConfigurationKeys.BRANCH_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+                DefaultValues.DEFAULT_BRANCH_CIRCUIT_BREAKER_FAILURE_THRESHOLD),
+            ConfigurationFactory.getInstance().getLong(ConfigurationKeys.BRANCH_CIRCUIT_BREAKER_OPEN_DURATION,
+                DefaultValues.DEFAULT_BRANCH_CIRCUIT_BREAKER_OPEN_DURATION));
+    }
+
+    public static BranchCircuitBreaker get() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private final boolean enabled;
+
+    private final int failureThreshold;
+
+    private final long openDuration;
+
+    /**
+     * Only the keys which failed recently are kept, a key is forgotten once its breaker is closed again.
+     */
+    private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private volatile Counter rejectedCounter;
+
+    /**
+     * Instantiates a new Branch circuit breaker.
+     *
+     * @param enabled          whether the breaker is enabled
+     * @param failureThreshold the continuous failures to open the breaker
+     * @param openDuration     the millis to wait before probing an open breaker
+     */
+    public BranchCircuitBreaker(boolean enabled, int failureThreshold, long openDuration) {
+        this.enabled = enabled;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Register the meters, do nothing if metrics is disabled.
+     *
+     * @param registry the registry
+     */
+    public void bindMetrics(Registry registry) {
+        if (enabled && registry != null) {
+            registry.getGauge(MeterIdConstants.GAUGE_CIRCUIT_BREAKER_OPEN, () -> count(State.OPEN));
+            registry.getGauge(MeterIdConstants.GAUGE_CIRCUIT_BREAKER_HALF_OPEN, () -> count(State.HALF_OPEN));
+            rejectedCounter = registry.getCounter(MeterIdConstants.COUNTER_CIRCUIT_BREAKER_REJECTED);
+        }
+    }
+
+    /**
+     * Whether the request to the RM may be sent. The caller must report the outcome of an allowed request by
+     * {@link #onSuccess(String, String)} or {@link #onFailure(String, String)}.
+     *
+     * @param resourceId the resource id
+     * @param clientId   the client id
+     * @return true if allowed
+     */
+    public boolean tryAcquire(String resourceId, String clientId) {
+        if (!enabled) {
+            return true;
+        }
+        Breaker breaker = breakers.get(key(resourceId, clientId));
+        if (breaker == null || breaker.tryAcquire(resourceId, clientId)) {
+            return true;
+        }
+        Counter counter = rejectedCounter;
+        if (counter != null) {
+            counter.increase(1);
+        }
+        return false;
+    }
+
+    /**
+     * Report a response from the RM, any response closes the breaker.
+     *
+     * @param resourceId the resource id
+     * @param clientId   the client id
+     */
+    public void onSuccess(String resourceId, String clientId) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(resourceId, clientId);
+        Breaker breaker = breakers.remove(key);
+        if (breaker != null && breaker.state != State.CLOSED) {
+            LOGGER.info("Circuit breaker of [{}] is closed.", key);
+        }
+    }
+
+    /**
+     * Report a failure to send the request or to receive the response.
+     *
+     * @param resourceId the resource id
+     * @param clientId   the client id
+     */
+    public void onFailure(String resourceId, String clientId) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(resourceId, clientId);
+        breakers.computeIfAbsent(key, k -> new Breaker()).onFailure(key, resourceId, clientId);
+    }
+
+    /**
+     * Gets the state of the breaker, for test and monitor.
+     *
+     * @param resourceId the resource id
+     * @param clientId   the client id
+     * @return the state
+     */
+    public State getState(String resourceId, String clientId) {
+        Breaker breaker = breakers.get(key(resourceId, clientId));
+        return breaker == null ? State.CLOSED : breaker.state;
+    }
+
+    private long count(State state) {
+        return breakers.values().stream().filter(breaker -> breaker.state == state).count();
+    }
+
+    private static String key(String resourceId, String clientId) {
+        return resourceId + "/" + clientId;
+    }
+
+    private static Channel findChannel(String resourceId, String clientId) {
+        try {
+            return ChannelManager.getChannel(resourceId, clientId);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The breaker state.
+     */
+    public enum State {
+        /**
+         * Requests are sent.
+         */
+        CLOSED,
+        /**
+         * Requests fail fast.
+         */
+        OPEN,
+        /**
+         * One probe request is in flight, the others fail fast.
+         */
+        HALF_OPEN
+    }
+
+    private class Breaker {
+
+        private volatile State state = State.CLOSED;
+
+        private int failures;
+
+        private long stateTime;
+
+        private long channelCheckTime;
+
+        private Channel openChannel;
+
+        synchronized boolean tryAcquire(String resourceId, String clientId) {
+            long now = System.currentTimeMillis();
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (now - stateTime >= openDuration || channelChanged(now, resourceId, clientId)) {
+                        state = State.HALF_OPEN;
+                        stateTime = now;
+                        return true;
+                    }
+                    return false;
+                default:
+                    // the probe is lost if it did not report in an open duration, let another one go
+                    if (now - stateTime >= openDuration) {
+                        stateTime = now;
+                        return true;
+                    }
+                    return false;
+            }
+        }
+
+        synchronized void onFailure(String key, String resourceId, String clientId) {
+            failures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+                long now = System.currentTimeMillis();
+                if (state == State.CLOSED) {
+                    LOGGER.warn("Circuit breaker of [{}] is open after {} continuous failures.", key, failures);
+                }
+                state = State.OPEN;
+                stateTime = now;
+                channelCheckTime = now;
+                openChannel = findChannel(resourceId, clientId);
+            }
+        }
+
+        private boolean channelChanged(long now, String resourceId, String clientId) {
+            if (now - channelCheckTime < CHANNEL_CHECK_INTERVAL) {
+                return false;
+            }
+            channelCheckTime = now;
+            Channel channel = findChannel(resourceId, clientId);
+            return channel != null && channel != openChannel;
+        }
+    }
+}
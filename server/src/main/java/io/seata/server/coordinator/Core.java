@@ -16,6 +16,7 @@
 package io.seata.server.coordinator;
 
 import io.seata.core.exception.TransactionException;
+import io.seata.core.model.BranchType;
 import io.seata.core.model.GlobalStatus;
 import io.seata.server.session.GlobalSession;
 
@@ -26,6 +27,36 @@ import io.seata.server.session.GlobalSession;
  */
 public interface Core extends TransactionCoordinatorInbound, TransactionCoordinatorOutbound {
 
+    /**
+     * Branch register, the lock keys are read from the binary form when it is set.
+     *
+     * @param branchType      the branch type
+     * @param resourceId      the resource id
+     * @param clientId        the client id
+     * @param xid             the xid
+     * @param applicationData the application data
+     * @param lockKeys        the lock keys
+     * @param binaryLockKey   the lock keys in the binary form, see {@link io.seata.core.lock.BinaryLockKey}
+     * @return the branch id
+     * @throws TransactionException the transaction exception
+     */
+    Long branchRegister(BranchType branchType, String resourceId, String clientId, String xid, String applicationData,
+                        String lockKeys, byte[] binaryLockKey) throws TransactionException;
+
+    /**
+     * Lock query, the lock keys are read from the binary form when it is set.
+     *
+     * @param branchType    the branch type
+     * @param resourceId    the resource id
+     * @param xid           the xid
+     * @param lockKeys      the lock keys
+     * @param binaryLockKey the lock keys in the binary form, see {@link io.seata.core.lock.BinaryLockKey}
+     * @return the boolean
+     * @throws TransactionException the transaction exception
+     */
+    boolean lockQuery(BranchType branchType, String resourceId, String xid, String lockKeys, byte[] binaryLockKey)
+        throws TransactionException;
+
     /**
      * Do global commit.
      *
@@ -21,6 +21,7 @@ import io.seata.common.util.CollectionUtils;
 import io.seata.common.util.DurationUtil;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.event.EventBus;
 import io.seata.core.event.GlobalTransactionEvent;
 import io.seata.core.exception.TransactionException;
@@ -29,6 +30,8 @@ import io.seata.core.protocol.AbstractMessage;
 import io.seata.core.protocol.AbstractResultMessage;
 import io.seata.core.protocol.transaction.AbstractTransactionRequestToTC;
 import io.seata.core.protocol.transaction.AbstractTransactionResponse;
+import io.seata.core.protocol.transaction.BatchBranchRegisterRequest;
+import io.seata.core.protocol.transaction.BatchBranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import io.seata.core.protocol.transaction.BranchRegisterResponse;
 import io.seata.core.protocol.transaction.BranchReportRequest;
@@ -54,8 +57,12 @@ import io.seata.core.rpc.TransactionMessageHandler;
 import io.seata.core.rpc.netty.NettyRemotingServer;
 import io.seata.server.AbstractTCInboundHandler;
 import io.seata.server.event.EventBusManager;
+import io.seata.server.lock.LockerManagerFactory;
+import io.seata.server.metrics.MeterIdConstants;
+import io.seata.server.metrics.MetricsManager;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionHolder;
+import io.seata.server.session.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,6 +70,7 @@ import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -97,6 +105,21 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
      */
     protected static final long TIMEOUT_RETRY_PERIOD = CONFIG.getLong(ConfigurationKeys.TIMEOUT_RETRY_PERIOD, 1000L);
 
+    /**
+     * The constant RECOVERY_WORKER_SIZE, each pass of the timed tasks is partitioned by transaction id across
+     * the workers.
+     */
+    protected static final int RECOVERY_WORKER_SIZE = CONFIG.getInt(ConfigurationKeys.RECOVERY_WORKER_SIZE,
+        DefaultValues.DEFAULT_RECOVERY_WORKER_SIZE);
+
+    /**
+     * The constant MAX_RETRY_BACKOFF.
+     */
+    protected static final long MAX_RETRY_BACKOFF = CONFIG.getLong(ConfigurationKeys.MAX_RETRY_BACKOFF,
+        DefaultValues.DEFAULT_MAX_RETRY_BACKOFF);
+
+    private static final int MAX_BACKOFF_SHIFT = 30;
+
     /**
      * The Transaction undo log delete period.
      */
@@ -134,6 +157,22 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
     private ScheduledThreadPoolExecutor undoLogDelete = new ScheduledThreadPoolExecutor(1,
         new NamedThreadFactory("UndoLogDelete", 1));
 
+    private SessionPartitionExecutor retryRollbackingExecutor = new SessionPartitionExecutor("RetryRollbacking",
+        RECOVERY_WORKER_SIZE, MeterIdConstants.GAUGE_RETRY_ROLLBACKING_PENDING,
+        MeterIdConstants.TIMER_RETRY_ROLLBACKING_PASS);
+
+    private SessionPartitionExecutor retryCommittingExecutor = new SessionPartitionExecutor("RetryCommitting",
+        RECOVERY_WORKER_SIZE, MeterIdConstants.GAUGE_RETRY_COMMITTING_PENDING,
+        MeterIdConstants.TIMER_RETRY_COMMITTING_PASS);
+
+    private SessionPartitionExecutor asyncCommittingExecutor = new SessionPartitionExecutor("AsyncCommitting",
+        RECOVERY_WORKER_SIZE, MeterIdConstants.GAUGE_ASYNC_COMMITTING_PENDING,
+        MeterIdConstants.TIMER_ASYNC_COMMITTING_PASS);
+
+    private SessionPartitionExecutor timeoutCheckExecutor = new SessionPartitionExecutor("TxTimeoutCheck",
+        RECOVERY_WORKER_SIZE, MeterIdConstants.GAUGE_TIMEOUT_CHECK_PENDING,
+        MeterIdConstants.TIMER_TIMEOUT_CHECK_PASS);
+
     private RemotingServer remotingServer;
 
     private DefaultCore core;
@@ -190,7 +229,14 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
                                     RpcContext rpcContext) throws TransactionException {
         response.setBranchId(
             core.branchRegister(request.getBranchType(), request.getResourceId(), rpcContext.getClientId(),
-                request.getXid(), request.getApplicationData(), request.getLockKey()));
+                request.getXid(), request.getApplicationData(), request.getLockKey(), request.getBinaryLockKey()));
+    }
+
+    @Override
+    protected void doBatchBranchRegister(BatchBranchRegisterRequest request, BatchBranchRegisterResponse response,
+                                         RpcContext rpcContext) throws TransactionException {
+        response.setBranchIds(core.batchBranchRegister(rpcContext.getClientId(), request.getXid(),
+            request.getBranchRegisterRequests()));
     }
 
     @Override
@@ -203,8 +249,8 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
     @Override
     protected void doLockCheck(GlobalLockQueryRequest request, GlobalLockQueryResponse response, RpcContext rpcContext)
         throws TransactionException {
-        response.setLockable(
-            core.lockQuery(request.getBranchType(), request.getResourceId(), request.getXid(), request.getLockKey()));
+        response.setLockable(core.lockQuery(request.getBranchType(), request.getResourceId(), request.getXid(),
+            request.getLockKey(), request.getBinaryLockKey()));
     }
 
     /**
@@ -213,14 +259,14 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
      * @throws TransactionException the transaction exception
      */
     protected void timeoutCheck() throws TransactionException {
-        Collection<GlobalSession> allSessions = SessionHolder.getRootSessionManager().allSessions();
+        Collection<GlobalSession> allSessions = SessionHolder.getRootSessionManager().findTimeoutSessions();
         if (CollectionUtils.isEmpty(allSessions)) {
             return;
         }
         if (allSessions.size() > 0 && LOGGER.isDebugEnabled()) {
             LOGGER.debug("Global transaction timeout check begin, size: {}", allSessions.size());
         }
-        for (GlobalSession globalSession : allSessions) {
+        timeoutCheckExecutor.execute(allSessions, globalSession -> {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(
                     globalSession.getXid() + " " + globalSession.getStatus() + " " + globalSession.getBeginTime() + " "
@@ -243,14 +289,13 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
                 return true;
             });
             if (!shouldTimeout) {
-                continue;
+                return;
             }
             LOGGER.info("Global transaction[{}] is timeout and will be rollback.", globalSession.getXid());
 
             globalSession.addSessionLifecycleListener(SessionHolder.getRetryRollbackingSessionManager());
             SessionHolder.getRetryRollbackingSessionManager().addGlobalSession(globalSession);
-
-        }
+        });
         if (allSessions.size() > 0 && LOGGER.isDebugEnabled()) {
             LOGGER.debug("Global transaction timeout check end. ");
         }
@@ -261,16 +306,16 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
      * Handle retry rollbacking.
      */
     protected void handleRetryRollbacking() {
-        Collection<GlobalSession> rollbackingSessions = SessionHolder.getRetryRollbackingSessionManager().allSessions();
+        Collection<GlobalSession> rollbackingSessions = SessionHolder.getRetryRollbackingSessionManager().findRetrySessions();
         if (CollectionUtils.isEmpty(rollbackingSessions)) {
             return;
         }
         long now = System.currentTimeMillis();
-        for (GlobalSession rollbackingSession : rollbackingSessions) {
+        retryRollbackingExecutor.execute(rollbackingSessions, rollbackingSession -> {
             try {
                 // prevent repeated rollback
                 if (rollbackingSession.getStatus().equals(GlobalStatus.Rollbacking) && !rollbackingSession.isRollbackingDead()) {
-                    continue;
+                    return;
                 }
                 if (isRetryTimeout(now, MAX_ROLLBACK_RETRY_TIMEOUT.toMillis(), rollbackingSession.getBeginTime())) {
                     if (ROLLBACK_RETRY_TIMEOUT_UNLOCK_ENABLE) {
@@ -281,26 +326,31 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
                      */
                     SessionHolder.getRetryRollbackingSessionManager().removeGlobalSession(rollbackingSession);
                     LOGGER.info("Global transaction rollback retry timeout and has removed [{}]", rollbackingSession.getXid());
-                    continue;
+                    return;
                 }
                 rollbackingSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-                core.doGlobalRollback(rollbackingSession, true);
+                if (!core.doGlobalRollback(rollbackingSession, true)) {
+                    scheduleRetry(SessionHolder.getRetryRollbackingSessionManager(), rollbackingSession,
+                        ROLLBACKING_RETRY_PERIOD);
+                }
             } catch (TransactionException ex) {
                 LOGGER.info("Failed to retry rollbacking [{}] {} {}", rollbackingSession.getXid(), ex.getCode(), ex.getMessage());
+                scheduleRetry(SessionHolder.getRetryRollbackingSessionManager(), rollbackingSession,
+                    ROLLBACKING_RETRY_PERIOD);
             }
-        }
+        });
     }
 
     /**
      * Handle retry committing.
      */
     protected void handleRetryCommitting() {
-        Collection<GlobalSession> committingSessions = SessionHolder.getRetryCommittingSessionManager().allSessions();
+        Collection<GlobalSession> committingSessions = SessionHolder.getRetryCommittingSessionManager().findRetrySessions();
         if (CollectionUtils.isEmpty(committingSessions)) {
             return;
         }
         long now = System.currentTimeMillis();
-        for (GlobalSession committingSession : committingSessions) {
+        retryCommittingExecutor.execute(committingSessions, committingSession -> {
             try {
                 if (isRetryTimeout(now, MAX_COMMIT_RETRY_TIMEOUT.toMillis(), committingSession.getBeginTime())) {
                     /**
@@ -308,14 +358,35 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
                      */
                     SessionHolder.getRetryCommittingSessionManager().removeGlobalSession(committingSession);
                     LOGGER.error("Global transaction commit retry timeout and has removed [{}]", committingSession.getXid());
-                    continue;
+                    return;
                 }
                 committingSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
-                core.doGlobalCommit(committingSession, true);
+                if (!core.doGlobalCommit(committingSession, true)) {
+                    scheduleRetry(SessionHolder.getRetryCommittingSessionManager(), committingSession,
+                        COMMITTING_RETRY_PERIOD);
+                }
             } catch (TransactionException ex) {
                 LOGGER.info("Failed to retry committing [{}] {} {}", committingSession.getXid(), ex.getCode(), ex.getMessage());
+                scheduleRetry(SessionHolder.getRetryCommittingSessionManager(), committingSession,
+                    COMMITTING_RETRY_PERIOD);
             }
-        }
+        });
+    }
+
+    /**
+     * Schedule the next retry of a failed session with exponential backoff, starting from the retry period and
+     * capped by MAX_RETRY_BACKOFF. Half of the backoff is random, so the sessions failed on the same resource
+     * do not retry at the same time again.
+     *
+     * @param sessionManager the retry session manager
+     * @param globalSession  the global session
+     * @param retryPeriod    the retry period
+     */
+    private void scheduleRetry(SessionManager sessionManager, GlobalSession globalSession, long retryPeriod) {
+        int retryCount = globalSession.getRetryCount() + 1;
+        long backoff = Math.min(MAX_RETRY_BACKOFF, retryPeriod << Math.min(retryCount - 1, MAX_BACKOFF_SHIFT));
+        backoff = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        sessionManager.scheduleRetry(globalSession, retryCount, System.currentTimeMillis() + backoff);
     }
 
     private boolean isRetryTimeout(long now, long timeout, long beginTime) {
@@ -331,18 +402,18 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
         if (CollectionUtils.isEmpty(asyncCommittingSessions)) {
             return;
         }
-        for (GlobalSession asyncCommittingSession : asyncCommittingSessions) {
+        asyncCommittingExecutor.execute(asyncCommittingSessions, asyncCommittingSession -> {
             try {
                 // Instruction reordering in DefaultCore#asyncCommit may cause this situation
                 if (GlobalStatus.AsyncCommitting != asyncCommittingSession.getStatus()) {
-                    continue;
+                    return;
                 }
                 asyncCommittingSession.addSessionLifecycleListener(SessionHolder.getRootSessionManager());
                 core.doGlobalCommit(asyncCommittingSession, true);
             } catch (TransactionException ex) {
                 LOGGER.error("Failed to async committing [{}] {} {}", asyncCommittingSession.getXid(), ex.getCode(), ex.getMessage(), ex);
             }
-        }
+        });
     }
 
     /**
@@ -375,6 +446,12 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
      * Init.
      */
     public void init() {
+        retryRollbackingExecutor.bindMetrics(MetricsManager.get().getRegistry());
+        retryCommittingExecutor.bindMetrics(MetricsManager.get().getRegistry());
+        asyncCommittingExecutor.bindMetrics(MetricsManager.get().getRegistry());
+        timeoutCheckExecutor.bindMetrics(MetricsManager.get().getRegistry());
+        BranchCircuitBreaker.get().bindMetrics(MetricsManager.get().getRegistry());
+
         retryRollbacking.scheduleAtFixedRate(() -> {
             try {
                 handleRetryRollbacking();
@@ -450,11 +527,17 @@ public class DefaultCoordinator extends AbstractTCInboundHandler implements Tran
         } catch (InterruptedException ignore) {
 
         }
+        retryRollbackingExecutor.destroy();
+        retryCommittingExecutor.destroy();
+        asyncCommittingExecutor.destroy();
+        timeoutCheckExecutor.destroy();
+        core.destroy();
         // 2. second close netty flow
         if (remotingServer instanceof NettyRemotingServer) {
             ((NettyRemotingServer) remotingServer).destroy();
         }
-        // 3. last destroy SessionHolder
+        // 3. last destroy SessionHolder and the lock manager
         SessionHolder.destroy();
+        LockerManagerFactory.destroy();
     }
 }
@@ -15,6 +15,7 @@
  */
 package io.seata.server.coordinator;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,18 +23,28 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.seata.common.XID;
 import io.seata.common.exception.NotSupportYetException;
 import io.seata.common.loader.EnhancedServiceLoader;
 import io.seata.common.util.CollectionUtils;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.event.EventBus;
 import io.seata.core.event.GlobalTransactionEvent;
+import io.seata.core.exception.GlobalTransactionException;
 import io.seata.core.exception.TransactionException;
+import io.seata.core.exception.TransactionExceptionCode;
 import io.seata.core.logger.StackTraceLogger;
 import io.seata.core.model.BranchStatus;
 import io.seata.core.model.BranchType;
 import io.seata.core.model.GlobalStatus;
+import io.seata.core.protocol.transaction.BranchRegisterRequest;
+import io.seata.core.rpc.Disposable;
 import io.seata.core.rpc.RemotingServer;
+import io.seata.server.coordinator.ParallelBranchDispatcher.DispatchResult;
 import io.seata.server.event.EventBusManager;
+import io.seata.server.lock.LockWaitQueue;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionHelper;
@@ -44,14 +55,25 @@ import io.seata.server.session.SessionHolder;
  *
  * @author sharajava
  */
-public class DefaultCore implements Core {
+public class DefaultCore implements Core, Disposable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCore.class);
 
+    private static final boolean PARALLEL_HANDLE_BRANCH = ConfigurationFactory.getInstance().getBoolean(
+        ConfigurationKeys.ENABLE_PARALLEL_HANDLE_BRANCH, DefaultValues.DEFAULT_ENABLE_PARALLEL_HANDLE_BRANCH);
+
+    private static final int PARALLEL_HANDLE_BRANCH_THREAD_SIZE = ConfigurationFactory.getInstance().getInt(
+        ConfigurationKeys.PARALLEL_HANDLE_BRANCH_THREAD_SIZE, DefaultValues.DEFAULT_PARALLEL_HANDLE_BRANCH_THREAD_SIZE);
+
     private EventBus eventBus = EventBusManager.get();
 
     private static Map<BranchType, AbstractCore> coreMap = new ConcurrentHashMap<>();
 
+    /**
+     * dispatch the branches of different resources at the same time in phase two, null if disabled
+     */
+    private ParallelBranchDispatcher parallelBranchDispatcher;
+
     /**
      * get the Default core.
      *
@@ -65,6 +87,9 @@ public class DefaultCore implements Core {
                 coreMap.put(core.getHandleBranchType(), core);
             }
         }
+        if (PARALLEL_HANDLE_BRANCH) {
+            parallelBranchDispatcher = new ParallelBranchDispatcher(PARALLEL_HANDLE_BRANCH_THREAD_SIZE);
+        }
     }
 
     /**
@@ -91,11 +116,83 @@ public class DefaultCore implements Core {
         coreMap.put(branchType, core);
     }
 
+    /**
+     * only for test
+     *
+     * @param parallelBranchDispatcher the parallel branch dispatcher, null to dispatch the branches one by one
+     */
+    void setParallelBranchDispatcher(ParallelBranchDispatcher parallelBranchDispatcher) {
+        this.parallelBranchDispatcher = parallelBranchDispatcher;
+    }
+
     @Override
     public Long branchRegister(BranchType branchType, String resourceId, String clientId, String xid,
                                String applicationData, String lockKeys) throws TransactionException {
+        return branchRegister(branchType, resourceId, clientId, xid, applicationData, lockKeys, null);
+    }
+
+    @Override
+    public Long branchRegister(BranchType branchType, String resourceId, String clientId, String xid,
+                               String applicationData, String lockKeys, byte[] binaryLockKey)
+        throws TransactionException {
         return getCore(branchType).branchRegister(branchType, resourceId, clientId, xid,
-            applicationData, lockKeys);
+            applicationData, lockKeys, binaryLockKey);
+    }
+
+    /**
+     * Register the branches into the global session at once, under one global session lock. Either all the branches
+     * are registered, or the ones registered before a failure are removed again.
+     *
+     * @param clientId               the client id
+     * @param xid                    the xid
+     * @param branchRegisterRequests the branches to register
+     * @return the branch ids, in the order of the requests
+     * @throws TransactionException the transaction exception
+     */
+    public List<Long> batchBranchRegister(String clientId, String xid, List<BranchRegisterRequest> branchRegisterRequests)
+        throws TransactionException {
+        if (CollectionUtils.isEmpty(branchRegisterRequests)) {
+            return new ArrayList<>();
+        }
+        return LockWaitQueue.get().execute(XID.getTransactionId(xid), () -> {
+            List<String> rowKeys = new ArrayList<>();
+            for (BranchRegisterRequest request : branchRegisterRequests) {
+                rowKeys.addAll(LockWaitQueue.rowKeys(request.getResourceId(), request.getLockKey(),
+                    request.getBinaryLockKey()));
+            }
+            return rowKeys;
+        }, () -> {
+            GlobalSession globalSession = SessionHolder.findGlobalSession(xid, false);
+            if (globalSession == null) {
+                throw new GlobalTransactionException(TransactionExceptionCode.GlobalTransactionNotExist,
+                    String.format("Could not found global transaction xid = %s, may be has finished.", xid));
+            }
+            return SessionHolder.lockAndExecute(globalSession, () -> {
+                List<BranchSession> registered = new ArrayList<>(branchRegisterRequests.size());
+                try {
+                    for (BranchRegisterRequest request : branchRegisterRequests) {
+                        registered.add(getCore(request.getBranchType()).registerBranch(globalSession,
+                            request.getBranchType(), request.getResourceId(), clientId,
+                            request.getApplicationData(), request.getLockKey(), request.getBinaryLockKey()));
+                    }
+                } catch (TransactionException | RuntimeException e) {
+                    for (BranchSession branchSession : registered) {
+                        try {
+                            globalSession.removeBranch(branchSession);
+                        } catch (TransactionException | RuntimeException removeEx) {
+                            LOGGER.error("Failed to remove branch after batch register failure, xid = {} branchId = {}",
+                                xid, branchSession.getBranchId(), removeEx);
+                        }
+                    }
+                    throw e;
+                }
+                List<Long> branchIds = new ArrayList<>(registered.size());
+                for (BranchSession branchSession : registered) {
+                    branchIds.add(branchSession.getBranchId());
+                }
+                return branchIds;
+            });
+        });
     }
 
     @Override
@@ -107,7 +204,13 @@ public class DefaultCore implements Core {
     @Override
     public boolean lockQuery(BranchType branchType, String resourceId, String xid, String lockKeys)
         throws TransactionException {
-        return getCore(branchType).lockQuery(branchType, resourceId, xid, lockKeys);
+        return lockQuery(branchType, resourceId, xid, lockKeys, null);
+    }
+
+    @Override
+    public boolean lockQuery(BranchType branchType, String resourceId, String xid, String lockKeys,
+                             byte[] binaryLockKey) throws TransactionException {
+        return getCore(branchType).lockQuery(branchType, resourceId, xid, lockKeys, binaryLockKey);
     }
 
     @Override
@@ -176,6 +279,10 @@ public class DefaultCore implements Core {
 
         if (globalSession.isSaga()) {
             success = getCore(BranchType.SAGA).doGlobalCommit(globalSession, retrying);
+        } else if (parallelBranchDispatcher != null) {
+            if (!doGlobalCommitInParallel(globalSession, retrying)) {
+                return false;
+            }
         } else {
             for (BranchSession branchSession : globalSession.getSortedBranches()) {
                 BranchStatus currentStatus = branchSession.getStatus();
@@ -275,6 +382,10 @@ public class DefaultCore implements Core {
 
         if (globalSession.isSaga()) {
             success = getCore(BranchType.SAGA).doGlobalRollback(globalSession, retrying);
+        } else if (parallelBranchDispatcher != null) {
+            if (!doGlobalRollbackInParallel(globalSession, retrying) || hasBranchRegisteredAgain(globalSession)) {
+                return false;
+            }
         } else {
             for (BranchSession branchSession : globalSession.getReverseSortedBranches()) {
                 BranchStatus currentBranchStatus = branchSession.getStatus();
@@ -311,15 +422,7 @@ public class DefaultCore implements Core {
                 }
             }
 
-            // In db mode, there is a problem of inconsistent data in multiple copies, resulting in new branch
-            // transaction registration when rolling back.
-            // 1. New branch transaction and rollback branch transaction have no data association
-            // 2. New branch transaction has data association with rollback branch transaction
-            // The second query can solve the first problem, and if it is the second problem, it may cause a rollback
-            // failure due to data changes.
-            GlobalSession globalSessionTwice = SessionHolder.findGlobalSession(globalSession.getXid());
-            if (globalSessionTwice != null && globalSessionTwice.hasBranch()) {
-                LOGGER.info("Rollbacking global transaction is NOT done, xid = {}.", globalSession.getXid());
+            if (hasBranchRegisteredAgain(globalSession)) {
                 return false;
             }
         }
@@ -336,6 +439,174 @@ public class DefaultCore implements Core {
         return success;
     }
 
+    /**
+     * In db mode, there is a problem of inconsistent data in multiple copies, resulting in new branch
+     * transaction registration when rolling back.
+     * 1. New branch transaction and rollback branch transaction have no data association
+     * 2. New branch transaction has data association with rollback branch transaction
+     * The second query can solve the first problem, and if it is the second problem, it may cause a rollback
+     * failure due to data changes.
+     */
+    private boolean hasBranchRegisteredAgain(GlobalSession globalSession) {
+        GlobalSession globalSessionTwice = SessionHolder.findGlobalSession(globalSession.getXid());
+        if (globalSessionTwice != null && globalSessionTwice.hasBranch()) {
+            LOGGER.info("Rollbacking global transaction is NOT done, xid = {}.", globalSession.getXid());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Commit the branches of different resources at the same time.
+     * The results are applied in the original order: the committed branches are always removed, and the first
+     * failed branch decides what happens to the global session, same as the one by one way.
+     *
+     * @param globalSession the global session
+     * @param retrying      the retrying
+     * @return true if all of the branches are committed
+     * @throws TransactionException the transaction exception
+     */
+    private boolean doGlobalCommitInParallel(GlobalSession globalSession, boolean retrying)
+        throws TransactionException {
+        List<BranchSession> branchSessions = new ArrayList<>();
+        for (BranchSession branchSession : globalSession.getSortedBranches()) {
+            if (branchSession.getStatus() == BranchStatus.PhaseOne_Failed) {
+                globalSession.removeBranch(branchSession);
+            } else {
+                branchSessions.add(branchSession);
+            }
+        }
+        Map<BranchSession, DispatchResult> results = parallelBranchDispatcher.dispatch(branchSessions,
+            branchSession -> getCore(branchSession.getBranchType()).branchCommit(globalSession, branchSession),
+            BranchStatus.PhaseTwo_Committed);
+
+        BranchSession failedBranch = null;
+        DispatchResult failedResult = null;
+        for (BranchSession branchSession : branchSessions) {
+            DispatchResult result = results.get(branchSession);
+            if (result == null) {
+                continue;
+            }
+            if (result.getException() != null) {
+                StackTraceLogger.error(LOGGER, result.getException(), "Committing branch transaction exception: {}",
+                    new String[] {branchSession.toString()});
+                if (retrying) {
+                    continue;
+                }
+            } else if (result.getStatus() == BranchStatus.PhaseTwo_Committed) {
+                globalSession.removeBranch(branchSession);
+                continue;
+            } else if (globalSession.canBeCommittedAsync()
+                && (result.getStatus() == BranchStatus.PhaseTwo_CommitFailed_Unretryable || retrying)) {
+                LOGGER.error("Committing branch transaction[{}], status:{} and will retry later",
+                    branchSession.getBranchId(), result.getStatus());
+                continue;
+            }
+            if (failedBranch == null) {
+                failedBranch = branchSession;
+                failedResult = result;
+            }
+        }
+
+        if (failedBranch != null) {
+            if (failedResult.getException() != null) {
+                globalSession.queueToRetryCommit();
+                throw new TransactionException(failedResult.getException());
+            }
+            if (failedResult.getStatus() == BranchStatus.PhaseTwo_CommitFailed_Unretryable) {
+                SessionHelper.endCommitFailed(globalSession);
+                LOGGER.error("Committing global transaction[{}] finally failed, caused by branch transaction[{}] commit failed.", globalSession.getXid(), failedBranch.getBranchId());
+                return false;
+            }
+            if (!retrying) {
+                globalSession.queueToRetryCommit();
+                return false;
+            }
+            LOGGER.error(
+                "Committing global transaction[{}] failed, caused by branch transaction[{}] commit failed, will retry later.", globalSession.getXid(), failedBranch.getBranchId());
+            return false;
+        }
+        if (globalSession.hasBranch()) {
+            LOGGER.info("Committing global transaction is NOT done, xid = {}.", globalSession.getXid());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rollback the branches of different resources at the same time.
+     * The results are applied in the original order: the rollbacked branches are always removed, and the first
+     * failed branch decides what happens to the global session, same as the one by one way.
+     *
+     * @param globalSession the global session
+     * @param retrying      the retrying
+     * @return true if all of the branches are rollbacked
+     * @throws TransactionException the transaction exception
+     */
+    private boolean doGlobalRollbackInParallel(GlobalSession globalSession, boolean retrying)
+        throws TransactionException {
+        List<BranchSession> branchSessions = new ArrayList<>();
+        for (BranchSession branchSession : globalSession.getReverseSortedBranches()) {
+            if (branchSession.getStatus() == BranchStatus.PhaseOne_Failed) {
+                globalSession.removeBranch(branchSession);
+            } else {
+                branchSessions.add(branchSession);
+            }
+        }
+        Map<BranchSession, DispatchResult> results = parallelBranchDispatcher.dispatch(branchSessions,
+            branchSession -> branchRollback(globalSession, branchSession), BranchStatus.PhaseTwo_Rollbacked);
+
+        BranchSession failedBranch = null;
+        DispatchResult failedResult = null;
+        for (BranchSession branchSession : branchSessions) {
+            DispatchResult result = results.get(branchSession);
+            if (result == null) {
+                continue;
+            }
+            if (result.getException() != null) {
+                StackTraceLogger.error(LOGGER, result.getException(),
+                    "Rollback branch transaction exception, xid = {} branchId = {} exception = {}",
+                    new String[] {globalSession.getXid(), String.valueOf(branchSession.getBranchId()),
+                        result.getException().getMessage()});
+            } else if (result.getStatus() == BranchStatus.PhaseTwo_Rollbacked) {
+                globalSession.removeBranch(branchSession);
+                LOGGER.info("Rollback branch transaction successfully, xid = {} branchId = {}", globalSession.getXid(), branchSession.getBranchId());
+                continue;
+            }
+            if (failedBranch == null) {
+                failedBranch = branchSession;
+                failedResult = result;
+            }
+        }
+
+        if (failedBranch != null) {
+            if (failedResult.getException() != null) {
+                if (!retrying) {
+                    globalSession.queueToRetryRollback();
+                }
+                throw new TransactionException(failedResult.getException());
+            }
+            if (failedResult.getStatus() == BranchStatus.PhaseTwo_RollbackFailed_Unretryable) {
+                SessionHelper.endRollbackFailed(globalSession);
+                LOGGER.info("Rollback branch transaction fail and stop retry, xid = {} branchId = {}", globalSession.getXid(), failedBranch.getBranchId());
+                return false;
+            }
+            LOGGER.info("Rollback branch transaction fail and will retry, xid = {} branchId = {}", globalSession.getXid(), failedBranch.getBranchId());
+            if (!retrying) {
+                globalSession.queueToRetryRollback();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        if (parallelBranchDispatcher != null) {
+            parallelBranchDispatcher.destroy();
+        }
+    }
+
     @Override
     public GlobalStatus getStatus(String xid) throws TransactionException {
         GlobalSession globalSession = SessionHolder.findGlobalSession(xid, false);
@@ -0,0 +1,164 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.coordinator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.model.BranchStatus;
+import io.seata.core.rpc.Disposable;
+import io.seata.server.session.BranchSession;
+
+/**
+ * Dispatch the phase two requests of the branches of one global transaction in parallel.
+ * <p>
+ * Branches are grouped by resource id, the groups are dispatched at the same time through a bounded executor,
+ * and the branches of one group are still dispatched one by one in the given order. A group stops at the first
+ * branch which does not reach the expected status, the rest of the group is left undispatched.
+ */
+public class ParallelBranchDispatcher implements Disposable {
+
+    private static final int KEEP_ALIVE_TIME = 60;
+
+    private static final int MAX_TASK_QUEUE_SIZE = 10000;
+
+    private final ThreadPoolExecutor branchExecutor;
+
+    /**
+     * Instantiates a new Parallel branch dispatcher.
+     *
+     * @param threadSize the max thread size
+     */
+    public ParallelBranchDispatcher(int threadSize) {
+        this.branchExecutor = new ThreadPoolExecutor(threadSize, threadSize, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(MAX_TASK_QUEUE_SIZE), new NamedThreadFactory("ParallelHandleBranch", threadSize),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        this.branchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Dispatch the branches and wait for all of the groups.
+     *
+     * @param branchSessions the sorted branches
+     * @param handler        the branch handler
+     * @param expectedStatus the status which allows the next branch of the same resource to be dispatched
+     * @return the results of the dispatched branches, branches which are not dispatched are absent
+     */
+    public Map<BranchSession, DispatchResult> dispatch(List<BranchSession> branchSessions, BranchHandler handler,
+                                                       BranchStatus expectedStatus) {
+        Map<String, List<BranchSession>> resourceGroups = new LinkedHashMap<>();
+        for (BranchSession branchSession : branchSessions) {
+            resourceGroups.computeIfAbsent(branchSession.getResourceId(), k -> new ArrayList<>()).add(branchSession);
+        }
+        Map<BranchSession, DispatchResult> results = new HashMap<>(branchSessions.size());
+        if (resourceGroups.size() <= 1) {
+            // nothing to parallelize, save the thread switch
+            for (List<BranchSession> group : resourceGroups.values()) {
+                results.putAll(dispatchGroup(group, handler, expectedStatus));
+            }
+            return results;
+        }
+        List<Future<Map<BranchSession, DispatchResult>>> futures = new ArrayList<>(resourceGroups.size());
+        for (List<BranchSession> group : resourceGroups.values()) {
+            futures.add(branchExecutor.submit(() -> dispatchGroup(group, handler, expectedStatus)));
+        }
+        for (Future<Map<BranchSession, DispatchResult>> future : futures) {
+            try {
+                results.putAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // the unfinished branches are absent and will be handled by the retry
+                future.cancel(false);
+            } catch (ExecutionException e) {
+                // never happen, dispatchGroup catches everything
+                future.cancel(false);
+            }
+        }
+        return results;
+    }
+
+    private Map<BranchSession, DispatchResult> dispatchGroup(List<BranchSession> group, BranchHandler handler,
+                                                             BranchStatus expectedStatus) {
+        Map<BranchSession, DispatchResult> results = new HashMap<>(group.size());
+        for (BranchSession branchSession : group) {
+            DispatchResult result;
+            try {
+                result = new DispatchResult(handler.handle(branchSession), null);
+            } catch (Exception ex) {
+                result = new DispatchResult(null, ex);
+            }
+            results.put(branchSession, result);
+            if (result.getStatus() != expectedStatus) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        branchExecutor.shutdown();
+    }
+
+    /**
+     * The branch handler.
+     */
+    @FunctionalInterface
+    public interface BranchHandler {
+
+        /**
+         * Send the phase two request of the branch.
+         *
+         * @param branchSession the branch session
+         * @return the branch status
+         * @throws TransactionException the transaction exception
+         */
+        BranchStatus handle(BranchSession branchSession) throws TransactionException;
+    }
+
+    /**
+     * The result of one dispatched branch, either the status or the exception is present.
+     */
+    public static class DispatchResult {
+
+        private final BranchStatus status;
+
+        private final Exception exception;
+
+        DispatchResult(BranchStatus status, Exception exception) {
+            this.status = status;
+            this.exception = exception;
+        }
+
+        public BranchStatus getStatus() {
+            return status;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.coordinator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.rpc.Disposable;
+import io.seata.metrics.Id;
+import io.seata.metrics.Timer;
+import io.seata.metrics.registry.Registry;
+import io.seata.server.session.GlobalSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handle one pass of global sessions on several workers.
+ * <p>
+ * The sessions are partitioned by transaction id, so one session is always owned by the same single-thread worker
+ * and is never handled twice at the same time. The pass returns after every partition is done. With only one
+ * worker the pass runs on the calling thread.
+ */
+public class SessionPartitionExecutor implements Disposable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionPartitionExecutor.class);
+
+    private final String name;
+
+    private final int workerSize;
+
+    private final ExecutorService[] workers;
+
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
+    private final Id pendingId;
+
+    private final Id passId;
+
+    private volatile Timer passTimer;
+
+    /**
+     * Instantiates a new Session partition executor.
+     *
+     * @param name       the name
+     * @param workerSize the worker size
+     * @param pendingId  the meter id of the sessions waiting to be handled in the current pass
+     * @param passId     the meter id of the pass duration
+     */
+    public SessionPartitionExecutor(String name, int workerSize, Id pendingId, Id passId) {
+        this.name = name;
+        this.workerSize = Math.max(workerSize, 1);
+        this.pendingId = pendingId;
+        this.passId = passId;
+        if (this.workerSize > 1) {
+            NamedThreadFactory threadFactory = new NamedThreadFactory(name + "Worker", this.workerSize);
+            this.workers = new ExecutorService[this.workerSize];
+            for (int i = 0; i < this.workerSize; i++) {
+                workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    threadFactory);
+            }
+        } else {
+            this.workers = null;
+        }
+    }
+
+    /**
+     * Register the meters, do nothing if metrics is disabled.
+     *
+     * @param registry the registry
+     */
+    public void bindMetrics(Registry registry) {
+        if (registry != null) {
+            registry.getGauge(pendingId, pendingSize::get);
+            passTimer = registry.getTimer(passId);
+        }
+    }
+
+    /**
+     * Handle the sessions and wait until all of them are handled.
+     *
+     * @param sessions the sessions
+     * @param handler  the handler
+     */
+    public void execute(Collection<GlobalSession> sessions, SessionHandler handler) {
+        long start = System.currentTimeMillis();
+        pendingSize.addAndGet(sessions.size());
+        try {
+            if (workers == null) {
+                handlePartition(sessions, handler);
+                return;
+            }
+            List<List<GlobalSession>> partitions = new ArrayList<>(workerSize);
+            for (int i = 0; i < workerSize; i++) {
+                partitions.add(new ArrayList<>());
+            }
+            for (GlobalSession session : sessions) {
+                partitions.get(partition(session.getTransactionId())).add(session);
+            }
+            List<Future<?>> futures = new ArrayList<>(workerSize);
+            for (int i = 0; i < workerSize; i++) {
+                List<GlobalSession> partition = partitions.get(i);
+                if (!partition.isEmpty()) {
+                    futures.add(workers[i].submit(() -> handlePartition(partition, handler)));
+                }
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Exception {} partition ... ", name, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } finally {
+            Timer timer = passTimer;
+            if (timer != null) {
+                timer.record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void handlePartition(Collection<GlobalSession> partition, SessionHandler handler) {
+        int remaining = partition.size();
+        try {
+            for (GlobalSession session : partition) {
+                try {
+                    handler.handle(session);
+                } catch (TransactionException ex) {
+                    LOGGER.info("Failed to {} [{}] {} {}", name, session.getXid(), ex.getCode(), ex.getMessage());
+                }
+                remaining--;
+                pendingSize.decrementAndGet();
+            }
+        } finally {
+            pendingSize.addAndGet(-remaining);
+        }
+    }
+
+    private int partition(long transactionId) {
+        return Math.floorMod(Long.hashCode(transactionId), workerSize);
+    }
+
+    @Override
+    public void destroy() {
+        if (workers != null) {
+            for (ExecutorService worker : workers) {
+                worker.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The session handler.
+     */
+    @FunctionalInterface
+    public interface SessionHandler {
+
+        /**
+         * Handle one session.
+         *
+         * @param session the session
+         * @throws TransactionException the transaction exception
+         */
+        void handle(GlobalSession session) throws TransactionException;
+    }
+}
@@ -22,6 +22,7 @@ import io.seata.common.XID;
 import io.seata.common.util.CollectionUtils;
 import io.seata.common.util.StringUtils;
 import io.seata.core.exception.TransactionException;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.lock.Locker;
 import io.seata.core.lock.RowLock;
 import io.seata.server.session.BranchSession;
@@ -45,8 +46,7 @@ public abstract class AbstractLockManager implements LockManager {
         if (branchSession == null) {
             throw new IllegalArgumentException("branchSession can't be null for memory/file locker.");
         }
-        String lockKey = branchSession.getLockKey();
-        if (StringUtils.isNullOrEmpty(lockKey)) {
+        if (branchSession.getBinaryLockKey() == null && StringUtils.isNullOrEmpty(branchSession.getLockKey())) {
             // no lock
             return true;
         }
@@ -75,15 +75,29 @@ public abstract class AbstractLockManager implements LockManager {
 
     @Override
     public boolean isLockable(String xid, String resourceId, String lockKey) throws TransactionException {
-        if (StringUtils.isBlank(lockKey)) {
+        return isLockable(xid, resourceId, lockKey, null);
+    }
+
+    @Override
+    public boolean isLockable(String xid, String resourceId, String lockKey, byte[] binaryLockKey)
+        throws TransactionException {
+        List<RowLock> locks;
+        if (binaryLockKey != null) {
+            locks = collectRowLocks(binaryLockKey, resourceId, xid, XID.getTransactionId(xid), null);
+        } else if (StringUtils.isBlank(lockKey)) {
             // no lock
             return true;
+        } else {
+            locks = collectRowLocks(lockKey, resourceId, xid);
+        }
+        if (CollectionUtils.isEmpty(locks)) {
+            return true;
         }
-        List<RowLock> locks = collectRowLocks(lockKey, resourceId, xid);
         try {
             return getLocker().isLockable(locks);
         } catch (Exception t) {
-            LOGGER.error("isLockable error, xid:{} resourceId:{}, lockKey:{}", xid, resourceId, lockKey, t);
+            LOGGER.error("isLockable error, xid:{} resourceId:{}, lockKey:{}", xid, resourceId,
+                lockKey != null ? lockKey : BinaryLockKey.toLockKey(binaryLockKey), t);
             return false;
         }
     }
@@ -119,18 +133,51 @@ public abstract class AbstractLockManager implements LockManager {
      */
     protected List<RowLock> collectRowLocks(BranchSession branchSession) {
         List<RowLock> locks = new ArrayList<>();
-        if (branchSession == null || StringUtils.isBlank(branchSession.getLockKey())) {
+        if (branchSession == null) {
             return locks;
         }
         String xid = branchSession.getXid();
         String resourceId = branchSession.getResourceId();
         long transactionId = branchSession.getTransactionId();
 
+        byte[] binaryLockKey = branchSession.getBinaryLockKey();
+        if (binaryLockKey != null) {
+            return collectRowLocks(binaryLockKey, resourceId, xid, transactionId, branchSession.getBranchId());
+        }
         String lockKey = branchSession.getLockKey();
+        if (StringUtils.isBlank(lockKey)) {
+            return locks;
+        }
 
         return collectRowLocks(lockKey, resourceId, xid, transactionId, branchSession.getBranchId());
     }
 
+    /**
+     * Collect row locks list from the binary lock keys, the rows are read one by one without splitting the keys.
+     *
+     * @param binaryLockKey the binary lock keys
+     * @param resourceId    the resource id
+     * @param xid           the xid
+     * @param transactionId the transaction id
+     * @param branchID      the branch id
+     * @return the list
+     */
+    protected List<RowLock> collectRowLocks(byte[] binaryLockKey, String resourceId, String xid, Long transactionId,
+                                            Long branchID) {
+        List<RowLock> locks = new ArrayList<>();
+        BinaryLockKey.forEachRow(binaryLockKey, (tableName, pk) -> {
+            RowLock rowLock = new RowLock();
+            rowLock.setXid(xid);
+            rowLock.setTransactionId(transactionId);
+            rowLock.setBranchId(branchID);
+            rowLock.setTableName(tableName);
+            rowLock.setPk(pk);
+            rowLock.setResourceId(resourceId);
+            locks.add(rowLock);
+        });
+        return locks;
+    }
+
     /**
      * Collect row locks list.
      *
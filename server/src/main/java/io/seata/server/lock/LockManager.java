@@ -64,6 +64,19 @@ public interface LockManager {
      */
     boolean isLockable(String xid, String resourceId, String lockKey) throws TransactionException;
 
+    /**
+     * Is lockable boolean, the lock keys are read from the binary form when it is set.
+     *
+     * @param xid           the xid
+     * @param resourceId    the resource id
+     * @param lockKey       the lock key
+     * @param binaryLockKey the lock keys in the binary form, see {@link io.seata.core.lock.BinaryLockKey}
+     * @return the boolean
+     * @throws TransactionException the transaction exception
+     */
+    boolean isLockable(String xid, String resourceId, String lockKey, byte[] binaryLockKey)
+        throws TransactionException;
+
     /**
      * Clean all locks.
      *
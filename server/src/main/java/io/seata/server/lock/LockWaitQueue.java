@@ -0,0 +1,376 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.seata.common.util.StringUtils;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
+import io.seata.core.exception.BranchTransactionException;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.exception.TransactionExceptionCode;
+import io.seata.core.lock.BinaryLockKey;
+import io.seata.core.model.BranchType;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+
+/**
+ * The branch registers waiting for row locks in the server.
+ * <p>
+ * A register which failed on lock conflict parks a {@link Waiter} at the tail of the queue of each of its rows. When
+ * a transaction releases its rows only the head waiter of each row is woken, so the waiters take the row in FIFO
+ * order, and a waiter leaving the head of a queue wakes the next one. The locks may also be released by another
+ * server in the db and redis store mode, so a waiter at the head of all its rows rechecks the locks after
+ * {@link #RECHECK_INTERVAL} anyway, the others stay parked until they are woken.
+ * <p>
+ * The waiters are queued on all their rows at once, so the queues of the rows keep the same order and no two waiters
+ * are each behind the other.
+ */
+public class LockWaitQueue {
+
+    /**
+     * The max millis a waiter at the head of all its rows is parked without being woken.
+     */
+    public static final long RECHECK_INTERVAL = 100L;
+
+    private static final String ROW_KEY_SEPARATOR = "^^^";
+
+    private static class SingletonHolder {
+        private static LockWaitQueue INSTANCE = new LockWaitQueue(
+            ConfigurationFactory.getInstance().getBoolean(ConfigurationKeys.ENABLE_LOCK_WAIT,
+                DefaultValues.DEFAULT_ENABLE_LOCK_WAIT),
+            ConfigurationFactory.getInstance().getLong(ConfigurationKeys.LOCK_WAIT_TIMEOUT,
+                DefaultValues.DEFAULT_LOCK_WAIT_TIMEOUT),
+            ConfigurationFactory.getInstance().getInt(ConfigurationKeys.LOCK_WAIT_MAX_WAITERS,
+                DefaultValues.DEFAULT_LOCK_WAIT_MAX_WAITERS));
+    }
+
+    public static LockWaitQueue get() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private final boolean enabled;
+
+    private final long waitTimeout;
+
+    private final int maxWaiters;
+
+    private final ConcurrentMap<String/* rowKey */, Deque<Waiter>> queues = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    private final Object enqueueLock = new Object();
+
+    /**
+     * Instantiates a new Lock wait queue.
+     *
+     * @param enabled     whether the branch registers wait in the server
+     * @param waitTimeout the max millis a branch register waits
+     * @param maxWaiters  the max count of the waiting branch registers, the others fail at once
+     */
+    public LockWaitQueue(boolean enabled, long waitTimeout, int maxWaiters) {
+        this.enabled = enabled;
+        this.waitTimeout = waitTimeout;
+        this.maxWaiters = maxWaiters;
+    }
+
+    public boolean isEnabled() {
+        return enabled && waitTimeout > 0 && maxWaiters > 0;
+    }
+
+    public long getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    /**
+     * Execute the callable, and while it fails on lock conflict wait for the rows to be released and execute it again,
+     * until the wait timeout.
+     *
+     * @param <T>           the result type
+     * @param transactionId the transaction id of the branches
+     * @param rowKeys       the rows locked by the callable, only computed when it fails on lock conflict
+     * @param callable      the callable, it must not hold the global session lock while the register waits
+     * @return the result of the callable
+     * @throws TransactionException the last failure of the callable
+     */
+    public <T> T execute(long transactionId, Supplier<List<String>> rowKeys, GlobalSession.LockCallable<T> callable)
+        throws TransactionException {
+        if (!isEnabled()) {
+            return callable.call();
+        }
+        long deadline = System.currentTimeMillis() + waitTimeout;
+        Waiter waiter = null;
+        try {
+            while (true) {
+                try {
+                    return callable.call();
+                } catch (BranchTransactionException e) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (e.getCode() != TransactionExceptionCode.LockKeyConflict || remaining <= 0) {
+                        throw e;
+                    }
+                    if (waiter == null) {
+                        waiter = enqueue(transactionId, rowKeys.get());
+                        if (waiter == null) {
+                            throw e;
+                        }
+                        // the rows may be released before the waiter is queued, so try again before parking
+                        continue;
+                    }
+                    try {
+                        waiter.await(remaining);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            if (waiter != null) {
+                dequeue(waiter);
+            }
+        }
+    }
+
+    /**
+     * Queue a waiter on the rows of the lock keys.
+     *
+     * @param transactionId the transaction id of the branch
+     * @param resourceId    the resource id
+     * @param lockKeys      the lock keys
+     * @return the waiter, or null if there are too many waiters
+     */
+    public Waiter enqueue(long transactionId, String resourceId, String lockKeys) {
+        return enqueue(transactionId, rowKeys(resourceId, lockKeys));
+    }
+
+    /**
+     * Queue a waiter on the rows.
+     *
+     * @param transactionId the transaction id of the branch
+     * @param rowKeys       the row keys, see {@link #rowKeys(String, String)}
+     * @return the waiter, or null if there are too many waiters
+     */
+    public Waiter enqueue(long transactionId, List<String> rowKeys) {
+        if (waiterCount.incrementAndGet() > maxWaiters) {
+            waiterCount.decrementAndGet();
+            return null;
+        }
+        Waiter waiter = new Waiter(transactionId, new ArrayList<>(new LinkedHashSet<>(rowKeys)));
+        synchronized (enqueueLock) {
+            for (String rowKey : waiter.rowKeys) {
+                queues.compute(rowKey, (k, queue) -> {
+                    if (queue == null) {
+                        queue = new ArrayDeque<>();
+                    }
+                    if (queue.isEmpty()) {
+                        waiter.headRows.incrementAndGet();
+                    }
+                    queue.addLast(waiter);
+                    return queue;
+                });
+            }
+        }
+        return waiter;
+    }
+
+    /**
+     * Remove the waiter from its queues, and wake the next waiter of the rows it was heading.
+     *
+     * @param waiter the waiter
+     */
+    public void dequeue(Waiter waiter) {
+        for (String rowKey : waiter.rowKeys) {
+            queues.computeIfPresent(rowKey, (k, queue) -> {
+                boolean head = queue.peekFirst() == waiter;
+                queue.remove(waiter);
+                if (queue.isEmpty()) {
+                    return null;
+                }
+                if (head) {
+                    Waiter next = queue.peekFirst();
+                    next.headRows.incrementAndGet();
+                    next.signal();
+                }
+                return queue;
+            });
+        }
+        waiterCount.decrementAndGet();
+    }
+
+    /**
+     * Wake the head waiters of the rows locked by the branches of the global session.
+     *
+     * @param globalSession the global session whose locks are released
+     */
+    public void signal(GlobalSession globalSession) {
+        if (queues.isEmpty()) {
+            return;
+        }
+        for (BranchSession branchSession : globalSession.getBranchSessions()) {
+            signal(branchSession);
+        }
+    }
+
+    /**
+     * Wake the head waiters of the rows locked by the branch.
+     *
+     * @param branchSession the branch session whose locks are released
+     */
+    public void signal(BranchSession branchSession) {
+        if (queues.isEmpty() || branchSession.getBranchType() != BranchType.AT) {
+            return;
+        }
+        byte[] binaryLockKey = branchSession.getBinaryLockKey();
+        for (String rowKey : rowKeys(branchSession.getResourceId(),
+            binaryLockKey == null ? branchSession.getLockKey() : null, binaryLockKey)) {
+            queues.computeIfPresent(rowKey, (k, queue) -> {
+                Waiter head = queue.peekFirst();
+                // a branch register releases the rows it got when it fails, that must not wake itself up
+                if (head != null && head.transactionId != branchSession.getTransactionId()) {
+                    head.signal();
+                }
+                return queue;
+            });
+        }
+    }
+
+    /**
+     * The count of the waiters.
+     *
+     * @return the count
+     */
+    public int getWaiterCount() {
+        return waiterCount.get();
+    }
+
+    /**
+     * The keys of the rows in the lock keys.
+     *
+     * @param resourceId the resource id
+     * @param lockKeys   the lock keys
+     * @return the row keys
+     */
+    public static List<String> rowKeys(String resourceId, String lockKeys) {
+        List<String> rowKeys = new ArrayList<>();
+        if (StringUtils.isBlank(lockKeys)) {
+            return rowKeys;
+        }
+        for (String tableGroupedLockKey : lockKeys.split(";")) {
+            int idx = tableGroupedLockKey.indexOf(":");
+            if (idx < 0) {
+                continue;
+            }
+            String tablePrefix = resourceId + ROW_KEY_SEPARATOR + tableGroupedLockKey.substring(0, idx)
+                + ROW_KEY_SEPARATOR;
+            for (String pk : tableGroupedLockKey.substring(idx + 1).split(",")) {
+                if (StringUtils.isNotBlank(pk)) {
+                    rowKeys.add(tablePrefix + pk);
+                }
+            }
+        }
+        return rowKeys;
+    }
+
+    /**
+     * The keys of the rows in the lock keys, they are read from the binary form when it is set.
+     *
+     * @param resourceId    the resource id
+     * @param lockKeys      the lock keys
+     * @param binaryLockKey the lock keys in the binary form
+     * @return the row keys
+     */
+    public static List<String> rowKeys(String resourceId, String lockKeys, byte[] binaryLockKey) {
+        if (binaryLockKey == null) {
+            return rowKeys(resourceId, lockKeys);
+        }
+        List<String> rowKeys = new ArrayList<>();
+        BinaryLockKey.forEachRow(binaryLockKey, (tableName, pk) -> rowKeys.add(resourceId + ROW_KEY_SEPARATOR
+            + tableName + ROW_KEY_SEPARATOR + pk));
+        return rowKeys;
+    }
+
+    /**
+     * A parked branch register.
+     */
+    public static class Waiter {
+
+        private final long transactionId;
+
+        private final List<String> rowKeys;
+
+        /**
+         * The count of the rows whose queue it heads.
+         */
+        private final AtomicInteger headRows = new AtomicInteger();
+
+        private boolean signaled;
+
+        Waiter(long transactionId, List<String> rowKeys) {
+            this.transactionId = transactionId;
+            this.rowKeys = rowKeys;
+        }
+
+        synchronized void signal() {
+            signaled = true;
+            notifyAll();
+        }
+
+        /**
+         * Park until woken, or at most the given millis. A waiter at the head of all its rows parks at most
+         * {@link #RECHECK_INTERVAL}, the ones behind another waiter wait for their turn.
+         *
+         * @param millis the max millis to park
+         * @return true if woken by a release
+         * @throws InterruptedException the interrupted exception
+         */
+        public synchronized boolean await(long millis) throws InterruptedException {
+            long now = System.currentTimeMillis();
+            long deadline = now + millis;
+            long recheckTime = now + RECHECK_INTERVAL;
+            while (!signaled) {
+                long until = isHead() ? Math.min(deadline, recheckTime) : deadline;
+                if (now >= until) {
+                    break;
+                }
+                wait(until - now);
+                now = System.currentTimeMillis();
+            }
+            boolean result = signaled;
+            signaled = false;
+            return result;
+        }
+
+        /**
+         * Whether it heads the queues of all its rows.
+         *
+         * @return true if no waiter is before it
+         */
+        public boolean isHead() {
+            return headRows.get() >= rowKeys.size();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package io.seata.server.lock;
 import io.seata.common.loader.EnhancedServiceLoader;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.rpc.Disposable;
 
 /**
  * The type Lock manager factory.
@@ -40,4 +41,13 @@ public class LockerManagerFactory {
     public static LockManager getLockManager() {
         return LOCK_MANAGER;
     }
+
+    /**
+     * Destroy the lock manager, such as stopping its threads.
+     */
+    public static void destroy() {
+        if (LOCK_MANAGER instanceof Disposable) {
+            ((Disposable)LOCK_MANAGER).destroy();
+        }
+    }
 }
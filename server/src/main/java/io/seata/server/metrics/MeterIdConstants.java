@@ -58,4 +58,69 @@ public class MeterIdConstants {
         .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
         .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_TIMER)
         .withTag(IdConstants.STATUS_KEY, IdConstants.STATUS_VALUE_ROLLBACKED);
+
+    public static final Id GAUGE_RETRY_ROLLBACKING_PENDING = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_RETRY_ROLLBACKING);
+
+    public static final Id TIMER_RETRY_ROLLBACKING_PASS = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_TIMER)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_RETRY_ROLLBACKING);
+
+    public static final Id GAUGE_RETRY_COMMITTING_PENDING = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_RETRY_COMMITTING);
+
+    public static final Id TIMER_RETRY_COMMITTING_PASS = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_TIMER)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_RETRY_COMMITTING);
+
+    public static final Id GAUGE_ASYNC_COMMITTING_PENDING = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_ASYNC_COMMITTING);
+
+    public static final Id TIMER_ASYNC_COMMITTING_PASS = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_TIMER)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_ASYNC_COMMITTING);
+
+    public static final Id GAUGE_TIMEOUT_CHECK_PENDING = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_TIMEOUT_CHECK);
+
+    public static final Id TIMER_TIMEOUT_CHECK_PASS = new Id(IdConstants.SEATA_RECOVERY)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_TIMER)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_TIMEOUT_CHECK);
+
+    public static final Id GAUGE_CIRCUIT_BREAKER_OPEN = new Id(IdConstants.SEATA_CIRCUIT_BREAKER)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+        .withTag(IdConstants.STATUS_KEY, IdConstants.STATUS_VALUE_OPEN);
+
+    public static final Id GAUGE_CIRCUIT_BREAKER_HALF_OPEN = new Id(IdConstants.SEATA_CIRCUIT_BREAKER)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_GAUGE)
+        .withTag(IdConstants.STATUS_KEY, IdConstants.STATUS_VALUE_HALF_OPEN);
+
+    public static final Id COUNTER_CIRCUIT_BREAKER_REJECTED = new Id(IdConstants.SEATA_CIRCUIT_BREAKER)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_COUNTER)
+        .withTag(IdConstants.STATUS_KEY, IdConstants.STATUS_VALUE_REJECTED);
+
+    public static final Id SUMMARY_GROUP_COMMIT_SIZE = new Id(IdConstants.SEATA_STORE)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_SUMMARY)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_GROUP_COMMIT);
+
+    public static final Id TIMER_GROUP_COMMIT_FSYNC = new Id(IdConstants.SEATA_STORE)
+        .withTag(IdConstants.ROLE_KEY, IdConstants.ROLE_VALUE_TC)
+        .withTag(IdConstants.METER_KEY, IdConstants.METER_VALUE_TIMER)
+        .withTag(IdConstants.NAME_KEY, IdConstants.NAME_VALUE_GROUP_COMMIT);
 }
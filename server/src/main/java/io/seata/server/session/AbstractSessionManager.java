@@ -15,6 +15,14 @@
  */
 package io.seata.server.session;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
 import io.seata.core.exception.BranchTransactionException;
 import io.seata.core.exception.GlobalTransactionException;
 import io.seata.core.exception.TransactionException;
@@ -47,6 +55,22 @@ public abstract class AbstractSessionManager implements SessionManager, SessionL
      */
     protected String name;
 
+    /**
+     * The session cache of the stores which read a new instance on every lookup, null if it is disabled.
+     */
+    protected GlobalSessionCache sessionCache;
+
+    /**
+     * The schedules due for longer than it are forgotten, the session is then retried as if it was never scheduled.
+     */
+    private static final long RETRY_SCHEDULE_EXPIRE_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * The retry schedules by xid, the sessions read from a store are new instances on every read, so the retry
+     * count and the next retry time are kept here.
+     */
+    private final Map<String, RetrySchedule> retrySchedules = new ConcurrentHashMap<>();
+
     /**
      * Instantiates a new Abstract session manager.
      */
@@ -112,6 +136,57 @@ public abstract class AbstractSessionManager implements SessionManager, SessionL
         writeSession(LogOperation.BRANCH_REMOVE, branchSession);
     }
 
+    @Override
+    public Collection<GlobalSession> findRetrySessions() {
+        long now = System.currentTimeMillis();
+        // forget the schedules of the sessions which are finished, or not read for long after they are due
+        retrySchedules.values().removeIf(
+            retrySchedule -> retrySchedule.nextRetryTime < now - RETRY_SCHEDULE_EXPIRE_MILLIS);
+        Collection<GlobalSession> sessions = readRetrySessions(xid -> {
+            RetrySchedule retrySchedule = retrySchedules.get(xid);
+            return retrySchedule == null || retrySchedule.nextRetryTime <= now;
+        });
+        List<GlobalSession> found = new ArrayList<>(sessions.size());
+        for (GlobalSession session : sessions) {
+            RetrySchedule retrySchedule = retrySchedules.get(session.getXid());
+            if (retrySchedule != null) {
+                session.setRetryCount(retrySchedule.retryCount);
+                session.setNextRetryTime(retrySchedule.nextRetryTime);
+            }
+            if (session.getNextRetryTime() <= now) {
+                found.add(session);
+            }
+        }
+        found.sort(Comparator.comparingLong(GlobalSession::getNextRetryTime));
+        return found;
+    }
+
+    /**
+     * Read the sessions to retry whose xids are accepted by the filter. The managers of the stores which read a
+     * limited page override it to skip the sessions still backed off in the store, so they do not fill the page.
+     *
+     * @param xidFilter the filter of the xids
+     * @return the sessions
+     */
+    protected Collection<GlobalSession> readRetrySessions(Predicate<String> xidFilter) {
+        Collection<GlobalSession> sessions = allSessions();
+        List<GlobalSession> accepted = new ArrayList<>();
+        if (sessions != null) {
+            for (GlobalSession session : sessions) {
+                if (xidFilter.test(session.getXid())) {
+                    accepted.add(session);
+                }
+            }
+        }
+        return accepted;
+    }
+
+    @Override
+    public void scheduleRetry(GlobalSession session, int retryCount, long nextRetryTime) {
+        SessionManager.super.scheduleRetry(session, retryCount, nextRetryTime);
+        retrySchedules.put(session.getXid(), new RetrySchedule(retryCount, nextRetryTime));
+    }
+
     @Override
     public void onBegin(GlobalSession globalSession) throws TransactionException {
         addGlobalSession(globalSession);
@@ -175,6 +250,27 @@ public abstract class AbstractSessionManager implements SessionManager, SessionL
         }
     }
 
+    /**
+     * Write the session through the store, and report the write to the session cache.
+     *
+     * @param logOperation    the log operation
+     * @param sessionStorable the global or branch session
+     * @param globalSession   the global session which is written, null if it is unknown
+     * @return whether the write succeeded
+     */
+    protected boolean writeThrough(LogOperation logOperation, SessionStorable sessionStorable,
+                                   GlobalSession globalSession) {
+        boolean written = false;
+        try {
+            written = transactionStoreManager.writeSession(logOperation, sessionStorable);
+        } finally {
+            if (sessionCache != null) {
+                sessionCache.written(logOperation, sessionStorable, globalSession, written);
+            }
+        }
+        return written;
+    }
+
     @Override
     public void destroy() {
     }
@@ -187,4 +283,25 @@ public abstract class AbstractSessionManager implements SessionManager, SessionL
     public void setTransactionStoreManager(TransactionStoreManager transactionStoreManager) {
         this.transactionStoreManager = transactionStoreManager;
     }
+
+    /**
+     * Sets session cache.
+     *
+     * @param sessionCache the session cache
+     */
+    public void setSessionCache(GlobalSessionCache sessionCache) {
+        this.sessionCache = sessionCache;
+    }
+
+    private static class RetrySchedule {
+
+        private final int retryCount;
+
+        private final long nextRetryTime;
+
+        RetrySchedule(int retryCount, long nextRetryTime) {
+            this.retryCount = retryCount;
+            this.nextRetryTime = nextRetryTime;
+        }
+    }
 }
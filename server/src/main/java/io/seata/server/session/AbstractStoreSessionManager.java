@@ -0,0 +1,234 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.executor.Initialize;
+import io.seata.common.util.StringUtils;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.model.BranchStatus;
+import io.seata.core.model.GlobalStatus;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+
+/**
+ * The session manager of the stores which keep the sessions out of the server memory, such as db, redis and kv.
+ * <p>
+ * The root session manager, without a task name, writes the sessions through the store. The managers of the tasks,
+ * named by the task name in {@link SessionHolder}, share the store with it and only read the sessions of the statuses
+ * of their task from the store.
+ */
+public abstract class AbstractStoreSessionManager extends AbstractSessionManager
+    implements SessionManager, SessionLifecycleListener, Initialize, Reloadable {
+
+    /**
+     * The Task name.
+     */
+    protected String taskName;
+
+    /**
+     * Instantiates a new store session manager.
+     */
+    public AbstractStoreSessionManager() {
+        super();
+    }
+
+    /**
+     * Instantiates a new store session manager.
+     *
+     * @param name the task name
+     */
+    public AbstractStoreSessionManager(String name) {
+        super();
+        this.taskName = name;
+    }
+
+    @Override
+    public void addGlobalSession(GlobalSession session) throws TransactionException {
+        LogOperation logOperation = StringUtils.isBlank(taskName) ? LogOperation.GLOBAL_ADD
+            : LogOperation.GLOBAL_UPDATE;
+        if (!writeThrough(logOperation, session, session)) {
+            throw new StoreException("addGlobalSession failed.");
+        }
+    }
+
+    @Override
+    public void updateGlobalSessionStatus(GlobalSession session, GlobalStatus status) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        session.setStatus(status);
+        if (!writeThrough(LogOperation.GLOBAL_UPDATE, session, session)) {
+            throw new StoreException("updateGlobalSessionStatus failed.");
+        }
+    }
+
+    /**
+     * remove globalSession
+     * 1. rootSessionManager remove normal globalSession
+     * 2. retryCommitSessionManager and retryRollbackSessionManager remove retry expired globalSession
+     * @param session the session
+     * @throws TransactionException
+     */
+    @Override
+    public void removeGlobalSession(GlobalSession session) throws TransactionException {
+        if (!writeThrough(LogOperation.GLOBAL_REMOVE, session, session)) {
+            throw new StoreException("removeGlobalSession failed.");
+        }
+    }
+
+    @Override
+    public void addBranchSession(GlobalSession globalSession, BranchSession session) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        if (!writeThrough(LogOperation.BRANCH_ADD, session, globalSession)) {
+            throw new StoreException("addBranchSession failed.");
+        }
+    }
+
+    @Override
+    public void updateBranchSessionStatus(BranchSession session, BranchStatus status) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        if (!writeThrough(LogOperation.BRANCH_UPDATE, session, null)) {
+            throw new StoreException("updateBranchSessionStatus failed.");
+        }
+    }
+
+    @Override
+    public void removeBranchSession(GlobalSession globalSession, BranchSession session) throws TransactionException {
+        if (StringUtils.isNotBlank(taskName)) {
+            return;
+        }
+        if (!writeThrough(LogOperation.BRANCH_REMOVE, session, globalSession)) {
+            throw new StoreException("removeBranchSession failed.");
+        }
+    }
+
+    @Override
+    public GlobalSession findGlobalSession(String xid) {
+        return this.findGlobalSession(xid, true);
+    }
+
+    @Override
+    public GlobalSession findGlobalSession(String xid, boolean withBranchSessions) {
+        if (sessionCache == null) {
+            return transactionStoreManager.readSession(xid, withBranchSessions);
+        }
+        // only the sessions read with the branch sessions are complete to be cached
+        if (withBranchSessions) {
+            return sessionCache.get(xid, key -> transactionStoreManager.readSession(key, true));
+        }
+        GlobalSession globalSession = sessionCache.get(xid);
+        return globalSession != null ? globalSession : transactionStoreManager.readSession(xid, false);
+    }
+
+    @Override
+    public Collection<GlobalSession> allSessions() {
+        return findGlobalSessions(new SessionCondition(getStatuses()));
+    }
+
+    @Override
+    protected Collection<GlobalSession> readRetrySessions(Predicate<String> xidFilter) {
+        return transactionStoreManager.readSession(getStatuses(), xidFilter);
+    }
+
+    /**
+     * Get the statuses of the sessions of the task, or all the statuses of the root session manager.
+     *
+     * @return the statuses
+     */
+    protected GlobalStatus[] getStatuses() {
+        // get by taskName
+        if (SessionHolder.ASYNC_COMMITTING_SESSION_MANAGER_NAME.equalsIgnoreCase(taskName)) {
+            return new GlobalStatus[] {GlobalStatus.AsyncCommitting};
+        } else if (SessionHolder.RETRY_COMMITTING_SESSION_MANAGER_NAME.equalsIgnoreCase(taskName)) {
+            return new GlobalStatus[] {GlobalStatus.CommitRetrying};
+        } else if (SessionHolder.RETRY_ROLLBACKING_SESSION_MANAGER_NAME.equalsIgnoreCase(taskName)) {
+            return new GlobalStatus[] {GlobalStatus.RollbackRetrying,
+                GlobalStatus.Rollbacking, GlobalStatus.TimeoutRollbacking, GlobalStatus.TimeoutRollbackRetrying};
+        } else {
+            // all data
+            return new GlobalStatus[] {
+                GlobalStatus.UnKnown, GlobalStatus.Begin,
+                GlobalStatus.Committing, GlobalStatus.CommitRetrying, GlobalStatus.Rollbacking,
+                GlobalStatus.RollbackRetrying,
+                GlobalStatus.TimeoutRollbacking, GlobalStatus.TimeoutRollbackRetrying, GlobalStatus.AsyncCommitting};
+        }
+    }
+
+    @Override
+    public List<GlobalSession> findGlobalSessions(SessionCondition condition) {
+        // nothing need to do
+        return transactionStoreManager.readSession(condition);
+    }
+
+    @Override
+    public <T> T lockAndExecute(GlobalSession globalSession, GlobalSession.LockCallable<T> lockCallable)
+            throws TransactionException {
+        if (sessionCache == null) {
+            return lockCallable.call();
+        }
+        // the cached instance is shared by the requests of the transaction on this node
+        globalSession.lock();
+        try {
+            checkStatus(globalSession);
+            return lockCallable.call();
+        } finally {
+            globalSession.unlock();
+        }
+    }
+
+    /**
+     * Check the status of the cached session against the store, another node may have changed or ended the
+     * transaction before its invalidation arrives. The session takes the status in the store, so the branches are not
+     * registered into it and its status is not changed again, and it is evicted to be read again.
+     *
+     * @param globalSession the global session
+     */
+    private void checkStatus(GlobalSession globalSession) {
+        GlobalSession stored = transactionStoreManager.readSession(globalSession.getXid(), false);
+        GlobalStatus status = stored != null ? stored.getStatus() : GlobalStatus.Finished;
+        if (status == globalSession.getStatus()) {
+            return;
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("The global session {} is {} in the store, it is changed by another node from {}",
+                globalSession.getXid(), status, globalSession.getStatus());
+        }
+        sessionCache.evict(globalSession.getXid());
+        globalSession.setStatus(status);
+        if (status != GlobalStatus.Begin) {
+            globalSession.setActive(false);
+        }
+    }
+
+    @Override
+    public void reload() {
+    }
+
+    @Override
+    public void destroy() {
+        if (StringUtils.isBlank(taskName) && sessionCache != null) {
+            sessionCache.shutdown();
+        }
+    }
+}
@@ -17,13 +17,11 @@ package io.seata.server.session;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-import io.seata.server.storage.file.lock.FileLocker;
+import io.seata.server.storage.file.lock.RowLockHolder;
 import io.seata.common.util.CompressUtil;
 import io.seata.core.exception.TransactionException;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchStatus;
 import io.seata.core.model.BranchType;
 import io.seata.server.lock.LockerManagerFactory;
@@ -58,6 +56,8 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
 
     private String lockKey;
 
+    private byte[] binaryLockKey;
+
     private BranchType branchType;
 
     private BranchStatus status = BranchStatus.Unknown;
@@ -66,8 +66,7 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
 
     private String applicationData;
 
-    private ConcurrentMap<FileLocker.BucketLockMap, Set<String>> lockHolder
-        = new ConcurrentHashMap<>();
+    private final RowLockHolder lockHolder = new RowLockHolder();
 
     /**
      * Gets application data.
@@ -147,6 +146,10 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
      * @return the lock key
      */
     public String getLockKey() {
+        if (lockKey == null && binaryLockKey != null) {
+            // only for the stores and the logs which need the string form
+            lockKey = BinaryLockKey.toLockKey(binaryLockKey);
+        }
         return lockKey;
     }
 
@@ -157,6 +160,26 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
      */
     public void setLockKey(String lockKey) {
         this.lockKey = lockKey;
+        this.binaryLockKey = null;
+    }
+
+    /**
+     * Gets the lock keys in the binary form, it is null if the lock keys are set in the string form.
+     *
+     * @return the binary lock keys
+     */
+    public byte[] getBinaryLockKey() {
+        return binaryLockKey;
+    }
+
+    /**
+     * Sets the lock keys in the binary form, the string form is built from it only when it is read.
+     *
+     * @param binaryLockKey the binary lock keys
+     */
+    public void setBinaryLockKey(byte[] binaryLockKey) {
+        this.binaryLockKey = binaryLockKey;
+        this.lockKey = null;
     }
 
     /**
@@ -264,7 +287,7 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
      *
      * @return the lock holder
      */
-    public ConcurrentMap<FileLocker.BucketLockMap, Set<String>> getLockHolder() {
+    public RowLockHolder getLockHolder() {
         return lockHolder;
     }
 
@@ -289,7 +312,7 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
 
         byte[] resourceIdBytes = resourceId != null ? resourceId.getBytes() : null;
 
-        byte[] lockKeyBytes = lockKey != null ? lockKey.getBytes() : null;
+        byte[] lockKeyBytes = binaryLockKey != null ? binaryLockKey : lockKey != null ? lockKey.getBytes() : null;
 
         byte[] clientIdBytes = clientId != null ? clientId.getBytes() : null;
 
@@ -410,10 +433,13 @@ public class BranchSession implements Lockable, Comparable<BranchSession>, Sessi
             byteBuffer.get(byLockKey);
             if (CompressUtil.isCompressData(byLockKey)) {
                 try {
-                    this.lockKey = new String(CompressUtil.uncompress(byLockKey));
+                    byLockKey = CompressUtil.uncompress(byLockKey);
                 } catch (IOException e) {
                     throw new RuntimeException("decompress lockKey error", e);
                 }
+            }
+            if (BinaryLockKey.isBinaryLockKey(byLockKey)) {
+                this.binaryLockKey = byLockKey;
             } else {
                 this.lockKey = new String(byLockKey);
             }
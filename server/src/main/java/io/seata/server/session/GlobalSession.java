@@ -34,6 +34,7 @@ import io.seata.core.model.BranchStatus;
 import io.seata.core.model.BranchType;
 import io.seata.core.model.GlobalStatus;
 import io.seata.server.UUIDGenerator;
+import io.seata.server.lock.LockWaitQueue;
 import io.seata.server.lock.LockerManagerFactory;
 import io.seata.server.store.SessionStorable;
 import io.seata.server.store.StoreConfig;
@@ -74,6 +75,10 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
 
     private volatile boolean active = true;
 
+    private volatile int retryCount;
+
+    private volatile long nextRetryTime;
+
     private final ArrayList<BranchSession> branchSessions = new ArrayList<>();
 
     private GlobalSessionLock globalSessionLock = new GlobalSessionLock();
@@ -203,6 +208,7 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
 
     public void clean() throws TransactionException {
         LockerManagerFactory.getLockManager().releaseGlobalSessionLock(this);
+        LockWaitQueue.get().signal(this);
 
     }
 
@@ -250,6 +256,7 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
             lifecycleListener.onRemoveBranch(this, branchSession);
         }
         branchSession.unlock();
+        LockWaitQueue.get().signal(branchSession);
         remove(branchSession);
     }
 
@@ -424,6 +431,42 @@ public class GlobalSession implements SessionLifecycle, SessionStorable {
         this.beginTime = beginTime;
     }
 
+    /**
+     * Gets retry count, it is kept in memory only and restarts from zero after the session is reloaded.
+     *
+     * @return the retry count
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Sets retry count.
+     *
+     * @param retryCount the retry count
+     */
+    public void setRetryCount(int retryCount) {
+        this.retryCount = retryCount;
+    }
+
+    /**
+     * Gets next retry time, it is kept in memory only and restarts from zero after the session is reloaded.
+     *
+     * @return the next retry time
+     */
+    public long getNextRetryTime() {
+        return nextRetryTime;
+    }
+
+    /**
+     * Sets next retry time.
+     *
+     * @param nextRetryTime the next retry time
+     */
+    public void setNextRetryTime(long nextRetryTime) {
+        this.nextRetryTime = nextRetryTime;
+    }
+
     /**
      * Gets application data.
      *
@@ -0,0 +1,199 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.seata.common.loader.EnhancedServiceLoader;
+import io.seata.common.util.StringUtils;
+import io.seata.config.Configuration;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
+import io.seata.server.store.SessionStorable;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-through cache of the global sessions with their branch sessions, for the stores which read a new instance
+ * of the session on every lookup.
+ * <p>
+ * A session is cached when it begins on this node or when it is read with its branch sessions, and the cached
+ * instance is returned by the later lookups, so it is changed in place by the lifecycle of the transaction. Every
+ * write of the store is reported to the cache: a write of the cached instance keeps it, a write of another instance
+ * of the same xid, a failed write or a remove evicts it. The changes made by the other nodes are told by an
+ * invalidator, which the cache of the server must have, and the session managers check the status of a cached session
+ * against the store before they change it, since the invalidations are delivered asynchronously.
+ */
+public class GlobalSessionCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GlobalSessionCache.class);
+
+    private final Cache<String/* xid */, GlobalSession> sessions;
+
+    private SessionCacheInvalidator invalidator;
+
+    /**
+     * Instantiates a new Global session cache.
+     *
+     * @param maxSize the max count of the cached sessions
+     * @param expire  the millis a session is cached after it is read or written
+     */
+    public GlobalSessionCache(long maxSize, long expire) {
+        this.sessions = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(expire, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * Get the instance configured for the server.
+     *
+     * @return the cache, or null if the session cache is disabled
+     */
+    public static GlobalSessionCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Get the cached session.
+     *
+     * @param xid the xid
+     * @return the session, or null if it is not cached
+     */
+    public GlobalSession get(String xid) {
+        return sessions.getIfPresent(xid);
+    }
+
+    /**
+     * Get the cached session, or read and cache it. The read is not cached if it is evicted by a write meanwhile.
+     *
+     * @param xid    the xid
+     * @param reader reads the session with its branch sessions, it returns null if there is no session
+     * @return the session, or null if there is no session
+     */
+    public GlobalSession get(String xid, Function<String, GlobalSession> reader) {
+        return sessions.get(xid, reader);
+    }
+
+    /**
+     * Evict the session from this node.
+     *
+     * @param xid the xid
+     */
+    public void evict(String xid) {
+        sessions.invalidate(xid);
+    }
+
+    /**
+     * Report a write of the store.
+     *
+     * @param logOperation   the log operation
+     * @param sessionStorable the written global or branch session
+     * @param globalSession  the global session which is written, null if it is unknown
+     * @param written        whether the write succeeded
+     */
+    public void written(LogOperation logOperation, SessionStorable sessionStorable, GlobalSession globalSession,
+                        boolean written) {
+        String xid = sessionStorable instanceof GlobalSession ? ((GlobalSession)sessionStorable).getXid()
+            : ((BranchSession)sessionStorable).getXid();
+        if (written && logOperation == LogOperation.GLOBAL_ADD) {
+            // a new session, no other node has it
+            sessions.put(xid, globalSession);
+            return;
+        }
+        if (!written || logOperation == LogOperation.GLOBAL_REMOVE || !isCached(xid, sessionStorable,
+            globalSession)) {
+            sessions.invalidate(xid);
+        }
+        if (written && invalidator != null) {
+            invalidator.publish(xid);
+        }
+    }
+
+    /**
+     * The count of the cached sessions.
+     *
+     * @return the count
+     */
+    public long size() {
+        sessions.cleanUp();
+        return sessions.estimatedSize();
+    }
+
+    /**
+     * Sets the invalidator, and start receiving the changes of the other nodes.
+     *
+     * @param invalidator the invalidator
+     */
+    public void setInvalidator(SessionCacheInvalidator invalidator) {
+        this.invalidator = invalidator;
+        invalidator.start(this::evict);
+    }
+
+    /**
+     * Stop receiving the changes of the other nodes, and evict all the sessions.
+     */
+    public void shutdown() {
+        if (invalidator != null) {
+            invalidator.shutdown();
+        }
+        sessions.invalidateAll();
+    }
+
+    /**
+     * Whether the written instance is the cached one, or nothing is cached.
+     */
+    private boolean isCached(String xid, SessionStorable sessionStorable, GlobalSession globalSession) {
+        GlobalSession cached = sessions.getIfPresent(xid);
+        if (cached == null) {
+            return true;
+        }
+        if (globalSession != null) {
+            return cached == globalSession;
+        }
+        BranchSession branchSession = (BranchSession)sessionStorable;
+        return cached.getBranch(branchSession.getBranchId()) == branchSession;
+    }
+
+    private static GlobalSessionCache create() {
+        Configuration configuration = ConfigurationFactory.getInstance();
+        if (!configuration.getBoolean(ConfigurationKeys.STORE_SESSION_CACHE,
+            DefaultValues.DEFAULT_STORE_SESSION_CACHE)) {
+            return null;
+        }
+        String invalidatorName = configuration.getConfig(ConfigurationKeys.STORE_SESSION_CACHE_INVALIDATOR);
+        if (StringUtils.isBlank(invalidatorName)) {
+            // the changes made by the other nodes would be missed until the sessions expire
+            LOGGER.error("The session cache is not enabled, it needs an invalidator, set {}",
+                ConfigurationKeys.STORE_SESSION_CACHE_INVALIDATOR);
+            return null;
+        }
+        GlobalSessionCache cache = new GlobalSessionCache(
+            configuration.getLong(ConfigurationKeys.STORE_SESSION_CACHE_SIZE,
+                DefaultValues.DEFAULT_STORE_SESSION_CACHE_SIZE),
+            configuration.getLong(ConfigurationKeys.STORE_SESSION_CACHE_EXPIRE,
+                DefaultValues.DEFAULT_STORE_SESSION_CACHE_EXPIRE));
+        cache.setInvalidator(EnhancedServiceLoader.load(SessionCacheInvalidator.class, invalidatorName));
+        return cache;
+    }
+
+    private static class Holder {
+        private static final GlobalSessionCache INSTANCE = create();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session;
+
+import java.util.function.Consumer;
+
+/**
+ * Tells the session caches of the other server nodes which sessions are changed by this node.
+ */
+public interface SessionCacheInvalidator {
+
+    /**
+     * Start receiving the xids changed by the other nodes.
+     *
+     * @param invalidation called with each xid changed by another node
+     */
+    void start(Consumer<String> invalidation);
+
+    /**
+     * Tell the other nodes the session is changed.
+     *
+     * @param xid the xid
+     */
+    void publish(String xid);
+
+    /**
+     * Stop receiving the changes.
+     */
+    void shutdown();
+}
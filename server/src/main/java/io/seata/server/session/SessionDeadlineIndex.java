@@ -0,0 +1,119 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The global sessions ordered by a deadline, such as the timeout of a begin session or the next retry time of a
+ * retrying session.
+ * <p>
+ * The readers only visit the head of the index, so the sessions which are far from their deadline are never
+ * touched. A session is indexed at most once, adding it again moves it to the new deadline.
+ */
+public class SessionDeadlineIndex {
+
+    private final ConcurrentSkipListMap<DeadlineKey, GlobalSession> sessions = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, DeadlineKey> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Add the session, or move it to the new deadline if it is already indexed.
+     *
+     * @param session  the session
+     * @param deadline the deadline in millis
+     */
+    public void add(GlobalSession session, long deadline) {
+        DeadlineKey key = new DeadlineKey(deadline, session.getTransactionId());
+        keys.compute(session.getTransactionId(), (transactionId, oldKey) -> {
+            if (oldKey != null) {
+                sessions.remove(oldKey);
+            }
+            sessions.put(key, session);
+            return key;
+        });
+    }
+
+    /**
+     * Remove the session.
+     *
+     * @param session the session
+     */
+    public void remove(GlobalSession session) {
+        keys.computeIfPresent(session.getTransactionId(), (transactionId, oldKey) -> {
+            sessions.remove(oldKey);
+            return null;
+        });
+    }
+
+    /**
+     * Find the sessions whose deadline is before the given time. The sessions are not removed.
+     *
+     * @param now the current time millis
+     * @return the expired sessions, ordered by deadline
+     */
+    public List<GlobalSession> findExpired(long now) {
+        return new ArrayList<>(sessions.headMap(new DeadlineKey(now, Long.MIN_VALUE)).values());
+    }
+
+    /**
+     * Size of the index.
+     *
+     * @return the size
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    private static final class DeadlineKey implements Comparable<DeadlineKey> {
+
+        private final long deadline;
+
+        private final long transactionId;
+
+        DeadlineKey(long deadline, long transactionId) {
+            this.deadline = deadline;
+            this.transactionId = transactionId;
+        }
+
+        @Override
+        public int compareTo(DeadlineKey o) {
+            int result = Long.compare(deadline, o.deadline);
+            return result != 0 ? result : Long.compare(transactionId, o.transactionId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DeadlineKey)) {
+                return false;
+            }
+            DeadlineKey that = (DeadlineKey)o;
+            return deadline == that.deadline && transactionId == that.transactionId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(deadline) * 31 + Long.hashCode(transactionId);
+        }
+    }
+}
@@ -106,6 +106,37 @@ public interface SessionManager extends SessionLifecycleListener, Disposable {
      */
     Collection<GlobalSession> allSessions();
 
+    /**
+     * Find the global sessions which may be timeout. The status and the timeout of the returned sessions
+     * must still be checked by the caller.
+     *
+     * @return the collection
+     */
+    default Collection<GlobalSession> findTimeoutSessions() {
+        return allSessions();
+    }
+
+    /**
+     * Find the global sessions whose next retry time is up, ordered by the next retry time.
+     *
+     * @return the collection
+     */
+    default Collection<GlobalSession> findRetrySessions() {
+        return allSessions();
+    }
+
+    /**
+     * Schedule the next retry of the global session.
+     *
+     * @param session       the session
+     * @param retryCount    the retry count
+     * @param nextRetryTime the next retry time
+     */
+    default void scheduleRetry(GlobalSession session, int retryCount, long nextRetryTime) {
+        session.setRetryCount(retryCount);
+        session.setNextRetryTime(nextRetryTime);
+    }
+
     /**
      * Find global sessions list.
      *
@@ -0,0 +1,160 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.db.lock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.seata.core.store.LockDO;
+import io.seata.core.store.LockStore;
+
+/**
+ * A write-through cache of the rows locked by this server in front of the db lock store.
+ * <p>
+ * The rows are cached with their xid when they are acquired and removed when they are released. A row cached with
+ * another xid is a conflict answered from memory, any other row may be free and is checked in the db, so the db stays
+ * the source of truth. The rows may also be released by another server, then the cached rows make false conflicts
+ * until they expire, they never let two transactions hold a row.
+ * <p>
+ * The rows of a branch are removed with the branch, when it is released or evicted, so no row is left cached without
+ * its branch.
+ */
+public class CachedLockStoreDAO implements LockStore {
+
+    private final LockStore lockStore;
+
+    private final Cache<String/* rowKey */, String/* xid */> rows;
+
+    private final Cache<Long/* branchId */, BranchRows> branchRows;
+
+    /**
+     * Instantiates a new Cached lock store dao.
+     *
+     * @param lockStore the lock store
+     * @param maxSize   the max count of the cached rows
+     * @param expire    the millis a row is cached after it is acquired
+     */
+    public CachedLockStoreDAO(LockStore lockStore, long maxSize, long expire) {
+        this.lockStore = lockStore;
+        this.rows = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(expire, TimeUnit.MILLISECONDS)
+            .build();
+        this.branchRows = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(expire, TimeUnit.MILLISECONDS)
+            .executor(Runnable::run).removalListener(this::onBranchRemoved).build();
+    }
+
+    @Override
+    public boolean acquireLock(LockDO lockDO) {
+        return acquireLock(Collections.singletonList(lockDO));
+    }
+
+    @Override
+    public boolean acquireLock(List<LockDO> lockDOs) {
+        if (isLockedByOther(lockDOs)) {
+            return false;
+        }
+        if (!lockStore.acquireLock(lockDOs)) {
+            return false;
+        }
+        for (LockDO lockDO : lockDOs) {
+            rows.put(lockDO.getRowKey(), lockDO.getXid());
+            if (lockDO.getBranchId() != null) {
+                branchRows.get(lockDO.getBranchId(), k -> new BranchRows(lockDO.getXid())).rowKeys
+                    .add(lockDO.getRowKey());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean unLock(LockDO lockDO) {
+        return unLock(Collections.singletonList(lockDO));
+    }
+
+    @Override
+    public boolean unLock(List<LockDO> lockDOs) {
+        boolean result = lockStore.unLock(lockDOs);
+        for (LockDO lockDO : lockDOs) {
+            rows.asMap().remove(lockDO.getRowKey(), lockDO.getXid());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean unLock(String xid, Long branchId) {
+        boolean result = lockStore.unLock(xid, branchId);
+        branchRows.invalidate(branchId);
+        return result;
+    }
+
+    @Override
+    public boolean unLock(String xid, List<Long> branchIds) {
+        boolean result = lockStore.unLock(xid, branchIds);
+        branchRows.invalidateAll(branchIds);
+        return result;
+    }
+
+    @Override
+    public boolean isLockable(List<LockDO> lockDOs) {
+        return !isLockedByOther(lockDOs) && lockStore.isLockable(lockDOs);
+    }
+
+    /**
+     * The count of the cached rows.
+     *
+     * @return the count
+     */
+    public long getCachedRowCount() {
+        branchRows.cleanUp();
+        rows.cleanUp();
+        return rows.estimatedSize();
+    }
+
+    private boolean isLockedByOther(List<LockDO> lockDOs) {
+        for (LockDO lockDO : lockDOs) {
+            String xid = rows.getIfPresent(lockDO.getRowKey());
+            if (xid != null && !xid.equals(lockDO.getXid())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void onBranchRemoved(Long branchId, BranchRows value, RemovalCause cause) {
+        if (value == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        for (String rowKey : value.rowKeys) {
+            rows.asMap().remove(rowKey, value.xid);
+        }
+    }
+
+    private static class BranchRows {
+
+        private final String xid;
+
+        private final Set<String> rowKeys = ConcurrentHashMap.newKeySet();
+
+        BranchRows(String xid) {
+            this.xid = xid;
+        }
+    }
+}
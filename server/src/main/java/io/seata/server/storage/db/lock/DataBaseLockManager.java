@@ -15,18 +15,26 @@
  */
 package io.seata.server.storage.db.lock;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 
+import io.seata.common.exception.StoreException;
 import io.seata.common.executor.Initialize;
 import io.seata.common.loader.EnhancedServiceLoader;
 import io.seata.common.loader.LoadLevel;
 import io.seata.common.util.CollectionUtils;
+import io.seata.common.util.StringUtils;
+import io.seata.config.Configuration;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.exception.TransactionException;
 import io.seata.core.lock.Locker;
+import io.seata.core.rpc.Disposable;
+import io.seata.core.store.LockStore;
+import io.seata.core.store.db.AbstractDataSourceProvider;
 import io.seata.core.store.db.DataSourceProvider;
 import io.seata.server.lock.AbstractLockManager;
 import io.seata.server.session.BranchSession;
@@ -38,19 +46,72 @@ import io.seata.server.session.GlobalSession;
  * @author zjinlei
  */
 @LoadLevel(name = "db")
-public class DataBaseLockManager extends AbstractLockManager implements Initialize {
+public class DataBaseLockManager extends AbstractLockManager implements Initialize, Disposable {
 
     /**
      * The locker.
      */
     private Locker locker;
 
+    /**
+     * The sharded lock store, null if the locks are not sharded.
+     */
+    private ShardedLockStoreDAO shardedLockStore;
+
     @Override
     public void init() {
         // init dataSource
-        String datasourceType = ConfigurationFactory.getInstance().getConfig(ConfigurationKeys.STORE_DB_DATASOURCE_TYPE);
-        DataSource lockStoreDataSource = EnhancedServiceLoader.load(DataSourceProvider.class, datasourceType).provide();
-        locker = new DataBaseLocker(lockStoreDataSource);
+        Configuration config = ConfigurationFactory.getInstance();
+        String datasourceType = config.getConfig(ConfigurationKeys.STORE_DB_DATASOURCE_TYPE);
+        DataSourceProvider dataSourceProvider = EnhancedServiceLoader.load(DataSourceProvider.class, datasourceType);
+        String shardUrls = config.getConfig(ConfigurationKeys.STORE_DB_LOCK_SHARD_URLS);
+        int tableShards = config.getInt(ConfigurationKeys.STORE_DB_LOCK_TABLE_SHARDS,
+            DefaultValues.DEFAULT_STORE_DB_LOCK_TABLE_SHARDS);
+        if (StringUtils.isBlank(shardUrls) && tableShards <= 1) {
+            locker = new DataBaseLocker(dataSourceProvider.provide());
+            return;
+        }
+        List<DataSource> dataSources = new ArrayList<>();
+        if (StringUtils.isBlank(shardUrls)) {
+            dataSources.add(dataSourceProvider.provide());
+        } else if (dataSourceProvider instanceof AbstractDataSourceProvider) {
+            for (String url : shardUrls.split(",")) {
+                if (StringUtils.isNotBlank(url)) {
+                    dataSources.add(((AbstractDataSourceProvider)dataSourceProvider).generate(url.trim()));
+                }
+            }
+        } else {
+            throw new StoreException("the lock shard urls are not supported by the datasource " + datasourceType);
+        }
+        shardedLockStore = new ShardedLockStoreDAO(createLockStores(dataSources, Math.max(tableShards, 1)),
+            config.getInt(ConfigurationKeys.STORE_DB_LOCK_SHARD_THREADS,
+                DefaultValues.DEFAULT_STORE_DB_LOCK_SHARD_THREADS));
+        locker = new DataBaseLocker(shardedLockStore);
+    }
+
+    @Override
+    public void destroy() {
+        if (shardedLockStore != null) {
+            shardedLockStore.shutdown();
+        }
+    }
+
+    /**
+     * The lock stores of the shards, the lock tables on each datasource are named by the lock table and the index,
+     * such as {@code lock_table_0} and {@code lock_table_1}.
+     */
+    private static List<LockStore> createLockStores(List<DataSource> dataSources, int tableShards) {
+        List<LockStore> lockStores = new ArrayList<>(dataSources.size() * tableShards);
+        for (DataSource dataSource : dataSources) {
+            for (int i = 0; i < tableShards; i++) {
+                LockStoreDataBaseDAO lockStore = new LockStoreDataBaseDAO(dataSource);
+                if (tableShards > 1) {
+                    lockStore.setLockTable(lockStore.getLockTable() + "_" + i);
+                }
+                lockStores.add(lockStore);
+            }
+        }
+        return lockStores;
     }
 
     @Override
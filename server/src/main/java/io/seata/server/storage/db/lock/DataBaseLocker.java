@@ -21,6 +21,10 @@ import javax.sql.DataSource;
 import io.seata.common.exception.DataAccessException;
 import io.seata.common.exception.StoreException;
 import io.seata.common.util.CollectionUtils;
+import io.seata.config.Configuration;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.lock.AbstractLocker;
 import io.seata.core.lock.RowLock;
 import io.seata.core.store.LockStore;
@@ -46,7 +50,24 @@ public class DataBaseLocker extends AbstractLocker {
      * @param logStoreDataSource the log store data source
      */
     public DataBaseLocker(DataSource logStoreDataSource) {
-        lockStore = new LockStoreDataBaseDAO(logStoreDataSource);
+        this(new LockStoreDataBaseDAO(logStoreDataSource));
+    }
+
+    /**
+     * Instantiates a new Data base locker.
+     *
+     * @param lockStore the lock store
+     */
+    public DataBaseLocker(LockStore lockStore) {
+        this.lockStore = lockStore;
+        Configuration config = ConfigurationFactory.getInstance();
+        if (config.getBoolean(ConfigurationKeys.STORE_DB_LOCK_CACHE, DefaultValues.DEFAULT_STORE_DB_LOCK_CACHE)) {
+            lockStore = new CachedLockStoreDAO(lockStore,
+                config.getLong(ConfigurationKeys.STORE_DB_LOCK_CACHE_SIZE,
+                    DefaultValues.DEFAULT_STORE_DB_LOCK_CACHE_SIZE),
+                config.getLong(ConfigurationKeys.STORE_DB_LOCK_CACHE_EXPIRE,
+                    DefaultValues.DEFAULT_STORE_DB_LOCK_CACHE_EXPIRE));
+        }
     }
 
     @Override
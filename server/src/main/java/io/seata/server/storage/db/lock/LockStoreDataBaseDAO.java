@@ -20,6 +20,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -36,9 +38,11 @@ import io.seata.common.util.StringUtils;
 import io.seata.config.Configuration;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.constants.ServerTableColumnsName;
 import io.seata.core.store.LockDO;
 import io.seata.core.store.LockStore;
+import io.seata.core.store.db.sql.lock.LockStoreSql;
 import io.seata.core.store.db.sql.lock.LockStoreSqlFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +63,21 @@ public class LockStoreDataBaseDAO implements LockStore {
      */
     protected static final Configuration CONFIG = ConfigurationFactory.getInstance();
 
+    /**
+     * The max count of the rows inserted in one statement, more rows are inserted by a jdbc batch.
+     */
+    private static final int MAX_INSERT_ROWS = 500;
+
+    /**
+     * The count of the parameters of a row in the insert sql.
+     */
+    private static final int LOCK_PARAM_COUNT = 7;
+
+    /**
+     * The SQLState class of the integrity constraint violations, such as a duplicate primary key.
+     */
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
     /**
      * The Lock store data source.
      */
@@ -74,6 +93,11 @@ public class LockStoreDataBaseDAO implements LockStore {
      */
     protected String dbType;
 
+    /**
+     * Whether to try inserting all the rows before checking them.
+     */
+    protected boolean lockInsertFirst;
+
     /**
      * Instantiates a new Data base lock store dao.
      *
@@ -83,6 +107,8 @@ public class LockStoreDataBaseDAO implements LockStore {
         this.lockStoreDataSource = lockStoreDataSource;
         lockTable = CONFIG.getConfig(ConfigurationKeys.LOCK_DB_TABLE, DEFAULT_LOCK_DB_TABLE);
         dbType = CONFIG.getConfig(ConfigurationKeys.STORE_DB_TYPE);
+        lockInsertFirst = CONFIG.getBoolean(ConfigurationKeys.STORE_DB_LOCK_INSERT_FIRST,
+            DefaultValues.DEFAULT_STORE_DB_LOCK_INSERT_FIRST);
         if (StringUtils.isBlank(dbType)) {
             throw new StoreException("there must be db type.");
         }
@@ -106,6 +132,10 @@ public class LockStoreDataBaseDAO implements LockStore {
         if (lockDOs.size() > 1) {
             lockDOs = lockDOs.stream().filter(LambdaUtils.distinctByKey(LockDO::getRowKey)).collect(Collectors.toList());
         }
+        // no row is locked in the common case, then one insert takes all the rows
+        if (lockInsertFirst && insertLocks(lockDOs)) {
+            return true;
+        }
         try {
             conn = lockStoreDataSource.getConnection();
             if (originalAutoCommit = conn.getAutoCommit()) {
@@ -290,6 +320,146 @@ public class LockStoreDataBaseDAO implements LockStore {
         }
     }
 
+    /**
+     * Query the locks held by the transactions.
+     *
+     * @param xids the xids
+     * @return the lock do list
+     */
+    public List<LockDO> queryLockDO(List<String> xids) {
+        List<LockDO> lockDOs = new ArrayList<>();
+        if (CollectionUtils.isEmpty(xids)) {
+            return lockDOs;
+        }
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            StringJoiner sj = new StringJoiner(",");
+            xids.forEach(xid -> sj.add("?"));
+            String queryLockSQL = LockStoreSqlFactory.getLogStoreSql(dbType).getQueryLockByXidsSql(lockTable,
+                sj.toString());
+            conn = lockStoreDataSource.getConnection();
+            conn.setAutoCommit(true);
+            ps = conn.prepareStatement(queryLockSQL);
+            for (int i = 0; i < xids.size(); i++) {
+                ps.setString(i + 1, xids.get(i));
+            }
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                LockDO lockDO = new LockDO();
+                lockDO.setXid(rs.getString(ServerTableColumnsName.LOCK_TABLE_XID));
+                lockDO.setTransactionId(rs.getLong(ServerTableColumnsName.LOCK_TABLE_TRANSACTION_ID));
+                lockDO.setBranchId(rs.getLong(ServerTableColumnsName.LOCK_TABLE_BRANCH_ID));
+                lockDO.setResourceId(rs.getString(ServerTableColumnsName.LOCK_TABLE_RESOURCE_ID));
+                lockDO.setTableName(rs.getString(ServerTableColumnsName.LOCK_TABLE_TABLE_NAME));
+                lockDO.setPk(rs.getString(ServerTableColumnsName.LOCK_TABLE_PK));
+                lockDO.setRowKey(rs.getString(ServerTableColumnsName.LOCK_TABLE_ROW_KEY));
+                lockDOs.add(lockDO);
+            }
+            return lockDOs;
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        } finally {
+            IOUtil.close(rs, ps, conn);
+        }
+    }
+
+    /**
+     * Insert all the rows at once, it fails as a whole if any row is locked already, by another or the same
+     * transaction, and then the caller checks the locked rows.
+     *
+     * @param lockDOs the lock do list
+     * @return true if all the rows are inserted, false if any row is locked already
+     * @throws StoreException if the insert fails for another reason than a duplicate row key
+     */
+    protected boolean insertLocks(List<LockDO> lockDOs) {
+        LockStoreSql lockStoreSql = LockStoreSqlFactory.getLogStoreSql(dbType);
+        String insertLocksSQL = null;
+        if (lockDOs.size() == 1) {
+            insertLocksSQL = lockStoreSql.getInsertLockSQL(lockTable);
+        } else if (lockDOs.size() <= MAX_INSERT_ROWS) {
+            insertLocksSQL = lockStoreSql.getBatchInsertLockSQL(lockTable, lockDOs.size());
+        }
+        Connection conn = null;
+        PreparedStatement ps = null;
+        boolean autoCommit = true;
+        try {
+            conn = lockStoreDataSource.getConnection();
+            if (insertLocksSQL != null) {
+                conn.setAutoCommit(true);
+                ps = conn.prepareStatement(insertLocksSQL);
+                for (int i = 0; i < lockDOs.size(); i++) {
+                    setLockParams(ps, lockDOs.get(i), i * LOCK_PARAM_COUNT);
+                }
+                ps.executeUpdate();
+                return true;
+            }
+            // the db type can not insert the rows in one statement, insert them by a batch in a transaction
+            autoCommit = false;
+            conn.setAutoCommit(false);
+            ps = conn.prepareStatement(lockStoreSql.getInsertLockSQL(lockTable));
+            for (LockDO lockDO : lockDOs) {
+                setLockParams(ps, lockDO, 0);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null && !autoCommit) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.error("Global lock insert rollback failed: {}", ex.getMessage(), ex);
+                }
+            }
+            if (!isDuplicateKey(e)) {
+                throw new StoreException(e);
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Global lock insert failed, check the locked rows, xid {} branchId {}: {}",
+                    lockDOs.get(0).getXid(), lockDOs.get(0).getBranchId(), e.getMessage());
+            }
+            return false;
+        } finally {
+            IOUtil.close(ps);
+            if (conn != null) {
+                try {
+                    if (!autoCommit) {
+                        conn.setAutoCommit(true);
+                    }
+                    conn.close();
+                } catch (SQLException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the insert failed on a row key locked already, an integrity constraint violation of the SQLState class
+     * 23. The batch exceptions are chained by the next exceptions.
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException || (cause.getSQLState() != null
+                && cause.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setLockParams(PreparedStatement ps, LockDO lockDO, int offset) throws SQLException {
+        ps.setString(offset + 1, lockDO.getXid());
+        ps.setLong(offset + 2, lockDO.getTransactionId());
+        ps.setLong(offset + 3, lockDO.getBranchId());
+        ps.setString(offset + 4, lockDO.getResourceId());
+        ps.setString(offset + 5, lockDO.getTableName());
+        ps.setString(offset + 6, lockDO.getPk());
+        ps.setString(offset + 7, lockDO.getRowKey());
+    }
+
     /**
      * Do acquire lock boolean.
      *
@@ -303,13 +473,7 @@ public class LockStoreDataBaseDAO implements LockStore {
             //insert
             String insertLockSQL = LockStoreSqlFactory.getLogStoreSql(dbType).getInsertLockSQL(lockTable);
             ps = conn.prepareStatement(insertLockSQL);
-            ps.setString(1, lockDO.getXid());
-            ps.setLong(2, lockDO.getTransactionId());
-            ps.setLong(3, lockDO.getBranchId());
-            ps.setString(4, lockDO.getResourceId());
-            ps.setString(5, lockDO.getTableName());
-            ps.setString(6, lockDO.getPk());
-            ps.setString(7, lockDO.getRowKey());
+            setLockParams(ps, lockDO, 0);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -332,13 +496,7 @@ public class LockStoreDataBaseDAO implements LockStore {
             String insertLockSQL = LockStoreSqlFactory.getLogStoreSql(dbType).getInsertLockSQL(lockTable);
             ps = conn.prepareStatement(insertLockSQL);
             for (LockDO lockDO : lockDOs) {
-                ps.setString(1, lockDO.getXid());
-                ps.setLong(2, lockDO.getTransactionId());
-                ps.setLong(3, lockDO.getBranchId());
-                ps.setString(4, lockDO.getResourceId());
-                ps.setString(5, lockDO.getTableName());
-                ps.setString(6, lockDO.getPk());
-                ps.setString(7, lockDO.getRowKey());
+                setLockParams(ps, lockDO, 0);
                 ps.addBatch();
             }
             return ps.executeBatch().length == lockDOs.size();
@@ -388,6 +546,15 @@ public class LockStoreDataBaseDAO implements LockStore {
         }
     }
 
+    /**
+     * Gets lock table.
+     *
+     * @return the lock table
+     */
+    public String getLockTable() {
+        return lockTable;
+    }
+
     /**
      * Sets lock table.
      *
@@ -397,6 +564,15 @@ public class LockStoreDataBaseDAO implements LockStore {
         this.lockTable = lockTable;
     }
 
+    /**
+     * Sets whether to try inserting all the rows before checking them.
+     *
+     * @param lockInsertFirst the lock insert first
+     */
+    public void setLockInsertFirst(boolean lockInsertFirst) {
+        this.lockInsertFirst = lockInsertFirst;
+    }
+
     /**
      * Sets db type.
      *
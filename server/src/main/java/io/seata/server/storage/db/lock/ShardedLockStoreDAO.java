@@ -0,0 +1,244 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.db.lock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.core.store.LockDO;
+import io.seata.core.store.LockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The lock store sharded over several lock stores, each one is a lock table on a datasource.
+ * <p>
+ * A row is stored in the shard of the hash of its row key, {@code resourceId^^^table^^^pk}, so every server picks the
+ * same shard for a row. The rows of a call are grouped by their shards, and each shard is called in parallel. An
+ * acquire is all or nothing across the shards: if any shard fails, the rows the branch has taken in the other shards
+ * are released, the rows which the transaction held before are kept.
+ */
+public class ShardedLockStoreDAO implements LockStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedLockStoreDAO.class);
+
+    private final List<LockStore> shards;
+
+    private final ExecutorService executor;
+
+    /**
+     * Instantiates a new Sharded lock store dao.
+     *
+     * @param shards  the shards
+     * @param threads the count of the threads calling the shards
+     */
+    public ShardedLockStoreDAO(List<LockStore> shards, int threads) {
+        this.shards = shards;
+        this.executor = new ThreadPoolExecutor(threads, threads, Integer.MAX_VALUE, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new NamedThreadFactory("lockStoreShard", threads, true));
+    }
+
+    @Override
+    public boolean acquireLock(LockDO lockDO) {
+        return acquireLock(Collections.singletonList(lockDO));
+    }
+
+    @Override
+    public boolean acquireLock(List<LockDO> lockDOs) {
+        Map<Integer, List<LockDO>> shardLockDOs = groupByShard(lockDOs);
+        if (shardLockDOs.size() == 1) {
+            Map.Entry<Integer, List<LockDO>> entry = shardLockDOs.entrySet().iterator().next();
+            return shards.get(entry.getKey()).acquireLock(entry.getValue());
+        }
+        List<Integer> shardIndexes = new ArrayList<>(shardLockDOs.keySet());
+        List<Future<Boolean>> futures = invokeAll(shardIndexes,
+            index -> () -> shards.get(index).acquireLock(shardLockDOs.get(index)));
+        List<Integer> acquired = new ArrayList<>(shardIndexes.size());
+        RuntimeException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                if (getResult(futures.get(i))) {
+                    acquired.add(shardIndexes.get(i));
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        if (acquired.size() == shardIndexes.size()) {
+            return true;
+        }
+        release(acquired, shardLockDOs);
+        if (failure != null) {
+            throw failure;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean unLock(LockDO lockDO) {
+        return unLock(Collections.singletonList(lockDO));
+    }
+
+    @Override
+    public boolean unLock(List<LockDO> lockDOs) {
+        Map<Integer, List<LockDO>> shardLockDOs = groupByShard(lockDOs);
+        return all(new ArrayList<>(shardLockDOs.keySet()),
+            index -> () -> shards.get(index).unLock(shardLockDOs.get(index)));
+    }
+
+    @Override
+    public boolean unLock(String xid, Long branchId) {
+        // the rows of a branch may be in any shard
+        return all(allShards(), index -> () -> shards.get(index).unLock(xid, branchId));
+    }
+
+    @Override
+    public boolean unLock(String xid, List<Long> branchIds) {
+        return all(allShards(), index -> () -> shards.get(index).unLock(xid, branchIds));
+    }
+
+    @Override
+    public boolean isLockable(List<LockDO> lockDOs) {
+        Map<Integer, List<LockDO>> shardLockDOs = groupByShard(lockDOs);
+        return all(new ArrayList<>(shardLockDOs.keySet()),
+            index -> () -> shards.get(index).isLockable(shardLockDOs.get(index)));
+    }
+
+    /**
+     * Stop the threads calling the shards.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The shard of the row.
+     *
+     * @param rowKey the row key
+     * @return the index of the shard
+     */
+    public int shardOf(String rowKey) {
+        return Math.floorMod(rowKey.hashCode(), shards.size());
+    }
+
+    private Map<Integer, List<LockDO>> groupByShard(List<LockDO> lockDOs) {
+        Map<Integer, List<LockDO>> shardLockDOs = new TreeMap<>();
+        for (LockDO lockDO : lockDOs) {
+            shardLockDOs.computeIfAbsent(shardOf(lockDO.getRowKey()), index -> new ArrayList<>()).add(lockDO);
+        }
+        return shardLockDOs;
+    }
+
+    private List<Integer> allShards() {
+        List<Integer> indexes = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+
+    /**
+     * Release the rows the branch has taken in the shards.
+     */
+    private void release(List<Integer> acquired, Map<Integer, List<LockDO>> shardLockDOs) {
+        if (acquired.isEmpty()) {
+            return;
+        }
+        try {
+            all(acquired, index -> () -> {
+                List<LockDO> lockDOs = shardLockDOs.get(index);
+                Long branchId = lockDOs.get(0).getBranchId();
+                // the rows held by the other branches of the transaction are kept
+                return branchId != null ? shards.get(index).unLock(lockDOs.get(0).getXid(), branchId)
+                    : shards.get(index).unLock(lockDOs);
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error("release the locks of the failed acquire error, xid {}, {}", shardLockDOs.values().iterator()
+                .next().get(0).getXid(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Call the shards in parallel, the first one in the calling thread.
+     */
+    private List<Future<Boolean>> invokeAll(List<Integer> shardIndexes,
+                                            Function<Integer, Callable<Boolean>> call) {
+        List<Future<Boolean>> futures = new ArrayList<>(shardIndexes.size());
+        futures.add(null);
+        for (int i = 1; i < shardIndexes.size(); i++) {
+            futures.add(executor.submit(call.apply(shardIndexes.get(i))));
+        }
+        Callable<Boolean> first = call.apply(shardIndexes.get(0));
+        try {
+            futures.set(0, CompletableFuture.completedFuture(first.call()));
+        } catch (Exception e) {
+            CompletableFuture<Boolean> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            futures.set(0, failed);
+        }
+        return futures;
+    }
+
+    /**
+     * Call the shards in parallel, true if all of them return true.
+     */
+    private boolean all(List<Integer> shardIndexes, Function<Integer, Callable<Boolean>> call) {
+        if (shardIndexes.isEmpty()) {
+            return true;
+        }
+        boolean result = true;
+        RuntimeException failure = null;
+        for (Future<Boolean> future : invokeAll(shardIndexes, call)) {
+            try {
+                result &= getResult(future);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+
+    private static boolean getResult(Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new StoreException(e.getCause());
+        }
+    }
+}
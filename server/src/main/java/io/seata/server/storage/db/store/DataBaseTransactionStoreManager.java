@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 
@@ -29,6 +30,7 @@ import io.seata.common.util.StringUtils;
 import io.seata.config.Configuration;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.model.BranchStatus;
 import io.seata.core.model.BranchType;
 import io.seata.core.model.GlobalStatus;
@@ -73,6 +75,11 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
      */
     protected int logQueryLimit;
 
+    /**
+     * The batch writer, null if the writes are not batched.
+     */
+    protected LogStoreBatchWriter batchWriter;
+
     /**
      * Get the instance.
      */
@@ -96,10 +103,30 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         //init dataSource
         DataSource logStoreDataSource = EnhancedServiceLoader.load(DataSourceProvider.class, datasourceType).provide();
         logStore = new LogStoreDataBaseDAO(logStoreDataSource);
+        if (CONFIG.getBoolean(ConfigurationKeys.STORE_DB_BATCH_WRITE, DefaultValues.DEFAULT_STORE_DB_BATCH_WRITE)) {
+            batchWriter = new LogStoreBatchWriter((LogStoreDataBaseDAO)logStore,
+                CONFIG.getInt(ConfigurationKeys.STORE_DB_BATCH_WRITE_THREADS,
+                    DefaultValues.DEFAULT_STORE_DB_BATCH_WRITE_THREADS),
+                CONFIG.getInt(ConfigurationKeys.STORE_DB_BATCH_WRITE_MAX_SIZE,
+                    DefaultValues.DEFAULT_STORE_DB_BATCH_WRITE_MAX_SIZE));
+        }
+    }
+
+    /**
+     * Instantiates a new Database transaction store manager on the log store, the writes are not batched.
+     *
+     * @param logStore the log store
+     */
+    protected DataBaseTransactionStoreManager(LogStore logStore) {
+        this.logQueryLimit = CONFIG.getInt(ConfigurationKeys.STORE_DB_LOG_QUERY_LIMIT, DEFAULT_LOG_QUERY_LIMIT);
+        this.logStore = logStore;
     }
 
     @Override
     public boolean writeSession(LogOperation logOperation, SessionStorable session) {
+        if (batchWriter != null) {
+            return writeSessionInBatch(logOperation, session);
+        }
         if (LogOperation.GLOBAL_ADD.equals(logOperation)) {
             return logStore.insertGlobalTransactionDO(convertGlobalTransactionDO(session));
         } else if (LogOperation.GLOBAL_UPDATE.equals(logOperation)) {
@@ -117,6 +144,32 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         }
     }
 
+    private boolean writeSessionInBatch(LogOperation logOperation, SessionStorable session) {
+        switch (logOperation) {
+            case GLOBAL_ADD:
+            case GLOBAL_UPDATE:
+            case GLOBAL_REMOVE: {
+                GlobalTransactionDO globalTransactionDO = convertGlobalTransactionDO(session);
+                return batchWriter.write(logOperation, globalTransactionDO, globalTransactionDO.getTransactionId());
+            }
+            case BRANCH_ADD:
+            case BRANCH_UPDATE:
+            case BRANCH_REMOVE: {
+                BranchTransactionDO branchTransactionDO = convertBranchTransactionDO(session);
+                return batchWriter.write(logOperation, branchTransactionDO, branchTransactionDO.getTransactionId());
+            }
+            default:
+                throw new StoreException("Unknown LogOperation:" + logOperation.name());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (batchWriter != null) {
+            batchWriter.shutdown();
+        }
+    }
+
     /**
      * Read session global session.
      *
@@ -185,6 +238,42 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         if (CollectionUtils.isEmpty(globalTransactionDOs)) {
             return null;
         }
+        return getGlobalSessions(globalTransactionDOs);
+    }
+
+    /**
+     * Page through the global transactions of the statuses in the order of the transaction id, the rejected ones
+     * are skipped without reading their branches, until the query limit of accepted ones.
+     *
+     * @param statuses  the statuses
+     * @param xidFilter the filter of the xids
+     * @return the list
+     */
+    @Override
+    public List<GlobalSession> readSession(GlobalStatus[] statuses, Predicate<String> xidFilter) {
+        int[] states = new int[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            states[i] = statuses[i].getCode();
+        }
+        List<GlobalTransactionDO> accepted = new ArrayList<>();
+        long lastTransactionId = Long.MIN_VALUE;
+        while (accepted.size() < logQueryLimit) {
+            List<GlobalTransactionDO> globalTransactionDOs =
+                logStore.queryGlobalTransactionDO(states, lastTransactionId, logQueryLimit);
+            for (GlobalTransactionDO globalTransactionDO : globalTransactionDOs) {
+                if (accepted.size() < logQueryLimit && xidFilter.test(globalTransactionDO.getXid())) {
+                    accepted.add(globalTransactionDO);
+                }
+            }
+            if (globalTransactionDOs.size() < logQueryLimit) {
+                break;
+            }
+            lastTransactionId = globalTransactionDOs.get(globalTransactionDOs.size() - 1).getTransactionId();
+        }
+        return accepted.isEmpty() ? new ArrayList<>() : getGlobalSessions(accepted);
+    }
+
+    private List<GlobalSession> getGlobalSessions(List<GlobalTransactionDO> globalTransactionDOs) {
         List<String> xids = globalTransactionDOs.stream().map(GlobalTransactionDO::getXid).collect(Collectors.toList());
         List<BranchTransactionDO> branchTransactionDOs = logStore.queryBranchTransactionDO(xids);
         Map<String, List<BranchTransactionDO>> branchTransactionDOsMap = branchTransactionDOs.stream()
@@ -194,6 +283,21 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
             .collect(Collectors.toList());
     }
 
+    /**
+     * Read the sessions which are still begin and timeout, without the branch sessions.
+     *
+     * @return the list, or null if the global table can not be queried by the deadline
+     */
+    public List<GlobalSession> readTimeoutSession() {
+        List<GlobalTransactionDO> globalTransactionDOs = logStore.queryTimeoutGlobalTransactionDO(
+            System.currentTimeMillis(), logQueryLimit);
+        if (globalTransactionDOs == null) {
+            return null;
+        }
+        return globalTransactionDOs.stream().map(globalTransactionDO -> getGlobalSession(globalTransactionDO, null))
+            .collect(Collectors.toList());
+    }
+
     @Override
     public List<GlobalSession> readSession(SessionCondition sessionCondition) {
         if (StringUtils.isNotBlank(sessionCondition.getXid())) {
@@ -216,7 +320,7 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         return null;
     }
 
-    private GlobalSession getGlobalSession(GlobalTransactionDO globalTransactionDO,
+    protected GlobalSession getGlobalSession(GlobalTransactionDO globalTransactionDO,
                                            List<BranchTransactionDO> branchTransactionDOs) {
         GlobalSession globalSession = convertGlobalSession(globalTransactionDO);
         //branch transactions
@@ -228,7 +332,7 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         return globalSession;
     }
 
-    private GlobalSession convertGlobalSession(GlobalTransactionDO globalTransactionDO) {
+    protected GlobalSession convertGlobalSession(GlobalTransactionDO globalTransactionDO) {
         GlobalSession session = new GlobalSession(globalTransactionDO.getApplicationId(),
             globalTransactionDO.getTransactionServiceGroup(),
             globalTransactionDO.getTransactionName(),
@@ -241,7 +345,7 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         return session;
     }
 
-    private BranchSession convertBranchSession(BranchTransactionDO branchTransactionDO) {
+    protected BranchSession convertBranchSession(BranchTransactionDO branchTransactionDO) {
         BranchSession branchSession = new BranchSession();
         branchSession.setXid(branchTransactionDO.getXid());
         branchSession.setTransactionId(branchTransactionDO.getTransactionId());
@@ -255,7 +359,7 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         return branchSession;
     }
 
-    private GlobalTransactionDO convertGlobalTransactionDO(SessionStorable session) {
+    protected GlobalTransactionDO convertGlobalTransactionDO(SessionStorable session) {
         if (session == null || !(session instanceof GlobalSession)) {
             throw new IllegalArgumentException(
                 "the parameter of SessionStorable is not available, SessionStorable:" + StringUtils.toString(session));
@@ -275,7 +379,7 @@ public class DataBaseTransactionStoreManager extends AbstractTransactionStoreMan
         return globalTransactionDO;
     }
 
-    private BranchTransactionDO convertBranchTransactionDO(SessionStorable session) {
+    protected BranchTransactionDO convertBranchTransactionDO(SessionStorable session) {
         if (session == null || !(session instanceof BranchSession)) {
             throw new IllegalArgumentException(
                 "the parameter of SessionStorable is not available, SessionStorable:" + StringUtils.toString(session));
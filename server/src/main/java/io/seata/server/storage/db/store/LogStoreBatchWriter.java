@@ -0,0 +1,187 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.db.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the concurrent session writes into jdbc batches.
+ * <p>
+ * The writes are partitioned by the transaction id. The writer of a partition takes all the queued writes, at most
+ * {@code maxBatchSize}, and writes them by {@link LogStoreDataBaseDAO#writeBatch(List, List)} in one db transaction,
+ * so the writes of a transaction keep their order. If a batch fails its writes are retried one by one, and each
+ * caller gets the result of its own write.
+ */
+public class LogStoreBatchWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStoreBatchWriter.class);
+
+    private static final String SHUTDOWN_MESSAGE = "log store batch writer is shutdown";
+
+    private final LogStoreDataBaseDAO logStore;
+
+    private final int maxBatchSize;
+
+    private final List<BlockingQueue<WriteRequest>> queues;
+
+    private final ExecutorService writers;
+
+    private volatile boolean stopped;
+
+    /**
+     * Instantiates a new Log store batch writer.
+     *
+     * @param logStore     the log store
+     * @param threads      the count of the partitions, each one has a writer thread
+     * @param maxBatchSize the max count of the writes in a batch
+     */
+    public LogStoreBatchWriter(LogStoreDataBaseDAO logStore, int threads, int maxBatchSize) {
+        this.logStore = logStore;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.queues = new ArrayList<>(threads);
+        this.writers = new ThreadPoolExecutor(threads, threads, Integer.MAX_VALUE, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new NamedThreadFactory("logStoreBatchWriter", threads, true));
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<WriteRequest> queue = new LinkedBlockingQueue<>();
+            queues.add(queue);
+            writers.execute(() -> run(queue));
+        }
+    }
+
+    /**
+     * Write and wait for the result.
+     *
+     * @param logOperation  the log operation
+     * @param transactionDO the global or branch transaction DO
+     * @param transactionId the transaction id, the writes of a transaction are written in order
+     * @return the result of the write, the same as the single operation methods of the log store
+     * @throws StoreException if the writer is shutdown
+     */
+    public boolean write(LogOperation logOperation, Object transactionDO, long transactionId) {
+        if (stopped) {
+            throw new StoreException(SHUTDOWN_MESSAGE);
+        }
+        WriteRequest request = new WriteRequest(logOperation, transactionDO);
+        BlockingQueue<WriteRequest> queue = queues.get((int)Math.floorMod(transactionId, (long)queues.size()));
+        queue.add(request);
+        // the writer may be shutdown after the check, and the queue drained before the request is added
+        if (stopped && queue.remove(request)) {
+            throw new StoreException(SHUTDOWN_MESSAGE);
+        }
+        try {
+            return request.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof StoreException) {
+                throw (StoreException)e.getCause();
+            }
+            throw new StoreException(e.getCause());
+        }
+    }
+
+    /**
+     * Stop the writers, the queued writes and the later ones fail.
+     */
+    public void shutdown() {
+        stopped = true;
+        writers.shutdownNow();
+        for (BlockingQueue<WriteRequest> queue : queues) {
+            List<WriteRequest> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            for (WriteRequest request : rest) {
+                request.result.completeExceptionally(new StoreException(SHUTDOWN_MESSAGE));
+            }
+        }
+    }
+
+    private void run(BlockingQueue<WriteRequest> queue) {
+        List<WriteRequest> batch = new ArrayList<>(maxBatchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<WriteRequest> batch) {
+        if (batch.size() == 1) {
+            writeOne(batch.get(0));
+            return;
+        }
+        List<LogOperation> logOperations = new ArrayList<>(batch.size());
+        List<Object> transactionDOs = new ArrayList<>(batch.size());
+        for (WriteRequest request : batch) {
+            logOperations.add(request.logOperation);
+            transactionDOs.add(request.transactionDO);
+        }
+        boolean[] results;
+        try {
+            results = logStore.writeBatch(logOperations, transactionDOs);
+        } catch (Exception e) {
+            LOGGER.warn("write batch of {} failed, write them one by one, {}", batch.size(), e.getMessage());
+            for (WriteRequest request : batch) {
+                writeOne(request);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(results[i]);
+        }
+    }
+
+    private void writeOne(WriteRequest request) {
+        try {
+            request.result.complete(logStore.write(request.logOperation, request.transactionDO));
+        } catch (Exception e) {
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    private static class WriteRequest {
+
+        private final LogOperation logOperation;
+
+        private final Object transactionDO;
+
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        WriteRequest(LogOperation logOperation, Object transactionDO) {
+            this.logOperation = logOperation;
+            this.transactionDO = transactionDO;
+        }
+    }
+}
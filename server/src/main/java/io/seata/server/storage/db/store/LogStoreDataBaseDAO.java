@@ -20,6 +20,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import javax.sql.DataSource;
@@ -33,10 +34,13 @@ import io.seata.config.Configuration;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
 import io.seata.core.constants.ServerTableColumnsName;
+import io.seata.core.model.GlobalStatus;
 import io.seata.core.store.BranchTransactionDO;
 import io.seata.core.store.GlobalTransactionDO;
 import io.seata.core.store.LogStore;
+import io.seata.core.store.db.sql.log.LogStoreSqls;
 import io.seata.core.store.db.sql.log.LogStoreSqlsFactory;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -85,6 +89,11 @@ public class LogStoreDataBaseDAO implements LogStore {
 
     private int transactionNameColumnSize = TRANSACTION_NAME_DEFAULT_SIZE;
 
+    /**
+     * Whether the global table has the deadline column, it is checked on the first timeout query.
+     */
+    private volatile Boolean timeoutQueryable;
+
     /**
      * Instantiates a new Log store data base dao.
      *
@@ -191,6 +200,98 @@ public class LogStoreDataBaseDAO implements LogStore {
         }
     }
 
+    @Override
+    public List<GlobalTransactionDO> queryGlobalTransactionDO(int[] statuses, long afterTransactionId, int limit) {
+        List<GlobalTransactionDO> ret = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = logStoreDataSource.getConnection();
+            conn.setAutoCommit(true);
+
+            String paramsPlaceHolder = org.apache.commons.lang.StringUtils.repeat("?", ",", statuses.length);
+
+            String sql = LogStoreSqlsFactory.getLogStoreSqls(dbType)
+                .getQueryGlobalTransactionSQLByStatusAfter(globalTable, paramsPlaceHolder);
+            if (JdbcConstants.GBASEDBT.equalsIgnoreCase(dbType)) {
+                sql = sql + " limit " + limit;
+            }
+            ps = conn.prepareStatement(sql);
+            for (int i = 0; i < statuses.length; i++) {
+                ps.setInt(i + 1, statuses[i]);
+            }
+            ps.setLong(statuses.length + 1, afterTransactionId);
+            if (!JdbcConstants.GBASEDBT.equalsIgnoreCase(dbType)) {
+                ps.setInt(statuses.length + 2, limit);
+            }
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                ret.add(convertGlobalTransactionDO(rs));
+            }
+            return ret;
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        } finally {
+            IOUtil.close(rs, ps, conn);
+        }
+    }
+
+    @Override
+    public List<GlobalTransactionDO> queryTimeoutGlobalTransactionDO(long now, int limit) {
+        if (!isTimeoutQueryable()) {
+            return null;
+        }
+        List<GlobalTransactionDO> ret = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = logStoreDataSource.getConnection();
+            conn.setAutoCommit(true);
+
+            String sql = LogStoreSqlsFactory.getLogStoreSqls(dbType).getQueryTimeoutGlobalTransactionSQL(globalTable);
+            if (JdbcConstants.GBASEDBT.equalsIgnoreCase(dbType)) {
+                sql = sql + " limit " + limit;
+            }
+            ps = conn.prepareStatement(sql);
+            ps.setInt(1, GlobalStatus.Begin.getCode());
+            ps.setLong(2, now);
+            if (!JdbcConstants.GBASEDBT.equalsIgnoreCase(dbType)) {
+                ps.setInt(3, limit);
+            }
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                ret.add(convertGlobalTransactionDO(rs));
+            }
+            return ret;
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        } finally {
+            IOUtil.close(rs, ps, conn);
+        }
+    }
+
+    /**
+     * The global tables created before the deadline column are still queried by the status, the gbasedbt table
+     * computes the deadline in the query.
+     */
+    private boolean isTimeoutQueryable() {
+        if (timeoutQueryable == null) {
+            if (JdbcConstants.GBASEDBT.equalsIgnoreCase(dbType)) {
+                timeoutQueryable = true;
+            } else {
+                timeoutQueryable = queryTableStructure(globalTable,
+                    ServerTableColumnsName.GLOBAL_TABLE_DEADLINE) != null;
+                if (!timeoutQueryable) {
+                    LOGGER.warn("{} table has no {} column, the timeout sessions are queried by the status",
+                        globalTable, ServerTableColumnsName.GLOBAL_TABLE_DEADLINE);
+                }
+            }
+        }
+        return timeoutQueryable;
+    }
+
     @Override
     public boolean insertGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
         String sql = LogStoreSqlsFactory.getLogStoreSqls(dbType).getInsertGlobalTransactionSQL(globalTable);
@@ -200,18 +301,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, globalTransactionDO.getXid());
-            ps.setLong(2, globalTransactionDO.getTransactionId());
-            ps.setInt(3, globalTransactionDO.getStatus());
-            ps.setString(4, globalTransactionDO.getApplicationId());
-            ps.setString(5, globalTransactionDO.getTransactionServiceGroup());
-            String transactionName = globalTransactionDO.getTransactionName();
-            transactionName = transactionName.length() > transactionNameColumnSize ? transactionName.substring(0,
-                transactionNameColumnSize) : transactionName;
-            ps.setString(6, transactionName);
-            ps.setInt(7, globalTransactionDO.getTimeout());
-            ps.setLong(8, globalTransactionDO.getBeginTime());
-            ps.setString(9, globalTransactionDO.getApplicationData());
+            setInsertGlobalTransactionParams(ps, globalTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -229,8 +319,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setInt(1, globalTransactionDO.getStatus());
-            ps.setString(2, globalTransactionDO.getXid());
+            setUpdateGlobalTransactionParams(ps, globalTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -248,7 +337,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, globalTransactionDO.getXid());
+            setDeleteGlobalTransactionParams(ps, globalTransactionDO);
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -321,15 +410,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, branchTransactionDO.getXid());
-            ps.setLong(2, branchTransactionDO.getTransactionId());
-            ps.setLong(3, branchTransactionDO.getBranchId());
-            ps.setString(4, branchTransactionDO.getResourceGroupId());
-            ps.setString(5, branchTransactionDO.getResourceId());
-            ps.setString(6, branchTransactionDO.getBranchType());
-            ps.setInt(7, branchTransactionDO.getStatus());
-            ps.setString(8, branchTransactionDO.getClientId());
-            ps.setString(9, branchTransactionDO.getApplicationData());
+            setInsertBranchTransactionParams(ps, branchTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -347,9 +428,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setInt(1, branchTransactionDO.getStatus());
-            ps.setString(2, branchTransactionDO.getXid());
-            ps.setLong(3, branchTransactionDO.getBranchId());
+            setUpdateBranchTransactionParams(ps, branchTransactionDO);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -367,8 +446,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             conn = logStoreDataSource.getConnection();
             conn.setAutoCommit(true);
             ps = conn.prepareStatement(sql);
-            ps.setString(1, branchTransactionDO.getXid());
-            ps.setLong(2, branchTransactionDO.getBranchId());
+            setDeleteBranchTransactionParams(ps, branchTransactionDO);
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new StoreException(e);
@@ -378,6 +456,195 @@ public class LogStoreDataBaseDAO implements LogStore {
         return true;
     }
 
+    /**
+     * Write one operation by the single operation methods.
+     *
+     * @param logOperation  the log operation
+     * @param transactionDO the global or branch transaction DO
+     * @return the result of the single operation method
+     */
+    public boolean write(LogOperation logOperation, Object transactionDO) {
+        switch (logOperation) {
+            case GLOBAL_ADD:
+                return insertGlobalTransactionDO((GlobalTransactionDO)transactionDO);
+            case GLOBAL_UPDATE:
+                return updateGlobalTransactionDO((GlobalTransactionDO)transactionDO);
+            case GLOBAL_REMOVE:
+                return deleteGlobalTransactionDO((GlobalTransactionDO)transactionDO);
+            case BRANCH_ADD:
+                return insertBranchTransactionDO((BranchTransactionDO)transactionDO);
+            case BRANCH_UPDATE:
+                return updateBranchTransactionDO((BranchTransactionDO)transactionDO);
+            case BRANCH_REMOVE:
+                return deleteBranchTransactionDO((BranchTransactionDO)transactionDO);
+            default:
+                throw new StoreException("Unknown LogOperation:" + logOperation.name());
+        }
+    }
+
+    /**
+     * Write the operations in one db transaction, each run of the same operation is sent as one jdbc batch, so the
+     * operations are still applied in order.
+     *
+     * @param logOperations  the log operations
+     * @param transactionDOs the global or branch transaction DO of each operation
+     * @return the result of each operation, the same as the single operation methods
+     * @throws StoreException if any operation fails, all the operations are rolled back
+     */
+    public boolean[] writeBatch(List<LogOperation> logOperations, List<Object> transactionDOs) {
+        int size = logOperations.size();
+        boolean[] results = new boolean[size];
+        LogStoreSqls logStoreSqls = LogStoreSqlsFactory.getLogStoreSqls(dbType);
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = logStoreDataSource.getConnection();
+            conn.setAutoCommit(false);
+            int start = 0;
+            while (start < size) {
+                LogOperation logOperation = logOperations.get(start);
+                int end = start + 1;
+                while (end < size && logOperations.get(end) == logOperation) {
+                    end++;
+                }
+                ps = conn.prepareStatement(getWriteSql(logStoreSqls, logOperation));
+                for (int i = start; i < end; i++) {
+                    setWriteParams(ps, logOperation, transactionDOs.get(i));
+                    ps.addBatch();
+                }
+                int[] updateCounts = ps.executeBatch();
+                for (int i = start; i < end; i++) {
+                    int updateCount = updateCounts[i - start];
+                    // the deletes always succeed, the same as the single operation
+                    results[i] = logOperation == LogOperation.GLOBAL_REMOVE
+                        || logOperation == LogOperation.BRANCH_REMOVE || updateCount > 0
+                        || updateCount == Statement.SUCCESS_NO_INFO;
+                }
+                IOUtil.close(ps);
+                ps = null;
+                start = end;
+            }
+            conn.commit();
+            return results;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.error("rollback batch write error, {}", ex.getMessage(), ex);
+                }
+            }
+            throw new StoreException(e);
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException ex) {
+                    LOGGER.error("reset auto commit error, {}", ex.getMessage(), ex);
+                }
+            }
+            IOUtil.close(ps, conn);
+        }
+    }
+
+    private String getWriteSql(LogStoreSqls logStoreSqls, LogOperation logOperation) {
+        switch (logOperation) {
+            case GLOBAL_ADD:
+                return logStoreSqls.getInsertGlobalTransactionSQL(globalTable);
+            case GLOBAL_UPDATE:
+                return logStoreSqls.getUpdateGlobalTransactionStatusSQL(globalTable);
+            case GLOBAL_REMOVE:
+                return logStoreSqls.getDeleteGlobalTransactionSQL(globalTable);
+            case BRANCH_ADD:
+                return logStoreSqls.getInsertBranchTransactionSQL(branchTable);
+            case BRANCH_UPDATE:
+                return logStoreSqls.getUpdateBranchTransactionStatusSQL(branchTable);
+            case BRANCH_REMOVE:
+                return logStoreSqls.getDeleteBranchTransactionByBranchIdSQL(branchTable);
+            default:
+                throw new StoreException("Unknown LogOperation:" + logOperation.name());
+        }
+    }
+
+    private void setWriteParams(PreparedStatement ps, LogOperation logOperation, Object transactionDO)
+        throws SQLException {
+        switch (logOperation) {
+            case GLOBAL_ADD:
+                setInsertGlobalTransactionParams(ps, (GlobalTransactionDO)transactionDO);
+                break;
+            case GLOBAL_UPDATE:
+                setUpdateGlobalTransactionParams(ps, (GlobalTransactionDO)transactionDO);
+                break;
+            case GLOBAL_REMOVE:
+                setDeleteGlobalTransactionParams(ps, (GlobalTransactionDO)transactionDO);
+                break;
+            case BRANCH_ADD:
+                setInsertBranchTransactionParams(ps, (BranchTransactionDO)transactionDO);
+                break;
+            case BRANCH_UPDATE:
+                setUpdateBranchTransactionParams(ps, (BranchTransactionDO)transactionDO);
+                break;
+            case BRANCH_REMOVE:
+                setDeleteBranchTransactionParams(ps, (BranchTransactionDO)transactionDO);
+                break;
+            default:
+                throw new StoreException("Unknown LogOperation:" + logOperation.name());
+        }
+    }
+
+    private void setInsertGlobalTransactionParams(PreparedStatement ps, GlobalTransactionDO globalTransactionDO)
+        throws SQLException {
+        ps.setString(1, globalTransactionDO.getXid());
+        ps.setLong(2, globalTransactionDO.getTransactionId());
+        ps.setInt(3, globalTransactionDO.getStatus());
+        ps.setString(4, globalTransactionDO.getApplicationId());
+        ps.setString(5, globalTransactionDO.getTransactionServiceGroup());
+        String transactionName = globalTransactionDO.getTransactionName();
+        transactionName = transactionName.length() > transactionNameColumnSize ? transactionName.substring(0,
+            transactionNameColumnSize) : transactionName;
+        ps.setString(6, transactionName);
+        ps.setInt(7, globalTransactionDO.getTimeout());
+        ps.setLong(8, globalTransactionDO.getBeginTime());
+        ps.setString(9, globalTransactionDO.getApplicationData());
+    }
+
+    private void setUpdateGlobalTransactionParams(PreparedStatement ps, GlobalTransactionDO globalTransactionDO)
+        throws SQLException {
+        ps.setInt(1, globalTransactionDO.getStatus());
+        ps.setString(2, globalTransactionDO.getXid());
+    }
+
+    private void setDeleteGlobalTransactionParams(PreparedStatement ps, GlobalTransactionDO globalTransactionDO)
+        throws SQLException {
+        ps.setString(1, globalTransactionDO.getXid());
+    }
+
+    private void setInsertBranchTransactionParams(PreparedStatement ps, BranchTransactionDO branchTransactionDO)
+        throws SQLException {
+        ps.setString(1, branchTransactionDO.getXid());
+        ps.setLong(2, branchTransactionDO.getTransactionId());
+        ps.setLong(3, branchTransactionDO.getBranchId());
+        ps.setString(4, branchTransactionDO.getResourceGroupId());
+        ps.setString(5, branchTransactionDO.getResourceId());
+        ps.setString(6, branchTransactionDO.getBranchType());
+        ps.setInt(7, branchTransactionDO.getStatus());
+        ps.setString(8, branchTransactionDO.getClientId());
+        ps.setString(9, branchTransactionDO.getApplicationData());
+    }
+
+    private void setUpdateBranchTransactionParams(PreparedStatement ps, BranchTransactionDO branchTransactionDO)
+        throws SQLException {
+        ps.setInt(1, branchTransactionDO.getStatus());
+        ps.setString(2, branchTransactionDO.getXid());
+        ps.setLong(3, branchTransactionDO.getBranchId());
+    }
+
+    private void setDeleteBranchTransactionParams(PreparedStatement ps, BranchTransactionDO branchTransactionDO)
+        throws SQLException {
+        ps.setString(1, branchTransactionDO.getXid());
+        ps.setLong(2, branchTransactionDO.getBranchId());
+    }
+
     @Override
     public long getCurrentMaxSessionId(long high, long low) {
         String transMaxSql = LogStoreSqlsFactory.getLogStoreSqls(dbType).getQueryGlobalMax(globalTable);
@@ -471,7 +738,7 @@ public class LogStoreDataBaseDAO implements LogStore {
             while (tableRs.next()) {
                 String table = tableRs.getString("TABLE_NAME");
                 if (StringUtils.equalsIgnoreCase(table, tableName)) {
-                    ResultSet columnRs = conn.getMetaData().getColumns(null, schema, tableName, null);
+                    ResultSet columnRs = conn.getMetaData().getColumns(null, schema, table, null);
                     while (columnRs.next()) {
                         ColumnInfo info = new ColumnInfo();
                         String columnName = columnRs.getString("COLUMN_NAME");
@@ -490,7 +757,7 @@ public class LogStoreDataBaseDAO implements LogStore {
                 }
             }
         } catch (SQLException e) {
-            LOGGER.error("query transaction_name size fail, {}", e.getMessage(), e);
+            LOGGER.error("query {} column of {} table fail, {}", colName, tableName, e.getMessage(), e);
         }
         return null;
     }
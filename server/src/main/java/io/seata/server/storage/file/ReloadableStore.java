@@ -33,6 +33,16 @@ public interface ReloadableStore {
      */
     List<TransactionWriteStore> readWriteStore(int readSize, boolean isHistory);
 
+    /**
+     * Read the bodies of the next frames without decoding them, each one is decoded by
+     * {@link TransactionWriteStore#decode(byte[])}. It moves the same offset as {@link #readWriteStore(int, boolean)}.
+     *
+     * @param readSize  the read size
+     * @param isHistory the is history
+     * @return the frame bodies
+     */
+    List<byte[]> readFrames(int readSize, boolean isHistory);
+
     /**
      * Has remaining boolean.
      *
@@ -41,5 +51,11 @@ public interface ReloadableStore {
      */
     boolean hasRemaining(boolean isHistory);
 
+    /**
+     * Called once the sessions are reloaded and washed, then the sessions of the session manager are all the live
+     * ones.
+     */
+    default void onSessionsReloaded() {
+    }
 
 }
@@ -16,12 +16,7 @@
 package io.seata.server.storage.file.lock;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-import io.netty.util.internal.ConcurrentSet;
 import io.seata.common.exception.FrameworkException;
 import io.seata.common.util.CollectionUtils;
 import io.seata.core.exception.TransactionException;
@@ -36,11 +31,7 @@ import io.seata.server.session.BranchSession;
  */
 public class FileLocker extends AbstractLocker {
 
-    private static final int BUCKET_PER_TABLE = 128;
-
-    private static final ConcurrentMap<String/* resourceId */, ConcurrentMap<String/* tableName */,
-        ConcurrentMap<Integer/* bucketId */, BucketLockMap>>>
-        LOCK_MAP = new ConcurrentHashMap<>();
+    private static final RowLockTable LOCK_TABLE = new RowLockTable();
 
     /**
      * The Branch session.
@@ -65,36 +56,21 @@ public class FileLocker extends AbstractLocker {
         String resourceId = branchSession.getResourceId();
         long transactionId = branchSession.getTransactionId();
 
-        ConcurrentMap<BucketLockMap, Set<String>> bucketHolder = branchSession.getLockHolder();
-        ConcurrentMap<String, ConcurrentMap<Integer, BucketLockMap>> dbLockMap = LOCK_MAP.get(resourceId);
-        if (dbLockMap == null) {
-            LOCK_MAP.putIfAbsent(resourceId, new ConcurrentHashMap<>());
-            dbLockMap = LOCK_MAP.get(resourceId);
-        }
-
+        RowLockHolder lockHolder = branchSession.getLockHolder();
+        String lastTableName = null;
+        int tableId = RowLockTable.NO_TABLE;
         for (RowLock lock : rowLocks) {
             String tableName = lock.getTableName();
             String pk = lock.getPk();
-            ConcurrentMap<Integer, BucketLockMap> tableLockMap = dbLockMap.get(tableName);
-            if (tableLockMap == null) {
-                dbLockMap.putIfAbsent(tableName, new ConcurrentHashMap<>());
-                tableLockMap = dbLockMap.get(tableName);
+            if (!tableName.equals(lastTableName)) {
+                tableId = LOCK_TABLE.tableId(resourceId, tableName);
+                lastTableName = tableName;
             }
-            int bucketId = pk.hashCode() % BUCKET_PER_TABLE;
-            BucketLockMap bucketLockMap = tableLockMap.get(bucketId);
-            if (bucketLockMap == null) {
-                tableLockMap.putIfAbsent(bucketId, new BucketLockMap());
-                bucketLockMap = tableLockMap.get(bucketId);
-            }
-            Long previousLockTransactionId = bucketLockMap.get().putIfAbsent(pk, transactionId);
-            if (previousLockTransactionId == null) {
+            long hash = RowLockTable.hash(tableId, pk);
+            long previousLockTransactionId = LOCK_TABLE.putIfAbsent(tableId, pk, hash, transactionId);
+            if (previousLockTransactionId == RowLockTable.NO_LOCK) {
                 //No existing lock, and now locked by myself
-                Set<String> keysInHolder = bucketHolder.get(bucketLockMap);
-                if (keysInHolder == null) {
-                    bucketHolder.putIfAbsent(bucketLockMap, new ConcurrentSet<>());
-                    keysInHolder = bucketHolder.get(bucketLockMap);
-                }
-                keysInHolder.add(pk);
+                lockHolder.add(tableId, pk, hash);
             } else if (previousLockTransactionId == transactionId) {
                 // Locked by me before
                 continue;
@@ -118,19 +94,7 @@ public class FileLocker extends AbstractLocker {
             //no lock
             return true;
         }
-        ConcurrentMap<BucketLockMap, Set<String>> lockHolder = branchSession.getLockHolder();
-        if (lockHolder == null || lockHolder.size() == 0) {
-            return true;
-        }
-        for (Map.Entry<BucketLockMap, Set<String>> entry : lockHolder.entrySet()) {
-            BucketLockMap bucket = entry.getKey();
-            Set<String> keys = entry.getValue();
-            for (String key : keys) {
-                // remove lock only if it locked by myself
-                bucket.get().remove(key, branchSession.getTransactionId());
-            }
-        }
-        lockHolder.clear();
+        branchSession.getLockHolder().releaseAll(LOCK_TABLE, branchSession.getTransactionId());
         return true;
     }
 
@@ -140,28 +104,17 @@ public class FileLocker extends AbstractLocker {
             //no lock
             return true;
         }
-        Long transactionId = rowLocks.get(0).getTransactionId();
+        long transactionId = rowLocks.get(0).getTransactionId();
         String resourceId = rowLocks.get(0).getResourceId();
-        ConcurrentMap<String, ConcurrentMap<Integer, BucketLockMap>> dbLockMap = LOCK_MAP.get(resourceId);
-        if (dbLockMap == null) {
-            return true;
-        }
         for (RowLock rowLock : rowLocks) {
-            String xid = rowLock.getXid();
             String tableName = rowLock.getTableName();
             String pk = rowLock.getPk();
-
-            ConcurrentMap<Integer, BucketLockMap> tableLockMap = dbLockMap.get(tableName);
-            if (tableLockMap == null) {
+            int tableId = LOCK_TABLE.findTableId(resourceId, tableName);
+            if (tableId == RowLockTable.NO_TABLE) {
                 continue;
             }
-            int bucketId = pk.hashCode() % BUCKET_PER_TABLE;
-            BucketLockMap bucketLockMap = tableLockMap.get(bucketId);
-            if (bucketLockMap == null) {
-                continue;
-            }
-            Long lockingTransactionId = bucketLockMap.get().get(pk);
-            if (lockingTransactionId == null || lockingTransactionId.longValue() == transactionId) {
+            long lockingTransactionId = LOCK_TABLE.get(tableId, pk, RowLockTable.hash(tableId, pk));
+            if (lockingTransactionId == RowLockTable.NO_LOCK || lockingTransactionId == transactionId) {
                 // Locked by me
                 continue;
             } else {
@@ -174,31 +127,6 @@ public class FileLocker extends AbstractLocker {
 
     @Override
     public void cleanAllLocks() {
-        LOCK_MAP.clear();
-    }
-
-    /**
-     * Because bucket lock map will be key of HashMap(lockHolder), however {@link ConcurrentHashMap} overwrites
-     * {@link Object##hashCode()} and {@link Object##equals(Object)}, that leads to hash key conflict in lockHolder.
-     * We define a {@link BucketLockMap} to hold the ConcurrentHashMap(bucketLockMap) and replace it as key of
-     * HashMap(lockHolder).
-     */
-    public static class BucketLockMap {
-        private final ConcurrentHashMap<String/* pk */, Long/* transactionId */> bucketLockMap
-            = new ConcurrentHashMap<>();
-
-        ConcurrentHashMap<String, Long> get() {
-            return bucketLockMap;
-        }
-
-        @Override
-        public int hashCode() {
-            return super.hashCode();
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            return super.equals(o);
-        }
+        LOCK_TABLE.clear();
     }
 }
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.file.lock;
+
+import java.util.Arrays;
+
+/**
+ * The rows locked by a branch session in the {@link RowLockTable}, kept in parallel arrays.
+ */
+public class RowLockHolder {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] tableIds;
+
+    private long[] hashes;
+
+    private String[] pks;
+
+    private int size;
+
+    /**
+     * Add a locked row.
+     *
+     * @param tableId the table id
+     * @param pk      the pk
+     * @param hash    the hash of the row
+     */
+    synchronized void add(int tableId, String pk, long hash) {
+        if (pks == null) {
+            tableIds = new int[INITIAL_CAPACITY];
+            hashes = new long[INITIAL_CAPACITY];
+            pks = new String[INITIAL_CAPACITY];
+        } else if (size == pks.length) {
+            int capacity = size << 1;
+            tableIds = Arrays.copyOf(tableIds, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            pks = Arrays.copyOf(pks, capacity);
+        }
+        tableIds[size] = tableId;
+        hashes[size] = hash;
+        pks[size] = pk;
+        size++;
+    }
+
+    /**
+     * Unlock all the held rows in the table and forget them.
+     *
+     * @param lockTable     the lock table
+     * @param transactionId the transaction id of the branch
+     */
+    synchronized void releaseAll(RowLockTable lockTable, long transactionId) {
+        for (int i = 0; i < size; i++) {
+            // remove lock only if it locked by myself
+            lockTable.remove(tableIds[i], pks[i], hashes[i], transactionId);
+        }
+        tableIds = null;
+        hashes = null;
+        pks = null;
+        size = 0;
+    }
+
+    /**
+     * The count of the held rows.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.file.lock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The row lock table of the file mode.
+ * <p>
+ * The resource id and the table name are interned to an int table id, and a row is keyed by a 64-bit hash of the
+ * table id and the pk. The rows are kept in open-addressing segments of primitive arrays, the hash only chooses the
+ * slot and the table id and the pk are compared to verify a hit, so colliding hashes are never mistaken for the same
+ * row. A locked row costs a few array slots instead of the map nodes and boxed transaction ids.
+ */
+public class RowLockTable {
+
+    /**
+     * Returned when the row is not locked.
+     */
+    public static final long NO_LOCK = Long.MIN_VALUE;
+
+    /**
+     * Returned when the table is not known.
+     */
+    public static final int NO_TABLE = -1;
+
+    private static final int SEGMENT_BITS = 6;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConcurrentMap<String/* resourceId */, ConcurrentMap<String/* tableName */, Integer>> tableIds
+        = new ConcurrentHashMap<>();
+
+    private final AtomicInteger tableIdGenerator = new AtomicInteger();
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    /**
+     * Instantiates a new Row lock table.
+     */
+    public RowLockTable() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Gets the id of the table, the id is created if absent.
+     *
+     * @param resourceId the resource id
+     * @param tableName  the table name
+     * @return the table id
+     */
+    public int tableId(String resourceId, String tableName) {
+        ConcurrentMap<String, Integer> resourceTables = tableIds.get(resourceId);
+        if (resourceTables == null) {
+            resourceTables = tableIds.computeIfAbsent(resourceId, k -> new ConcurrentHashMap<>());
+        }
+        Integer tableId = resourceTables.get(tableName);
+        if (tableId == null) {
+            tableId = resourceTables.computeIfAbsent(tableName, k -> tableIdGenerator.getAndIncrement());
+        }
+        return tableId;
+    }
+
+    /**
+     * Find the id of the table.
+     *
+     * @param resourceId the resource id
+     * @param tableName  the table name
+     * @return the table id, or {@link #NO_TABLE} if no lock was ever acquired on the table
+     */
+    public int findTableId(String resourceId, String tableName) {
+        ConcurrentMap<String, Integer> resourceTables = tableIds.get(resourceId);
+        if (resourceTables == null) {
+            return NO_TABLE;
+        }
+        Integer tableId = resourceTables.get(tableName);
+        return tableId == null ? NO_TABLE : tableId;
+    }
+
+    /**
+     * The hash of a row.
+     *
+     * @param tableId the table id
+     * @param pk      the pk
+     * @return the hash
+     */
+    public static long hash(int tableId, String pk) {
+        // FNV-1a over the chars, then the murmur3 finalizer to spread the bits
+        long h = 0xcbf29ce484222325L ^ tableId;
+        for (int i = 0; i < pk.length(); i++) {
+            h = (h ^ pk.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Lock the row if it is not locked.
+     *
+     * @param tableId       the table id
+     * @param pk            the pk
+     * @param hash          the hash of the row
+     * @param transactionId the transaction id
+     * @return {@link #NO_LOCK} if the row is locked now, otherwise the transaction id holding the row
+     */
+    public long putIfAbsent(int tableId, String pk, long hash, long transactionId) {
+        return segmentFor(hash).putIfAbsent(tableId, pk, hash, transactionId);
+    }
+
+    /**
+     * Gets the transaction id holding the row.
+     *
+     * @param tableId the table id
+     * @param pk      the pk
+     * @param hash    the hash of the row
+     * @return the transaction id, or {@link #NO_LOCK} if the row is not locked
+     */
+    public long get(int tableId, String pk, long hash) {
+        return segmentFor(hash).get(tableId, pk, hash);
+    }
+
+    /**
+     * Unlock the row only if it is locked by the transaction.
+     *
+     * @param tableId       the table id
+     * @param pk            the pk
+     * @param hash          the hash of the row
+     * @param transactionId the transaction id
+     * @return true if unlocked
+     */
+    public boolean remove(int tableId, String pk, long hash, long transactionId) {
+        return segmentFor(hash).remove(tableId, pk, hash, transactionId);
+    }
+
+    /**
+     * The count of the locked rows.
+     *
+     * @return the size
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Unlock all the rows.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        // the high bits choose the segment, the low bits choose the slot in the segment
+        return segments[(int)(hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * Linear probing table guarded by its monitor. Removal shifts the following rows back instead of leaving
+     * tombstones, so a probe always stops at the first empty slot.
+     */
+    private static final class Segment {
+
+        private long[] hashes;
+
+        private long[] transactionIds;
+
+        private int[] tableIds;
+
+        /**
+         * null marks an empty slot
+         */
+        private String[] pks;
+
+        private int size;
+
+        Segment() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        synchronized long putIfAbsent(int tableId, String pk, long hash, long transactionId) {
+            int mask = pks.length - 1;
+            int i = (int)hash & mask;
+            for (String slotPk = pks[i]; slotPk != null; slotPk = pks[i]) {
+                if (hashes[i] == hash && tableIds[i] == tableId && slotPk.equals(pk)) {
+                    return transactionIds[i];
+                }
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            transactionIds[i] = transactionId;
+            tableIds[i] = tableId;
+            pks[i] = pk;
+            if (++size > (pks.length >> 1)) {
+                rehash(pks.length << 1);
+            }
+            return NO_LOCK;
+        }
+
+        synchronized long get(int tableId, String pk, long hash) {
+            int i = indexOf(tableId, pk, hash);
+            return i < 0 ? NO_LOCK : transactionIds[i];
+        }
+
+        synchronized boolean remove(int tableId, String pk, long hash, long transactionId) {
+            int i = indexOf(tableId, pk, hash);
+            if (i < 0 || transactionIds[i] != transactionId) {
+                return false;
+            }
+            int mask = pks.length - 1;
+            int hole = i;
+            for (int j = (i + 1) & mask; pks[j] != null; j = (j + 1) & mask) {
+                int home = (int)hashes[j] & mask;
+                // the row at j may fill the hole only if its home slot is not cyclically in (hole, j]
+                boolean reachable = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+                if (!reachable) {
+                    hashes[hole] = hashes[j];
+                    transactionIds[hole] = transactionIds[j];
+                    tableIds[hole] = tableIds[j];
+                    pks[hole] = pks[j];
+                    hole = j;
+                }
+            }
+            pks[hole] = null;
+            size--;
+            if (pks.length > INITIAL_CAPACITY && size < (pks.length >> 3)) {
+                rehash(pks.length >> 1);
+            }
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            allocate(INITIAL_CAPACITY);
+            size = 0;
+        }
+
+        private int indexOf(int tableId, String pk, long hash) {
+            int mask = pks.length - 1;
+            int i = (int)hash & mask;
+            for (String slotPk = pks[i]; slotPk != null; slotPk = pks[i]) {
+                if (hashes[i] == hash && tableIds[i] == tableId && slotPk.equals(pk)) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldHashes = hashes;
+            long[] oldTransactionIds = transactionIds;
+            int[] oldTableIds = tableIds;
+            String[] oldPks = pks;
+            allocate(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < oldPks.length; j++) {
+                if (oldPks[j] == null) {
+                    continue;
+                }
+                int i = (int)oldHashes[j] & mask;
+                while (pks[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                hashes[i] = oldHashes[j];
+                transactionIds[i] = oldTransactionIds[j];
+                tableIds[i] = oldTableIds[j];
+                pks[i] = oldPks[j];
+            }
+        }
+
+        private void allocate(int capacity) {
+            hashes = new long[capacity];
+            transactionIds = new long[capacity];
+            tableIds = new int[capacity];
+            pks = new String[capacity];
+        }
+    }
+}
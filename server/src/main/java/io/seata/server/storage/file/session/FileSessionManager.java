@@ -17,18 +17,29 @@ package io.seata.server.storage.file.session;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import io.seata.common.exception.ShouldNeverHappenException;
 import io.seata.common.loader.LoadLevel;
+import io.seata.common.thread.NamedThreadFactory;
 import io.seata.common.util.StringUtils;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
 import io.seata.core.exception.TransactionException;
 import io.seata.core.model.GlobalStatus;
 import io.seata.server.session.AbstractSessionManager;
@@ -36,11 +47,15 @@ import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.Reloadable;
 import io.seata.server.session.SessionCondition;
+import io.seata.server.session.SessionDeadlineIndex;
+import io.seata.server.session.SessionHolder;
 import io.seata.server.storage.file.ReloadableStore;
 import io.seata.server.storage.file.TransactionWriteStore;
 import io.seata.server.storage.file.store.FileTransactionStoreManager;
+import io.seata.server.storage.file.store.SegmentedTransactionStoreManager;
 import io.seata.server.store.AbstractTransactionStoreManager;
 import io.seata.server.store.SessionStorable;
+import io.seata.server.store.StoreConfig;
 import io.seata.server.store.TransactionStoreManager;
 import io.seata.common.loader.Scope;
 
@@ -55,11 +70,25 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
 
     private static final int READ_SIZE = ConfigurationFactory.getInstance().getInt(
         ConfigurationKeys.SERVICE_SESSION_RELOAD_READ_SIZE, 100);
+
+    private static final int RELOAD_THREADS = ConfigurationFactory.getInstance().getInt(
+        ConfigurationKeys.SERVICE_SESSION_RELOAD_THREADS, DefaultValues.DEFAULT_SESSION_RELOAD_THREADS);
+
     /**
      * The Session map.
      */
     private Map<String, GlobalSession> sessionMap = new ConcurrentHashMap<>();
 
+    /**
+     * The begin sessions ordered by the timeout deadline.
+     */
+    private SessionDeadlineIndex timeoutIndex = new SessionDeadlineIndex();
+
+    /**
+     * The retrying sessions ordered by the next retry time, only used by the retry session managers.
+     */
+    private SessionDeadlineIndex retryIndex;
+
     /**
      * Instantiates a new File based session manager.
      *
@@ -69,7 +98,14 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
      */
     public FileSessionManager(String name, String sessionStoreFilePath) throws IOException {
         super(name);
-        if (StringUtils.isNotBlank(sessionStoreFilePath)) {
+        if (SessionHolder.RETRY_COMMITTING_SESSION_MANAGER_NAME.equals(name)
+            || SessionHolder.RETRY_ROLLBACKING_SESSION_MANAGER_NAME.equals(name)) {
+            retryIndex = new SessionDeadlineIndex();
+        }
+        if (StringUtils.isNotBlank(sessionStoreFilePath) && StoreConfig.isSegmented()) {
+            transactionStoreManager = new SegmentedTransactionStoreManager(
+                    sessionStoreFilePath + File.separator + name, this);
+        } else if (StringUtils.isNotBlank(sessionStoreFilePath)) {
             transactionStoreManager = new FileTransactionStoreManager(
                     sessionStoreFilePath + File.separator + name, this);
         } else {
@@ -86,12 +122,22 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
     public void reload() {
         restoreSessions();
         washSessions();
+        indexSessions();
+        if (transactionStoreManager instanceof ReloadableStore) {
+            ((ReloadableStore)transactionStoreManager).onSessionsReloaded();
+        }
     }
 
     @Override
     public void addGlobalSession(GlobalSession session) throws TransactionException {
         super.addGlobalSession(session);
         sessionMap.put(session.getXid(), session);
+        if (session.isActive() && GlobalStatus.Begin == session.getStatus()) {
+            timeoutIndex.add(session, session.getBeginTime() + session.getTimeout());
+        }
+        if (retryIndex != null) {
+            retryIndex.add(session, session.getNextRetryTime());
+        }
     }
 
     @Override
@@ -109,6 +155,10 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
     public void removeGlobalSession(GlobalSession session) throws TransactionException {
         super.removeGlobalSession(session);
         sessionMap.remove(session.getXid());
+        timeoutIndex.remove(session);
+        if (retryIndex != null) {
+            retryIndex.remove(session);
+        }
     }
 
     @Override
@@ -116,6 +166,47 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
         return sessionMap.values();
     }
 
+    @Override
+    public Collection<GlobalSession> findTimeoutSessions() {
+        return timeoutIndex.findExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public Collection<GlobalSession> findRetrySessions() {
+        if (retryIndex == null) {
+            return super.findRetrySessions();
+        }
+        List<GlobalSession> found = retryIndex.findExpired(System.currentTimeMillis());
+        // drop the session which is rescheduled while being removed
+        found.removeIf(session -> {
+            if (sessionMap.containsKey(session.getXid())) {
+                return false;
+            }
+            retryIndex.remove(session);
+            return true;
+        });
+        return found;
+    }
+
+    @Override
+    public void scheduleRetry(GlobalSession session, int retryCount, long nextRetryTime) {
+        if (retryIndex == null) {
+            super.scheduleRetry(session, retryCount, nextRetryTime);
+            return;
+        }
+        session.setRetryCount(retryCount);
+        session.setNextRetryTime(nextRetryTime);
+        if (sessionMap.containsKey(session.getXid())) {
+            retryIndex.add(session, nextRetryTime);
+        }
+    }
+
+    @Override
+    public void onClose(GlobalSession globalSession) throws TransactionException {
+        super.onClose(globalSession);
+        timeoutIndex.remove(globalSession);
+    }
+
     @Override
     public List<GlobalSession> findGlobalSessions(SessionCondition condition) {
         List<GlobalSession> found = new ArrayList<>();
@@ -138,11 +229,23 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
         }
     }
 
-    private void restoreSessions() {
+    /**
+     * Restore the sessions from the store into this manager, before they are washed and indexed.
+     */
+    protected void restoreSessions() {
+        if (!(transactionStoreManager instanceof ReloadableStore)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
         Map<Long, BranchSession> unhandledBranchBuffer = new HashMap<>();
 
-        restoreSessions(true, unhandledBranchBuffer);
-        restoreSessions(false, unhandledBranchBuffer);
+        long restored;
+        if (RELOAD_THREADS > 1) {
+            restored = restoreSessionsInParallel(RELOAD_THREADS, unhandledBranchBuffer);
+        } else {
+            restored = restoreSessions(true, unhandledBranchBuffer);
+            restored += restoreSessions(false, unhandledBranchBuffer);
+        }
 
         if (!unhandledBranchBuffer.isEmpty()) {
             unhandledBranchBuffer.values().forEach(branchSession -> {
@@ -165,6 +268,20 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
 
             });
         }
+        if (LOGGER.isInfoEnabled()) {
+            long cost = System.currentTimeMillis() - start;
+            LOGGER.info("Restored {} records of {} global sessions from {} in {} ms, {} records/s", restored,
+                sessionMap.size(), name, cost, cost == 0 ? restored * 1000 : restored * 1000 / cost);
+        }
+    }
+
+    /**
+     * Restore a session read from the store.
+     *
+     * @param globalSession the global session with its branch sessions
+     */
+    protected void restoreGlobalSession(GlobalSession globalSession) {
+        sessionMap.put(globalSession.getXid(), globalSession);
     }
 
     private void washSessions() {
@@ -193,15 +310,130 @@ public class FileSessionManager extends AbstractSessionManager implements Reload
         }
     }
 
-    private void restoreSessions(boolean isHistory, Map<Long, BranchSession> unhandledBranchBuffer) {
-        if (!(transactionStoreManager instanceof ReloadableStore)) {
-            return;
+    private void indexSessions() {
+        for (GlobalSession globalSession : sessionMap.values()) {
+            if (GlobalStatus.Begin == globalSession.getStatus()) {
+                timeoutIndex.add(globalSession, globalSession.getBeginTime() + globalSession.getTimeout());
+            }
         }
+    }
+
+    private long restoreSessions(boolean isHistory, Map<Long, BranchSession> unhandledBranchBuffer) {
+        long restored = 0;
         while (((ReloadableStore)transactionStoreManager).hasRemaining(isHistory)) {
             List<TransactionWriteStore> stores = ((ReloadableStore)transactionStoreManager).readWriteStore(READ_SIZE,
                 isHistory);
+            if (stores == null) {
+                break;
+            }
             restore(stores, unhandledBranchBuffer);
+            restored += stores.size();
+        }
+        return restored;
+    }
+
+    /**
+     * Restore the sessions in a pipeline: the startup thread reads the frames, the decoders decode the batches, and
+     * the records are applied by partitions of the transaction id. The records of a transaction are always applied by
+     * the same partition in the order of the log, so it ends in the same state as the serial restore.
+     */
+    private long restoreSessionsInParallel(int threads, Map<Long, BranchSession> unhandledBranchBuffer) {
+        ReloadableStore store = (ReloadableStore)transactionStoreManager;
+        ExecutorService decoders = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new NamedThreadFactory("sessionReloadDecoder", threads));
+        ExecutorService[] partitions = new ExecutorService[threads];
+        List<Map<Long, BranchSession>> unhandledPartitions = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            partitions[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("sessionReloadApplier_" + i, 1));
+            unhandledPartitions.add(new HashMap<>());
+        }
+        // the decoded batches are applied in the order they are read, at most 2 batches per decoder are in flight
+        Deque<Future<List<TransactionWriteStore>>> decoding = new ArrayDeque<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long restored = 0;
+        try {
+            for (boolean isHistory : new boolean[] {true, false}) {
+                while (store.hasRemaining(isHistory)) {
+                    List<byte[]> frames = store.readFrames(READ_SIZE, isHistory);
+                    if (frames == null) {
+                        break;
+                    }
+                    decoding.addLast(decoders.submit(() -> decode(frames)));
+                    if (decoding.size() >= threads * 2) {
+                        restored += apply(decoding.pollFirst().get(), partitions, unhandledPartitions, failure);
+                    }
+                }
+            }
+            while (!decoding.isEmpty()) {
+                restored += apply(decoding.pollFirst().get(), partitions, unhandledPartitions, failure);
+            }
+            for (ExecutorService partition : partitions) {
+                partition.shutdown();
+            }
+            for (ExecutorService partition : partitions) {
+                partition.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShouldNeverHappenException("Restore sessions interrupted");
+        } catch (ExecutionException e) {
+            throw new ShouldNeverHappenException("Restore sessions failed: " + e.getCause().getMessage(),
+                e.getCause());
+        } finally {
+            decoders.shutdownNow();
+            for (ExecutorService partition : partitions) {
+                partition.shutdownNow();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        unhandledPartitions.forEach(unhandledBranchBuffer::putAll);
+        return restored;
+    }
+
+    private long apply(List<TransactionWriteStore> stores, ExecutorService[] partitions,
+                       List<Map<Long, BranchSession>> unhandledPartitions,
+                       AtomicReference<RuntimeException> failure) {
+        List<List<TransactionWriteStore>> batches = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            batches.add(new ArrayList<>());
+        }
+        for (TransactionWriteStore store : stores) {
+            long transactionId = store.getSessionRequest() instanceof GlobalSession
+                ? ((GlobalSession)store.getSessionRequest()).getTransactionId()
+                : ((BranchSession)store.getSessionRequest()).getTransactionId();
+            batches.get((int)Math.floorMod(transactionId, (long)partitions.length)).add(store);
+        }
+        for (int i = 0; i < partitions.length; i++) {
+            List<TransactionWriteStore> batch = batches.get(i);
+            if (!batch.isEmpty()) {
+                Map<Long, BranchSession> unhandledBranchSessions = unhandledPartitions.get(i);
+                partitions[i].execute(() -> {
+                    try {
+                        restore(batch, unhandledBranchSessions);
+                    } catch (RuntimeException ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                });
+            }
+        }
+        return stores.size();
+    }
+
+    private List<TransactionWriteStore> decode(List<byte[]> frames) {
+        List<TransactionWriteStore> stores = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            try {
+                TransactionWriteStore store = new TransactionWriteStore();
+                store.decode(frame);
+                stores.add(store);
+            } catch (Exception ex) {
+                LOGGER.error("decode session frame error:{}", ex.getMessage(), ex);
+            }
         }
+        return stores;
     }
 
     private void restore(List<TransactionWriteStore> stores, Map<Long, BranchSession> unhandledBranchSessions) {
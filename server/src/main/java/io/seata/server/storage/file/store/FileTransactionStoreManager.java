@@ -15,18 +15,26 @@
  */
 package io.seata.server.storage.file.store;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -35,6 +43,11 @@ import java.util.concurrent.locks.ReentrantLock;
 import io.seata.common.exception.StoreException;
 import io.seata.common.thread.NamedThreadFactory;
 import io.seata.common.util.CollectionUtils;
+import io.seata.metrics.Summary;
+import io.seata.metrics.Timer;
+import io.seata.metrics.registry.Registry;
+import io.seata.server.metrics.MeterIdConstants;
+import io.seata.server.metrics.MetricsManager;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionCondition;
@@ -72,6 +85,22 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     private static final String HIS_DATA_FILENAME_POSTFIX = ".1";
 
+    private static final String SNAPSHOT_FILENAME_POSTFIX = ".snapshot";
+
+    private static final String SNAPSHOT_TMP_FILENAME_POSTFIX = ".tmp";
+
+    private static final int SNAPSHOT_MAGIC = 0x53534E50;
+
+    /**
+     * The snapshot format versions this store reads and writes.
+     */
+    private static final int SNAPSHOT_VERSION_1 = 1;
+
+    /**
+     * magic, version, log offset, frame count
+     */
+    private static final int SNAPSHOT_HEADER_SIZE = 4 + 4 + 8 + 4;
+
     private static final AtomicLong FILE_TRX_NUM = new AtomicLong(0);
 
     private static final AtomicLong FILE_FLUSH_NUM = new AtomicLong(0);
@@ -106,6 +135,36 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     private String hisFullFileName;
 
+    private String snapshotFullFileName;
+
+    /**
+     * Whether the history is recovered from the snapshot instead of the history file.
+     */
+    private boolean recoverFromSnapshot;
+
+    /**
+     * Increased when the data file is rolled, a snapshot taken before is no longer valid.
+     */
+    private long fileGeneration;
+
+    private ScheduledExecutorService snapshotExecutor;
+
+    /**
+     * Whether the snapshot is enabled, then the logged sessions are kept.
+     */
+    private final boolean snapshotEnabled;
+
+    /**
+     * The last logged record of each live global session and its branch sessions by xid, a snapshot is the copy of
+     * them at an offset of the data file. Guarded by the write session lock.
+     */
+    private final Map<String, LoggedSession> loggedSessions = new HashMap<>();
+
+    /**
+     * Whether the logged sessions are seeded by the reloaded sessions, no snapshot is written before it.
+     */
+    private boolean sessionsReloaded;
+
     private WriteDataFileRunnable writeDataFileRunnable;
 
     private ReentrantLock writeSessionLock = new ReentrantLock();
@@ -118,6 +177,17 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     private static final FlushDiskMode FLUSH_DISK_MODE = StoreConfig.getFlushDiskMode();
 
+    private static final int GROUP_COMMIT_MAX_SIZE = StoreConfig.getGroupCommitMaxSize();
+
+    private static final long GROUP_COMMIT_WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(
+        StoreConfig.getGroupCommitWindowMicros());
+
+    private final FlushDiskMode flushDiskMode;
+
+    private Summary groupCommitSizeSummary;
+
+    private Timer groupCommitFsyncTimer;
+
     private static final int MAX_WAIT_FOR_FLUSH_TIME_MILLS = 2 * 1000;
 
     private static final int MAX_WAIT_FOR_CLOSE_TIME_MILLS = 2 * 1000;
@@ -132,18 +202,57 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
      * @throws IOException the io exception
      */
     public FileTransactionStoreManager(String fullFileName, SessionManager sessionManager) throws IOException {
+        this(fullFileName, sessionManager, FLUSH_DISK_MODE);
+    }
+
+    /**
+     * Instantiates a new File transaction store manager.
+     *
+     * @param fullFileName   the dir path
+     * @param sessionManager the session manager
+     * @param flushDiskMode  the flush disk mode
+     * @throws IOException the io exception
+     */
+    public FileTransactionStoreManager(String fullFileName, SessionManager sessionManager,
+                                       FlushDiskMode flushDiskMode) throws IOException {
+        this(fullFileName, sessionManager, flushDiskMode, StoreConfig.getSnapshotInterval());
+    }
+
+    /**
+     * Instantiates a new File transaction store manager.
+     *
+     * @param fullFileName     the dir path
+     * @param sessionManager   the session manager
+     * @param flushDiskMode    the flush disk mode
+     * @param snapshotInterval the millis between the snapshots, the snapshot is disabled if it is not positive
+     * @throws IOException the io exception
+     */
+    public FileTransactionStoreManager(String fullFileName, SessionManager sessionManager,
+                                       FlushDiskMode flushDiskMode, long snapshotInterval) throws IOException {
+        this.flushDiskMode = flushDiskMode;
+        this.sessionManager = sessionManager;
+        bindMetrics(MetricsManager.get().getRegistry());
         initFile(fullFileName);
+        loadSnapshot();
         fileWriteExecutor = new ThreadPoolExecutor(MAX_THREAD_WRITE, MAX_THREAD_WRITE, Integer.MAX_VALUE,
             TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
             new NamedThreadFactory("fileTransactionStore", MAX_THREAD_WRITE, true));
         writeDataFileRunnable = new WriteDataFileRunnable();
         fileWriteExecutor.submit(writeDataFileRunnable);
-        this.sessionManager = sessionManager;
+        snapshotEnabled = startSnapshot(snapshotInterval, StoreConfig.getSnapshotVersion());
+    }
+
+    private void bindMetrics(Registry registry) {
+        if (registry != null) {
+            groupCommitSizeSummary = registry.getSummary(MeterIdConstants.SUMMARY_GROUP_COMMIT_SIZE);
+            groupCommitFsyncTimer = registry.getTimer(MeterIdConstants.TIMER_GROUP_COMMIT_FSYNC);
+        }
     }
 
     private void initFile(String fullFileName) throws IOException {
         this.currFullFileName = fullFileName;
         this.hisFullFileName = fullFileName + HIS_DATA_FILENAME_POSTFIX;
+        this.snapshotFullFileName = fullFileName + SNAPSHOT_FILENAME_POSTFIX;
         try {
             currDataFile = new File(currFullFileName);
             if (!currDataFile.exists()) {
@@ -171,9 +280,13 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
         writeSessionLock.lock();
         long curFileTrxNum;
         try {
-            if (!writeDataFile(new TransactionWriteStore(session, logOperation).encode())) {
+            byte[] data = new TransactionWriteStore(session, logOperation).encode();
+            if (!writeDataFile(data)) {
                 return false;
             }
+            if (snapshotEnabled) {
+                logged(logOperation, session, data);
+            }
             lastModifiedTime = System.currentTimeMillis();
             curFileTrxNum = FILE_TRX_NUM.incrementAndGet();
             if (curFileTrxNum % PER_FILE_BLOCK_SIZE == 0
@@ -192,7 +305,7 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     private void flushDisk(long curFileNum, FileChannel currFileChannel) {
 
-        if (FLUSH_DISK_MODE == FlushDiskMode.SYNC_MODEL) {
+        if (flushDiskMode == FlushDiskMode.SYNC_MODEL) {
             SyncFlushRequest syncFlushRequest = new SyncFlushRequest(curFileNum, currFileChannel);
             writeDataFileRunnable.putRequest(syncFlushRequest);
             syncFlushRequest.waitForFlush(MAX_WAIT_FOR_FLUSH_TIME_MILLS);
@@ -209,6 +322,9 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
      */
     private boolean saveHistory() throws IOException {
         boolean result;
+        // the snapshot points into the file being rolled
+        fileGeneration++;
+        Files.deleteIfExists(new File(snapshotFullFileName).toPath());
         try {
             result = findTimeoutAndSave();
             StoreRequest request = new CloseFileRequest(currFileChannel, currRaf);
@@ -299,6 +415,201 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
         return false;
     }
 
+    /**
+     * Write a snapshot of the live sessions and the offset of the data file it covers, the recovery loads the snapshot
+     * and replays the data file from that offset only.
+     * <p>
+     * The snapshot is the last logged record of each live session and branch, copied under the write session lock,
+     * so it has exactly the writes logged before the offset, and the records are written to the file outside the
+     * lock.
+     *
+     * @return true if the snapshot is written
+     */
+    public boolean snapshot() {
+        if (!snapshotEnabled) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        List<byte[]> frames = new ArrayList<>();
+        long logOffset;
+        long generation;
+        writeSessionLock.lock();
+        try {
+            if (!sessionsReloaded) {
+                return false;
+            }
+            logOffset = currFileChannel.position();
+            generation = fileGeneration;
+            for (LoggedSession loggedSession : loggedSessions.values()) {
+                if (loggedSession.global != null) {
+                    frames.add(loggedSession.global);
+                }
+                frames.addAll(loggedSession.branches.values());
+            }
+        } catch (IOException exx) {
+            LOGGER.warn("collect session snapshot error, {}", exx.getMessage());
+            return false;
+        } finally {
+            writeSessionLock.unlock();
+        }
+        File tmpFile = new File(snapshotFullFileName + SNAPSHOT_TMP_FILENAME_POSTFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw")) {
+            raf.setLength(0);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(raf.getChannel()), MAX_WRITE_BUFFER_SIZE));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION_1);
+            out.writeLong(logOffset);
+            out.writeInt(frames.size());
+            for (byte[] frame : frames) {
+                out.writeInt(frame.length);
+                out.write(frame);
+            }
+            out.flush();
+            raf.getChannel().force(true);
+        } catch (IOException exx) {
+            LOGGER.error("write session snapshot error, {}", exx.getMessage(), exx);
+            return false;
+        }
+        writeSessionLock.lock();
+        try {
+            if (generation != fileGeneration) {
+                Files.deleteIfExists(tmpFile.toPath());
+                return false;
+            }
+            Files.move(tmpFile.toPath(), new File(snapshotFullFileName).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exx) {
+            LOGGER.error("save session snapshot error, {}", exx.getMessage(), exx);
+            return false;
+        } finally {
+            writeSessionLock.unlock();
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Session snapshot of {} records at offset {} written in {} ms", frames.size(), logOffset,
+                System.currentTimeMillis() - start);
+        }
+        return true;
+    }
+
+    private boolean startSnapshot(long interval, int version) {
+        if (interval <= 0 || sessionManager == null) {
+            return false;
+        }
+        if (version != SNAPSHOT_VERSION_1) {
+            LOGGER.error("Unsupported session snapshot version {}, the snapshot is disabled", version);
+            return false;
+        }
+        snapshotExecutor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("fileSessionSnapshot", 1, true));
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshot, interval, interval, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    @Override
+    public void onSessionsReloaded() {
+        if (!snapshotEnabled) {
+            return;
+        }
+        writeSessionLock.lock();
+        try {
+            // the reloaded sessions are all logged, nothing is written before they are reloaded
+            loggedSessions.clear();
+            for (GlobalSession globalSession : sessionManager.allSessions()) {
+                logged(LogOperation.GLOBAL_ADD, globalSession,
+                    new TransactionWriteStore(globalSession, LogOperation.GLOBAL_ADD).encode());
+                for (BranchSession branchSession : globalSession.getSortedBranches()) {
+                    logged(LogOperation.BRANCH_ADD, branchSession,
+                        new TransactionWriteStore(branchSession, LogOperation.BRANCH_ADD).encode());
+                }
+            }
+            sessionsReloaded = true;
+        } finally {
+            writeSessionLock.unlock();
+        }
+    }
+
+    /**
+     * Keep the logged record as the recovery replays it, the caller must hold the write session lock.
+     */
+    private void logged(LogOperation logOperation, SessionStorable session, byte[] data) {
+        switch (logOperation) {
+            case GLOBAL_ADD:
+            case GLOBAL_UPDATE:
+                loggedSessions.computeIfAbsent(((GlobalSession)session).getXid(), xid -> new LoggedSession())
+                    .global = data;
+                break;
+            case GLOBAL_REMOVE:
+                loggedSessions.remove(((GlobalSession)session).getXid());
+                break;
+            case BRANCH_ADD:
+            case BRANCH_UPDATE:
+            case BRANCH_REMOVE: {
+                BranchSession branchSession = (BranchSession)session;
+                // the branches are kept with their logged global session only
+                LoggedSession loggedSession = loggedSessions.get(branchSession.getXid());
+                if (loggedSession == null) {
+                    break;
+                }
+                if (logOperation == LogOperation.BRANCH_REMOVE) {
+                    loggedSession.branches.remove(branchSession.getBranchId());
+                } else {
+                    loggedSession.branches.put(branchSession.getBranchId(), data);
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void loadSnapshot() {
+        File snapshotFile = new File(snapshotFullFileName);
+        if (!snapshotFile.exists()) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(snapshotFile, "r")) {
+            FileChannel fileChannel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+            if (fileChannel.read(header) == SNAPSHOT_HEADER_SIZE) {
+                header.flip();
+                int magic = header.getInt();
+                int version = header.getInt();
+                long logOffset = header.getLong();
+                int frameCount = header.getInt();
+                if (magic == SNAPSHOT_MAGIC && version == SNAPSHOT_VERSION_1 && logOffset <= currDataFile.length()
+                    && countFrames(fileChannel, raf.length()) == frameCount) {
+                    recoverFromSnapshot = true;
+                    recoverHisOffset = SNAPSHOT_HEADER_SIZE;
+                    recoverCurrOffset = logOffset;
+                    if (LOGGER.isInfoEnabled()) {
+                        LOGGER.info("Recover from the session snapshot of {} records at offset {}", frameCount,
+                            logOffset);
+                    }
+                    return;
+                }
+            }
+            LOGGER.warn("Ignore the invalid session snapshot {}", snapshotFile.getName());
+        } catch (IOException exx) {
+            LOGGER.error("read session snapshot error, {}", exx.getMessage(), exx);
+        }
+    }
+
+    private int countFrames(FileChannel fileChannel, long size) throws IOException {
+        ByteBuffer buffSize = ByteBuffer.allocate(MARK_SIZE);
+        long position = SNAPSHOT_HEADER_SIZE;
+        int count = 0;
+        while (position < size) {
+            buffSize.clear();
+            if (fileChannel.read(buffSize, position) != MARK_SIZE) {
+                return -1;
+            }
+            buffSize.flip();
+            position += MARK_SIZE + buffSize.getInt();
+            count++;
+        }
+        return position == size ? count : -1;
+    }
+
     @Override
     public GlobalSession readSession(String xid) {
         throw new StoreException("unsupport for read from file, xid:" + xid);
@@ -311,6 +622,9 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     @Override
     public void shutdown() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdownNow();
+        }
         if (fileWriteExecutor != null) {
             fileWriteExecutor.shutdown();
             stopping = true;
@@ -336,10 +650,29 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     @Override
     public List<TransactionWriteStore> readWriteStore(int readSize, boolean isHistory) {
+        List<byte[]> frames = readFrames(readSize, isHistory);
+        if (frames == null) {
+            return null;
+        }
+        List<TransactionWriteStore> transactionWriteStores = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            try {
+                TransactionWriteStore writeStore = new TransactionWriteStore();
+                writeStore.decode(frame);
+                transactionWriteStores.add(writeStore);
+            } catch (Exception ex) {
+                LOGGER.error("decode data file error:{}", ex.getMessage(), ex);
+            }
+        }
+        return transactionWriteStores;
+    }
+
+    @Override
+    public List<byte[]> readFrames(int readSize, boolean isHistory) {
         File file = null;
         long currentOffset = 0;
         if (isHistory) {
-            file = new File(hisFullFileName);
+            file = new File(recoverFromSnapshot ? snapshotFullFileName : hisFullFileName);
             currentOffset = recoverHisOffset;
         } else {
             file = new File(currFullFileName);
@@ -357,7 +690,7 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
         RandomAccessFile raf = null;
         long currentOffset = 0;
         if (isHistory) {
-            file = new File(hisFullFileName);
+            file = new File(recoverFromSnapshot ? snapshotFullFileName : hisFullFileName);
             currentOffset = recoverHisOffset;
         } else {
             file = new File(currFullFileName);
@@ -374,8 +707,8 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
         return false;
     }
 
-    private List<TransactionWriteStore> parseDataFile(File file, int readSize, long currentOffset, boolean isHistory) {
-        List<TransactionWriteStore> transactionWriteStores = new ArrayList<>(readSize);
+    private List<byte[]> parseDataFile(File file, int readSize, long currentOffset, boolean isHistory) {
+        List<byte[]> frames = new ArrayList<>(readSize);
         RandomAccessFile raf = null;
         FileChannel fileChannel = null;
         try {
@@ -400,18 +733,16 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
                     if (avilReadSize != bodySize) {
                         break;
                     }
-                    TransactionWriteStore writeStore = new TransactionWriteStore();
-                    writeStore.decode(byBody);
-                    transactionWriteStores.add(writeStore);
-                    if (transactionWriteStores.size() == readSize) {
+                    frames.add(byBody);
+                    if (frames.size() == readSize) {
                         break;
                     }
                 } catch (Exception ex) {
-                    LOGGER.error("decode data file error:{}", ex.getMessage(), ex);
+                    LOGGER.error("read data file error:{}", ex.getMessage(), ex);
                     break;
                 }
             }
-            return transactionWriteStores;
+            return frames;
         } catch (IOException exx) {
             LOGGER.error("parse data file error:{},file:{}", exx.getMessage(), file.getName(), exx);
             return null;
@@ -471,6 +802,16 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
 
     }
 
+    /**
+     * The last logged records of a global session and its branch sessions.
+     */
+    private static class LoggedSession {
+
+        private byte[] global;
+
+        private final Map<Long, byte[]> branches = new LinkedHashMap<>();
+    }
+
     abstract static class AbstractFlushRequest implements StoreRequest {
         private final long curFileTrxNum;
 
@@ -590,7 +931,7 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
                 flushOnCondition(currFileChannel);
             }
             if (storeRequest instanceof SyncFlushRequest) {
-                syncFlush((SyncFlushRequest)storeRequest);
+                groupCommit((SyncFlushRequest)storeRequest);
             } else if (storeRequest instanceof AsyncFlushRequest) {
                 async((AsyncFlushRequest)storeRequest);
             } else if (storeRequest instanceof CloseFileRequest) {
@@ -610,18 +951,68 @@ public class FileTransactionStoreManager extends AbstractTransactionStoreManager
             flushOnCondition(req.getCurFileChannel());
         }
 
-        private void syncFlush(SyncFlushRequest req) {
-            if (req.getCurFileTrxNum() > FILE_FLUSH_NUM.get()) {
+        /**
+         * Take the sync flush requests queued behind the first one, until the group is full or the window is over,
+         * then force the file once for all of them and wake them up together. The writers keep appending while the
+         * file is forced, so the next group collects them.
+         */
+        private void groupCommit(SyncFlushRequest first) {
+            List<SyncFlushRequest> group = new ArrayList<>();
+            group.add(first);
+            StoreRequest next = null;
+            long deadline = System.nanoTime() + GROUP_COMMIT_WINDOW_NANOS;
+            try {
+                while (group.size() < GROUP_COMMIT_MAX_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    StoreRequest request = remaining > 0 && !stopping
+                        ? storeRequests.poll(remaining, TimeUnit.NANOSECONDS) : storeRequests.poll();
+                    if (request == null) {
+                        break;
+                    }
+                    if (!(request instanceof SyncFlushRequest)) {
+                        // keep the order with the other requests, e.g. close the file after the group is forced
+                        next = request;
+                        break;
+                    }
+                    group.add((SyncFlushRequest)request);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long maxTrxNum = 0;
+            for (SyncFlushRequest req : group) {
+                maxTrxNum = Math.max(maxTrxNum, req.getCurFileTrxNum());
+            }
+            if (maxTrxNum > FILE_FLUSH_NUM.get()) {
                 long diff = FILE_TRX_NUM.get() - FILE_FLUSH_NUM.get();
-                flush(req.getCurFileChannel());
+                long start = System.nanoTime();
+                FileChannel forced = null;
+                for (SyncFlushRequest req : group) {
+                    // the file may be switched in the group, the closed one was forced on close
+                    if (req.getCurFileChannel() != forced && req.getCurFileChannel().isOpen()) {
+                        forced = req.getCurFileChannel();
+                        flush(forced);
+                    }
+                }
                 FILE_FLUSH_NUM.addAndGet(diff);
+                if (groupCommitFsyncTimer != null) {
+                    groupCommitFsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+            if (groupCommitSizeSummary != null) {
+                groupCommitSizeSummary.increase(group.size());
             }
             // notify
-            req.wakeup();
+            for (SyncFlushRequest req : group) {
+                req.wakeup();
+            }
+            if (next != null) {
+                handleStoreRequest(next);
+            }
         }
 
         private void flushOnCondition(FileChannel fileChannel) {
-            if (FLUSH_DISK_MODE == FlushDiskMode.SYNC_MODEL) {
+            if (flushDiskMode == FlushDiskMode.SYNC_MODEL) {
                 return;
             }
             long diff = FILE_TRX_NUM.get() - FILE_FLUSH_NUM.get();
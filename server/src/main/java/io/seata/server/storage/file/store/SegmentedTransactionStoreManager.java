@@ -0,0 +1,608 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.file.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionCondition;
+import io.seata.server.session.SessionManager;
+import io.seata.server.storage.file.FlushDiskMode;
+import io.seata.server.storage.file.ReloadableStore;
+import io.seata.server.storage.file.TransactionWriteStore;
+import io.seata.server.store.AbstractTransactionStoreManager;
+import io.seata.server.store.SessionStorable;
+import io.seata.server.store.StoreConfig;
+import io.seata.server.store.TransactionStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The transaction store manager writing a log of fixed size memory-mapped segments.
+ * <p>
+ * Every segment knows the transactions which still have records in it, a transaction leaves the segments once its
+ * global session is removed. The compactor drops the oldest segments which have no live transaction left, and
+ * rewrites the few live sessions of an old segment into the active one so that the old segment can be dropped too.
+ * Segments are only dropped from the oldest one, so a remove record is never dropped before the records it removes.
+ * Once the sessions are reloaded, a transaction the session manager does not hold leaves the segments too, such as the
+ * finished sessions washed at the restart or the branches whose global session is gone, which have no remove record.
+ * The frames have the same layout as the ones of {@link FileTransactionStoreManager}, a zero length marks the end of
+ * a segment.
+ */
+public class SegmentedTransactionStoreManager extends AbstractTransactionStoreManager
+    implements TransactionStoreManager, ReloadableStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedTransactionStoreManager.class);
+
+    private static final String SEGMENT_FILENAME_POSTFIX = ".seg";
+
+    private static final int MARK_SIZE = 4;
+
+    private static final long ASYNC_FLUSH_INTERVAL_MILLS = 1000L;
+
+    private final File dir;
+
+    private final String baseName;
+
+    private final SessionManager sessionManager;
+
+    private final FlushDiskMode flushDiskMode;
+
+    private final int segmentSize;
+
+    private final int compactThreshold;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final TreeMap<Long/* segment index */, Segment> segments = new TreeMap<>();
+
+    private final Map<Long/* transactionId */, Set<Segment>> liveTransactions = new HashMap<>();
+
+    private volatile Segment active;
+
+    /**
+     * whether the sessions are reloaded, before that the transactions not held by the session manager may be restored
+     */
+    private volatile boolean sessionsReloaded;
+
+    private final ScheduledExecutorService scheduler;
+
+    private List<Segment> recoverSegments;
+
+    private int recoverSegmentIndex;
+
+    private int recoverOffset;
+
+    /**
+     * Instantiates a new Segmented transaction store manager.
+     *
+     * @param fullFileName   the path prefix of the segment files
+     * @param sessionManager the session manager
+     * @throws IOException the io exception
+     */
+    public SegmentedTransactionStoreManager(String fullFileName, SessionManager sessionManager) throws IOException {
+        this(fullFileName, sessionManager, StoreConfig.getFlushDiskMode(), StoreConfig.getSegmentSize(),
+            StoreConfig.getSegmentCompactInterval(), StoreConfig.getSegmentCompactThreshold());
+    }
+
+    /**
+     * Instantiates a new Segmented transaction store manager.
+     *
+     * @param fullFileName     the path prefix of the segment files
+     * @param sessionManager   the session manager
+     * @param flushDiskMode    the flush disk mode
+     * @param segmentSize      the size of a segment file
+     * @param compactInterval  the millis between two compactions, no compaction is scheduled if not positive
+     * @param compactThreshold the max count of the live sessions rewritten to drop an old segment
+     * @throws IOException the io exception
+     */
+    public SegmentedTransactionStoreManager(String fullFileName, SessionManager sessionManager,
+                                            FlushDiskMode flushDiskMode, int segmentSize, long compactInterval,
+                                            int compactThreshold) throws IOException {
+        File file = new File(fullFileName).getAbsoluteFile();
+        this.dir = file.getParentFile();
+        this.baseName = file.getName();
+        this.sessionManager = sessionManager;
+        this.flushDiskMode = flushDiskMode;
+        this.segmentSize = segmentSize;
+        this.compactThreshold = compactThreshold;
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("create dir failed: " + dir);
+        }
+        loadSegments();
+        scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("segmentCompactor", 1, true));
+        if (compactInterval > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    compact();
+                } catch (Throwable t) {
+                    LOGGER.error("compact segments error: {}", t.getMessage(), t);
+                }
+            }, compactInterval, compactInterval, TimeUnit.MILLISECONDS);
+        }
+        if (flushDiskMode != FlushDiskMode.SYNC_MODEL) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                Segment segment = active;
+                segment.flush(segment.writePosition);
+            }, ASYNC_FLUSH_INTERVAL_MILLS, ASYNC_FLUSH_INTERVAL_MILLS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Scan the segments left by the last run to index the live transactions, drop the dead ones, and continue
+     * writing at the end of the newest one.
+     */
+    private void loadSegments() throws IOException {
+        String prefix = baseName + ".";
+        long lastIndex = 0;
+        File[] files = dir.listFiles((d, name) -> name.startsWith(prefix) && name.endsWith(SEGMENT_FILENAME_POSTFIX));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                String index = file.getName().substring(prefix.length(),
+                    file.getName().length() - SEGMENT_FILENAME_POSTFIX.length());
+                Segment segment;
+                try {
+                    segment = new Segment(Long.parseLong(index), file);
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("skip unknown segment file: {}", file.getName());
+                    continue;
+                }
+                segment.scan(this);
+                segments.put(segment.index, segment);
+                lastIndex = segment.index;
+            }
+        }
+        writeLock.lock();
+        try {
+            dropDeadSegments();
+            if (segments.isEmpty()) {
+                active = newSegment(lastIndex + 1);
+            } else {
+                active = segments.lastEntry().getValue();
+                active.map();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        recoverSegments = new ArrayList<>(segments.values());
+    }
+
+    private Segment newSegment(long index) throws IOException {
+        Segment segment = new Segment(index, new File(dir, String.format("%s.%020d%s", baseName, index,
+            SEGMENT_FILENAME_POSTFIX)));
+        segment.map();
+        segments.put(index, segment);
+        return segment;
+    }
+
+    @Override
+    public boolean writeSession(LogOperation logOperation, SessionStorable session) {
+        byte[] data;
+        try {
+            data = new TransactionWriteStore(session, logOperation).encode();
+        } catch (Exception exx) {
+            LOGGER.error("writeSession error, {}", exx.getMessage(), exx);
+            return false;
+        }
+        Segment segment;
+        int position;
+        writeLock.lock();
+        try {
+            if (!append(data, transactionIdOf(session), logOperation)) {
+                return false;
+            }
+            segment = active;
+            position = segment.writePosition;
+        } catch (IOException exx) {
+            LOGGER.error("writeSession error, {}", exx.getMessage(), exx);
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+        if (flushDiskMode == FlushDiskMode.SYNC_MODEL) {
+            // the writers queued on the segment monitor find their frames forced by the one ahead of them
+            segment.flush(position);
+        }
+        return true;
+    }
+
+    /**
+     * Append a frame to the active segment, the caller must hold the write lock.
+     */
+    private boolean append(byte[] data, long transactionId, LogOperation logOperation) throws IOException {
+        int frameSize = MARK_SIZE + data.length;
+        if (frameSize > segmentSize) {
+            LOGGER.error("the frame size {} exceeds the segment size {}", frameSize, segmentSize);
+            return false;
+        }
+        if (active.writePosition + frameSize > segmentSize) {
+            active.seal();
+            active = newSegment(active.index + 1);
+        }
+        active.append(data);
+        track(transactionId, logOperation, active);
+        return true;
+    }
+
+    private void track(long transactionId, LogOperation logOperation, Segment segment) {
+        if (logOperation == LogOperation.GLOBAL_REMOVE) {
+            untrack(transactionId);
+            return;
+        }
+        if (segment.liveTransactionIds.add(transactionId)) {
+            liveTransactions.computeIfAbsent(transactionId, k -> new HashSet<>()).add(segment);
+        }
+    }
+
+    /**
+     * The transaction leaves the segments, the caller must hold the write lock.
+     */
+    private void untrack(long transactionId) {
+        Set<Segment> held = liveTransactions.remove(transactionId);
+        if (held != null) {
+            for (Segment heldSegment : held) {
+                heldSegment.liveTransactionIds.remove(transactionId);
+            }
+        }
+    }
+
+    /**
+     * From now on the compactor drops the transactions the session manager does not hold.
+     */
+    @Override
+    public void onSessionsReloaded() {
+        sessionsReloaded = true;
+    }
+
+    private static long transactionIdOf(SessionStorable session) {
+        if (session instanceof GlobalSession) {
+            return ((GlobalSession)session).getTransactionId();
+        }
+        return ((BranchSession)session).getTransactionId();
+    }
+
+    /**
+     * Drop the oldest segments without live transactions, and rewrite the live sessions of an old segment when they
+     * are not more than the compact threshold.
+     */
+    public void compact() {
+        Map<Long, GlobalSession> sessions = null;
+        writeLock.lock();
+        try {
+            while (true) {
+                dropDeadSegments();
+                Segment oldest = segments.firstEntry().getValue();
+                if (oldest == active || sessionManager == null) {
+                    return;
+                }
+                if (sessions == null) {
+                    sessions = new HashMap<>();
+                    for (GlobalSession globalSession : sessionManager.allSessions()) {
+                        sessions.put(globalSession.getTransactionId(), globalSession);
+                    }
+                }
+                if (sessionsReloaded) {
+                    // a session is held before it is logged, so the ones not held are removed or never restored
+                    for (Long transactionId : new ArrayList<>(oldest.liveTransactionIds)) {
+                        if (!sessions.containsKey(transactionId)) {
+                            untrack(transactionId);
+                        }
+                    }
+                }
+                if (oldest.liveTransactionIds.size() > compactThreshold) {
+                    return;
+                }
+                for (Long transactionId : new ArrayList<>(oldest.liveTransactionIds)) {
+                    GlobalSession globalSession = sessions.get(transactionId);
+                    // not restored yet, leave it to the next compaction
+                    if (globalSession != null && !rewrite(globalSession)) {
+                        return;
+                    }
+                }
+                if (!oldest.liveTransactionIds.isEmpty()) {
+                    return;
+                }
+                // the rewritten sessions must be durable before the old records are dropped
+                active.flush(active.writePosition);
+            }
+        } catch (IOException exx) {
+            LOGGER.error("compact segments error: {}", exx.getMessage(), exx);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Write the whole session into the active segment, so that its older records are not needed anymore.
+     */
+    private boolean rewrite(GlobalSession globalSession) throws IOException {
+        long transactionId = globalSession.getTransactionId();
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(new TransactionWriteStore(globalSession, LogOperation.GLOBAL_ADD).encode());
+        for (BranchSession branchSession : globalSession.getSortedBranches()) {
+            frames.add(new TransactionWriteStore(branchSession, LogOperation.BRANCH_ADD).encode());
+        }
+        untrack(transactionId);
+        for (byte[] frame : frames) {
+            if (!append(frame, transactionId, LogOperation.GLOBAL_ADD)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drop the dead segments from the oldest one, the caller must hold the write lock.
+     */
+    private void dropDeadSegments() {
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active || !oldest.liveTransactionIds.isEmpty()) {
+                return;
+            }
+            segments.remove(oldest.index);
+            oldest.delete();
+            if (LOGGER.isInfoEnabled()) {
+                LOGGER.info("drop segment {}", oldest.file.getName());
+            }
+        }
+    }
+
+    /**
+     * The count of the segments.
+     *
+     * @return the count
+     */
+    public int getSegmentCount() {
+        writeLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public GlobalSession readSession(String xid) {
+        throw new StoreException("unsupport for read from file, xid:" + xid);
+    }
+
+    @Override
+    public List<GlobalSession> readSession(SessionCondition sessionCondition) {
+        throw new StoreException("unsupport for read from file");
+    }
+
+    @Override
+    public List<TransactionWriteStore> readWriteStore(int readSize, boolean isHistory) {
+        List<byte[]> frames = readFrames(readSize, isHistory);
+        List<TransactionWriteStore> transactionWriteStores = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            try {
+                TransactionWriteStore writeStore = new TransactionWriteStore();
+                writeStore.decode(frame);
+                transactionWriteStores.add(writeStore);
+            } catch (Exception exx) {
+                LOGGER.error("decode segment frame error:{}", exx.getMessage(), exx);
+            }
+        }
+        return transactionWriteStores;
+    }
+
+    @Override
+    public List<byte[]> readFrames(int readSize, boolean isHistory) {
+        List<byte[]> frames = new ArrayList<>(readSize);
+        if (isHistory) {
+            return frames;
+        }
+        while (recoverSegmentIndex < recoverSegments.size() && frames.size() < readSize) {
+            Segment segment = recoverSegments.get(recoverSegmentIndex);
+            try {
+                recoverOffset = segment.read(recoverOffset, readSize - frames.size(), frames);
+            } catch (Exception exx) {
+                LOGGER.error("parse segment error:{},file:{}", exx.getMessage(), segment.file.getName(), exx);
+                recoverOffset = segment.scannedPosition;
+            }
+            if (recoverOffset >= segment.scannedPosition) {
+                recoverSegmentIndex++;
+                recoverOffset = 0;
+            }
+        }
+        return frames;
+    }
+
+    @Override
+    public boolean hasRemaining(boolean isHistory) {
+        return !isHistory && recoverSegmentIndex < recoverSegments.size();
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(ASYNC_FLUSH_INTERVAL_MILLS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.seal();
+                segment.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * A segment file.
+     */
+    private final class Segment {
+
+        private final long index;
+
+        private final File file;
+
+        private final Set<Long> liveTransactionIds = new HashSet<>();
+
+        private RandomAccessFile raf;
+
+        private MappedByteBuffer buffer;
+
+        /**
+         * the end of the frames, written under the write lock
+         */
+        private volatile int writePosition;
+
+        private int flushedPosition;
+
+        /**
+         * the end of the frames found by the startup scan
+         */
+        private int scannedPosition;
+
+        Segment(long index, File file) {
+            this.index = index;
+            this.file = file;
+        }
+
+        void map() throws IOException {
+            raf = new RandomAccessFile(file, "rw");
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            flushedPosition = writePosition;
+        }
+
+        void append(byte[] data) {
+            buffer.position(writePosition);
+            buffer.putInt(data.length);
+            buffer.put(data);
+            writePosition = buffer.position();
+        }
+
+        synchronized void flush(int position) {
+            if (flushedPosition >= position || buffer == null) {
+                return;
+            }
+            int target = writePosition;
+            buffer.force();
+            flushedPosition = target;
+        }
+
+        /**
+         * Force the segment and stop writing it.
+         */
+        synchronized void seal() {
+            if (buffer != null) {
+                buffer.force();
+                flushedPosition = writePosition;
+                buffer = null;
+            }
+        }
+
+        void close() {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException exx) {
+                    LOGGER.error("file close error,{}", exx.getMessage(), exx);
+                }
+                raf = null;
+            }
+        }
+
+        void delete() {
+            seal();
+            close();
+            if (!file.delete()) {
+                LOGGER.warn("delete segment file failed: {}", file.getName());
+            }
+        }
+
+        /**
+         * Walk the frames, index the transactions by the transaction id at the head of a session and the operation
+         * at the tail of a frame, without decoding the sessions.
+         */
+        void scan(SegmentedTransactionStoreManager manager) throws IOException {
+            try (RandomAccessFile scanRaf = new RandomAccessFile(file, "r")) {
+                ByteBuffer frames = scanRaf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, scanRaf.length());
+                int position = 0;
+                while (position + MARK_SIZE <= frames.limit()) {
+                    int bodySize = frames.getInt(position);
+                    if (bodySize <= Long.BYTES || position + MARK_SIZE + bodySize > frames.limit()) {
+                        break;
+                    }
+                    long transactionId = frames.getLong(position + MARK_SIZE);
+                    LogOperation logOperation;
+                    try {
+                        logOperation = LogOperation.getLogOperationByCode(
+                            frames.get(position + MARK_SIZE + bodySize - 1));
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.error("scan segment error:{},file:{}", e.getMessage(), file.getName());
+                        break;
+                    }
+                    manager.track(transactionId, logOperation, this);
+                    position += MARK_SIZE + bodySize;
+                }
+                scannedPosition = position;
+                writePosition = position;
+            }
+        }
+
+        /**
+         * Read the frame bodies from the offset.
+         *
+         * @return the offset after the read frames
+         */
+        int read(int offset, int readSize, List<byte[]> bodies) throws IOException {
+            try (RandomAccessFile readRaf = new RandomAccessFile(file, "r")) {
+                ByteBuffer frames = readRaf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, scannedPosition);
+                int position = offset;
+                int read = 0;
+                while (position < scannedPosition && read < readSize) {
+                    int bodySize = frames.getInt(position);
+                    byte[] body = new byte[bodySize];
+                    frames.position(position + MARK_SIZE);
+                    frames.get(body);
+                    position += MARK_SIZE + bodySize;
+                    bodies.add(body);
+                    read++;
+                }
+                return position;
+            }
+        }
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.hybrid;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.seata.common.loader.EnhancedServiceLoader;
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.config.Configuration;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
+import io.seata.core.store.LockDO;
+import io.seata.core.store.db.DataSourceProvider;
+import io.seata.server.storage.db.lock.LockStoreDataBaseDAO;
+import io.seata.server.storage.db.store.LogStoreDataBaseDAO;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The write behind log of the hybrid store, it persists the changes of the in-memory sessions and locks to the db.
+ * <p>
+ * The changes are queued in the order they are made, and one writer applies them in that order. The writer takes all
+ * the queued changes, at most {@code maxBatchSize}, and writes each run of the session changes by
+ * {@link LogStoreDataBaseDAO#writeBatch(List, List)}. A change which fails is retried until it succeeds, so the db is
+ * always a prefix of the changes, except the changes the db rejects by a constraint, which are dropped.
+ * <p>
+ * A change waits before it is queued while the oldest queued change is older than {@code maxLag}, and it fails if the
+ * lag is not caught up in {@code ackTimeout}. A durable change waits until it is written.
+ */
+public class WriteBehindLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindLog.class);
+
+    private static final long NO_SEQUENCE = -1L;
+
+    private static final long POLL_INTERVAL = 100L;
+
+    private static final long RETRY_DELAY = 1000L;
+
+    /**
+     * The sql state class of the integrity constraint violations.
+     */
+    private static final String CONSTRAINT_VIOLATION = "23";
+
+    private static volatile WriteBehindLog instance;
+
+    private final LogStoreDataBaseDAO logStore;
+
+    private final LockStoreDataBaseDAO lockStore;
+
+    private final long maxLag;
+
+    private final int maxBatchSize;
+
+    private final long ackTimeout;
+
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+
+    private final Object flushMonitor = new Object();
+
+    private final ExecutorService writer;
+
+    /**
+     * The sequence of the last queued change, guarded by this.
+     */
+    private long sequence;
+
+    private volatile long flushedSequence;
+
+    private volatile boolean running = true;
+
+    /**
+     * Instantiates a new Write behind log.
+     *
+     * @param logStore     the log store
+     * @param lockStore    the lock store
+     * @param maxLag       the max millis the oldest queued change waits to be written
+     * @param maxBatchSize the max count of the changes written at once
+     * @param ackTimeout   the max millis a change waits for the lag or for being written
+     */
+    public WriteBehindLog(LogStoreDataBaseDAO logStore, LockStoreDataBaseDAO lockStore, long maxLag,
+                          int maxBatchSize, long ackTimeout) {
+        this.logStore = logStore;
+        this.lockStore = lockStore;
+        this.maxLag = maxLag;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.ackTimeout = ackTimeout;
+        this.writer = new ThreadPoolExecutor(1, 1, Integer.MAX_VALUE, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new NamedThreadFactory("writeBehindLog", 1, true));
+        writer.execute(this::run);
+    }
+
+    /**
+     * Get the instance on the db of the server.
+     *
+     * @return the write behind log
+     */
+    public static WriteBehindLog getInstance() {
+        if (instance == null) {
+            synchronized (WriteBehindLog.class) {
+                if (instance == null) {
+                    Configuration configuration = ConfigurationFactory.getInstance();
+                    DataSource dataSource = EnhancedServiceLoader.load(DataSourceProvider.class,
+                        configuration.getConfig(ConfigurationKeys.STORE_DB_DATASOURCE_TYPE)).provide();
+                    instance = new WriteBehindLog(new LogStoreDataBaseDAO(dataSource),
+                        new LockStoreDataBaseDAO(dataSource),
+                        configuration.getLong(ConfigurationKeys.STORE_HYBRID_MAX_LAG,
+                            DefaultValues.DEFAULT_STORE_HYBRID_MAX_LAG),
+                        configuration.getInt(ConfigurationKeys.STORE_HYBRID_MAX_BATCH_SIZE,
+                            DefaultValues.DEFAULT_STORE_HYBRID_MAX_BATCH_SIZE),
+                        configuration.getLong(ConfigurationKeys.STORE_HYBRID_ACK_TIMEOUT,
+                            DefaultValues.DEFAULT_STORE_HYBRID_ACK_TIMEOUT));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a change of a session.
+     *
+     * @param logOperation  the log operation
+     * @param transactionDO the global or branch transaction DO
+     * @param durable       whether to wait until the change is written
+     * @return false if the change is not queued, or it is durable and not written in time
+     */
+    public boolean write(LogOperation logOperation, Object transactionDO, boolean durable) {
+        long written = append(logOperation, transactionDO, null);
+        if (written == NO_SEQUENCE) {
+            return false;
+        }
+        return !durable || awaitFlushed(written, ackTimeout);
+    }
+
+    /**
+     * Queue the rows locked by a branch, the rows already locked by the same transaction are skipped.
+     *
+     * @param lockDOs the rows of the branch
+     * @return false if the change is not queued
+     */
+    public boolean acquireLock(List<LockDO> lockDOs) {
+        return append(null, null, () -> {
+            if (!lockStore.acquireLock(lockDOs)) {
+                LOGGER.warn("write behind the locks of {} failed, the rows are locked by another transaction",
+                    lockDOs.get(0).getXid());
+            }
+            return true;
+        }) != NO_SEQUENCE;
+    }
+
+    /**
+     * Queue the release of the rows locked by a branch.
+     *
+     * @param xid      the xid
+     * @param branchId the branch id
+     * @return false if the change is not queued
+     */
+    public boolean releaseLock(String xid, Long branchId) {
+        return append(null, null, () -> lockStore.unLock(xid, branchId)) != NO_SEQUENCE;
+    }
+
+    /**
+     * Wait until all the queued changes are written.
+     *
+     * @param timeout the max millis to wait
+     * @return whether the changes are written
+     */
+    public boolean flush(long timeout) {
+        long last;
+        synchronized (this) {
+            last = sequence;
+        }
+        return awaitFlushed(last, timeout);
+    }
+
+    /**
+     * The millis the oldest queued change has waited.
+     *
+     * @return the lag
+     */
+    public long getLag() {
+        Write oldest = queue.peek();
+        return oldest == null ? 0L : System.currentTimeMillis() - oldest.time;
+    }
+
+    /**
+     * Stop queueing, and write the queued changes.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            running = false;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(ackTimeout, TimeUnit.MILLISECONDS)) {
+                LOGGER.error("write behind log is not flushed in {} ms, {} changes are lost", ackTimeout,
+                    queue.size());
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets log store.
+     *
+     * @return the log store
+     */
+    public LogStoreDataBaseDAO getLogStore() {
+        return logStore;
+    }
+
+    /**
+     * Gets lock store.
+     *
+     * @return the lock store
+     */
+    public LockStoreDataBaseDAO getLockStore() {
+        return lockStore;
+    }
+
+    private long append(LogOperation logOperation, Object transactionDO, BooleanSupplier lockWrite) {
+        if (!awaitLag()) {
+            return NO_SEQUENCE;
+        }
+        synchronized (this) {
+            if (!running) {
+                LOGGER.error("write behind log is shutdown");
+                return NO_SEQUENCE;
+            }
+            queue.add(new Write(++sequence, logOperation, transactionDO, lockWrite));
+            return sequence;
+        }
+    }
+
+    private boolean awaitLag() {
+        Write oldest = queue.peek();
+        if (oldest == null || System.currentTimeMillis() - oldest.time <= maxLag) {
+            return true;
+        }
+        if (awaitFlushed(oldest.sequence, ackTimeout)) {
+            return true;
+        }
+        LOGGER.error("write behind log lags more than {} ms, {} changes are queued", maxLag + ackTimeout,
+            queue.size());
+        return false;
+    }
+
+    private boolean awaitFlushed(long written, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (flushMonitor) {
+            while (flushedSequence < written) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+                try {
+                    flushMonitor.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void run() {
+        List<Write> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Write first = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            write(batch);
+            synchronized (flushMonitor) {
+                flushedSequence = batch.get(batch.size() - 1).sequence;
+                flushMonitor.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Write> batch) {
+        int start = 0;
+        while (start < batch.size()) {
+            if (batch.get(start).lockWrite != null) {
+                apply(batch.get(start++));
+                continue;
+            }
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).lockWrite == null) {
+                end++;
+            }
+            writeSessions(batch.subList(start, end));
+            start = end;
+        }
+    }
+
+    private void writeSessions(List<Write> writes) {
+        if (writes.size() == 1) {
+            apply(writes.get(0));
+            return;
+        }
+        List<LogOperation> logOperations = new ArrayList<>(writes.size());
+        List<Object> transactionDOs = new ArrayList<>(writes.size());
+        for (Write write : writes) {
+            logOperations.add(write.logOperation);
+            transactionDOs.add(write.transactionDO);
+        }
+        try {
+            logStore.writeBatch(logOperations, transactionDOs);
+        } catch (Exception e) {
+            LOGGER.warn("write behind batch of {} failed, write them one by one, {}", writes.size(), e.getMessage());
+            writes.forEach(this::apply);
+        }
+    }
+
+    private void apply(Write write) {
+        while (true) {
+            try {
+                if (write.lockWrite != null) {
+                    write.lockWrite.getAsBoolean();
+                } else {
+                    logStore.write(write.logOperation, write.transactionDO);
+                }
+                return;
+            } catch (Exception e) {
+                if (!running || isConstraintViolation(e)) {
+                    LOGGER.error("write behind {} dropped: {}", write, e.getMessage(), e);
+                    return;
+                }
+                LOGGER.error("write behind {} failed, retry in {} ms: {}", write, RETRY_DELAY, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException)cause).getSQLState();
+                return sqlState != null && sqlState.startsWith(CONSTRAINT_VIOLATION);
+            }
+        }
+        return false;
+    }
+
+    private static class Write {
+
+        private final long sequence;
+
+        private final long time = System.currentTimeMillis();
+
+        private final LogOperation logOperation;
+
+        private final Object transactionDO;
+
+        private final BooleanSupplier lockWrite;
+
+        Write(long sequence, LogOperation logOperation, Object transactionDO, BooleanSupplier lockWrite) {
+            this.sequence = sequence;
+            this.logOperation = logOperation;
+            this.transactionDO = transactionDO;
+            this.lockWrite = lockWrite;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + sequence + " " + (lockWrite != null ? "LOCK" : logOperation.name());
+        }
+    }
+}
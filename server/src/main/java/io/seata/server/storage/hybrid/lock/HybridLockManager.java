@@ -0,0 +1,54 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.hybrid.lock;
+
+import io.seata.common.executor.Initialize;
+import io.seata.common.loader.LoadLevel;
+import io.seata.core.lock.Locker;
+import io.seata.server.session.BranchSession;
+import io.seata.server.storage.file.lock.FileLockManager;
+import io.seata.server.storage.hybrid.WriteBehindLog;
+
+/**
+ * The lock manager of the hybrid store.
+ */
+@LoadLevel(name = "hybrid")
+public class HybridLockManager extends FileLockManager implements Initialize {
+
+    /**
+     * The write behind log.
+     */
+    private WriteBehindLog writeBehindLog;
+
+    @Override
+    public void init() {
+        writeBehindLog = WriteBehindLog.getInstance();
+    }
+
+    @Override
+    public Locker getLocker(BranchSession branchSession) {
+        return new HybridLocker(branchSession, writeBehindLog);
+    }
+
+    /**
+     * Sets write behind log.
+     *
+     * @param writeBehindLog the write behind log
+     */
+    public void setWriteBehindLog(WriteBehindLog writeBehindLog) {
+        this.writeBehindLog = writeBehindLog;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.hybrid.lock;
+
+import java.util.List;
+
+import io.seata.common.exception.FrameworkException;
+import io.seata.common.util.CollectionUtils;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.lock.RowLock;
+import io.seata.server.session.BranchSession;
+import io.seata.server.storage.file.lock.FileLocker;
+import io.seata.server.storage.hybrid.WriteBehindLog;
+
+/**
+ * The locker of the hybrid store. The locks are checked and held in memory like the file store, and the rows locked
+ * by each branch are written behind to the lock table, so the lock keys of the branches are restored from the db.
+ */
+public class HybridLocker extends FileLocker {
+
+    private final WriteBehindLog writeBehindLog;
+
+    /**
+     * Instantiates a new Hybrid locker.
+     *
+     * @param branchSession  the branch session
+     * @param writeBehindLog the write behind log
+     */
+    public HybridLocker(BranchSession branchSession, WriteBehindLog writeBehindLog) {
+        super(branchSession);
+        this.writeBehindLog = writeBehindLog;
+    }
+
+    @Override
+    public boolean acquireLock(List<RowLock> rowLocks) {
+        if (!super.acquireLock(rowLocks)) {
+            return false;
+        }
+        if (CollectionUtils.isEmpty(rowLocks) || writeBehindLog.acquireLock(convertToLockDO(rowLocks))) {
+            return true;
+        }
+        try {
+            // the locks can not be restored, release them
+            branchSession.unlock();
+        } catch (TransactionException e) {
+            throw new FrameworkException(e);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean releaseLock(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            //no lock
+            return true;
+        }
+        super.releaseLock(rowLocks);
+        return writeBehindLog.releaseLock(branchSession.getXid(), branchSession.getBranchId());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.hybrid.session;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.seata.common.loader.LoadLevel;
+import io.seata.common.loader.Scope;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionHolder;
+import io.seata.server.storage.file.session.FileSessionManager;
+import io.seata.server.storage.hybrid.store.HybridTransactionStoreManager;
+
+/**
+ * The session manager of the hybrid store. The sessions live in memory like the file store, the root session manager
+ * writes them behind to the db, and restores them from the db when the server starts.
+ */
+@LoadLevel(name = "hybrid", scope = Scope.PROTOTYPE)
+public class HybridSessionManager extends FileSessionManager {
+
+    /**
+     * Instantiates a new Hybrid session manager.
+     *
+     * @param name the name
+     * @throws IOException the io exception
+     */
+    public HybridSessionManager(String name) throws IOException {
+        super(name, null);
+        if (SessionHolder.ROOT_SESSION_MANAGER_NAME.equals(name)) {
+            transactionStoreManager = HybridTransactionStoreManager.getInstance();
+        }
+    }
+
+    @Override
+    protected void restoreSessions() {
+        if (!(transactionStoreManager instanceof HybridTransactionStoreManager)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<GlobalSession> globalSessions =
+            ((HybridTransactionStoreManager)transactionStoreManager).readUnfinishedSessions();
+        globalSessions.forEach(this::restoreGlobalSession);
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Restored {} global sessions from db in {} ms", globalSessions.size(),
+                System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.hybrid.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.util.CollectionUtils;
+import io.seata.core.model.GlobalStatus;
+import io.seata.core.store.BranchTransactionDO;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.core.store.LockDO;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.storage.db.store.DataBaseTransactionStoreManager;
+import io.seata.server.storage.hybrid.WriteBehindLog;
+import io.seata.server.store.SessionStorable;
+
+/**
+ * The transaction store manager of the hybrid store, it writes the sessions behind to the db tables of the db store.
+ * <p>
+ * Only the status changes which decide the outcome of a global transaction wait until they are written. The changes
+ * are written in order, so all the earlier changes of the transaction, its branches and their locks, are written too.
+ */
+public class HybridTransactionStoreManager extends DataBaseTransactionStoreManager {
+
+    private static volatile HybridTransactionStoreManager instance;
+
+    private static final GlobalStatus[] UNFINISHED_STATUSES = new GlobalStatus[] {GlobalStatus.UnKnown,
+        GlobalStatus.Begin, GlobalStatus.Committing, GlobalStatus.CommitRetrying, GlobalStatus.Rollbacking,
+        GlobalStatus.RollbackRetrying, GlobalStatus.TimeoutRollbacking, GlobalStatus.TimeoutRollbackRetrying,
+        GlobalStatus.AsyncCommitting};
+
+    private final WriteBehindLog writeBehindLog;
+
+    /**
+     * Instantiates a new Hybrid transaction store manager.
+     *
+     * @param writeBehindLog the write behind log
+     */
+    public HybridTransactionStoreManager(WriteBehindLog writeBehindLog) {
+        super(writeBehindLog.getLogStore());
+        this.writeBehindLog = writeBehindLog;
+    }
+
+    /**
+     * Get the instance.
+     *
+     * @return the hybrid transaction store manager
+     */
+    public static HybridTransactionStoreManager getInstance() {
+        if (instance == null) {
+            synchronized (HybridTransactionStoreManager.class) {
+                if (instance == null) {
+                    instance = new HybridTransactionStoreManager(WriteBehindLog.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public boolean writeSession(LogOperation logOperation, SessionStorable session) {
+        switch (logOperation) {
+            case GLOBAL_ADD:
+            case GLOBAL_UPDATE:
+            case GLOBAL_REMOVE:
+                return writeBehindLog.write(logOperation, convertGlobalTransactionDO(session),
+                    logOperation == LogOperation.GLOBAL_UPDATE && isDecided(((GlobalSession)session).getStatus()));
+            case BRANCH_ADD:
+            case BRANCH_UPDATE:
+            case BRANCH_REMOVE:
+                return writeBehindLog.write(logOperation, convertBranchTransactionDO(session), false);
+            default:
+                throw new StoreException("Unknown LogOperation:" + logOperation.name());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        writeBehindLog.shutdown();
+    }
+
+    /**
+     * Read all the unfinished sessions with their branch sessions, and the lock key of each branch from its locked
+     * rows. The locked rows of the branches which are not written are released.
+     *
+     * @return the sessions
+     */
+    public List<GlobalSession> readUnfinishedSessions() {
+        int[] states = new int[UNFINISHED_STATUSES.length];
+        for (int i = 0; i < UNFINISHED_STATUSES.length; i++) {
+            states[i] = UNFINISHED_STATUSES[i].getCode();
+        }
+        List<GlobalTransactionDO> globalTransactionDOs = logStore.queryGlobalTransactionDO(states, Integer.MAX_VALUE);
+        List<GlobalSession> globalSessions = new ArrayList<>();
+        if (CollectionUtils.isEmpty(globalTransactionDOs)) {
+            return globalSessions;
+        }
+        for (int from = 0; from < globalTransactionDOs.size(); from += logQueryLimit) {
+            List<GlobalTransactionDO> page = globalTransactionDOs.subList(from,
+                Math.min(from + logQueryLimit, globalTransactionDOs.size()));
+            List<String> xids = page.stream().map(GlobalTransactionDO::getXid).collect(Collectors.toList());
+            Map<String, List<BranchTransactionDO>> branchTransactionDOsMap = logStore.queryBranchTransactionDO(xids)
+                .stream().collect(Collectors.groupingBy(BranchTransactionDO::getXid, LinkedHashMap::new,
+                    Collectors.toList()));
+            Map<Long, List<LockDO>> lockDOsMap = writeBehindLog.getLockStore().queryLockDO(xids).stream()
+                .collect(Collectors.groupingBy(LockDO::getBranchId, LinkedHashMap::new, Collectors.toList()));
+            for (GlobalTransactionDO globalTransactionDO : page) {
+                GlobalSession globalSession = getGlobalSession(globalTransactionDO,
+                    branchTransactionDOsMap.get(globalTransactionDO.getXid()));
+                for (BranchSession branchSession : globalSession.getBranchSessions()) {
+                    List<LockDO> lockDOs = lockDOsMap.remove(branchSession.getBranchId());
+                    if (lockDOs != null) {
+                        branchSession.setLockKey(toLockKey(lockDOs));
+                    }
+                }
+                globalSessions.add(globalSession);
+            }
+            for (List<LockDO> lockDOs : lockDOsMap.values()) {
+                writeBehindLog.getLockStore().unLock(lockDOs.get(0).getXid(), lockDOs.get(0).getBranchId());
+            }
+        }
+        return globalSessions;
+    }
+
+    /**
+     * Whether the outcome of the global transaction is decided by the status.
+     */
+    private static boolean isDecided(GlobalStatus status) {
+        switch (status) {
+            case Committing:
+            case AsyncCommitting:
+            case Rollbacking:
+            case TimeoutRollbacking:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The lock key of the rows, such as {@code table1:pk1,pk2;table2:pk3}.
+     */
+    private static String toLockKey(List<LockDO> lockDOs) {
+        Map<String, List<String>> pksMap = lockDOs.stream().collect(Collectors.groupingBy(LockDO::getTableName,
+            LinkedHashMap::new, Collectors.mapping(LockDO::getPk, Collectors.toList())));
+        return pksMap.entrySet().stream().map(entry -> entry.getKey() + ":" + String.join(",", entry.getValue()))
+            .collect(Collectors.joining(";"));
+    }
+}
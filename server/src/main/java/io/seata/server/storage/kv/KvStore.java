@@ -0,0 +1,157 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.kv;
+
+import java.io.File;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.seata.common.exception.StoreException;
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.config.Configuration;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
+import io.seata.server.storage.file.FlushDiskMode;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The embedded key value store of the sessions and the locks, a MVStore of h2 in the server process.
+ * <p>
+ * The maps of the store are ordered by their keys. The writes are serialized, and the store is only committed between
+ * two writes, so a write, which may change several maps, is persisted all or nothing. In the sync flush disk mode the
+ * store is committed and synced to the disk after each write, in the async mode it is committed every flush interval.
+ */
+public class KvStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KvStore.class);
+
+    private static final String STORE_FILE_NAME = "seata.mv.db";
+
+    private static volatile KvStore instance;
+
+    private final MVStore store;
+
+    private final FlushDiskMode flushDiskMode;
+
+    private ScheduledExecutorService flushExecutor;
+
+    /**
+     * Instantiates a new Kv store.
+     *
+     * @param dir           the dir of the store file
+     * @param flushDiskMode the flush disk mode
+     * @param flushInterval the millis between the commits in the async flush disk mode
+     */
+    public KvStore(String dir, FlushDiskMode flushDiskMode, long flushInterval) {
+        File storeDir = new File(dir);
+        if (!storeDir.exists() && !storeDir.mkdirs()) {
+            throw new StoreException("create dir of the kv store failed: " + storeDir.getAbsolutePath());
+        }
+        this.store = new MVStore.Builder().fileName(new File(storeDir, STORE_FILE_NAME).getAbsolutePath())
+            .autoCommitDisabled().open();
+        this.flushDiskMode = flushDiskMode;
+        if (flushDiskMode == FlushDiskMode.ASYNC_MODEL) {
+            flushExecutor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("kvStoreFlush", 1, true));
+            flushExecutor.scheduleAtFixedRate(this::commit, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Get the instance.
+     *
+     * @return the kv store
+     */
+    public static KvStore getInstance() {
+        if (instance == null) {
+            synchronized (KvStore.class) {
+                if (instance == null) {
+                    Configuration configuration = ConfigurationFactory.getInstance();
+                    instance = new KvStore(
+                        configuration.getConfig(ConfigurationKeys.STORE_KV_DIR, DefaultValues.DEFAULT_STORE_KV_DIR),
+                        FlushDiskMode.findDiskMode(configuration.getConfig(ConfigurationKeys.STORE_KV_FLUSH_DISK_MODE,
+                            DefaultValues.DEFAULT_STORE_KV_FLUSH_DISK_MODE)),
+                        configuration.getLong(ConfigurationKeys.STORE_KV_FLUSH_INTERVAL,
+                            DefaultValues.DEFAULT_STORE_KV_FLUSH_INTERVAL));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Open a map of the store.
+     *
+     * @param <K>  the key type
+     * @param <V>  the value type
+     * @param name the map name
+     * @return the map
+     */
+    public <K, V> MVMap<K, V> openMap(String name) {
+        return store.openMap(name);
+    }
+
+    /**
+     * Execute a write, it is persisted all or nothing. If the write fails, the store is rolled back to the last commit
+     * and the failure is rethrown, so in the async flush disk mode the writes after the last commit are lost with it,
+     * as they are at a crash.
+     *
+     * @param <T>   the result type
+     * @param write the write, it must only change the maps of the store
+     * @return the result of the write
+     */
+    public synchronized <T> T write(Supplier<T> write) {
+        T result;
+        try {
+            result = write.get();
+        } catch (RuntimeException e) {
+            store.rollback();
+            throw e;
+        }
+        if (flushDiskMode == FlushDiskMode.SYNC_MODEL) {
+            store.commit();
+            store.sync();
+        }
+        return result;
+    }
+
+    /**
+     * Commit the writes, and close the store.
+     */
+    public synchronized void close() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        if (!store.isClosed()) {
+            store.close();
+        }
+    }
+
+    private synchronized void commit() {
+        try {
+            if (!store.isClosed() && store.hasUnsavedChanges()) {
+                store.commit();
+            }
+        } catch (Exception e) {
+            LOGGER.error("commit the kv store failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.kv.lock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.seata.common.util.CollectionUtils;
+import io.seata.core.lock.AbstractLocker;
+import io.seata.core.lock.RowLock;
+import io.seata.core.store.LockDO;
+import io.seata.server.storage.kv.KvStore;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+
+/**
+ * The row locks in the embedded key value store.
+ * <p>
+ * A row is keyed by its row key and valued by the xid of the holder, and the rows locked by a branch are indexed by
+ * the xid and the branch id. The rows of a branch are checked and locked in one write of the store, so they are
+ * acquired all or nothing.
+ */
+public class KvLocker extends AbstractLocker {
+
+    private static final String ROW_LOCK_MAP = "rowLock";
+
+    private static final String BRANCH_LOCK_MAP = "branchLock";
+
+    private static final String KEY_SEPARATOR = "#";
+
+    private final KvStore store;
+
+    /**
+     * row key -> xid
+     */
+    private final MVMap<String, String> rowLockMap;
+
+    /**
+     * xid, branch id, row key -> row key
+     */
+    private final MVMap<String, String> branchLockMap;
+
+    /**
+     * Instantiates a new Kv locker.
+     *
+     * @param store the kv store
+     */
+    public KvLocker(KvStore store) {
+        this.store = store;
+        this.rowLockMap = store.openMap(ROW_LOCK_MAP);
+        this.branchLockMap = store.openMap(BRANCH_LOCK_MAP);
+    }
+
+    @Override
+    public boolean acquireLock(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        List<LockDO> locks = convertToLockDO(rowLocks);
+        String xid = locks.get(0).getXid();
+        return store.write(() -> {
+            for (LockDO lock : locks) {
+                String holder = rowLockMap.get(lock.getRowKey());
+                if (holder != null && !holder.equals(xid)) {
+                    return false;
+                }
+            }
+            for (LockDO lock : locks) {
+                // the rows locked by the xid before are not changed
+                if (rowLockMap.putIfAbsent(lock.getRowKey(), xid) == null) {
+                    branchLockMap.put(getBranchLockKey(xid, lock.getBranchId(), lock.getRowKey()), lock.getRowKey());
+                }
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public boolean releaseLock(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        List<LockDO> locks = convertToLockDO(rowLocks);
+        String xid = locks.get(0).getXid();
+        return store.write(() -> {
+            for (LockDO lock : locks) {
+                rowLockMap.remove(lock.getRowKey(), xid);
+                branchLockMap.remove(getBranchLockKey(xid, lock.getBranchId(), lock.getRowKey()));
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public boolean releaseLock(String xid, List<Long> branchIds) {
+        if (CollectionUtils.isEmpty(branchIds)) {
+            // no lock
+            return true;
+        }
+        return store.write(() -> {
+            for (Long branchId : branchIds) {
+                String prefix = getBranchLockPrefix(xid, branchId);
+                List<String> keys = new ArrayList<>();
+                Cursor<String, String> cursor = branchLockMap.cursor(prefix);
+                while (cursor.hasNext() && cursor.next().startsWith(prefix)) {
+                    keys.add(cursor.getKey());
+                    rowLockMap.remove(cursor.getValue(), xid);
+                }
+                for (String key : keys) {
+                    branchLockMap.remove(key);
+                }
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public boolean releaseLock(String xid, Long branchId) {
+        return releaseLock(xid, Collections.singletonList(branchId));
+    }
+
+    @Override
+    public boolean isLockable(List<RowLock> rowLocks) {
+        if (CollectionUtils.isEmpty(rowLocks)) {
+            // no lock
+            return true;
+        }
+        String xid = rowLocks.get(0).getXid();
+        for (LockDO lock : convertToLockDO(rowLocks)) {
+            String holder = rowLockMap.get(lock.getRowKey());
+            if (holder != null && !holder.equals(xid)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getBranchLockPrefix(String xid, long branchId) {
+        return xid + KEY_SEPARATOR + branchId + KEY_SEPARATOR;
+    }
+
+    private static String getBranchLockKey(String xid, long branchId, String rowKey) {
+        return getBranchLockPrefix(xid, branchId) + rowKey;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.kv.session;
+
+import io.seata.common.loader.LoadLevel;
+import io.seata.common.loader.Scope;
+import io.seata.common.util.StringUtils;
+import io.seata.core.exception.TransactionException;
+import io.seata.server.session.AbstractStoreSessionManager;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.storage.kv.store.KvTransactionStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The session manager of the embedded key value store.
+ */
+@LoadLevel(name = "kv", scope = Scope.PROTOTYPE)
+public class KvSessionManager extends AbstractStoreSessionManager {
+    /**
+     * The constant LOGGER.
+     */
+    protected static final Logger LOGGER = LoggerFactory.getLogger(KvSessionManager.class);
+
+    /**
+     * Instantiates a new Kv session manager.
+     */
+    public KvSessionManager() {
+        super();
+    }
+
+    /**
+     * Instantiates a new Kv session manager.
+     *
+     * @param name
+     *            the name
+     */
+    public KvSessionManager(String name) {
+        super(name);
+    }
+
+    @Override
+    public void init() {
+        transactionStoreManager = KvTransactionStoreManager.getInstance();
+    }
+
+    @Override
+    public <T> T lockAndExecute(GlobalSession globalSession, GlobalSession.LockCallable<T> lockCallable)
+        throws TransactionException {
+        globalSession.lock();
+        try {
+            return lockCallable.call();
+        } finally {
+            globalSession.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (StringUtils.isBlank(taskName)) {
+            transactionStoreManager.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,383 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.kv.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.alibaba.fastjson.JSON;
+import io.seata.common.exception.StoreException;
+import io.seata.common.util.CollectionUtils;
+import io.seata.common.util.StringUtils;
+import io.seata.config.ConfigurationFactory;
+import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
+import io.seata.core.model.BranchStatus;
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import io.seata.core.store.BranchTransactionDO;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionCondition;
+import io.seata.server.storage.kv.KvStore;
+import io.seata.server.store.AbstractTransactionStoreManager;
+import io.seata.server.store.SessionStorable;
+import io.seata.server.store.TransactionStoreManager;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+
+/**
+ * The sessions in the embedded key value store.
+ * <p>
+ * The global transactions are keyed by the xid, and indexed by the transaction id and by the status and deadline. The
+ * branch transactions are keyed by the xid and the branch id, so the branches of a global transaction are read by a
+ * range scan in the order of the branch ids.
+ */
+public class KvTransactionStoreManager extends AbstractTransactionStoreManager implements TransactionStoreManager {
+
+    private static final String GLOBAL_MAP = "global";
+
+    private static final String TRANSACTION_ID_MAP = "transactionId";
+
+    private static final String STATUS_MAP = "status";
+
+    private static final String BRANCH_MAP = "branch";
+
+    private static final String KEY_SEPARATOR = "#";
+
+    private static volatile KvTransactionStoreManager instance;
+
+    private final KvStore store;
+
+    /**
+     * xid -> global transaction
+     */
+    private final MVMap<String, String> globalMap;
+
+    /**
+     * transaction id -> xid
+     */
+    private final MVMap<Long, String> transactionIdMap;
+
+    /**
+     * status, deadline, xid -> xid
+     */
+    private final MVMap<String, String> statusMap;
+
+    /**
+     * xid, branch id -> branch transaction
+     */
+    private final MVMap<String, String> branchMap;
+
+    /**
+     * The query limit.
+     */
+    private final int logQueryLimit;
+
+    /**
+     * Instantiates a new Kv transaction store manager.
+     *
+     * @param store         the kv store
+     * @param logQueryLimit the max count of the global transactions read by the statuses
+     */
+    public KvTransactionStoreManager(KvStore store, int logQueryLimit) {
+        this.store = store;
+        this.logQueryLimit = logQueryLimit;
+        this.globalMap = store.openMap(GLOBAL_MAP);
+        this.transactionIdMap = store.openMap(TRANSACTION_ID_MAP);
+        this.statusMap = store.openMap(STATUS_MAP);
+        this.branchMap = store.openMap(BRANCH_MAP);
+    }
+
+    /**
+     * Get the instance.
+     */
+    public static KvTransactionStoreManager getInstance() {
+        if (instance == null) {
+            synchronized (KvTransactionStoreManager.class) {
+                if (instance == null) {
+                    instance = new KvTransactionStoreManager(KvStore.getInstance(), ConfigurationFactory.getInstance()
+                        .getInt(ConfigurationKeys.STORE_KV_QUERY_LIMIT, DefaultValues.DEFAULT_STORE_KV_QUERY_LIMIT));
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public boolean writeSession(LogOperation logOperation, SessionStorable session) {
+        if (LogOperation.GLOBAL_ADD.equals(logOperation)) {
+            return insertOrUpdateGlobalTransactionDO(convertGlobalTransactionDO(session));
+        } else if (LogOperation.GLOBAL_UPDATE.equals(logOperation)) {
+            return insertOrUpdateGlobalTransactionDO(convertGlobalTransactionDO(session));
+        } else if (LogOperation.GLOBAL_REMOVE.equals(logOperation)) {
+            return deleteGlobalTransactionDO(convertGlobalTransactionDO(session));
+        } else if (LogOperation.BRANCH_ADD.equals(logOperation)) {
+            return insertOrUpdateBranchTransactionDO(convertBranchTransactionDO(session));
+        } else if (LogOperation.BRANCH_UPDATE.equals(logOperation)) {
+            return insertOrUpdateBranchTransactionDO(convertBranchTransactionDO(session));
+        } else if (LogOperation.BRANCH_REMOVE.equals(logOperation)) {
+            return deleteBranchTransactionDO(convertBranchTransactionDO(session));
+        } else {
+            throw new StoreException("Unknown LogOperation:" + logOperation.name());
+        }
+    }
+
+    private boolean insertOrUpdateGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
+        String xid = globalTransactionDO.getXid();
+        return store.write(() -> {
+            removeStatusIndex(globalMap.get(xid));
+            globalMap.put(xid, JSON.toJSONString(globalTransactionDO));
+            transactionIdMap.put(globalTransactionDO.getTransactionId(), xid);
+            statusMap.put(getStatusKey(globalTransactionDO), xid);
+            return true;
+        });
+    }
+
+    private boolean deleteGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
+        String xid = globalTransactionDO.getXid();
+        return store.write(() -> {
+            removeStatusIndex(globalMap.remove(xid));
+            transactionIdMap.remove(globalTransactionDO.getTransactionId());
+            // the branches left by the removed global transaction
+            for (String key : getBranchKeys(xid)) {
+                branchMap.remove(key);
+            }
+            return true;
+        });
+    }
+
+    private boolean insertOrUpdateBranchTransactionDO(BranchTransactionDO branchTransactionDO) {
+        return store.write(() -> {
+            branchMap.put(getBranchKey(branchTransactionDO.getXid(), branchTransactionDO.getBranchId()),
+                JSON.toJSONString(branchTransactionDO));
+            return true;
+        });
+    }
+
+    private boolean deleteBranchTransactionDO(BranchTransactionDO branchTransactionDO) {
+        return store.write(() -> {
+            branchMap.remove(getBranchKey(branchTransactionDO.getXid(), branchTransactionDO.getBranchId()));
+            return true;
+        });
+    }
+
+    private void removeStatusIndex(String globalJson) {
+        if (globalJson != null) {
+            statusMap.remove(getStatusKey(JSON.parseObject(globalJson, GlobalTransactionDO.class)));
+        }
+    }
+
+    @Override
+    public GlobalSession readSession(String xid) {
+        return this.readSession(xid, true);
+    }
+
+    @Override
+    public GlobalSession readSession(String xid, boolean withBranchSessions) {
+        String globalJson = globalMap.get(xid);
+        if (globalJson == null) {
+            return null;
+        }
+        GlobalTransactionDO globalTransactionDO = JSON.parseObject(globalJson, GlobalTransactionDO.class);
+        return getGlobalSession(globalTransactionDO, withBranchSessions ? readBranchTransactionDOs(xid) : null);
+    }
+
+    /**
+     * Read the global sessions of the statuses, in the order of the statuses and then the deadlines.
+     *
+     * @param statuses the statuses
+     * @return the global sessions, at most the query limit
+     */
+    public List<GlobalSession> readSession(GlobalStatus[] statuses) {
+        return readSession(statuses, xid -> true);
+    }
+
+    /**
+     * Read the global sessions of the statuses whose xids are accepted by the filter, the rejected ones are passed
+     * over without being read and do not take up the query limit.
+     *
+     * @param statuses  the statuses
+     * @param xidFilter the filter of the xids
+     * @return the global sessions, at most the query limit
+     */
+    @Override
+    public List<GlobalSession> readSession(GlobalStatus[] statuses, Predicate<String> xidFilter) {
+        List<String> prefixes = new ArrayList<>(statuses.length);
+        List<Cursor<String, String>> cursors = new ArrayList<>(statuses.length);
+        for (GlobalStatus status : statuses) {
+            String prefix = getStatusPrefix(status.getCode());
+            prefixes.add(prefix);
+            cursors.add(statusMap.cursor(prefix));
+        }
+        // one session of each status in turn, so the limit is shared by the statuses
+        List<GlobalSession> globalSessions = new ArrayList<>();
+        while (!cursors.isEmpty() && globalSessions.size() < logQueryLimit) {
+            for (int i = 0; i < cursors.size() && globalSessions.size() < logQueryLimit; ) {
+                Cursor<String, String> cursor = cursors.get(i);
+                if (!cursor.hasNext() || !cursor.next().startsWith(prefixes.get(i))) {
+                    cursors.remove(i);
+                    prefixes.remove(i);
+                    continue;
+                }
+                GlobalSession globalSession =
+                    xidFilter.test(cursor.getValue()) ? readSession(cursor.getValue(), true) : null;
+                if (globalSession != null) {
+                    globalSessions.add(globalSession);
+                }
+                i++;
+            }
+        }
+        return globalSessions;
+    }
+
+    @Override
+    public List<GlobalSession> readSession(SessionCondition sessionCondition) {
+        if (StringUtils.isNotBlank(sessionCondition.getXid())) {
+            GlobalSession globalSession = readSession(sessionCondition.getXid(), true);
+            if (globalSession != null) {
+                List<GlobalSession> globalSessions = new ArrayList<>();
+                globalSessions.add(globalSession);
+                return globalSessions;
+            }
+        } else if (sessionCondition.getTransactionId() != null) {
+            String xid = transactionIdMap.get(sessionCondition.getTransactionId());
+            GlobalSession globalSession = xid == null ? null : readSession(xid, true);
+            if (globalSession != null) {
+                List<GlobalSession> globalSessions = new ArrayList<>();
+                globalSessions.add(globalSession);
+                return globalSessions;
+            }
+        } else if (CollectionUtils.isNotEmpty(sessionCondition.getStatuses())) {
+            return readSession(sessionCondition.getStatuses());
+        }
+        return null;
+    }
+
+    private List<BranchTransactionDO> readBranchTransactionDOs(String xid) {
+        List<BranchTransactionDO> branchTransactionDOs = new ArrayList<>();
+        String prefix = xid + KEY_SEPARATOR;
+        Cursor<String, String> cursor = branchMap.cursor(prefix);
+        while (cursor.hasNext() && cursor.next().startsWith(prefix)) {
+            branchTransactionDOs.add(JSON.parseObject(cursor.getValue(), BranchTransactionDO.class));
+        }
+        return branchTransactionDOs;
+    }
+
+    private List<String> getBranchKeys(String xid) {
+        List<String> keys = new ArrayList<>();
+        String prefix = xid + KEY_SEPARATOR;
+        Cursor<String, String> cursor = branchMap.cursor(prefix);
+        while (cursor.hasNext()) {
+            String key = cursor.next();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private GlobalTransactionDO convertGlobalTransactionDO(SessionStorable session) {
+        if (session == null || !(session instanceof GlobalSession)) {
+            throw new IllegalArgumentException(
+                "the parameter of SessionStorable is not available, SessionStorable:" + StringUtils.toString(session));
+        }
+        GlobalSession globalSession = (GlobalSession)session;
+
+        GlobalTransactionDO globalTransactionDO = new GlobalTransactionDO();
+        globalTransactionDO.setXid(globalSession.getXid());
+        globalTransactionDO.setStatus(globalSession.getStatus().getCode());
+        globalTransactionDO.setApplicationId(globalSession.getApplicationId());
+        globalTransactionDO.setBeginTime(globalSession.getBeginTime());
+        globalTransactionDO.setTimeout(globalSession.getTimeout());
+        globalTransactionDO.setTransactionId(globalSession.getTransactionId());
+        globalTransactionDO.setTransactionName(globalSession.getTransactionName());
+        globalTransactionDO.setTransactionServiceGroup(globalSession.getTransactionServiceGroup());
+        globalTransactionDO.setApplicationData(globalSession.getApplicationData());
+        return globalTransactionDO;
+    }
+
+    private BranchTransactionDO convertBranchTransactionDO(SessionStorable session) {
+        if (session == null || !(session instanceof BranchSession)) {
+            throw new IllegalArgumentException(
+                "the parameter of SessionStorable is not available, SessionStorable:" + StringUtils.toString(session));
+        }
+        BranchSession branchSession = (BranchSession)session;
+
+        BranchTransactionDO branchTransactionDO = new BranchTransactionDO();
+        branchTransactionDO.setXid(branchSession.getXid());
+        branchTransactionDO.setBranchId(branchSession.getBranchId());
+        branchTransactionDO.setBranchType(branchSession.getBranchType().name());
+        branchTransactionDO.setClientId(branchSession.getClientId());
+        branchTransactionDO.setResourceGroupId(branchSession.getResourceGroupId());
+        branchTransactionDO.setTransactionId(branchSession.getTransactionId());
+        branchTransactionDO.setApplicationData(branchSession.getApplicationData());
+        branchTransactionDO.setResourceId(branchSession.getResourceId());
+        branchTransactionDO.setStatus(branchSession.getStatus().getCode());
+        return branchTransactionDO;
+    }
+
+    private GlobalSession getGlobalSession(GlobalTransactionDO globalTransactionDO,
+                                           List<BranchTransactionDO> branchTransactionDOs) {
+        GlobalSession globalSession = new GlobalSession(globalTransactionDO.getApplicationId(),
+            globalTransactionDO.getTransactionServiceGroup(), globalTransactionDO.getTransactionName(),
+            globalTransactionDO.getTimeout());
+        globalSession.setTransactionId(globalTransactionDO.getTransactionId());
+        globalSession.setXid(globalTransactionDO.getXid());
+        globalSession.setStatus(GlobalStatus.get(globalTransactionDO.getStatus()));
+        globalSession.setApplicationData(globalTransactionDO.getApplicationData());
+        globalSession.setBeginTime(globalTransactionDO.getBeginTime());
+        // branch transactions
+        if (CollectionUtils.isNotEmpty(branchTransactionDOs)) {
+            for (BranchTransactionDO branchTransactionDO : branchTransactionDOs) {
+                BranchSession branchSession = new BranchSession();
+                branchSession.setXid(branchTransactionDO.getXid());
+                branchSession.setTransactionId(branchTransactionDO.getTransactionId());
+                branchSession.setApplicationData(branchTransactionDO.getApplicationData());
+                branchSession.setBranchId(branchTransactionDO.getBranchId());
+                branchSession.setBranchType(BranchType.valueOf(branchTransactionDO.getBranchType()));
+                branchSession.setResourceId(branchTransactionDO.getResourceId());
+                branchSession.setClientId(branchTransactionDO.getClientId());
+                branchSession.setResourceGroupId(branchTransactionDO.getResourceGroupId());
+                branchSession.setStatus(BranchStatus.get(branchTransactionDO.getStatus()));
+                globalSession.add(branchSession);
+            }
+        }
+        return globalSession;
+    }
+
+    private static String getStatusPrefix(int status) {
+        return String.format("%03d", status) + KEY_SEPARATOR;
+    }
+
+    private static String getStatusKey(GlobalTransactionDO globalTransactionDO) {
+        long deadline = globalTransactionDO.getBeginTime() + globalTransactionDO.getTimeout();
+        return getStatusPrefix(globalTransactionDO.getStatus()) + String.format("%020d", deadline) + KEY_SEPARATOR
+            + globalTransactionDO.getXid();
+    }
+
+    private static String getBranchKey(String xid, long branchId) {
+        return xid + KEY_SEPARATOR + String.format("%020d", branchId);
+    }
+
+    @Override
+    public void shutdown() {
+        store.close();
+    }
+}
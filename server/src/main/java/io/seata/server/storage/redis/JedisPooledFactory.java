@@ -15,16 +15,32 @@
  */
 package io.seata.server.storage.redis;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.seata.common.XID;
 import io.seata.common.util.StringUtils;
 import io.seata.config.Configuration;
 import io.seata.config.ConfigurationFactory;
 import io.seata.core.constants.ConfigurationKeys;
+import io.seata.core.constants.DefaultValues;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisSlotBasedConnectionHandler;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
 
 /**
  * @author funkye
@@ -49,6 +65,24 @@ public class JedisPooledFactory {
 
     private static final Configuration CONFIGURATION = ConfigurationFactory.getInstance();
 
+    private static final String CLUSTER_MODE = "cluster";
+
+    private static final int TIMEOUT = 60000;
+
+    /**
+     * Whether the store is a redis cluster, then the keys of a transaction are in one slot by a hash tag.
+     */
+    private static final boolean CLUSTER = CLUSTER_MODE.equalsIgnoreCase(
+        CONFIGURATION.getConfig(ConfigurationKeys.STORE_REDIS_MODE, DefaultValues.DEFAULT_STORE_REDIS_MODE));
+
+    /**
+     * The count of the hash tags the transactions are spread over in the cluster mode.
+     */
+    private static final int SHARDS = Math.max(1, CONFIGURATION.getInt(ConfigurationKeys.STORE_REDIS_CLUSTER_SHARDS,
+        DefaultValues.DEFAULT_STORE_REDIS_CLUSTER_SHARDS));
+
+    private static volatile JedisSlotBasedConnectionHandler clusterConnectionHandler = null;
+
     /**
      * get the RedisPool instance (singleton)
      * 
@@ -91,4 +125,192 @@ public class JedisPooledFactory {
         return getJedisPoolInstance().getResource();
     }
 
+    /**
+     * Whether the store is a redis cluster.
+     *
+     * @return true in the cluster mode
+     */
+    public static boolean isCluster() {
+        return CLUSTER;
+    }
+
+    /**
+     * get an instance of Jedis (connection) to the redis which serves the key
+     *
+     * @param key the key
+     * @return jedis
+     */
+    public static Jedis getJedisInstance(String key) {
+        if (!CLUSTER) {
+            return getJedisInstance();
+        }
+        return getClusterConnectionHandler().getConnectionFromSlot(JedisClusterCRC16.getSlot(key));
+    }
+
+    /**
+     * Execute the callback with a connection to the redis which serves the key, all the keys used by the callback
+     * must be in the slot of the key in the cluster mode. If the slot is moved, the slots are refreshed and the
+     * callback is executed again.
+     *
+     * @param <T>      the result type
+     * @param key      the key
+     * @param callback the callback
+     * @return the result of the callback
+     */
+    public static <T> T execute(String key, Function<Jedis, T> callback) {
+        for (int attempt = 0; ; attempt++) {
+            try (Jedis jedis = getJedisInstance(key)) {
+                return callback.apply(jedis);
+            } catch (JedisRedirectionException e) {
+                if (!CLUSTER || attempt > 0) {
+                    throw e;
+                }
+                getClusterConnectionHandler().renewSlotCache();
+            }
+        }
+    }
+
+    /**
+     * Group the keys by their slots, all the keys are in one group in the single mode.
+     *
+     * @param <T>    the element type
+     * @param values the elements
+     * @param key    the key of an element
+     * @return the groups
+     */
+    public static <T> Collection<List<T>> groupBySlot(List<T> values, Function<T, String> key) {
+        return groupBySlot(values, key, CLUSTER);
+    }
+
+    /**
+     * Group the keys by their slots if the cluster flag is set.
+     *
+     * @param <T>     the element type
+     * @param values  the elements
+     * @param key     the key of an element
+     * @param cluster whether the keys are grouped by their slots
+     * @return the groups
+     */
+    public static <T> Collection<List<T>> groupBySlot(List<T> values, Function<T, String> key, boolean cluster) {
+        if (!cluster) {
+            return Collections.singletonList(values);
+        }
+        Map<Integer, List<T>> groups = new LinkedHashMap<>();
+        for (T value : values) {
+            groups.computeIfAbsent(JedisClusterCRC16.getSlot(key.apply(value)), k -> new ArrayList<>()).add(value);
+        }
+        return groups.values();
+    }
+
+    /**
+     * The hash tag of the keys of the transaction, empty in the single mode.
+     *
+     * @param xid the xid
+     * @return the hash tag
+     */
+    public static String getTransactionTag(String xid) {
+        return CLUSTER ? getTransactionTag(XID.getTransactionId(xid)) : "";
+    }
+
+    /**
+     * The hash tag of the keys of the transaction, empty in the single mode.
+     *
+     * @param transactionId the transaction id
+     * @return the hash tag
+     */
+    public static String getTransactionTag(long transactionId) {
+        return getTransactionTag(transactionId, CLUSTER, SHARDS);
+    }
+
+    static String getTransactionTag(long transactionId, boolean cluster, int shards) {
+        return cluster ? getShardTag(Math.floorMod(transactionId, shards)) : "";
+    }
+
+    /**
+     * The hash tags the transactions are spread over, only the empty tag in the single mode.
+     *
+     * @return the hash tags
+     */
+    public static List<String> getTransactionTags() {
+        return getTransactionTags(CLUSTER, SHARDS);
+    }
+
+    static List<String> getTransactionTags(boolean cluster, int shards) {
+        if (!cluster) {
+            return Collections.singletonList("");
+        }
+        List<String> tags = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            tags.add(getShardTag(i));
+        }
+        return tags;
+    }
+
+    /**
+     * Make the value a hash tag in the cluster mode.
+     *
+     * @param value the value
+     * @return the hash tag, or the value in the single mode
+     */
+    public static String getHashTag(String value) {
+        return getHashTag(value, CLUSTER);
+    }
+
+    static String getHashTag(String value, boolean cluster) {
+        return cluster ? "{" + value + "}" : value;
+    }
+
+    /**
+     * The hash tag of a member of a group, the members of a group are spread over the shards in the cluster mode,
+     * so a hot group is not served by one node only.
+     *
+     * @param group  the group
+     * @param member the member
+     * @return the hash tag, or the group in the single mode
+     */
+    public static String getHashTag(String group, String member) {
+        return getHashTag(group, member, CLUSTER, SHARDS);
+    }
+
+    static String getHashTag(String group, String member, boolean cluster, int shards) {
+        return cluster ? "{" + group + "#" + Math.floorMod(member.hashCode(), shards) + "}" : group;
+    }
+
+    private static String getShardTag(long shard) {
+        return "{" + shard + "}";
+    }
+
+    private static JedisSlotBasedConnectionHandler getClusterConnectionHandler() {
+        if (clusterConnectionHandler == null) {
+            synchronized (JedisPooledFactory.class) {
+                if (clusterConnectionHandler == null) {
+                    String password = CONFIGURATION.getConfig(ConfigurationKeys.STORE_REDIS_PASSWORD);
+                    if (StringUtils.isBlank(password)) {
+                        password = null;
+                    }
+                    Set<HostAndPort> nodes = new HashSet<>();
+                    String clusterNodes = CONFIGURATION.getConfig(ConfigurationKeys.STORE_REDIS_CLUSTER_NODES);
+                    if (StringUtils.isBlank(clusterNodes)) {
+                        clusterNodes = CONFIGURATION.getConfig(ConfigurationKeys.STORE_REDIS_HOST, HOST) + ":"
+                            + CONFIGURATION.getInt(ConfigurationKeys.STORE_REDIS_PORT, PORT);
+                    }
+                    for (String node : clusterNodes.split(",")) {
+                        if (StringUtils.isNotBlank(node)) {
+                            nodes.add(HostAndPort.parseString(node.trim()));
+                        }
+                    }
+                    JedisPoolConfig poolConfig = new JedisPoolConfig();
+                    poolConfig.setMinIdle(CONFIGURATION.getInt(ConfigurationKeys.STORE_REDIS_MIN_CONN, MINCONN));
+                    poolConfig.setMaxIdle(CONFIGURATION.getInt(ConfigurationKeys.STORE_REDIS_MAX_CONN, MAXCONN));
+                    clusterConnectionHandler =
+                        new JedisSlotBasedConnectionHandler(nodes, poolConfig, TIMEOUT, TIMEOUT, password);
+                    if (LOGGER.isInfoEnabled()) {
+                        LOGGER.info("initialization of the redis cluster connections is complete, nodes: {}", nodes);
+                    }
+                }
+            }
+        }
+        return clusterConnectionHandler;
+    }
+
 }
@@ -17,48 +17,136 @@ package io.seata.server.storage.redis.lock;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import com.alibaba.fastjson.JSON;
 import io.seata.common.util.CollectionUtils;
 import io.seata.common.util.LambdaUtils;
-import io.seata.common.util.StringUtils;
-import io.seata.config.ConfigurationFactory;
-import io.seata.core.constants.ConfigurationKeys;
 import io.seata.core.lock.AbstractLocker;
 import io.seata.core.lock.RowLock;
 import io.seata.core.store.LockDO;
 import io.seata.server.storage.redis.JedisPooledFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
 /**
+ * The row locks in redis.
+ * <p>
+ * A row lock is a hash of the xid, transaction id, branch id, resource id, table name and pk of the holder, and the
+ * row locks of a global transaction are the fields of a hash of the xid, valued by their branch ids. The locks are
+ * acquired, released and checked by lua scripts, so the rows of a branch are acquired all or nothing in one round trip
+ * and the other transactions never see a part of them. If the redis, or a proxy in front of it, does not support the
+ * scripts, the same commands are pipelined instead.
+ * <p>
+ * In the cluster mode the row locks of a table are spread over the hash tags of the table and the shards of their pks,
+ * so the locks of a hot table or resource are not served by one node, and the hash of the xid has the tag of the
+ * transaction. The rows of a branch are grouped by their slots and acquired slot by slot. The rows of a slot are
+ * written into the hash of the xid before they are acquired, so a row lock is never held out of the hash even if the
+ * server stops in the middle, and the rows indexed here are released if a later slot conflicts or fails. The rows
+ * of a slot which fails to be released are kept in the hash, so the release of the transaction releases them again.
+ *
  * @author funkye
  */
 public class RedisLocker extends AbstractLocker {
 
-    private static final Integer DEFAULT_QUERY_LIMIT = 100;
+    private static final String DEFAULT_REDIS_SEATA_ROW_LOCK_PREFIX = "SEATA_ROW_LOCK_";
+
+    private static final String DEFAULT_REDIS_SEATA_GLOBAL_LOCK_PREFIX = "SEATA_GLOBAL_LOCK_";
+
+    private static final String XID = "xid";
+
+    private static final String TRANSACTION_ID = "transactionId";
+
+    private static final String BRANCH_ID = "branchId";
+
+    private static final String RESOURCE_ID = "resourceId";
+
+    private static final String TABLE_NAME = "tableName";
+
+    private static final String PK = "pk";
+
+    /**
+     * KEYS: the row lock keys, then the global lock key if it is in the same slot. ARGV: the xid, the transaction id,
+     * then the branch id, resource id, table name and pk of each row. Returns 0 if any row is locked by another xid,
+     * otherwise the keys of the rows locked here.
+     */
+    static final String ACQUIRE_SCRIPT =
+        "local n = (#ARGV - 2) / 4\n"
+            + "for i = 1, n do\n"
+            + "  local holder = redis.call('HGET', KEYS[i], 'xid')\n"
+            + "  if holder and holder ~= ARGV[1] then return 0 end\n"
+            + "end\n"
+            + "local created = {}\n"
+            + "for i = 1, n do\n"
+            + "  if redis.call('HSETNX', KEYS[i], 'xid', ARGV[1]) == 1 then\n"
+            + "    local j = 3 + (i - 1) * 4\n"
+            + "    redis.call('HMSET', KEYS[i], 'transactionId', ARGV[2], 'branchId', ARGV[j],"
+            + " 'resourceId', ARGV[j + 1], 'tableName', ARGV[j + 2], 'pk', ARGV[j + 3])\n"
+            + "    if #KEYS > n then redis.call('HSET', KEYS[#KEYS], KEYS[i], ARGV[j]) end\n"
+            + "    created[#created + 1] = KEYS[i]\n"
+            + "  end\n"
+            + "end\n"
+            + "return created";
+
+    /**
+     * KEYS: the row lock keys, then the global lock key if it is in the same slot. ARGV: the xid, the count of the
+     * rows. Releases the rows locked by the xid.
+     */
+    static final String RELEASE_SCRIPT =
+        "local n = tonumber(ARGV[2])\n"
+            + "for i = 1, n do\n"
+            + "  if redis.call('HGET', KEYS[i], 'xid') == ARGV[1] then redis.call('DEL', KEYS[i]) end\n"
+            + "  if #KEYS > n then redis.call('HDEL', KEYS[#KEYS], KEYS[i]) end\n"
+            + "end\n"
+            + "return 1";
+
+    /**
+     * KEYS: the row lock keys. ARGV: the xid. Returns 1 if none of the rows is locked by another xid.
+     */
+    static final String LOCKABLE_SCRIPT =
+        "for i = 1, #KEYS do\n"
+            + "  local holder = redis.call('HGET', KEYS[i], 'xid')\n"
+            + "  if holder and holder ~= ARGV[1] then return 0 end\n"
+            + "end\n"
+            + "return 1";
+
+    private static final Long SUCCESS = 1L;
+
+    /**
+     * The millis before loading the scripts again, after the redis refused to load them.
+     */
+    private static final long SCRIPT_RELOAD_INTERVAL = 60000L;
+
+    /**
+     * The sha1 of the loaded scripts, an empty map while the redis does not support the scripts.
+     */
+    private static volatile Map<String, String> scriptShas;
 
-    private static final String DEFAULT_REDIS_SEATA_LOCK_PREFIX = "SEATA_LOCK_";
+    private static volatile long scriptReloadTime;
 
-    private static final String DEFAULT_REDIS_SEATA_LOCK_XID_PREFIX = "SEATA_LOCK_XID_";
+    private final boolean cluster;
 
     /**
-     * The query limit.
+     * Instantiates a new Redis locker.
      */
-    private int logQueryLimit;
+    public RedisLocker() {
+        this(JedisPooledFactory.isCluster());
+    }
 
     /**
      * Instantiates a new Redis locker.
      *
+     * @param cluster whether the rows are acquired slot by slot as in the cluster mode
      */
-    public RedisLocker() {
-        logQueryLimit =
-            ConfigurationFactory.getInstance().getInt(ConfigurationKeys.STORE_REDIS_QUERY_LIMIT, DEFAULT_QUERY_LIMIT);
+    RedisLocker(boolean cluster) {
+        this.cluster = cluster;
     }
 
     @Override
@@ -67,45 +155,38 @@ public class RedisLocker extends AbstractLocker {
             // no lock
             return true;
         }
-        Set<String> successList = new HashSet<>();
-        long status = 1;
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            List<LockDO> locks = convertToLockDO(rowLocks);
-            if (locks.size() > 1) {
-                locks =
-                    locks.stream().filter(LambdaUtils.distinctByKey(LockDO::getRowKey)).collect(Collectors.toList());
-            }
-            Pipeline pipeline = jedis.pipelined();
-            List<String> readyKeys = new ArrayList<>();
-            for (LockDO lock : locks) {
-                String key = getLockKey(lock.getRowKey());
-                pipeline.setnx(key, JSON.toJSONString(lock));
-                readyKeys.add(key);
-            }
-            List<Object> results = pipeline.syncAndReturnAll();
-            for (int i = 0; i < results.size(); i++) {
-                Long result = (long)results.get(i);
-                String key = readyKeys.get(i);
-                if (result != 1) {
-                    status = result;
-                } else {
-                    successList.add(key);
+        List<LockDO> locks = convertToLockDO(rowLocks);
+        if (locks.size() > 1) {
+            locks = locks.stream().filter(LambdaUtils.distinctByKey(LockDO::getRowKey)).collect(Collectors.toList());
+        }
+        String xid = locks.get(0).getXid();
+        String globalLockKey = getGlobalLockKey(xid);
+        if (!cluster) {
+            List<LockDO> all = locks;
+            return execute(globalLockKey,
+                jedis -> acquireLock(jedis, xid, all, globalLockKey) != null);
+        }
+        List<String> indexed = new ArrayList<>();
+        boolean acquired = false;
+        try {
+            for (List<LockDO> group : JedisPooledFactory.groupBySlot(locks, this::getRowLockKey, cluster)) {
+                indexed.addAll(indexRowLocks(globalLockKey, group));
+                if (execute(getRowLockKey(group.get(0)),
+                    jedis -> acquireLock(jedis, xid, group, null)) == null) {
+                    return false;
                 }
             }
-            if (status != 1) {
-                String[] rms = successList.toArray(new String[0]);
-                if (rms.length > 0) {
-                    jedis.del(rms);
-                }
-                return false;
-            } else {
+            acquired = true;
+            return true;
+        } finally {
+            if (!acquired && !indexed.isEmpty()) {
+                // the rows indexed here were not held by the xid before, release the ones locked here
                 try {
-                    String xidLockKey = getXidLockKey(locks.get(0).getXid());
-                    jedis.lpush(xidLockKey, readyKeys.toArray(new String[0]));
-                } catch (Exception e) {
-                    return false;
+                    releaseRowLocks(xid, indexed);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Release the row locks of {} failed, they are left to the release of the "
+                        + "transaction: {}", xid, e.getMessage());
                 }
-                return true;
             }
         }
     }
@@ -116,20 +197,11 @@ public class RedisLocker extends AbstractLocker {
             // no lock
             return true;
         }
-        String[] keys = new String[rowLocks.size()];
         List<LockDO> locks = convertToLockDO(rowLocks);
-        for (int i = 0; i < locks.size(); i++) {
-            String key = getLockKey(locks.get(i).getRowKey());
-            keys[i] = key;
-        }
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            String xidLockKey = getXidLockKey(locks.get(0).getXid());
-            Pipeline pipeline = jedis.pipelined();
-            pipeline.del(keys);
-            Arrays.stream(keys).forEach(key -> pipeline.lrem(xidLockKey, 0, key));
-            pipeline.sync();
-            return true;
-        }
+        String xid = locks.get(0).getXid();
+        List<String> rowLockKeys = locks.stream().map(this::getRowLockKey).distinct().collect(Collectors.toList());
+        releaseRowLocks(xid, rowLockKeys);
+        return true;
     }
 
     @Override
@@ -138,39 +210,20 @@ public class RedisLocker extends AbstractLocker {
             // no lock
             return true;
         }
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            String lockListKey = getXidLockKey(xid);
-            Set<String> keys = lRange(jedis, lockListKey);
-            if (CollectionUtils.isNotEmpty(keys)) {
-                Pipeline pipeline = null;
-                Iterator<String> it = keys.iterator();
-                while (it.hasNext()) {
-                    String key = it.next();
-                    LockDO lock = JSON.parseObject(jedis.get(key), LockDO.class);
-                    for (int i = 0; i < branchIds.size(); i++) {
-                        if (lock != null && Objects.equals(lock.getBranchId(), branchIds.get(i))) {
-                            if (pipeline == null) {
-                                pipeline = jedis.pipelined();
-                            }
-                            pipeline.del(key);
-                            pipeline.lrem(lockListKey, 0, key);
-                            it.remove();
-                        }
-                    }
-                }
-                if (pipeline != null) {
-                    pipeline.sync();
-                }
-            }
-            return true;
+        List<String> branches = branchIds.stream().map(String::valueOf).collect(Collectors.toList());
+        String globalLockKey = getGlobalLockKey(xid);
+        List<String> rowLockKeys = execute(globalLockKey, jedis -> jedis.hgetAll(globalLockKey))
+            .entrySet().stream().filter(entry -> branches.contains(entry.getValue())).map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+        if (!rowLockKeys.isEmpty()) {
+            releaseRowLocks(xid, rowLockKeys);
         }
+        return true;
     }
 
     @Override
     public boolean releaseLock(String xid, Long branchId) {
-        List<Long> branchIds = new ArrayList<>();
-        branchIds.add(branchId);
-        return releaseLock(xid, branchIds);
+        return releaseLock(xid, Collections.singletonList(branchId));
     }
 
     @Override
@@ -179,46 +232,267 @@ public class RedisLocker extends AbstractLocker {
             // no lock
             return true;
         }
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            List<LockDO> locks = convertToLockDO(rowLocks);
-            Set<String> lockKeys = new HashSet<>();
-            for (LockDO rowlock : locks) {
-                lockKeys.add(getLockKey(rowlock.getRowKey()));
-            }
-            List<String> rowlockJsons = jedis.mget(lockKeys.toArray(new String[0]));
-            String xid = rowLocks.get(0).getXid();
-            for (String rowlockJson : rowlockJsons) {
-                if (!StringUtils.isEmpty(rowlockJson)) {
-                    LockDO lock = JSON.parseObject(rowlockJson, LockDO.class);
-                    if (lock != null && !Objects.equals(lock.getXid(), xid)) {
-                        return false;
-                    }
+        String xid = rowLocks.get(0).getXid();
+        List<String> rowLockKeys = convertToLockDO(rowLocks).stream().map(this::getRowLockKey).distinct()
+            .collect(Collectors.toList());
+        for (List<String> group : JedisPooledFactory.groupBySlot(rowLockKeys, rowLockKey -> rowLockKey, cluster)) {
+            boolean lockable = execute(group.get(0), jedis -> {
+                Object result = eval(jedis, LOCKABLE_SCRIPT, group, Collections.singletonList(xid));
+                if (result != null) {
+                    return SUCCESS.equals(result);
                 }
+                List<String> holders = getHolders(jedis, group);
+                return holders.stream().allMatch(holder -> holder == null || holder.equals(xid));
+            });
+            if (!lockable) {
+                return false;
             }
         }
         return true;
     }
 
-    private Set<String> lRange(Jedis jedis, String key) {
-        Set<String> keys = new HashSet<>();
-        List<String> redisLockJson;
-        int start = 0;
-        int stop = logQueryLimit;
-        do {
-            redisLockJson = jedis.lrange(key, start, stop);
-            keys.addAll(redisLockJson);
-            start = keys.size();
-            stop = start + logQueryLimit;
-        } while (CollectionUtils.isNotEmpty(redisLockJson));
-        return keys;
+    /**
+     * Acquire the rows of a slot.
+     *
+     * @param globalLockKey the global lock key if it is in the slot of the rows, otherwise null
+     * @return the keys of the rows locked here, or null if any row is locked by another xid
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> acquireLock(Jedis jedis, String xid, List<LockDO> locks, String globalLockKey) {
+        List<String> keys = new ArrayList<>(locks.size() + 1);
+        List<String> args = new ArrayList<>(locks.size() * 4 + 2);
+        args.add(xid);
+        args.add(String.valueOf(locks.get(0).getTransactionId()));
+        for (LockDO lock : locks) {
+            keys.add(getRowLockKey(lock));
+            args.add(String.valueOf(lock.getBranchId()));
+            args.add(lock.getResourceId());
+            args.add(lock.getTableName());
+            args.add(lock.getPk());
+        }
+        if (globalLockKey != null) {
+            keys.add(globalLockKey);
+        }
+        Object result = eval(jedis, ACQUIRE_SCRIPT, keys, args);
+        if (result != null) {
+            return result instanceof List ? (List<String>)result : null;
+        }
+        return pipelinedAcquireLock(jedis, xid, locks, globalLockKey);
+    }
+
+    /**
+     * Write the rows of a slot into the hash of the xid, the rows already in it are not changed.
+     *
+     * @return the keys of the rows written here
+     */
+    private List<String> indexRowLocks(String globalLockKey, List<LockDO> locks) {
+        return execute(globalLockKey, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            Map<String, Response<Long>> responses = new LinkedHashMap<>();
+            for (LockDO lock : locks) {
+                String rowLockKey = getRowLockKey(lock);
+                responses.put(rowLockKey, pipeline.hsetnx(globalLockKey, rowLockKey,
+                    String.valueOf(lock.getBranchId())));
+            }
+            pipeline.sync();
+            return responses.entrySet().stream().filter(entry -> SUCCESS.equals(entry.getValue().get()))
+                .map(Map.Entry::getKey).collect(Collectors.toList());
+        });
+    }
+
+    private void releaseRowLocks(String xid, List<String> rowLockKeys) {
+        String globalLockKey = getGlobalLockKey(xid);
+        if (!cluster) {
+            execute(globalLockKey, jedis -> {
+                releaseLock(jedis, xid, rowLockKeys, globalLockKey);
+                return true;
+            });
+            return;
+        }
+        // the rows of a slot failed to release are kept in the hash of the xid, so they are released again later
+        List<String> released = new ArrayList<>(rowLockKeys.size());
+        RuntimeException failure = null;
+        for (List<String> group : JedisPooledFactory.groupBySlot(rowLockKeys, rowLockKey -> rowLockKey, cluster)) {
+            try {
+                execute(group.get(0), jedis -> {
+                    releaseLock(jedis, xid, group, null);
+                    return true;
+                });
+                released.addAll(group);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (!released.isEmpty()) {
+            execute(globalLockKey, jedis -> jedis.hdel(globalLockKey, released.toArray(new String[0])));
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Release the rows of a slot.
+     *
+     * @param globalLockKey the global lock key if it is in the slot of the rows, otherwise null
+     */
+    private void releaseLock(Jedis jedis, String xid, List<String> rowLockKeys, String globalLockKey) {
+        List<String> keys = new ArrayList<>(rowLockKeys.size() + 1);
+        keys.addAll(rowLockKeys);
+        if (globalLockKey != null) {
+            keys.add(globalLockKey);
+        }
+        if (eval(jedis, RELEASE_SCRIPT, keys, Arrays.asList(xid, String.valueOf(rowLockKeys.size()))) != null) {
+            return;
+        }
+        List<String> holders = getHolders(jedis, rowLockKeys);
+        Pipeline pipeline = jedis.pipelined();
+        for (int i = 0; i < rowLockKeys.size(); i++) {
+            if (xid.equals(holders.get(i))) {
+                pipeline.del(rowLockKeys.get(i));
+            }
+        }
+        if (globalLockKey != null) {
+            pipeline.hdel(globalLockKey, rowLockKeys.toArray(new String[0]));
+        }
+        pipeline.sync();
+    }
+
+    /**
+     * Acquire the rows without the scripts, the rows locked by the xid before are not changed.
+     */
+    private List<String> pipelinedAcquireLock(Jedis jedis, String xid, List<LockDO> locks, String globalLockKey) {
+        List<String> rowLockKeys = locks.stream().map(this::getRowLockKey).collect(Collectors.toList());
+        List<String> holders = getHolders(jedis, rowLockKeys);
+        if (holders.stream().anyMatch(holder -> holder != null && !holder.equals(xid))) {
+            return null;
+        }
+        // read the holders back in the same round trip, a row is locked here if its holder is the xid
+        Pipeline pipeline = jedis.pipelined();
+        Map<Integer, Response<String>> created = new LinkedHashMap<>();
+        for (int i = 0; i < locks.size(); i++) {
+            if (holders.get(i) == null) {
+                pipeline.hsetnx(rowLockKeys.get(i), XID, xid);
+                created.put(i, pipeline.hget(rowLockKeys.get(i), XID));
+            }
+        }
+        pipeline.sync();
+        boolean conflict = created.values().stream().anyMatch(response -> !xid.equals(response.get()));
+        List<String> createdKeys = new ArrayList<>(created.size());
+        pipeline = jedis.pipelined();
+        for (Map.Entry<Integer, Response<String>> entry : created.entrySet()) {
+            if (!xid.equals(entry.getValue().get())) {
+                continue;
+            }
+            String rowLockKey = rowLockKeys.get(entry.getKey());
+            if (conflict) {
+                // another transaction locked a row meanwhile, release the rows locked here
+                pipeline.del(rowLockKey);
+                continue;
+            }
+            LockDO lock = locks.get(entry.getKey());
+            Map<String, String> fields = new HashMap<>(8);
+            fields.put(TRANSACTION_ID, String.valueOf(lock.getTransactionId()));
+            fields.put(BRANCH_ID, String.valueOf(lock.getBranchId()));
+            fields.put(RESOURCE_ID, lock.getResourceId());
+            fields.put(TABLE_NAME, lock.getTableName());
+            fields.put(PK, lock.getPk());
+            pipeline.hmset(rowLockKey, fields);
+            if (globalLockKey != null) {
+                pipeline.hset(globalLockKey, rowLockKey, String.valueOf(lock.getBranchId()));
+            }
+            createdKeys.add(rowLockKey);
+        }
+        pipeline.sync();
+        return conflict ? null : createdKeys;
+    }
+    private List<String> getHolders(Jedis jedis, List<String> rowLockKeys) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<String>> responses = new ArrayList<>(rowLockKeys.size());
+        for (String rowLockKey : rowLockKeys) {
+            responses.add(pipeline.hget(rowLockKey, XID));
+        }
+        pipeline.sync();
+        return responses.stream().map(Response::get).collect(Collectors.toList());
+    }
+
+    /**
+     * Evaluate the loaded script.
+     *
+     * @return the result of the script, or null if the redis does not support the scripts
+     */
+    private Object eval(Jedis jedis, String script, List<String> keys, List<String> args) {
+        String sha = getScriptShas(jedis).get(script);
+        if (sha == null) {
+            return null;
+        }
+        try {
+            return jedis.evalsha(sha, keys, args);
+        } catch (JedisNoScriptException e) {
+            // the scripts are flushed, the redis is restarted, or the node of the slot has not loaded them yet
+            sha = reloadScriptShas(jedis).get(script);
+            return sha == null ? null : jedis.evalsha(sha, keys, args);
+        }
+    }
+
+    private static Map<String, String> getScriptShas(Jedis jedis) {
+        Map<String, String> shas = scriptShas;
+        if (shas != null && (!shas.isEmpty() || System.currentTimeMillis() < scriptReloadTime)) {
+            return shas;
+        }
+        synchronized (RedisLocker.class) {
+            shas = scriptShas;
+            if (shas != null && (!shas.isEmpty() || System.currentTimeMillis() < scriptReloadTime)) {
+                return shas;
+            }
+            return reloadScriptShas(jedis);
+        }
+    }
+
+    /**
+     * Load the scripts into the redis of the connection, and cache their sha1. If the redis refuses them, the lock
+     * commands are pipelined until the scripts are loaded again after a while.
+     */
+    private static synchronized Map<String, String> reloadScriptShas(Jedis jedis) {
+        Map<String, String> shas = new HashMap<>(4);
+        try {
+            for (String script : new String[] {ACQUIRE_SCRIPT, RELEASE_SCRIPT, LOCKABLE_SCRIPT}) {
+                shas.put(script, jedis.scriptLoad(script));
+            }
+        } catch (JedisDataException e) {
+            LOGGER.warn("The redis does not support lua scripts, pipeline the lock commands instead: {}",
+                e.getMessage());
+            shas.clear();
+            scriptReloadTime = System.currentTimeMillis() + SCRIPT_RELOAD_INTERVAL;
+        }
+        scriptShas = shas;
+        return shas;
+    }
+
+    /**
+     * Execute the callback with a connection to the redis which serves the key.
+     *
+     * @see JedisPooledFactory#execute(String, Function)
+     */
+    <T> T execute(String key, Function<Jedis, T> callback) {
+        return JedisPooledFactory.execute(key, callback);
     }
 
-    private String getXidLockKey(String xid) {
-        return DEFAULT_REDIS_SEATA_LOCK_XID_PREFIX + xid;
+    private String getGlobalLockKey(String xid) {
+        return DEFAULT_REDIS_SEATA_GLOBAL_LOCK_PREFIX + JedisPooledFactory.getTransactionTag(xid) + xid;
     }
 
-    private String getLockKey(String rowKey) {
-        return DEFAULT_REDIS_SEATA_LOCK_PREFIX + rowKey;
+    /**
+     * The key of the row lock, the rows of a table are spread over the hash tags of the table and the shards of the
+     * pk in the cluster mode.
+     */
+    private String getRowLockKey(LockDO lock) {
+        String rowKey = lock.getRowKey();
+        String table = lock.getResourceId() + LOCK_SPLIT + lock.getTableName();
+        return DEFAULT_REDIS_SEATA_ROW_LOCK_PREFIX + JedisPooledFactory.getHashTag(table, lock.getPk())
+            + rowKey.substring(table.length());
     }
 
 }
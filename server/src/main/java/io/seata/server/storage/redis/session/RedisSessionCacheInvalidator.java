@@ -0,0 +1,116 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis.session;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.seata.common.loader.LoadLevel;
+import io.seata.common.thread.NamedThreadFactory;
+import io.seata.server.session.SessionCacheInvalidator;
+import io.seata.server.storage.redis.JedisPooledFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Publishes the changed xids on a redis channel, which every server node subscribes. A message is the id of the
+ * publishing node and the xid, so a node skips its own changes.
+ */
+@LoadLevel(name = "redis")
+public class RedisSessionCacheInvalidator implements SessionCacheInvalidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisSessionCacheInvalidator.class);
+
+    private static final String CHANNEL = "SEATA_SESSION_CACHE_INVALIDATE";
+
+    private static final String SEPARATOR = "#";
+
+    private static final long RESUBSCRIBE_DELAY = 1000L;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+
+    private volatile JedisPubSub subscriber;
+
+    private volatile ExecutorService subscribeExecutor;
+
+    @Override
+    public void start(Consumer<String> invalidation) {
+        running = true;
+        subscriber = new JedisPubSub() {
+            @Override
+            public void onMessage(String channel, String message) {
+                int index = message.indexOf(SEPARATOR);
+                if (index > 0 && !nodeId.equals(message.substring(0, index))) {
+                    invalidation.accept(message.substring(index + 1));
+                }
+            }
+        };
+        subscribeExecutor = new ThreadPoolExecutor(1, 1, Integer.MAX_VALUE, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new NamedThreadFactory("sessionCacheInvalidator", 1, true));
+        subscribeExecutor.execute(this::subscribe);
+    }
+
+    @Override
+    public void publish(String xid) {
+        try {
+            JedisPooledFactory.execute(CHANNEL, jedis -> jedis.publish(CHANNEL, nodeId + SEPARATOR + xid));
+        } catch (Exception e) {
+            // the other nodes see the change when their cached session expires
+            LOGGER.warn("publish the session cache invalidation of {} failed: {}", xid, e.getMessage());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        JedisPubSub pubSub = subscriber;
+        if (pubSub != null && pubSub.isSubscribed()) {
+            pubSub.unsubscribe();
+        }
+        ExecutorService executor = subscribeExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            try (Jedis jedis = JedisPooledFactory.getJedisInstance(CHANNEL)) {
+                // blocks until unsubscribed
+                jedis.subscribe(subscriber, CHANNEL);
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                LOGGER.error("subscribe the session cache invalidations failed: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(RESUBSCRIBE_DELAY);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
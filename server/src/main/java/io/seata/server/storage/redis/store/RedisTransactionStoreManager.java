@@ -16,11 +16,17 @@
 package io.seata.server.storage.redis.store;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import com.alibaba.fastjson.JSON;
 import io.seata.common.exception.StoreException;
@@ -40,16 +46,23 @@ import io.seata.server.storage.redis.JedisPooledFactory;
 import io.seata.server.store.AbstractTransactionStoreManager;
 import io.seata.server.store.SessionStorable;
 import io.seata.server.store.TransactionStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.SetParams;
 
 /**
  * @author funkye
  */
 public class RedisTransactionStoreManager extends AbstractTransactionStoreManager implements TransactionStoreManager {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisTransactionStoreManager.class);
+
     // global transaction prefix
     private static final String DEFAULT_REDIS_SEATA_GLOBAL_PREFIX = "SEATA_GLOBAL_";
 
@@ -62,6 +75,19 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
     // global transaction id PREFIX
     private static final String DEFAULT_SEATA_TRANSACTION_ID_GLOBAL_PREFIX = "SEATA_TRANSACTION_ID_GLOBAL_";
 
+    // the prefix of the sorted sets of the xids in a global status, scored by the begin time
+    private static final String DEFAULT_REDIS_SEATA_STATUS_PREFIX = "SEATA_STATUS_";
+
+    // set once the global transactions written before the status sets are indexed
+    private static final String DEFAULT_REDIS_SEATA_STATUS_INDEXED = "SEATA_STATUS_INDEXED";
+
+    // held by the node indexing the global transactions written before the status sets
+    private static final String DEFAULT_REDIS_SEATA_STATUS_INDEXING = "SEATA_STATUS_INDEXING";
+
+    private static final long STATUS_INDEXING_TIMEOUT = 10 * 60 * 1000L;
+
+    private static final long STATUS_INDEXING_CHECK_INTERVAL = 1000L;
+
     private static volatile RedisTransactionStoreManager instance;
 
     private static final Integer DEFAULT_QUERY_LIMIT = 100;
@@ -80,7 +106,9 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
         if (instance == null) {
             synchronized (RedisTransactionStoreManager.class) {
                 if (instance == null) {
-                    instance = new RedisTransactionStoreManager();
+                    RedisTransactionStoreManager storeManager = new RedisTransactionStoreManager();
+                    storeManager.indexStatuses();
+                    instance = storeManager;
                 }
             }
         }
@@ -107,16 +135,16 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
     }
 
     private boolean deleteBranchTransactionDO(BranchTransactionDO branchTransactionDO) {
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            String key = getBranchKey(branchTransactionDO.getBranchId());
+        String key = getBranchKey(branchTransactionDO.getXid(), branchTransactionDO.getBranchId());
+        return JedisPooledFactory.execute(key, jedis -> {
             jedis.del(key);
             return true;
-        }
+        });
     }
 
     private boolean insertOrUpdateBranchTransactionDO(BranchTransactionDO branchTransactionDO) {
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            String key = getBranchKey(branchTransactionDO.getBranchId());
+        String key = getBranchKey(branchTransactionDO.getXid(), branchTransactionDO.getBranchId());
+        return JedisPooledFactory.execute(key, jedis -> {
             Pipeline pipeline = jedis.pipelined();
             if (jedis.get(key) == null) {
                 pipeline.lpush(getBranchListKeyByXid(branchTransactionDO.getXid()), key);
@@ -124,30 +152,111 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
             pipeline.set(key, JSON.toJSONString(branchTransactionDO));
             pipeline.sync();
             return true;
-        }
+        });
     }
 
     private boolean deleteGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            String[] keys = new String[3];
-            keys[0] = getGlobalKeyByXid(globalTransactionDO.getXid());
-            keys[1] = getGlobalKeyByTransactionId(globalTransactionDO.getTransactionId());
-            keys[2] = getBranchListKeyByXid(globalTransactionDO.getXid());
-            jedis.del(keys);
+        String[] keys = new String[3];
+        keys[0] = getGlobalKeyByXid(globalTransactionDO.getXid());
+        keys[1] = getGlobalKeyByTransactionId(globalTransactionDO.getTransactionId());
+        keys[2] = getBranchListKeyByXid(globalTransactionDO.getXid());
+        return JedisPooledFactory.execute(keys[0], jedis -> {
+            Transaction multi = jedis.multi();
+            multi.del(keys);
+            removeFromStatuses(multi, globalTransactionDO.getXid(), null);
+            multi.exec();
             return true;
-        }
+        });
     }
 
     private boolean insertOrUpdateGlobalTransactionDO(GlobalTransactionDO convertGlobalTransactionDO) {
+        String xid = convertGlobalTransactionDO.getXid();
+        String globalKey = getGlobalKeyByXid(xid);
+        return JedisPooledFactory.execute(globalKey, jedis -> {
+            String json = JSON.toJSONString(convertGlobalTransactionDO);
+            // the status sets change with the global transaction, the previous status is not known here
+            Transaction multi = jedis.multi();
+            multi.set(globalKey, json);
+            multi.set(getGlobalKeyByTransactionId(convertGlobalTransactionDO.getTransactionId()), json);
+            removeFromStatuses(multi, xid, convertGlobalTransactionDO.getStatus());
+            multi.zadd(getStatusKey(convertGlobalTransactionDO.getStatus(), JedisPooledFactory.getTransactionTag(xid)),
+                convertGlobalTransactionDO.getBeginTime(), xid);
+            multi.exec();
+            return true;
+        });
+    }
+
+    private void removeFromStatuses(Transaction multi, String xid, Integer exceptStatus) {
+        String tag = JedisPooledFactory.getTransactionTag(xid);
+        for (GlobalStatus status : GlobalStatus.values()) {
+            if (exceptStatus == null || status.getCode() != exceptStatus) {
+                multi.zrem(getStatusKey(status.getCode(), tag), xid);
+            }
+        }
+    }
+
+    /**
+     * Index the global transactions written before the status sets, only once for the redis. The cluster mode has
+     * no transactions written before.
+     * <p>
+     * One node indexes at a time under an expiring lock, and the done marker is set only after the scan completes,
+     * so the other nodes wait for it, and a node failing in the middle leaves the indexing to the next one.
+     */
+    private void indexStatuses() {
+        if (JedisPooledFactory.isCluster()) {
+            return;
+        }
+        String owner = UUID.randomUUID().toString();
         try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            String keys = getGlobalKeyByXid(convertGlobalTransactionDO.getXid());
+            while (!jedis.exists(DEFAULT_REDIS_SEATA_STATUS_INDEXED)) {
+                if ("OK".equals(jedis.set(DEFAULT_REDIS_SEATA_STATUS_INDEXING, owner,
+                    SetParams.setParams().nx().px(STATUS_INDEXING_TIMEOUT)))) {
+                    try {
+                        scanStatuses(jedis);
+                        jedis.set(DEFAULT_REDIS_SEATA_STATUS_INDEXED, String.valueOf(System.currentTimeMillis()));
+                    } finally {
+                        if (owner.equals(jedis.get(DEFAULT_REDIS_SEATA_STATUS_INDEXING))) {
+                            jedis.del(DEFAULT_REDIS_SEATA_STATUS_INDEXING);
+                        }
+                    }
+                    return;
+                }
+                try {
+                    Thread.sleep(STATUS_INDEXING_CHECK_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new StoreException("Interrupted while waiting for the statuses to be indexed");
+                }
+            }
+        }
+    }
+
+    private void scanStatuses(Jedis jedis) {
+        long count = 0;
+        String cursor = INITIAL_CURSOR;
+        ScanParams params = new ScanParams();
+        params.count(logQueryLimit);
+        params.match(getGlobalKeyByXid("*"));
+        do {
+            ScanResult<String> scans = jedis.scan(cursor, params);
+            cursor = scans.getCursor();
+            List<String> keys = scans.getResult();
+            if (CollectionUtils.isEmpty(keys)) {
+                continue;
+            }
             Pipeline pipeline = jedis.pipelined();
-            String json = JSON.toJSONString(convertGlobalTransactionDO);
-            pipeline.set(keys, json);
-            keys = getGlobalKeyByTransactionId(convertGlobalTransactionDO.getTransactionId());
-            pipeline.set(keys, json);
+            for (String json : jedis.mget(keys.toArray(new String[0]))) {
+                GlobalTransactionDO globalTransactionDO = JSON.parseObject(json, GlobalTransactionDO.class);
+                if (globalTransactionDO != null) {
+                    pipeline.zadd(getStatusKey(globalTransactionDO.getStatus(), ""),
+                        globalTransactionDO.getBeginTime(), globalTransactionDO.getXid());
+                    count++;
+                }
+            }
             pipeline.sync();
-            return true;
+        } while (!INITIAL_CURSOR.equals(cursor));
+        if (count > 0) {
+            LOGGER.info("Indexed the status of {} global transactions", count);
         }
     }
 
@@ -162,9 +271,9 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
      */
     @Override
     public GlobalSession readSession(String xid, boolean withBranchSessions) {
-        String globalSessionJson;
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            globalSessionJson = jedis.get(getGlobalKeyByXid(xid));
+        String globalKey = getGlobalKeyByXid(xid);
+        return JedisPooledFactory.execute(globalKey, jedis -> {
+            String globalSessionJson = jedis.get(globalKey);
             if (StringUtils.isBlank(globalSessionJson)) {
                 return null;
             }
@@ -183,7 +292,7 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
                 }
             }
             return getGlobalSession(globalTransactionDO, branchTransactionDOs);
-        }
+        });
     }
 
     /**
@@ -206,68 +315,152 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
      * @return the list
      */
     public List<GlobalSession> readSession(GlobalStatus[] statuses) {
-        List<Integer> states = new ArrayList<>();
-        for (int i = 0; i < statuses.length; i++) {
-            states.add(statuses[i].getCode());
+        List<GlobalSession> globalSessions = readSession(statuses, xid -> true);
+        return globalSessions.isEmpty() ? null : globalSessions;
+    }
+
+    /**
+     * Read the global sessions of the statuses whose xids are accepted by the filter, the rejected ones are paged
+     * past without being read.
+     * <p>
+     * The transactions of a status are spread over the hash tags in the cluster mode, the limit is shared by the
+     * sets of each status and tag. The sets are read from the smallest one, and the part of the share a set does not
+     * fill is left to the larger ones, so no set is starved by the others.
+     *
+     * @param statuses  the statuses
+     * @param xidFilter the filter of the xids
+     * @return the list
+     */
+    @Override
+    public List<GlobalSession> readSession(GlobalStatus[] statuses, Predicate<String> xidFilter) {
+        List<String> tags = JedisPooledFactory.getTransactionTags();
+        List<GlobalStatus> setStatuses = new ArrayList<>(statuses.length * tags.size());
+        List<String> statusKeys = new ArrayList<>(statuses.length * tags.size());
+        for (GlobalStatus status : statuses) {
+            for (String tag : tags) {
+                setStatuses.add(status);
+                statusKeys.add(getStatusKey(status.getCode(), tag));
+            }
         }
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            Set<String> keys = new HashSet<>();
-            String cursor = INITIAL_CURSOR;
-            ScanParams params = new ScanParams();
-            params.count(logQueryLimit);
-            params.match(getGlobalKeyByXid("*"));
-            ScanResult<String> scans;
-            do {
-                scans = jedis.scan(cursor, params);
-                keys.addAll(scans.getResult());
-                cursor = scans.getCursor();
-            } while (!INITIAL_CURSOR.equals(cursor));
-            if (CollectionUtils.isNotEmpty(keys)) {
-                List<GlobalTransactionDO> globalTransactionDOs = new ArrayList<>();
-                for (String globalKey : keys) {
-                    GlobalTransactionDO globalTransactionDO =
-                        JSON.parseObject(jedis.get(globalKey), GlobalTransactionDO.class);
-                    if (globalTransactionDO != null && states.contains(globalTransactionDO.getStatus())) {
-                        globalTransactionDOs.add(globalTransactionDO);
-                    }
+        long[] sizes = new long[statusKeys.size()];
+        Integer[] order = new Integer[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            String statusKey = statusKeys.get(i);
+            sizes[i] = JedisPooledFactory.execute(statusKey, jedis -> jedis.zcard(statusKey));
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> sizes[i]));
+        List<List<GlobalSession>> read = new ArrayList<>(Collections.nCopies(sizes.length, null));
+        int left = logQueryLimit;
+        for (int k = 0; k < order.length && left > 0; k++) {
+            int i = order[k];
+            if (sizes[i] <= 0) {
+                continue;
+            }
+            int remaining = order.length - k;
+            int share = (left + remaining - 1) / remaining;
+            String statusKey = statusKeys.get(i);
+            GlobalStatus status = setStatuses.get(i);
+            List<GlobalSession> globalSessions = JedisPooledFactory.execute(statusKey,
+                jedis -> readSession(jedis, statusKey, status, share, xidFilter));
+            read.set(i, globalSessions);
+            left -= globalSessions.size();
+        }
+        List<GlobalSession> globalSessions = new ArrayList<>();
+        for (List<GlobalSession> setSessions : read) {
+            if (setSessions != null) {
+                globalSessions.addAll(setSessions);
+            }
+        }
+        return globalSessions;
+    }
+
+    private List<GlobalSession> readSession(Jedis jedis, String statusKey, GlobalStatus status, int limit,
+                                            Predicate<String> xidFilter) {
+        List<GlobalTransactionDO> globalTransactionDOs = new ArrayList<>();
+        readGlobalTransactionDOs(jedis, statusKey, status, limit, xidFilter, globalTransactionDOs);
+        if (CollectionUtils.isEmpty(globalTransactionDOs)) {
+            return Collections.emptyList();
+        }
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<List<String>>> branchKeys = new ArrayList<>(globalTransactionDOs.size());
+        for (GlobalTransactionDO globalTransactionDO : globalTransactionDOs) {
+            branchKeys.add(pipeline.lrange(getBranchListKeyByXid(globalTransactionDO.getXid()), 0, -1));
+        }
+        pipeline.sync();
+        Set<String> keys = new LinkedHashSet<>();
+        for (Response<List<String>> response : branchKeys) {
+            keys.addAll(response.get());
+        }
+        List<BranchTransactionDO> branchTransactionDOs =
+            keys.isEmpty() ? new ArrayList<>() : getBranchJsons(jedis, keys);
+        Map<String, List<BranchTransactionDO>> branchTransactionDOsMap =
+            branchTransactionDOs.stream().collect(Collectors.groupingBy(BranchTransactionDO::getXid,
+                LinkedHashMap::new, Collectors.toList()));
+        return globalTransactionDOs.stream()
+            .map(globalTransactionDO -> getGlobalSession(globalTransactionDO,
+                branchTransactionDOsMap.get(globalTransactionDO.getXid())))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Page through the sorted set of the status, in the order of the begin time, until the limit of accepted ones.
+     */
+    private void readGlobalTransactionDOs(Jedis jedis, String statusKey, GlobalStatus status, int limit,
+                                          Predicate<String> xidFilter, List<GlobalTransactionDO> globalTransactionDOs) {
+        List<String> removed = new ArrayList<>();
+        long start = 0;
+        while (globalTransactionDOs.size() < limit) {
+            Set<String> page = jedis.zrange(statusKey, start, start + logQueryLimit - 1);
+            if (CollectionUtils.isEmpty(page)) {
+                break;
+            }
+            start += page.size();
+            List<String> xids = page.stream().filter(xidFilter).collect(Collectors.toList());
+            String[] globalKeys = xids.stream().map(this::getGlobalKeyByXid).toArray(String[]::new);
+            List<String> globalJsons = xids.isEmpty() ? Collections.emptyList() : jedis.mget(globalKeys);
+            int i = 0;
+            for (String xid : xids) {
+                String globalJson = globalJsons.get(i++);
+                if (StringUtils.isEmpty(globalJson)) {
+                    removed.add(xid);
+                    continue;
                 }
-                if (CollectionUtils.isNotEmpty(globalTransactionDOs)) {
-                    List<String> xids =
-                        globalTransactionDOs.stream().map(GlobalTransactionDO::getXid).collect(Collectors.toList());
-                    List<BranchTransactionDO> branchTransactionDOs = new ArrayList<>();
-                    for (String xid : xids) {
-                        Set<String> branches = lRange(jedis, getBranchListKeyByXid(xid));
-                        if (CollectionUtils.isNotEmpty(branches)) {
-                            branchTransactionDOs.addAll(getBranchJsons(jedis, branches));
-                        }
-                    }
-                    Map<String, List<BranchTransactionDO>> branchTransactionDOsMap =
-                        branchTransactionDOs.stream().collect(Collectors.groupingBy(BranchTransactionDO::getXid,
-                            LinkedHashMap::new, Collectors.toList()));
-                    return globalTransactionDOs.stream()
-                        .map(globalTransactionDO -> getGlobalSession(globalTransactionDO,
-                            branchTransactionDOsMap.get(globalTransactionDO.getXid())))
-                        .collect(Collectors.toList());
+                GlobalTransactionDO globalTransactionDO = JSON.parseObject(globalJson, GlobalTransactionDO.class);
+                if (globalTransactionDO.getStatus() == status.getCode() && globalTransactionDOs.size() < limit) {
+                    globalTransactionDOs.add(globalTransactionDO);
                 }
             }
+            if (page.size() < logQueryLimit) {
+                break;
+            }
+        }
+        // the global transactions deleted out of this store, or while the statuses were indexed
+        if (!removed.isEmpty()) {
+            jedis.zrem(statusKey, removed.toArray(new String[0]));
         }
-        return null;
     }
 
     @Override
     public List<GlobalSession> readSession(SessionCondition sessionCondition) {
-        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
-            if (!StringUtils.isEmpty(sessionCondition.getXid())) {
-                String globalSessionJson = jedis.get(getGlobalKeyByXid(sessionCondition.getXid()));
-                if (!StringUtils.isEmpty(globalSessionJson)) {
-                    GlobalSession session =
-                        convertGlobalSession(JSON.parseObject(globalSessionJson, GlobalTransactionDO.class));
-                    List<GlobalSession> globalSessions = new ArrayList<>();
-                    globalSessions.add(session);
-                    return globalSessions;
+        if (!StringUtils.isEmpty(sessionCondition.getXid())) {
+            String globalKey = getGlobalKeyByXid(sessionCondition.getXid());
+            return JedisPooledFactory.execute(globalKey, jedis -> {
+                String globalSessionJson = jedis.get(globalKey);
+                if (StringUtils.isEmpty(globalSessionJson)) {
+                    return null;
                 }
-            } else if (sessionCondition.getTransactionId() != null) {
-                String global = jedis.get(getGlobalKeyByTransactionId(sessionCondition.getTransactionId()));
+                GlobalSession session =
+                    convertGlobalSession(JSON.parseObject(globalSessionJson, GlobalTransactionDO.class));
+                List<GlobalSession> globalSessions = new ArrayList<>();
+                globalSessions.add(session);
+                return globalSessions;
+            });
+        } else if (sessionCondition.getTransactionId() != null) {
+            // the global transaction and its branches share the hash tag of the transaction id
+            String globalKey = getGlobalKeyByTransactionId(sessionCondition.getTransactionId());
+            return JedisPooledFactory.execute(globalKey, jedis -> {
+                String global = jedis.get(globalKey);
                 if (StringUtils.isEmpty(global)) {
                     return null;
                 }
@@ -282,9 +475,9 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
                 List<GlobalSession> globalSessions = new ArrayList<>();
                 globalSessions.add(globalSession);
                 return globalSessions;
-            } else if (CollectionUtils.isNotEmpty(sessionCondition.getStatuses())) {
-                return readSession(sessionCondition.getStatuses());
-            }
+            });
+        } else if (CollectionUtils.isNotEmpty(sessionCondition.getStatuses())) {
+            return readSession(sessionCondition.getStatuses());
         }
         return null;
     }
@@ -393,19 +586,24 @@ public class RedisTransactionStoreManager extends AbstractTransactionStoreManage
     }
 
     private String getGlobalKeyByXid(String xid) {
-        return DEFAULT_REDIS_SEATA_GLOBAL_PREFIX + xid;
+        return DEFAULT_REDIS_SEATA_GLOBAL_PREFIX + JedisPooledFactory.getTransactionTag(xid) + xid;
     }
 
     private String getBranchListKeyByXid(String xid) {
-        return DEFAULT_REDIS_SEATA_XID_BRANCHS_PREFIX + xid;
+        return DEFAULT_REDIS_SEATA_XID_BRANCHS_PREFIX + JedisPooledFactory.getTransactionTag(xid) + xid;
     }
 
     private String getGlobalKeyByTransactionId(Long transactionId) {
-        return DEFAULT_SEATA_TRANSACTION_ID_GLOBAL_PREFIX + transactionId;
+        return DEFAULT_SEATA_TRANSACTION_ID_GLOBAL_PREFIX + JedisPooledFactory.getTransactionTag(transactionId)
+            + transactionId;
+    }
+
+    private String getBranchKey(String xid, Long branchId) {
+        return DEFAULT_REDIS_SEATA_BRANCH_PREFIX + JedisPooledFactory.getTransactionTag(xid) + branchId;
     }
 
-    private String getBranchKey(Long branchId) {
-        return DEFAULT_REDIS_SEATA_BRANCH_PREFIX + branchId;
+    private String getStatusKey(int status, String tag) {
+        return DEFAULT_REDIS_SEATA_STATUS_PREFIX + status + tag;
     }
 
 }
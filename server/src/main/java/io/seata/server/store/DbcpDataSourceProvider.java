@@ -32,12 +32,17 @@ public class DbcpDataSourceProvider extends AbstractDataSourceProvider {
 
     @Override
     public DataSource generate() {
+        return generate(getUrl());
+    }
+
+    @Override
+    public DataSource generate(String url) {
         BasicDataSource ds = new BasicDataSource();
         ds.setDriverClassName(getDriverClassName());
         // DriverClassLoader works if upgrade commons-dbcp to at least 1.3.1.
         // https://issues.apache.org/jira/browse/DBCP-333
         ds.setDriverClassLoader(getDriverClassLoader());
-        ds.setUrl(getUrl());
+        ds.setUrl(url);
         ds.setUsername(getUser());
 
         ds.setPassword(getPassword());
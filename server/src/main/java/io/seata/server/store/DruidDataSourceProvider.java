@@ -32,10 +32,15 @@ public class DruidDataSourceProvider extends AbstractDataSourceProvider {
 
     @Override
     public DataSource generate() {
+        return generate(getUrl());
+    }
+
+    @Override
+    public DataSource generate(String url) {
         DruidDataSource ds = new DruidDataSource();
         ds.setDriverClassName(getDriverClassName());
         ds.setDriverClassLoader(getDriverClassLoader());
-        ds.setUrl(getUrl());
+        ds.setUrl(url);
         ds.setUsername(getUser());
         ds.setPassword(getPassword());
         ds.setInitialSize(getMinConn());
@@ -33,6 +33,11 @@ public class HikariDataSourceProvider extends AbstractDataSourceProvider {
 
     @Override
     public DataSource generate() {
+        return generate(getUrl());
+    }
+
+    @Override
+    public DataSource generate(String url) {
         Properties properties = new Properties();
         properties.setProperty("dataSource.cachePrepStmts", "true");
         properties.setProperty("dataSource.prepStmtCacheSize", "250");
@@ -47,7 +52,7 @@ public class HikariDataSourceProvider extends AbstractDataSourceProvider {
 
         HikariConfig config = new HikariConfig(properties);
         config.setDriverClassName(getDriverClassName());
-        config.setJdbcUrl(getUrl());
+        config.setJdbcUrl(url);
         config.setUsername(getUser());
         config.setPassword(getPassword());
         config.setMaximumPoolSize(getMaxConn());
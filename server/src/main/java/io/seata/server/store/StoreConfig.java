@@ -45,6 +45,41 @@ public class StoreConfig {
      */
     private static final int DEFAULT_WRITE_BUFFER_SIZE = 1024 * 16;
 
+    /**
+     * Default 128 sync flush requests.
+     */
+    private static final int DEFAULT_GROUP_COMMIT_MAX_SIZE = 128;
+
+    /**
+     * Default 0, only the requests queued while the previous group was forced are grouped.
+     */
+    private static final int DEFAULT_GROUP_COMMIT_WINDOW_MICROS = 0;
+
+    /**
+     * Default 16mb.
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024 * 16;
+
+    /**
+     * Default 1 minute.
+     */
+    private static final long DEFAULT_SEGMENT_COMPACT_INTERVAL = 60 * 1000L;
+
+    /**
+     * Default 100 live sessions.
+     */
+    private static final int DEFAULT_SEGMENT_COMPACT_THRESHOLD = 100;
+
+    /**
+     * Default 0, no snapshot.
+     */
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 0L;
+
+    /**
+     * Default version 1.
+     */
+    private static final int DEFAULT_SNAPSHOT_VERSION = 1;
+
     public static int getMaxBranchSessionSize() {
         return CONFIGURATION.getInt(STORE_FILE_PREFIX + "maxBranchSessionSize", DEFAULT_MAX_BRANCH_SESSION_SIZE);
     }
@@ -57,6 +92,38 @@ public class StoreConfig {
         return CONFIGURATION.getInt(STORE_FILE_PREFIX + "fileWriteBufferCacheSize", DEFAULT_WRITE_BUFFER_SIZE);
     }
 
+    public static int getGroupCommitMaxSize() {
+        return CONFIGURATION.getInt(STORE_FILE_PREFIX + "groupCommitMaxSize", DEFAULT_GROUP_COMMIT_MAX_SIZE);
+    }
+
+    public static int getGroupCommitWindowMicros() {
+        return CONFIGURATION.getInt(STORE_FILE_PREFIX + "groupCommitWindowMicros", DEFAULT_GROUP_COMMIT_WINDOW_MICROS);
+    }
+
+    public static boolean isSegmented() {
+        return CONFIGURATION.getBoolean(STORE_FILE_PREFIX + "segmented", false);
+    }
+
+    public static int getSegmentSize() {
+        return CONFIGURATION.getInt(STORE_FILE_PREFIX + "segmentSize", DEFAULT_SEGMENT_SIZE);
+    }
+
+    public static long getSegmentCompactInterval() {
+        return CONFIGURATION.getLong(STORE_FILE_PREFIX + "segmentCompactInterval", DEFAULT_SEGMENT_COMPACT_INTERVAL);
+    }
+
+    public static int getSegmentCompactThreshold() {
+        return CONFIGURATION.getInt(STORE_FILE_PREFIX + "segmentCompactThreshold", DEFAULT_SEGMENT_COMPACT_THRESHOLD);
+    }
+
+    public static long getSnapshotInterval() {
+        return CONFIGURATION.getLong(STORE_FILE_PREFIX + "snapshotInterval", DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public static int getSnapshotVersion() {
+        return CONFIGURATION.getInt(STORE_FILE_PREFIX + "snapshotVersion", DEFAULT_SNAPSHOT_VERSION);
+    }
+
     public static FlushDiskMode getFlushDiskMode() {
         return FlushDiskMode.findDiskMode(CONFIGURATION.getConfig(STORE_FILE_PREFIX + "flushDiskMode"));
     }
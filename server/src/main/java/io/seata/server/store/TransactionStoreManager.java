@@ -15,10 +15,13 @@
  */
 package io.seata.server.store;
 
+import io.seata.core.model.GlobalStatus;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionCondition;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * The interface Transaction store manager.
@@ -62,6 +65,27 @@ public interface TransactionStoreManager {
      */
     List<GlobalSession> readSession(SessionCondition sessionCondition);
 
+    /**
+     * Read the global sessions of the statuses whose xids are accepted by the filter. The stores which page through
+     * the sessions skip the rejected ones, so they do not take up the query limit.
+     *
+     * @param statuses  the statuses
+     * @param xidFilter the filter of the xids
+     * @return the list
+     */
+    default List<GlobalSession> readSession(GlobalStatus[] statuses, Predicate<String> xidFilter) {
+        List<GlobalSession> globalSessions = new ArrayList<>();
+        List<GlobalSession> read = readSession(new SessionCondition(statuses));
+        if (read != null) {
+            for (GlobalSession globalSession : read) {
+                if (xidFilter.test(globalSession.getXid())) {
+                    globalSessions.add(globalSession);
+                }
+            }
+        }
+        return globalSessions;
+    }
+
     /**
      * Shutdown.
      */
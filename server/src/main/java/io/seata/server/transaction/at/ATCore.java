@@ -56,8 +56,8 @@ public class ATCore extends AbstractCore {
     }
 
     @Override
-    public boolean lockQuery(BranchType branchType, String resourceId, String xid, String lockKeys)
-            throws TransactionException {
-        return lockManager.isLockable(xid, resourceId, lockKeys);
+    public boolean lockQuery(BranchType branchType, String resourceId, String xid, String lockKeys,
+                             byte[] binaryLockKey) throws TransactionException {
+        return lockManager.isLockable(xid, resourceId, lockKeys, binaryLockKey);
     }
 }
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.coordinator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Branch circuit breaker test.
+ */
+public class BranchCircuitBreakerTest {
+
+    private static final String RESOURCE_ID = "tb_1";
+
+    private static final String CLIENT_ID = "test_app:127.0.0.1:8080";
+
+    @Test
+    public void openAndCloseTest() throws InterruptedException {
+        BranchCircuitBreaker breaker = new BranchCircuitBreaker(true, 2, 1000);
+        Assertions.assertTrue(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+        breaker.onFailure(RESOURCE_ID, CLIENT_ID);
+        Assertions.assertEquals(BranchCircuitBreaker.State.CLOSED, breaker.getState(RESOURCE_ID, CLIENT_ID));
+        Assertions.assertTrue(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+        breaker.onFailure(RESOURCE_ID, CLIENT_ID);
+        Assertions.assertEquals(BranchCircuitBreaker.State.OPEN, breaker.getState(RESOURCE_ID, CLIENT_ID));
+        Assertions.assertFalse(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+        // other resources are not affected
+        Assertions.assertTrue(breaker.tryAcquire("tb_2", CLIENT_ID));
+
+        Thread.sleep(1100);
+        // only one probe is allowed
+        Assertions.assertTrue(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+        Assertions.assertEquals(BranchCircuitBreaker.State.HALF_OPEN, breaker.getState(RESOURCE_ID, CLIENT_ID));
+        Assertions.assertFalse(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+        breaker.onFailure(RESOURCE_ID, CLIENT_ID);
+        Assertions.assertEquals(BranchCircuitBreaker.State.OPEN, breaker.getState(RESOURCE_ID, CLIENT_ID));
+
+        Thread.sleep(1100);
+        Assertions.assertTrue(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+        breaker.onSuccess(RESOURCE_ID, CLIENT_ID);
+        Assertions.assertEquals(BranchCircuitBreaker.State.CLOSED, breaker.getState(RESOURCE_ID, CLIENT_ID));
+        Assertions.assertTrue(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+    }
+
+    @Test
+    public void disabledTest() {
+        BranchCircuitBreaker breaker = new BranchCircuitBreaker(false, 1, 100);
+        breaker.onFailure(RESOURCE_ID, CLIENT_ID);
+        breaker.onFailure(RESOURCE_ID, CLIENT_ID);
+        Assertions.assertTrue(breaker.tryAcquire(RESOURCE_ID, CLIENT_ID));
+    }
+}
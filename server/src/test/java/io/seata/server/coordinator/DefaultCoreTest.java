@@ -15,15 +15,19 @@
  */
 package io.seata.server.coordinator;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Stream;
 
 import io.seata.core.exception.TransactionException;
 import io.seata.core.model.BranchStatus;
 import io.seata.core.model.BranchType;
 import io.seata.core.model.GlobalStatus;
+import io.seata.core.protocol.transaction.BranchRegisterRequest;
 import io.seata.core.rpc.RemotingServer;
 import io.seata.server.session.BranchSession;
+import io.seata.server.transaction.at.ATCore;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionHelper;
 import io.seata.server.session.SessionHolder;
@@ -114,6 +118,59 @@ public class DefaultCoreTest {
         Assertions.assertEquals(globalSession.getSortedBranches().size(), 1);
     }
 
+    /**
+     * Batch branch register test.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void batchBranchRegisterTest(String xid) throws Exception {
+        List<Long> branchIds = core.batchBranchRegister(clientId, xid,
+            Arrays.asList(newBranchRegisterRequest(lockKeys_1), newBranchRegisterRequest(lockKeys_2)));
+        globalSession = SessionHolder.findGlobalSession(xid);
+        Assertions.assertEquals(2, branchIds.size());
+        Assertions.assertNotNull(globalSession.getBranch(branchIds.get(0)));
+        Assertions.assertNotNull(globalSession.getBranch(branchIds.get(1)));
+    }
+
+    /**
+     * Batch branch register removes the registered branches when a later one fails.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void batchBranchRegisterConflictTest(String xid) throws Exception {
+        core.mockCore(BranchType.AT, new ATCore(remotingServer));
+        String otherXid = core.begin(applicationId, txServiceGroup, txName, timeout);
+        GlobalSession otherSession = SessionHolder.findGlobalSession(otherXid);
+        try {
+            core.branchRegister(BranchType.AT, resourceId, clientId, otherXid, applicationData, lockKeys_2);
+            Assertions.assertFalse(core.lockQuery(BranchType.AT, resourceId, xid, lockKeys_2));
+            Assertions.assertThrows(TransactionException.class, () -> core.batchBranchRegister(clientId, xid,
+                Arrays.asList(newBranchRegisterRequest(lockKeys_1), newBranchRegisterRequest(lockKeys_2))));
+            globalSession = SessionHolder.findGlobalSession(xid);
+            Assertions.assertTrue(globalSession.getSortedBranches().isEmpty());
+            // the row of the removed branch is released
+            Assertions.assertTrue(core.lockQuery(BranchType.AT, resourceId, otherXid, lockKeys_1));
+            core.branchRegister(BranchType.AT, resourceId, clientId, otherXid, applicationData, lockKeys_1);
+        } finally {
+            otherSession.end();
+        }
+    }
+
+    private static BranchRegisterRequest newBranchRegisterRequest(String lockKeys) {
+        BranchRegisterRequest request = new BranchRegisterRequest();
+        request.setBranchType(BranchType.AT);
+        request.setResourceId(resourceId);
+        request.setLockKey(lockKeys);
+        request.setApplicationData(applicationData);
+        return request;
+    }
+
     /**
      * Branch report test.
      *
@@ -154,6 +211,8 @@ public class DefaultCoreTest {
     public void commitTest(String xid) throws Exception {
         GlobalStatus globalStatus = core.commit(xid);
         Assertions.assertNotEquals(globalStatus, GlobalStatus.Begin);
+        // end the async committing session, otherwise it is reloaded by the later tests
+        globalSession = SessionHolder.findGlobalSession(xid);
     }
 
     /**
@@ -289,6 +348,73 @@ public class DefaultCoreTest {
         Assertions.assertEquals(globalSession.getStatus(), GlobalStatus.RollbackRetrying);
     }
 
+    /**
+     * Do global commit in parallel test.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void doGlobalCommitInParallelTest(String xid) throws Exception {
+        globalSession = SessionHolder.findGlobalSession(xid);
+        for (String rid : new String[] {"tb_1", "tb_2", "tb_1"}) {
+            BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT, rid,
+                applicationData, "t1:1", clientId);
+            globalSession.addBranch(branchSession);
+            globalSession.changeBranchStatus(branchSession, BranchStatus.PhaseOne_Done);
+        }
+        core.mockCore(BranchType.AT,
+            new MockCore(BranchStatus.PhaseTwo_Committed, BranchStatus.PhaseOne_Done));
+        ParallelBranchDispatcher dispatcher = new ParallelBranchDispatcher(2);
+        core.setParallelBranchDispatcher(dispatcher);
+        try {
+            core.doGlobalCommit(globalSession, false);
+        } finally {
+            core.setParallelBranchDispatcher(null);
+            dispatcher.destroy();
+        }
+        Assertions.assertEquals(globalSession.getStatus(), GlobalStatus.Committed);
+        Assertions.assertFalse(globalSession.hasBranch());
+    }
+
+    /**
+     * Do global roll back in parallel test.
+     *
+     * @param xid the xid
+     * @throws Exception the exception
+     */
+    @ParameterizedTest
+    @MethodSource("xidProvider")
+    public void doGlobalRollBackInParallelRetryableTest(String xid) throws Exception {
+        globalSession = SessionHolder.findGlobalSession(xid);
+        for (String rid : new String[] {"tb_1", "tb_2"}) {
+            BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT, rid,
+                applicationData, "t1:1", clientId);
+            globalSession.addBranch(branchSession);
+            globalSession.changeBranchStatus(branchSession, BranchStatus.PhaseOne_Done);
+        }
+        core.mockCore(BranchType.AT, new MockCore(BranchStatus.PhaseTwo_Committed,
+            BranchStatus.PhaseTwo_RollbackFailed_Retryable) {
+            @Override
+            public BranchStatus branchRollback(GlobalSession globalSession, BranchSession branchSession) {
+                return "tb_1".equals(branchSession.getResourceId()) ? BranchStatus.PhaseTwo_Rollbacked
+                    : BranchStatus.PhaseTwo_RollbackFailed_Retryable;
+            }
+        });
+        ParallelBranchDispatcher dispatcher = new ParallelBranchDispatcher(2);
+        core.setParallelBranchDispatcher(dispatcher);
+        try {
+            core.doGlobalRollback(globalSession, false);
+        } finally {
+            core.setParallelBranchDispatcher(null);
+            dispatcher.destroy();
+        }
+        Assertions.assertEquals(globalSession.getStatus(), GlobalStatus.RollbackRetrying);
+        Assertions.assertEquals(globalSession.getSortedBranches().size(), 1);
+        Assertions.assertEquals(globalSession.getSortedBranches().get(0).getResourceId(), "tb_2");
+    }
+
     /**
      * Xid provider object [ ] [ ].
      *
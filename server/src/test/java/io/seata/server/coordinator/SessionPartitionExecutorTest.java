@@ -0,0 +1,74 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.coordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.seata.core.exception.TransactionException;
+import io.seata.server.metrics.MeterIdConstants;
+import io.seata.server.session.GlobalSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Session partition executor test.
+ */
+public class SessionPartitionExecutorTest {
+
+    @Test
+    public void executeAllSessionsTest() {
+        SessionPartitionExecutor executor = new SessionPartitionExecutor("Test", 4,
+            MeterIdConstants.GAUGE_RETRY_COMMITTING_PENDING, MeterIdConstants.TIMER_RETRY_COMMITTING_PASS);
+        try {
+            List<GlobalSession> sessions = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                sessions.add(new GlobalSession("demo-app", "my_test_tx_group", "test", 6000));
+            }
+            Map<String, String> handled = new ConcurrentHashMap<>();
+            executor.execute(sessions, session -> {
+                // the same session must always be owned by the same worker
+                handled.put(session.getXid(), Thread.currentThread().getName());
+                if (session.getTransactionId() % 2 == 0) {
+                    throw new TransactionException("mock failure");
+                }
+            });
+            Assertions.assertEquals(sessions.size(), handled.size());
+
+            Map<String, String> handledAgain = new ConcurrentHashMap<>();
+            executor.execute(sessions, session -> handledAgain.put(session.getXid(),
+                Thread.currentThread().getName()));
+            Assertions.assertEquals(handled, handledAgain);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void executeInlineTest() {
+        SessionPartitionExecutor executor = new SessionPartitionExecutor("Test", 1,
+            MeterIdConstants.GAUGE_RETRY_COMMITTING_PENDING, MeterIdConstants.TIMER_RETRY_COMMITTING_PASS);
+        List<GlobalSession> sessions = new ArrayList<>();
+        sessions.add(new GlobalSession("demo-app", "my_test_tx_group", "test", 6000));
+        List<String> threads = new ArrayList<>();
+        executor.execute(sessions, session -> threads.add(Thread.currentThread().getName()));
+        Assertions.assertEquals(1, threads.size());
+        Assertions.assertEquals(Thread.currentThread().getName(), threads.get(0));
+        executor.destroy();
+    }
+}
@@ -15,18 +15,19 @@
  */
 package io.seata.server.lock;
 
-import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 import io.seata.core.exception.TransactionException;
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchType;
 import io.seata.server.UUIDGenerator;
 import io.seata.server.lock.file.FileLockManagerForTest;
 import io.seata.server.session.BranchSession;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -67,6 +68,31 @@ public class LockManagerTest {
         Assertions.assertFalse(lockManager.acquireLock(branchSession2));
     }
 
+    /**
+     * Acquire lock by the binary lock keys, they conflict with the same rows in the string form.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void acquireLock_binaryLockKey() throws Exception {
+        LockManager lockManager = new FileLockManagerForTest();
+        Object[] branchSessions = baseBranchSessionsProvider("tb_3", "t:1,2;t1:3", "t1:4,3").findFirst().get().get();
+        BranchSession branchSession1 = (BranchSession)branchSessions[0];
+        BranchSession branchSession2 = (BranchSession)branchSessions[1];
+        branchSession1.setBinaryLockKey(BinaryLockKey.fromLockKey(branchSession1.getLockKey()));
+        try {
+            Assertions.assertTrue(lockManager.acquireLock(branchSession1));
+            Assertions.assertFalse(lockManager.acquireLock(branchSession2));
+            Assertions.assertFalse(lockManager.isLockable(String.valueOf(branchSession2.getTransactionId()), "tb_3",
+                null, BinaryLockKey.fromLockKey("t:2")));
+            Assertions.assertTrue(lockManager.releaseLock(branchSession1));
+            Assertions.assertTrue(lockManager.acquireLock(branchSession2));
+        } finally {
+            lockManager.releaseLock(branchSession1);
+            lockManager.releaseLock(branchSession2);
+        }
+    }
+
     /**
      * deadlock test.
      *
@@ -175,13 +201,13 @@ public class LockManagerTest {
     public void duplicatePkBranchSessionHolderTest(BranchSession branchSession1, BranchSession branchSession2) throws Exception {
         LockManager lockManager = new FileLockManagerForTest();
         Assertions.assertTrue(lockManager.acquireLock(branchSession1));
-        Assertions.assertEquals(4, branchSession1.getLockHolder().values().stream().map(Set::size).count());
+        Assertions.assertEquals(4, branchSession1.getLockHolder().size());
         Assertions.assertTrue(lockManager.releaseLock(branchSession1));
-        Assertions.assertEquals(0, branchSession1.getLockHolder().values().stream().map(Set::size).count());
+        Assertions.assertEquals(0, branchSession1.getLockHolder().size());
         Assertions.assertTrue(lockManager.acquireLock(branchSession2));
-        Assertions.assertEquals(4, branchSession2.getLockHolder().values().stream().map(Set::size).count());
+        Assertions.assertEquals(4, branchSession2.getLockHolder().size());
         Assertions.assertTrue(lockManager.releaseLock(branchSession2));
-        Assertions.assertEquals(0, branchSession2.getLockHolder().values().stream().map(Set::size).count());
+        Assertions.assertEquals(0, branchSession2.getLockHolder().size());
     }
 
     /**
@@ -0,0 +1,133 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.seata.core.exception.BranchTransactionException;
+import io.seata.core.exception.TransactionException;
+import io.seata.core.exception.TransactionExceptionCode;
+import io.seata.core.model.BranchType;
+import io.seata.server.session.BranchSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Lock wait queue test.
+ */
+public class LockWaitQueueTest {
+
+    private static final String RESOURCE_ID = "tb_1";
+
+    @Test
+    public void fifoTest() throws InterruptedException {
+        LockWaitQueue queue = new LockWaitQueue(true, 1000, 10);
+        LockWaitQueue.Waiter first = queue.enqueue(2L, RESOURCE_ID, "t:1");
+        LockWaitQueue.Waiter second = queue.enqueue(3L, RESOURCE_ID, "t:1,2");
+        Assertions.assertEquals(2, queue.getWaiterCount());
+
+        // the rows released by a failed register of the head waiter itself do not wake it up
+        queue.signal(newBranchSession(2L, "t:1"));
+        Assertions.assertFalse(first.await(10));
+
+        // only the head waiter of the row is woken
+        queue.signal(newBranchSession(1L, "t:1"));
+        Assertions.assertTrue(first.await(10));
+        Assertions.assertFalse(second.await(10));
+
+        // the next waiter is woken once the head leaves
+        queue.dequeue(first);
+        Assertions.assertTrue(second.await(10));
+        queue.dequeue(second);
+        Assertions.assertEquals(0, queue.getWaiterCount());
+    }
+
+    @Test
+    public void grantOrderTest() throws Exception {
+        LockWaitQueue queue = new LockWaitQueue(true, 5000, 10);
+        // the row is locked by the transaction 1 at first
+        AtomicLong owner = new AtomicLong(1L);
+        Map<Long, AtomicInteger> calls = new ConcurrentHashMap<>();
+        List<Long> granted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (long transactionId = 2L; transactionId <= 4L; transactionId++) {
+            long tid = transactionId;
+            calls.put(tid, new AtomicInteger());
+            Thread thread = new Thread(() -> {
+                try {
+                    queue.execute(tid, () -> LockWaitQueue.rowKeys(RESOURCE_ID, "t:1"), () -> {
+                        calls.get(tid).incrementAndGet();
+                        if (!owner.compareAndSet(0L, tid)) {
+                            throw new BranchTransactionException(TransactionExceptionCode.LockKeyConflict, "conflict");
+                        }
+                        return null;
+                    });
+                    granted.add(tid);
+                    owner.set(0L);
+                    queue.signal(newBranchSession(tid, "t:1"));
+                } catch (TransactionException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            // queue the waiters one by one
+            while (queue.getWaiterCount() < tid - 1) {
+                Thread.sleep(1);
+            }
+        }
+
+        // the waiters behind the head do not recheck the lock while it is held
+        Thread.sleep(LockWaitQueue.RECHECK_INTERVAL * 3);
+        Assertions.assertTrue(calls.get(2L).get() > 2);
+        Assertions.assertEquals(2, calls.get(3L).get());
+        Assertions.assertEquals(2, calls.get(4L).get());
+
+        owner.set(0L);
+        queue.signal(newBranchSession(1L, "t:1"));
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        Assertions.assertEquals(Arrays.asList(2L, 3L, 4L), granted);
+        Assertions.assertEquals(0, queue.getWaiterCount());
+    }
+
+    @Test
+    public void maxWaitersTest() {
+        LockWaitQueue queue = new LockWaitQueue(true, 1000, 1);
+        LockWaitQueue.Waiter waiter = queue.enqueue(2L, RESOURCE_ID, "t:1");
+        Assertions.assertNotNull(waiter);
+        Assertions.assertNull(queue.enqueue(3L, RESOURCE_ID, "t:1"));
+        queue.dequeue(waiter);
+        Assertions.assertNotNull(queue.enqueue(3L, RESOURCE_ID, "t:1"));
+    }
+
+    private static BranchSession newBranchSession(long transactionId, String lockKey) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setTransactionId(transactionId);
+        branchSession.setResourceId(RESOURCE_ID);
+        branchSession.setBranchType(BranchType.AT);
+        branchSession.setLockKey(lockKey);
+        return branchSession;
+    }
+}
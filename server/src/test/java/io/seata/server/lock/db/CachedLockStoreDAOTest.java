@@ -0,0 +1,117 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.seata.core.store.LockDO;
+import io.seata.core.store.LockStore;
+import io.seata.server.storage.db.lock.CachedLockStoreDAO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * The type Cached lock store dao test.
+ */
+public class CachedLockStoreDAOTest {
+
+    private LockStore lockStore;
+
+    private CachedLockStoreDAO cachedLockStore;
+
+    @BeforeEach
+    public void init() {
+        lockStore = Mockito.mock(LockStore.class);
+        Mockito.when(lockStore.acquireLock(ArgumentMatchers.<List<LockDO>>any())).thenReturn(true);
+        Mockito.when(lockStore.isLockable(ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(lockStore.unLock(ArgumentMatchers.anyString(), ArgumentMatchers.anyLong())).thenReturn(true);
+        cachedLockStore = new CachedLockStoreDAO(lockStore, 1000, 60000);
+    }
+
+    @Test
+    public void testConflictFromCache() {
+        Assertions.assertTrue(cachedLockStore.acquireLock(newLockDOs("xid-1", 1L, "r1", "r2")));
+        Assertions.assertEquals(2, cachedLockStore.getCachedRowCount());
+
+        List<LockDO> other = newLockDOs("xid-2", 2L, "r2", "r3");
+        Assertions.assertFalse(cachedLockStore.acquireLock(other));
+        Assertions.assertFalse(cachedLockStore.isLockable(other));
+        Mockito.verify(lockStore, Mockito.times(1)).acquireLock(ArgumentMatchers.<List<LockDO>>any());
+        Mockito.verify(lockStore, Mockito.never()).isLockable(ArgumentMatchers.any());
+
+        // the rows of the same transaction may be free, they are checked in the store
+        Assertions.assertTrue(cachedLockStore.isLockable(newLockDOs("xid-1", 1L, "r1")));
+        Mockito.verify(lockStore, Mockito.times(1)).isLockable(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testInvalidateOnUnlock() {
+        Assertions.assertTrue(cachedLockStore.acquireLock(newLockDOs("xid-1", 1L, "r1", "r2")));
+        Assertions.assertTrue(cachedLockStore.unLock("xid-1", 1L));
+        Assertions.assertEquals(0, cachedLockStore.getCachedRowCount());
+
+        Assertions.assertTrue(cachedLockStore.acquireLock(newLockDOs("xid-2", 2L, "r2")));
+        Mockito.verify(lockStore, Mockito.times(2)).acquireLock(ArgumentMatchers.<List<LockDO>>any());
+
+        // a row locked by another transaction is kept when the same row key is released by a stale xid
+        cachedLockStore.unLock(newLockDOs("xid-1", 1L, "r2"));
+        Assertions.assertFalse(cachedLockStore.isLockable(newLockDOs("xid-3", 3L, "r2")));
+        cachedLockStore.unLock("xid-2", Collections.singletonList(2L));
+        Assertions.assertTrue(cachedLockStore.isLockable(newLockDOs("xid-3", 3L, "r2")));
+    }
+
+    @Test
+    public void testFailedAcquireNotCached() {
+        Mockito.when(lockStore.acquireLock(ArgumentMatchers.<List<LockDO>>any())).thenReturn(false);
+        Assertions.assertFalse(cachedLockStore.acquireLock(newLockDOs("xid-1", 1L, "r1")));
+        Assertions.assertEquals(0, cachedLockStore.getCachedRowCount());
+    }
+
+    @Test
+    public void testRowsEvictedWithBranch() {
+        cachedLockStore = new CachedLockStoreDAO(lockStore, 4, 60000);
+        for (long branchId = 1; branchId <= 20; branchId++) {
+            Assertions.assertTrue(cachedLockStore.acquireLock(newLockDOs("xid-1", branchId, "r" + branchId)));
+        }
+        Assertions.assertTrue(cachedLockStore.getCachedRowCount() <= 4);
+        for (long branchId = 1; branchId <= 20; branchId++) {
+            cachedLockStore.unLock("xid-1", branchId);
+        }
+        // no row is left cached after its branch is evicted
+        Assertions.assertEquals(0, cachedLockStore.getCachedRowCount());
+    }
+
+    private static List<LockDO> newLockDOs(String xid, long branchId, String... rowKeys) {
+        List<LockDO> lockDOs = new ArrayList<>();
+        for (String rowKey : rowKeys) {
+            LockDO lockDO = new LockDO();
+            lockDO.setXid(xid);
+            lockDO.setTransactionId(branchId);
+            lockDO.setBranchId(branchId);
+            lockDO.setResourceId("abc");
+            lockDO.setTableName("t");
+            lockDO.setPk(rowKey);
+            lockDO.setRowKey(rowKey);
+            lockDOs.add(lockDO);
+        }
+        return lockDOs;
+    }
+}
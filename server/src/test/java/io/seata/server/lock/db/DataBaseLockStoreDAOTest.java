@@ -15,6 +15,7 @@
  */
 package io.seata.server.lock.db;
 
+import io.seata.common.exception.StoreException;
 import io.seata.common.util.IOUtil;
 import io.seata.core.store.LockDO;
 import io.seata.server.storage.db.lock.LockStoreDataBaseDAO;
@@ -30,6 +31,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -271,6 +273,57 @@ public class DataBaseLockStoreDAOTest {
 
     }
 
+    @Test
+    public void test_acquireLocks_insertFirst() throws SQLException {
+        dataBaseLockStoreDAO.setLockInsertFirst(true);
+        List<LockDO> held = newLockDOs("abc-123:444", 444L, "ins-1");
+        Assertions.assertTrue(dataBaseLockStoreDAO.acquireLock(held));
+
+        // the insert of all the rows fails on ins-1, and none of them is left
+        List<LockDO> conflicted = newLockDOs("abc-123:555", 555L, "ins-0", "ins-1", "ins-2");
+        Assertions.assertFalse(dataBaseLockStoreDAO.acquireLock(conflicted));
+        Connection conn = null;
+        try {
+            conn = dataSource.getConnection();
+            ResultSet rs = conn.createStatement().executeQuery(
+                "select count(1) from lock_table where xid = 'abc-123:555'");
+            Assertions.assertTrue(rs.next());
+            Assertions.assertEquals(0, rs.getInt(1));
+        } finally {
+            IOUtil.close(conn);
+        }
+
+        // the rows held by the same transaction are checked after the insert fails
+        List<LockDO> reentrant = newLockDOs("abc-123:444", 444L, "ins-1", "ins-3");
+        Assertions.assertTrue(dataBaseLockStoreDAO.acquireLock(reentrant));
+        Assertions.assertTrue(dataBaseLockStoreDAO.unLock(reentrant));
+    }
+
+    @Test
+    public void test_acquireLocks_insertFirstFailure() {
+        dataBaseLockStoreDAO.setLockInsertFirst(true);
+        // the pk is longer than its column, the failure is not taken as a locked row
+        List<LockDO> invalid = newLockDOs("abc-123:666", 666L, "ins-4");
+        invalid.get(0).setPk(String.join("", Collections.nCopies(40, "p")));
+        Assertions.assertThrows(StoreException.class, () -> dataBaseLockStoreDAO.acquireLock(invalid));
+    }
+
+    private static List<LockDO> newLockDOs(String xid, long transactionId, String... rowKeys) {
+        List<LockDO> lockDOs = new ArrayList<>();
+        for (String rowKey : rowKeys) {
+            LockDO lock = new LockDO();
+            lock.setResourceId("abc");
+            lock.setXid(xid);
+            lock.setTransactionId(transactionId);
+            lock.setBranchId(1L);
+            lock.setRowKey(rowKey);
+            lock.setPk(rowKey);
+            lock.setTableName("t");
+            lockDOs.add(lock);
+        }
+        return lockDOs;
+    }
+
     @AfterAll
     public static void clearStoreDB(){
         FileUtils.deleteRecursive("db_store", true);
@@ -0,0 +1,137 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.seata.core.store.LockDO;
+import io.seata.server.storage.db.lock.LockStoreDataBaseDAO;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of the lock acquisition of {@link LockStoreDataBaseDAO} on h2 without conflicts, inserting all the rows
+ * at once against checking the locked rows before inserting them.
+ * <p>
+ * Not run by the unit tests, run the main method from the test classpath of this module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockStoreBenchmark {
+
+    @Param({"1", "5", "20"})
+    private int rows;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BasicDataSource dataSource;
+
+    private LockStoreDataBaseDAO insertFirstStore;
+
+    private LockStoreDataBaseDAO checkFirstStore;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:lock_benchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaxTotal(64);
+        try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement()) {
+            s.execute("drop table if exists lock_table");
+            s.execute("CREATE TABLE lock_table ( xid varchar(96) ,  transaction_id long , branch_id long, resource_id varchar(32) ,table_name varchar(32) ,pk varchar(32) ,  row_key  varchar(128) primary key not null, gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+        }
+        insertFirstStore = newStore(true);
+        checkFirstStore = newStore(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public boolean insertFirst() {
+        return acquireAndRelease(insertFirstStore);
+    }
+
+    @Benchmark
+    public boolean checkFirst() {
+        return acquireAndRelease(checkFirstStore);
+    }
+
+    private boolean acquireAndRelease(LockStoreDataBaseDAO lockStore) {
+        long transactionId = sequence.incrementAndGet();
+        List<LockDO> lockDOs = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            LockDO lockDO = new LockDO();
+            lockDO.setXid("127.0.0.1:8091:" + transactionId);
+            lockDO.setTransactionId(transactionId);
+            lockDO.setBranchId(transactionId);
+            lockDO.setResourceId("jdbc:h2:mem:test");
+            lockDO.setTableName("t");
+            lockDO.setPk(transactionId + "_" + i);
+            lockDO.setRowKey("jdbc:h2:mem:test^^^t^^^" + transactionId + "_" + i);
+            lockDOs.add(lockDO);
+        }
+        return lockStore.acquireLock(lockDOs) && lockStore.unLock(lockDOs);
+    }
+
+    private LockStoreDataBaseDAO newStore(boolean lockInsertFirst) {
+        LockStoreDataBaseDAO lockStore = new LockStoreDataBaseDAO(dataSource);
+        lockStore.setDbType("h2");
+        lockStore.setLockTable("lock_table");
+        lockStore.setLockInsertFirst(lockInsertFirst);
+        return lockStore;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 8}) {
+            Options options = new OptionsBuilder()
+                .include(LockStoreBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.seata.core.store.LockDO;
+import io.seata.core.store.LockStore;
+import io.seata.server.storage.db.lock.LockStoreDataBaseDAO;
+import io.seata.server.storage.db.lock.ShardedLockStoreDAO;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Sharded lock store dao test.
+ */
+public class ShardedLockStoreDAOTest {
+
+    private static final int TABLE_SHARDS = 2;
+
+    private static List<BasicDataSource> dataSources = new ArrayList<>();
+
+    private static ShardedLockStoreDAO shardedLockStore;
+
+    @BeforeAll
+    public static void start() throws SQLException {
+        List<LockStore> shards = new ArrayList<>();
+        for (int d = 0; d < 2; d++) {
+            BasicDataSource dataSource = new BasicDataSource();
+            dataSource.setDriverClassName("org.h2.Driver");
+            dataSource.setUrl("jdbc:h2:./db_store/lock_shard_" + d);
+            dataSource.setUsername("sa");
+            dataSource.setPassword("");
+            dataSources.add(dataSource);
+            for (int t = 0; t < TABLE_SHARDS; t++) {
+                try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement()) {
+                    s.execute("drop table if exists lock_table_" + t);
+                    s.execute("CREATE TABLE lock_table_" + t + " ( xid varchar(96) ,  transaction_id long , branch_id long, resource_id varchar(32) ,table_name varchar(32) ,pk varchar(32) ,  row_key  varchar(128) primary key not null, gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+                }
+                LockStoreDataBaseDAO lockStore = new LockStoreDataBaseDAO(dataSource);
+                lockStore.setDbType("h2");
+                lockStore.setLockTable("lock_table_" + t);
+                shards.add(lockStore);
+            }
+        }
+        shardedLockStore = new ShardedLockStoreDAO(shards, 4);
+    }
+
+    @AfterAll
+    public static void stop() throws SQLException {
+        shardedLockStore.shutdown();
+        for (BasicDataSource dataSource : dataSources) {
+            dataSource.close();
+        }
+    }
+
+    @BeforeEach
+    public void clean() throws SQLException {
+        for (BasicDataSource dataSource : dataSources) {
+            for (int t = 0; t < TABLE_SHARDS; t++) {
+                try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement()) {
+                    s.execute("delete from lock_table_" + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAcquireAcrossShards() throws SQLException {
+        List<LockDO> lockDOs = newLockDOs("xid-1", 1L, 0, 20);
+        Set<Integer> shardIndexes = new HashSet<>();
+        for (LockDO lockDO : lockDOs) {
+            shardIndexes.add(shardedLockStore.shardOf(lockDO.getRowKey()));
+        }
+        Assertions.assertEquals(4, shardIndexes.size());
+
+        Assertions.assertTrue(shardedLockStore.acquireLock(lockDOs));
+        Assertions.assertEquals(20, countLocks("xid-1"));
+        // reentrant
+        Assertions.assertTrue(shardedLockStore.acquireLock(newLockDOs("xid-1", 2L, 10, 30)));
+        Assertions.assertEquals(30, countLocks("xid-1"));
+
+        Assertions.assertFalse(shardedLockStore.isLockable(newLockDOs("xid-2", 3L, 25, 40)));
+        Assertions.assertTrue(shardedLockStore.isLockable(newLockDOs("xid-2", 3L, 30, 40)));
+
+        Assertions.assertTrue(shardedLockStore.unLock("xid-1", 2L));
+        Assertions.assertEquals(20, countLocks("xid-1"));
+        Assertions.assertTrue(shardedLockStore.unLock(newLockDOs("xid-1", 1L, 0, 20)));
+        Assertions.assertEquals(0, countLocks("xid-1"));
+    }
+
+    @Test
+    public void testAllOrNothing() throws SQLException {
+        Assertions.assertTrue(shardedLockStore.acquireLock(newLockDOs("xid-1", 1L, 7, 8)));
+
+        Assertions.assertFalse(shardedLockStore.acquireLock(newLockDOs("xid-2", 2L, 0, 20)));
+        Assertions.assertEquals(0, countLocks("xid-2"));
+        Assertions.assertEquals(1, countLocks("xid-1"));
+
+        // the rows held by the earlier branch of the transaction are kept
+        Assertions.assertTrue(shardedLockStore.acquireLock(newLockDOs("xid-2", 2L, 20, 30)));
+        Assertions.assertFalse(shardedLockStore.acquireLock(newLockDOs("xid-2", 3L, 0, 20)));
+        Assertions.assertEquals(10, countLocks("xid-2"));
+
+        Assertions.assertTrue(shardedLockStore.unLock("xid-1", 1L));
+        Assertions.assertTrue(shardedLockStore.acquireLock(newLockDOs("xid-2", 3L, 0, 20)));
+        Assertions.assertEquals(30, countLocks("xid-2"));
+        List<Long> branchIds = new ArrayList<>();
+        branchIds.add(2L);
+        branchIds.add(3L);
+        Assertions.assertTrue(shardedLockStore.unLock("xid-2", branchIds));
+        Assertions.assertEquals(0, countLocks("xid-2"));
+    }
+
+    private static List<LockDO> newLockDOs(String xid, long branchId, int from, int to) {
+        List<LockDO> lockDOs = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            LockDO lockDO = new LockDO();
+            lockDO.setXid(xid);
+            lockDO.setTransactionId(Long.parseLong(xid.substring(xid.indexOf('-') + 1)));
+            lockDO.setBranchId(branchId);
+            lockDO.setResourceId("abc");
+            lockDO.setTableName("t");
+            lockDO.setPk(String.valueOf(i));
+            lockDO.setRowKey("abc^^^t^^^" + i);
+            lockDOs.add(lockDO);
+        }
+        return lockDOs;
+    }
+
+    private static int countLocks(String xid) throws SQLException {
+        int count = 0;
+        for (BasicDataSource dataSource : dataSources) {
+            for (int t = 0; t < TABLE_SHARDS; t++) {
+                try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement();
+                     ResultSet rs = s.executeQuery(
+                         "select count(1) from lock_table_" + t + " where xid = '" + xid + "'")) {
+                    rs.next();
+                    count += rs.getInt(1);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -270,4 +270,21 @@ public class LockStoreSqlFactoryTest {
         sql = OCEANBASE_LOCK_STORE.getCheckLockableSql(BRANCH_TABLE, "1");
         Assertions.assertNotNull(sql);
     }
+
+    @Test
+    public void batchInsertLockTest() {
+        Assertions.assertEquals("insert into lock_table(" + AbstractLockStoreSql.ALL_COLUMNS + ")"
+                + " values (?, ?, ?, ?, ?, ?, ?, now(), now()), (?, ?, ?, ?, ?, ?, ?, now(), now())",
+            MYSQL_LOCK_STORE.getBatchInsertLockSQL("lock_table", 2));
+        Assertions.assertEquals(MYSQL_LOCK_STORE.getInsertLockSQL("lock_table"),
+            H2_LOCK_STORE.getBatchInsertLockSQL("lock_table", 1));
+        Assertions.assertEquals(3 * 7, POSTGRESQL_LOCK_STORE.getBatchInsertLockSQL("lock_table", 3).chars()
+            .filter(c -> c == '?').count());
+        Assertions.assertNotNull(OCEANBASE_LOCK_STORE.getBatchInsertLockSQL("lock_table", 2));
+        Assertions.assertEquals("insert all into lock_table(" + AbstractLockStoreSql.ALL_COLUMNS + ")"
+                + " values (?, ?, ?, ?, ?, ?, ?, sysdate, sysdate) into lock_table(" + AbstractLockStoreSql.ALL_COLUMNS
+                + ") values (?, ?, ?, ?, ?, ?, ?, sysdate, sysdate) select 1 from dual",
+            ORACLE_LOCK_STORE.getBatchInsertLockSQL("lock_table", 2));
+        Assertions.assertNull(LockStoreSqlFactory.getLogStoreSql("gbasedbt").getBatchInsertLockSQL("lock_table", 2));
+    }
 }
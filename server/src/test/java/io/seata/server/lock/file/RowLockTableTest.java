@@ -0,0 +1,96 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock.file;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import io.seata.server.storage.file.lock.RowLockTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Row lock table test.
+ */
+public class RowLockTableTest {
+
+    @Test
+    public void tableIdTest() {
+        RowLockTable lockTable = new RowLockTable();
+        Assertions.assertEquals(RowLockTable.NO_TABLE, lockTable.findTableId("tb_1", "t"));
+        int tableId = lockTable.tableId("tb_1", "t");
+        Assertions.assertEquals(tableId, lockTable.tableId("tb_1", "t"));
+        Assertions.assertEquals(tableId, lockTable.findTableId("tb_1", "t"));
+        Assertions.assertNotEquals(tableId, lockTable.tableId("tb_2", "t"));
+    }
+
+    @Test
+    public void putAndRemoveTest() {
+        RowLockTable lockTable = new RowLockTable();
+        int tableId = lockTable.tableId("tb_1", "t");
+        long hash = RowLockTable.hash(tableId, "1");
+        Assertions.assertEquals(RowLockTable.NO_LOCK, lockTable.putIfAbsent(tableId, "1", hash, 100L));
+        Assertions.assertEquals(100L, lockTable.putIfAbsent(tableId, "1", hash, 200L));
+        Assertions.assertEquals(100L, lockTable.get(tableId, "1", hash));
+        // only the holder can unlock
+        Assertions.assertFalse(lockTable.remove(tableId, "1", hash, 200L));
+        Assertions.assertTrue(lockTable.remove(tableId, "1", hash, 100L));
+        Assertions.assertEquals(RowLockTable.NO_LOCK, lockTable.get(tableId, "1", hash));
+    }
+
+    @Test
+    public void collisionTest() {
+        RowLockTable lockTable = new RowLockTable();
+        int tableId = lockTable.tableId("tb_1", "t");
+        // rows with the same hash are told apart by the pk
+        long hash = 42L;
+        Assertions.assertEquals(RowLockTable.NO_LOCK, lockTable.putIfAbsent(tableId, "1", hash, 100L));
+        Assertions.assertEquals(RowLockTable.NO_LOCK, lockTable.putIfAbsent(tableId, "2", hash, 200L));
+        Assertions.assertEquals(RowLockTable.NO_LOCK, lockTable.putIfAbsent(tableId + 1, "1", hash, 300L));
+        Assertions.assertTrue(lockTable.remove(tableId, "1", hash, 100L));
+        Assertions.assertEquals(200L, lockTable.get(tableId, "2", hash));
+        Assertions.assertEquals(300L, lockTable.get(tableId + 1, "1", hash));
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        RowLockTable lockTable = new RowLockTable();
+        int tableId = lockTable.tableId("tb_1", "t");
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 200000; i++) {
+            String pk = String.valueOf(random.nextInt(20000));
+            long hash = RowLockTable.hash(tableId, pk);
+            if (random.nextInt(3) == 0) {
+                Long transactionId = expected.remove(pk);
+                Assertions.assertEquals(transactionId != null,
+                    transactionId != null && lockTable.remove(tableId, pk, hash, transactionId));
+            } else {
+                long previous = lockTable.putIfAbsent(tableId, pk, hash, i);
+                Long transactionId = expected.putIfAbsent(pk, (long)i);
+                Assertions.assertEquals(transactionId == null ? RowLockTable.NO_LOCK : transactionId, previous);
+            }
+        }
+        Assertions.assertEquals(expected.size(), lockTable.size());
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            long hash = RowLockTable.hash(tableId, entry.getKey());
+            Assertions.assertEquals(entry.getValue(), lockTable.get(tableId, entry.getKey(), hash));
+            Assertions.assertTrue(lockTable.remove(tableId, entry.getKey(), hash, entry.getValue()));
+        }
+        Assertions.assertEquals(0, lockTable.size());
+    }
+}
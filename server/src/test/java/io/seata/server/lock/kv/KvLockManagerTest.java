@@ -0,0 +1,117 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.lock.kv;
+
+import java.io.File;
+import java.util.Arrays;
+
+import io.seata.core.exception.TransactionException;
+import io.seata.core.lock.Locker;
+import io.seata.server.lock.LockManager;
+import io.seata.server.session.BranchSession;
+import io.seata.server.storage.file.FlushDiskMode;
+import io.seata.server.storage.file.lock.FileLockManager;
+import io.seata.server.storage.kv.KvStore;
+import io.seata.server.storage.kv.lock.KvLocker;
+import org.assertj.core.util.Files;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Kv lock manager test.
+ */
+public class KvLockManagerTest {
+
+    private File dir;
+
+    private KvStore store;
+
+    private LockManager lockManager;
+
+    @BeforeEach
+    public void init() {
+        dir = Files.newTemporaryFolder();
+        store = new KvStore(dir.getAbsolutePath(), FlushDiskMode.SYNC_MODEL, 1000L);
+        lockManager = new KvLockManagerForTest(new KvLocker(store));
+    }
+
+    @AfterEach
+    public void clean() {
+        store.close();
+        Files.delete(dir);
+    }
+
+    @Test
+    public void acquireLockAllOrNothing() throws TransactionException {
+        BranchSession holder = newBranchSession("abc-123:7001", 7001, 70011, "t3:1");
+        Assertions.assertTrue(lockManager.acquireLock(holder));
+        // reentrant for the same transaction
+        Assertions.assertTrue(lockManager.acquireLock(newBranchSession("abc-123:7001", 7001, 70012, "t3:1,2")));
+
+        BranchSession other = newBranchSession("abc-123:7002", 7002, 70021, "t3:3,2,1");
+        Assertions.assertFalse(lockManager.acquireLock(other));
+        // none of the rows of the failed branch is left
+        Assertions.assertTrue(lockManager.isLockable("abc-123:7003", "abcss", "t3:3"));
+        Assertions.assertFalse(lockManager.isLockable("abc-123:7003", "abcss", "t3:2"));
+
+        Assertions.assertTrue(lockManager.releaseLock(holder));
+        Assertions.assertTrue(lockManager.isLockable("abc-123:7003", "abcss", "t3:1"));
+        Assertions.assertFalse(lockManager.isLockable("abc-123:7003", "abcss", "t3:2"));
+        Assertions.assertTrue(new KvLocker(store).releaseLock("abc-123:7001", 70012L));
+        Assertions.assertTrue(lockManager.acquireLock(other));
+    }
+
+    @Test
+    public void recoverLocks() throws TransactionException {
+        Assertions.assertTrue(lockManager.acquireLock(newBranchSession("abc-123:8001", 8001, 80011, "t4:1,2")));
+        Assertions.assertTrue(lockManager.acquireLock(newBranchSession("abc-123:8001", 8001, 80012, "t5:1")));
+        store.close();
+
+        // the locks are recovered from the disk
+        store = new KvStore(dir.getAbsolutePath(), FlushDiskMode.SYNC_MODEL, 1000L);
+        KvLocker locker = new KvLocker(store);
+        lockManager = new KvLockManagerForTest(locker);
+        Assertions.assertFalse(lockManager.isLockable("abc-123:8002", "abcss", "t4:2"));
+        Assertions.assertTrue(locker.releaseLock("abc-123:8001", Arrays.asList(80011L, 80012L)));
+        Assertions.assertTrue(lockManager.isLockable("abc-123:8002", "abcss", "t4:1,2;t5:1"));
+    }
+
+    private static BranchSession newBranchSession(String xid, long transactionId, long branchId, String lockKey) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(xid);
+        branchSession.setTransactionId(transactionId);
+        branchSession.setBranchId(branchId);
+        branchSession.setResourceId("abcss");
+        branchSession.setLockKey(lockKey);
+        return branchSession;
+    }
+
+    public static class KvLockManagerForTest extends FileLockManager {
+
+        private final Locker locker;
+
+        public KvLockManagerForTest(Locker locker) {
+            this.locker = locker;
+        }
+
+        @Override
+        public Locker getLocker(BranchSession branchSession) {
+            return locker;
+        }
+    }
+}
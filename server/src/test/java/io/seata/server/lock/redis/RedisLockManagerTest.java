@@ -94,6 +94,36 @@ public class RedisLockManagerTest {
             branchSession2.getLockKey()));
     }
 
+    @Test
+    public void acquireLockAllOrNothing() throws TransactionException {
+        BranchSession holder = newBranchSession("abc-123:7001", 7001, 70011, "t3:1");
+        Assertions.assertTrue(lockManager.acquireLock(holder));
+        // reentrant for the same transaction
+        Assertions.assertTrue(lockManager.acquireLock(newBranchSession("abc-123:7001", 7001, 70012, "t3:1,2")));
+
+        BranchSession other = newBranchSession("abc-123:7002", 7002, 70021, "t3:3,2,1");
+        Assertions.assertFalse(lockManager.acquireLock(other));
+        // none of the rows of the failed branch is left
+        Assertions.assertTrue(lockManager.isLockable("abc-123:7003", "abcss", "t3:3"));
+        Assertions.assertFalse(lockManager.isLockable("abc-123:7003", "abcss", "t3:2"));
+
+        Assertions.assertTrue(lockManager.releaseLock(holder));
+        Assertions.assertTrue(lockManager.isLockable("abc-123:7003", "abcss", "t3:1"));
+        Assertions.assertFalse(lockManager.isLockable("abc-123:7003", "abcss", "t3:2"));
+        Assertions.assertTrue(new RedisLocker().releaseLock("abc-123:7001", 70012L));
+        Assertions.assertTrue(lockManager.acquireLock(other));
+    }
+
+    private static BranchSession newBranchSession(String xid, long transactionId, long branchId, String lockKey) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(xid);
+        branchSession.setTransactionId(transactionId);
+        branchSession.setBranchId(branchId);
+        branchSession.setResourceId("abcss");
+        branchSession.setLockKey(lockKey);
+        return branchSession;
+    }
+
     @AfterAll
     public static void after() {
         server.stop();
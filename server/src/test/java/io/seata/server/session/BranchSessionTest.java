@@ -15,9 +15,11 @@
  */
 package io.seata.server.session;
 
+import io.seata.core.lock.BinaryLockKey;
 import io.seata.core.model.BranchType;
 import io.seata.server.UUIDGenerator;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -53,6 +55,23 @@ public class BranchSessionTest {
 
     }
 
+    /**
+     * Codec test of the binary lock keys.
+     */
+    @Test
+    public void codecBinaryLockKeyTest() {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setTransactionId(UUIDGenerator.generateUUID());
+        branchSession.setBranchId(1L);
+        branchSession.setResourceId("tb_1");
+        branchSession.setBinaryLockKey(BinaryLockKey.fromLockKey("t:1,2;t1:3"));
+        branchSession.setBranchType(BranchType.AT);
+        BranchSession expected = new BranchSession();
+        expected.decode(branchSession.encode());
+        Assertions.assertArrayEquals(branchSession.getBinaryLockKey(), expected.getBinaryLockKey());
+        Assertions.assertEquals("t:1,2;t1:3", expected.getLockKey());
+    }
+
     /**
      * Branch session provider object [ ] [ ].
      *
@@ -15,21 +15,30 @@
  */
 package io.seata.server.session;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import io.seata.common.XID;
+import io.seata.core.exception.TransactionException;
 import io.seata.core.model.BranchStatus;
 import io.seata.core.model.BranchType;
 import io.seata.core.model.GlobalStatus;
+import org.assertj.core.util.Files;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import io.seata.server.storage.file.session.FileSessionManager;
+import io.seata.server.storage.file.store.FileTransactionStoreManager;
+import io.seata.server.store.SessionStorable;
+import io.seata.server.store.StoreConfig;
 import java.util.stream.Stream;
 
 
@@ -41,6 +50,11 @@ import java.util.stream.Stream;
  */
 public class FileSessionManagerTest {
 
+    /**
+     * The snapshots of the tests are taken by the tests.
+     */
+    private static final long SNAPSHOT_INTERVAL = 3600000L;
+
     private static List<SessionManager> sessionManagerList;
 
     static {
@@ -228,6 +242,263 @@ public class FileSessionManagerTest {
         }
     }
 
+    /**
+     * Find timeout sessions test.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void findTimeoutSessionsTest() throws Exception {
+        for (SessionManager sessionManager : sessionManagerList) {
+            GlobalSession expiredSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 0);
+            expiredSession.setXid(XID.generateXID(expiredSession.getTransactionId()));
+            expiredSession.addSessionLifecycleListener(sessionManager);
+            expiredSession.begin();
+            GlobalSession aliveSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 60000);
+            aliveSession.setXid(XID.generateXID(aliveSession.getTransactionId()));
+            aliveSession.addSessionLifecycleListener(sessionManager);
+            aliveSession.begin();
+            Thread.sleep(10);
+
+            Collection<GlobalSession> timeoutSessions = sessionManager.findTimeoutSessions();
+            Assertions.assertEquals(1, timeoutSessions.size());
+            Assertions.assertSame(expiredSession, timeoutSessions.iterator().next());
+
+            expiredSession.close();
+            Assertions.assertTrue(sessionManager.findTimeoutSessions().isEmpty());
+            expiredSession.end();
+            aliveSession.end();
+        }
+    }
+
+    /**
+     * Find retry sessions test.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void findRetrySessionsTest() throws Exception {
+        SessionManager sessionManager = new FileSessionManager(SessionHolder.RETRY_COMMITTING_SESSION_MANAGER_NAME,
+            null);
+        GlobalSession firstSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+        firstSession.setXid(XID.generateXID(firstSession.getTransactionId()));
+        firstSession.setStatus(GlobalStatus.CommitRetrying);
+        GlobalSession secondSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 6000);
+        secondSession.setXid(XID.generateXID(secondSession.getTransactionId()));
+        secondSession.setStatus(GlobalStatus.CommitRetrying);
+        sessionManager.addGlobalSession(firstSession);
+        sessionManager.addGlobalSession(secondSession);
+        Assertions.assertEquals(2, sessionManager.findRetrySessions().size());
+
+        sessionManager.scheduleRetry(firstSession, 1, System.currentTimeMillis() + 60000);
+        Collection<GlobalSession> retrySessions = sessionManager.findRetrySessions();
+        Assertions.assertEquals(1, retrySessions.size());
+        Assertions.assertSame(secondSession, retrySessions.iterator().next());
+        Assertions.assertEquals(1, firstSession.getRetryCount());
+
+        sessionManager.removeGlobalSession(secondSession);
+        sessionManager.scheduleRetry(secondSession, 1, 0);
+        Assertions.assertTrue(sessionManager.findRetrySessions().isEmpty());
+        sessionManager.removeGlobalSession(firstSession);
+    }
+
+    /**
+     * Reload test.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void reloadTest() throws Exception {
+        File dir = Files.newTemporaryFolder();
+        try {
+            FileSessionManager sessionManager = new FileSessionManager("reload.data", dir.getAbsolutePath());
+            List<GlobalSession> expected = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test-" + i, 60000);
+                globalSession.setXid(XID.generateXID(globalSession.getTransactionId()));
+                sessionManager.addGlobalSession(globalSession);
+                for (int j = 0; j < 3; j++) {
+                    BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT,
+                        "demo-resource", "t:" + i + "-" + j, "demo-client");
+                    sessionManager.addBranchSession(globalSession, branchSession);
+                    globalSession.add(branchSession);
+                }
+                BranchSession removed = globalSession.getBranchSessions().get(0);
+                sessionManager.removeBranchSession(globalSession, removed);
+                globalSession.remove(removed);
+                if (i % 3 == 0) {
+                    sessionManager.removeGlobalSession(globalSession);
+                } else {
+                    globalSession.setStatus(GlobalStatus.Committing);
+                    sessionManager.updateGlobalSessionStatus(globalSession, GlobalStatus.Committing);
+                    expected.add(globalSession);
+                }
+            }
+            sessionManager.destroy();
+
+            FileSessionManager reloaded = new FileSessionManager("reload.data", dir.getAbsolutePath());
+            try {
+                reloaded.reload();
+                Assertions.assertEquals(expected.size(), reloaded.allSessions().size());
+                for (GlobalSession globalSession : expected) {
+                    GlobalSession found = reloaded.findGlobalSession(globalSession.getXid());
+                    Assertions.assertNotNull(found);
+                    Assertions.assertEquals(GlobalStatus.Committing, found.getStatus());
+                    Assertions.assertEquals(2, found.getBranchSessions().size());
+                    for (BranchSession branchSession : globalSession.getBranchSessions()) {
+                        Assertions.assertNotNull(found.getBranch(branchSession.getBranchId()));
+                    }
+                }
+            } finally {
+                reloaded.destroy();
+            }
+        } finally {
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Reload from snapshot test.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void reloadFromSnapshotTest() throws Exception {
+        File dir = Files.newTemporaryFolder();
+        try {
+            FileSessionManager sessionManager = newSnapshotSessionManager(dir, "snapshot.data", null);
+            List<GlobalSession> sessions = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test-" + i, 60000);
+                globalSession.setXid(XID.generateXID(globalSession.getTransactionId()));
+                sessionManager.addGlobalSession(globalSession);
+                BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT,
+                    "demo-resource", "t:" + i, "demo-client");
+                sessionManager.addBranchSession(globalSession, branchSession);
+                globalSession.add(branchSession);
+                sessions.add(globalSession);
+            }
+            for (GlobalSession globalSession : sessions.subList(0, 100)) {
+                sessionManager.removeGlobalSession(globalSession);
+            }
+            Assertions.assertTrue(((FileTransactionStoreManager)sessionManager.transactionStoreManager).snapshot());
+            Assertions.assertTrue(new File(dir, "snapshot.data.snapshot").exists());
+
+            // the log tail after the snapshot
+            for (GlobalSession globalSession : sessions.subList(100, 150)) {
+                sessionManager.removeGlobalSession(globalSession);
+            }
+            GlobalSession tailSession = new GlobalSession("demo-app", "my_test_tx_group", "test-tail", 60000);
+            tailSession.setXid(XID.generateXID(tailSession.getTransactionId()));
+            sessionManager.addGlobalSession(tailSession);
+            sessionManager.destroy();
+
+            FileSessionManager reloaded = new FileSessionManager("snapshot.data", dir.getAbsolutePath());
+            try {
+                reloaded.reload();
+                Assertions.assertEquals(51, reloaded.allSessions().size());
+                Assertions.assertNotNull(reloaded.findGlobalSession(tailSession.getXid()));
+                for (GlobalSession globalSession : sessions.subList(150, 200)) {
+                    GlobalSession found = reloaded.findGlobalSession(globalSession.getXid());
+                    Assertions.assertNotNull(found);
+                    Assertions.assertEquals(1, found.getBranchSessions().size());
+                }
+            } finally {
+                reloaded.destroy();
+            }
+        } finally {
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Snapshot interleaved with the session changes test.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void snapshotInterleavedTest() throws Exception {
+        // the last change of each round is snapshotted right after its record is logged
+        for (int round = 0; round < 4; round++) {
+            File dir = Files.newTemporaryFolder();
+            try {
+                FileSessionManager sessionManager = newSnapshotSessionManager(dir, "interleaved.data",
+                    store -> Assertions.assertTrue(store.snapshot()));
+                GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 60000);
+                globalSession.setXid(XID.generateXID(globalSession.getTransactionId()));
+                globalSession.addSessionLifecycleListener(sessionManager);
+                sessionManager.addGlobalSession(globalSession);
+                BranchSession branchSession = SessionHelper.newBranchByGlobal(globalSession, BranchType.AT,
+                    "demo-resource", "t:1", "demo-client");
+                if (round > 0) {
+                    globalSession.addBranch(branchSession);
+                }
+                if (round == 2) {
+                    globalSession.removeBranch(branchSession);
+                }
+                if (round == 3) {
+                    sessionManager.removeGlobalSession(globalSession);
+                }
+                sessionManager.destroy();
+
+                FileSessionManager reloaded = new FileSessionManager("interleaved.data", dir.getAbsolutePath());
+                try {
+                    reloaded.reload();
+                    GlobalSession found = reloaded.findGlobalSession(globalSession.getXid());
+                    if (round == 3) {
+                        Assertions.assertNull(found);
+                    } else {
+                        Assertions.assertNotNull(found);
+                        Assertions.assertEquals(round == 1 ? 1 : 0, found.getBranchSessions().size());
+                    }
+                } finally {
+                    reloaded.destroy();
+                }
+            } finally {
+                Files.delete(dir);
+            }
+        }
+    }
+
+    /**
+     * Snapshot before the record of a session is logged test.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void snapshotUnloggedTest() throws Exception {
+        File dir = Files.newTemporaryFolder();
+        try {
+            FileSessionManager sessionManager = new FileSessionManager("unlogged.data", dir.getAbsolutePath());
+            sessionManager.transactionStoreManager.shutdown();
+            sessionManager.setTransactionStoreManager(new FileTransactionStoreManager(
+                new File(dir, "unlogged.data").getAbsolutePath(), sessionManager, StoreConfig.getFlushDiskMode(),
+                SNAPSHOT_INTERVAL) {
+                @Override
+                public boolean writeSession(LogOperation logOperation, SessionStorable session) {
+                    // the session is added in memory, then its record fails to be logged
+                    Assertions.assertTrue(snapshot());
+                    return false;
+                }
+            });
+            sessionManager.reload();
+            GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 60000);
+            globalSession.setXid(XID.generateXID(globalSession.getTransactionId()));
+            Assertions.assertThrows(TransactionException.class, () -> sessionManager.addGlobalSession(globalSession));
+            sessionManager.destroy();
+
+            FileSessionManager reloaded = new FileSessionManager("unlogged.data", dir.getAbsolutePath());
+            try {
+                reloaded.reload();
+                Assertions.assertNull(reloaded.findGlobalSession(globalSession.getXid()));
+            } finally {
+                reloaded.destroy();
+            }
+        } finally {
+            Files.delete(dir);
+        }
+    }
+
     /**
      * On begin test.
      *
@@ -392,4 +663,35 @@ public class FileSessionManagerTest {
                 Arguments.of(globalSession, branchSession)
         );
     }
+
+    /**
+     * New a file session manager whose snapshots are taken by the test only.
+     *
+     * @param dir        the dir of the files
+     * @param name       the name of the file
+     * @param afterWrite called after each record is written, or null
+     * @return the reloaded file session manager
+     * @throws IOException the io exception
+     */
+    private static FileSessionManager newSnapshotSessionManager(File dir, String name,
+        Consumer<FileTransactionStoreManager> afterWrite) throws IOException {
+        FileSessionManager sessionManager = new FileSessionManager(name, dir.getAbsolutePath());
+        sessionManager.transactionStoreManager.shutdown();
+        String fullFileName = new File(dir, name).getAbsolutePath();
+        sessionManager.setTransactionStoreManager(afterWrite == null
+            ? new FileTransactionStoreManager(fullFileName, sessionManager, StoreConfig.getFlushDiskMode(),
+                SNAPSHOT_INTERVAL)
+            : new FileTransactionStoreManager(fullFileName, sessionManager, StoreConfig.getFlushDiskMode(),
+                SNAPSHOT_INTERVAL) {
+                @Override
+                public boolean writeSession(LogOperation logOperation, SessionStorable session) {
+                    boolean written = super.writeSession(logOperation, session);
+                    afterWrite.accept(this);
+                    return written;
+                }
+            });
+        // the sessions are snapshotted after they are reloaded
+        sessionManager.reload();
+        return sessionManager;
+    }
 }
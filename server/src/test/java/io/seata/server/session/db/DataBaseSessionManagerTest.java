@@ -25,7 +25,10 @@ import io.seata.server.storage.db.store.LogStoreDataBaseDAO;
 import io.seata.server.UUIDGenerator;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
+import io.seata.server.session.GlobalSessionCache;
+import io.seata.server.session.SessionCacheInvalidator;
 import io.seata.server.session.SessionCondition;
+import io.seata.server.session.SessionHolder;
 import io.seata.server.session.SessionManager;
 import io.seata.server.storage.db.session.DataBaseSessionManager;
 import io.seata.server.storage.db.store.DataBaseTransactionStoreManager;
@@ -40,6 +43,8 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The type Data base session manager test.
@@ -595,6 +600,171 @@ public class DataBaseSessionManagerTest {
         }
     }
 
+    @Test
+    public void test_findRetrySessions() throws Exception {
+        DataBaseTransactionStoreManager transactionStoreManager = DataBaseTransactionStoreManager.getInstance();
+        DataBaseSessionManager retrySessionManager =
+            new DataBaseSessionManager(SessionHolder.RETRY_ROLLBACKING_SESSION_MANAGER_NAME);
+        retrySessionManager.setTransactionStoreManager(transactionStoreManager);
+
+        List<GlobalSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            GlobalSession session = GlobalSession.createGlobalSession("test", "test", "test123", 100);
+            session.setTransactionId(146757990L + i);
+            session.setXid(XID.generateXID(session.getTransactionId()));
+            session.setBeginTime(System.currentTimeMillis());
+            session.setStatus(GlobalStatus.RollbackRetrying);
+            sessionManager.addGlobalSession(session);
+            sessions.add(session);
+        }
+        transactionStoreManager.setLogQueryLimit(2);
+        try {
+            Assertions.assertEquals(2, retrySessionManager.findRetrySessions().size());
+
+            // the backed off sessions do not fill the page, the one behind them is still found
+            long nextRetryTime = System.currentTimeMillis() + 60000;
+            retrySessionManager.scheduleRetry(sessions.get(0), 1, nextRetryTime);
+            retrySessionManager.scheduleRetry(sessions.get(1), 1, nextRetryTime);
+            Collection<GlobalSession> found = retrySessionManager.findRetrySessions();
+            Assertions.assertEquals(1, found.size());
+            Assertions.assertEquals(sessions.get(2).getXid(), found.iterator().next().getXid());
+
+            retrySessionManager.scheduleRetry(sessions.get(2), 1, nextRetryTime);
+            Assertions.assertTrue(retrySessionManager.findRetrySessions().isEmpty());
+        } finally {
+            transactionStoreManager.setLogQueryLimit(100);
+            Connection conn = null;
+            try {
+                conn = dataSource.getConnection();
+                for (GlobalSession session : sessions) {
+                    conn.createStatement().execute("delete from global_table where xid= '" + session.getXid() + "'");
+                }
+            } finally {
+                IOUtil.close(conn);
+            }
+        }
+    }
+
+    @Test
+    public void test_sessionCache() throws Exception {
+        List<String> published = new ArrayList<>();
+        GlobalSessionCache sessionCache = newSessionCache(published);
+        DataBaseSessionManager cachedSessionManager = new DataBaseSessionManager();
+        cachedSessionManager.setTransactionStoreManager(DataBaseTransactionStoreManager.getInstance());
+        cachedSessionManager.setSessionCache(sessionCache);
+
+        GlobalSession session = GlobalSession.createGlobalSession("test", "test", "test123", 100);
+        String xid = XID.generateXID(session.getTransactionId());
+        session.setXid(xid);
+        session.setBeginTime(System.currentTimeMillis());
+        session.setStatus(GlobalStatus.Begin);
+        try {
+            // the begun session is cached, and changed in place
+            cachedSessionManager.addGlobalSession(session);
+            Assertions.assertSame(session, cachedSessionManager.findGlobalSession(xid));
+            Assertions.assertSame(session, cachedSessionManager.findGlobalSession(xid, false));
+            BranchSession branchSession = new BranchSession();
+            branchSession.setXid(xid);
+            branchSession.setTransactionId(session.getTransactionId());
+            branchSession.setBranchId(UUIDGenerator.generateUUID());
+            branchSession.setResourceId("tb_1");
+            branchSession.setBranchType(BranchType.AT);
+            cachedSessionManager.addBranchSession(session, branchSession);
+            session.add(branchSession);
+            cachedSessionManager.updateBranchSessionStatus(branchSession, BranchStatus.PhaseOne_Done);
+            Assertions.assertSame(session, cachedSessionManager.findGlobalSession(xid));
+            Assertions.assertEquals(2, published.size());
+
+            // a write of another instance evicts the cached one
+            GlobalSession other = DataBaseTransactionStoreManager.getInstance().readSession(xid, false);
+            cachedSessionManager.updateGlobalSessionStatus(other, GlobalStatus.Committing);
+            GlobalSession reread = cachedSessionManager.findGlobalSession(xid);
+            Assertions.assertNotSame(session, reread);
+            Assertions.assertEquals(GlobalStatus.Committing, reread.getStatus());
+            Assertions.assertEquals(1, reread.getBranchSessions().size());
+            Assertions.assertSame(reread, cachedSessionManager.findGlobalSession(xid));
+
+            // the changes of the other nodes evict it as well
+            sessionCache.evict(xid);
+            Assertions.assertNotSame(reread, cachedSessionManager.findGlobalSession(xid));
+
+            cachedSessionManager.removeBranchSession(reread, branchSession);
+            cachedSessionManager.removeGlobalSession(reread);
+            Assertions.assertNull(sessionCache.get(xid));
+            Assertions.assertNull(cachedSessionManager.findGlobalSession(xid));
+            Assertions.assertEquals(0, sessionCache.size());
+        } finally {
+            Connection conn = null;
+            try {
+                conn = dataSource.getConnection();
+                conn.createStatement().execute("delete from branch_table where xid= '" + xid + "'");
+                conn.createStatement().execute("delete from global_table where xid= '" + xid + "'");
+            } finally {
+                IOUtil.close(conn);
+            }
+        }
+    }
 
+    @Test
+    public void test_sessionCacheStatusCheck() throws Exception {
+        GlobalSessionCache sessionCache = newSessionCache(new ArrayList<>());
+        DataBaseSessionManager cachedSessionManager = new DataBaseSessionManager();
+        cachedSessionManager.setTransactionStoreManager(DataBaseTransactionStoreManager.getInstance());
+        cachedSessionManager.setSessionCache(sessionCache);
 
+        GlobalSession session = GlobalSession.createGlobalSession("test", "test", "test123", 100);
+        String xid = XID.generateXID(session.getTransactionId());
+        session.setXid(xid);
+        session.setBeginTime(System.currentTimeMillis());
+        session.setStatus(GlobalStatus.Begin);
+        Connection conn = null;
+        try {
+            conn = dataSource.getConnection();
+            cachedSessionManager.addGlobalSession(session);
+            Assertions.assertEquals(GlobalStatus.Begin,
+                cachedSessionManager.lockAndExecute(session, session::getStatus));
+
+            // another node rolls back the transaction, before its invalidation arrives
+            conn.createStatement().execute("update global_table set status = " + GlobalStatus.Rollbacking.getCode()
+                + " where xid= '" + xid + "'");
+            Assertions.assertSame(session, cachedSessionManager.findGlobalSession(xid));
+            Assertions.assertEquals(GlobalStatus.Rollbacking,
+                cachedSessionManager.lockAndExecute(session, session::getStatus));
+            Assertions.assertFalse(session.isActive());
+            Assertions.assertNull(sessionCache.get(xid));
+
+            // another node ends the transaction
+            GlobalSession reread = cachedSessionManager.findGlobalSession(xid);
+            conn.createStatement().execute("delete from global_table where xid= '" + xid + "'");
+            Assertions.assertEquals(GlobalStatus.Finished,
+                cachedSessionManager.lockAndExecute(reread, reread::getStatus));
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.createStatement().execute("delete from global_table where xid= '" + xid + "'");
+                }
+            } finally {
+                IOUtil.close(conn);
+            }
+        }
+    }
+
+    private static GlobalSessionCache newSessionCache(List<String> published) {
+        GlobalSessionCache sessionCache = new GlobalSessionCache(100, 60000);
+        sessionCache.setInvalidator(new SessionCacheInvalidator() {
+            @Override
+            public void start(Consumer<String> invalidation) {
+            }
+
+            @Override
+            public void publish(String xid) {
+                published.add(xid);
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+        return sessionCache;
+    }
 }
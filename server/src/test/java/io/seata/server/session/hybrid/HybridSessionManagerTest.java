@@ -0,0 +1,226 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.session.hybrid;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+
+import io.seata.core.model.BranchStatus;
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import io.seata.core.store.GlobalTransactionDO;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.storage.db.lock.LockStoreDataBaseDAO;
+import io.seata.server.storage.db.store.LogStoreDataBaseDAO;
+import io.seata.server.storage.hybrid.WriteBehindLog;
+import io.seata.server.storage.hybrid.lock.HybridLockManager;
+import io.seata.server.storage.hybrid.session.HybridSessionManager;
+import io.seata.server.storage.hybrid.store.HybridTransactionStoreManager;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Hybrid session manager test.
+ */
+public class HybridSessionManagerTest {
+
+    private static BasicDataSource dataSource;
+
+    private static LogStoreDataBaseDAO logStoreDataBaseDAO;
+
+    private static LockStoreDataBaseDAO lockStoreDataBaseDAO;
+
+    @BeforeAll
+    public static void start() throws SQLException {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:./db_store/hybrid");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        prepareTable();
+
+        logStoreDataBaseDAO = new LogStoreDataBaseDAO(dataSource);
+        logStoreDataBaseDAO.setDbType("h2");
+        logStoreDataBaseDAO.setGlobalTable("global_table");
+        logStoreDataBaseDAO.setBranchTable("branch_table");
+        logStoreDataBaseDAO.initTransactionNameSize();
+
+        lockStoreDataBaseDAO = new LockStoreDataBaseDAO(dataSource);
+        lockStoreDataBaseDAO.setDbType("h2");
+        lockStoreDataBaseDAO.setLockTable("lock_table");
+    }
+
+    @AfterAll
+    public static void stop() throws SQLException {
+        dataSource.close();
+    }
+
+    private static void prepareTable() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement()) {
+            s.execute("drop table if exists global_table");
+            s.execute("CREATE TABLE global_table ( xid varchar(96),  transaction_id long , STATUS int,  application_id varchar(32), transaction_service_group varchar(32) ,transaction_name varchar(128) ,timeout int,  begin_time long, application_data varchar(500), gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+            s.execute("drop table if exists branch_table");
+            s.execute("CREATE TABLE branch_table ( xid varchar(96),  transaction_id long , branch_id long, resource_group_id varchar(32), resource_id varchar(32) ,lock_key varchar(64) ,branch_type varchar(32) ,  status int , client_id varchar(128),  application_data varchar(500),  gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+            s.execute("drop table if exists lock_table");
+            s.execute("CREATE TABLE lock_table ( xid varchar(96) ,  transaction_id long , branch_id long, resource_id varchar(32) ,table_name varchar(32) ,pk varchar(32) ,  row_key  varchar(128) primary key not null, gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+        }
+    }
+
+    @Test
+    public void testWriteBehindAndRestore() throws Exception {
+        WriteBehindLog writeBehindLog = new WriteBehindLog(logStoreDataBaseDAO, lockStoreDataBaseDAO, 1000L, 100,
+            5000L);
+        HybridTransactionStoreManager storeManager = new HybridTransactionStoreManager(writeBehindLog);
+        HybridLockManager lockManager = new HybridLockManager();
+        lockManager.setWriteBehindLog(writeBehindLog);
+        try {
+            HybridSessionManager sessionManager = newSessionManager(storeManager);
+            GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 60000);
+            globalSession.setBeginTime(System.currentTimeMillis());
+            sessionManager.addGlobalSession(globalSession);
+            BranchSession branchSession = newBranchSession(globalSession, "ht1:1,2;ht2:3");
+            Assertions.assertTrue(lockManager.acquireLock(branchSession));
+            sessionManager.addBranchSession(globalSession, branchSession);
+            // the server stops before the branch is written
+            BranchSession unregistered = newBranchSession(globalSession, "ht1:4");
+            Assertions.assertTrue(lockManager.acquireLock(unregistered));
+
+            // the decision is written before it is acknowledged, with all the earlier changes
+            globalSession.setStatus(GlobalStatus.Committing);
+            sessionManager.updateGlobalSessionStatus(globalSession, GlobalStatus.Committing);
+            Assertions.assertEquals(GlobalStatus.Committing.getCode(), queryStatus(globalSession.getXid()));
+            Assertions.assertEquals(4, countLocks(globalSession.getXid()));
+
+            // the sessions and the lock keys are restored from the db
+            lockManager.cleanAllLocks();
+            HybridSessionManager restored = newSessionManager(storeManager);
+            restored.reload();
+            GlobalSession found = restored.findGlobalSession(globalSession.getXid());
+            Assertions.assertEquals(GlobalStatus.Committing, found.getStatus());
+            Assertions.assertEquals(1, found.getBranchSessions().size());
+            Assertions.assertEquals("ht1:1,2;ht2:3", found.getBranch(branchSession.getBranchId()).getLockKey());
+            Assertions.assertEquals(3, countLocks(globalSession.getXid()));
+
+            Assertions.assertTrue(lockManager.acquireLock(found.getBranch(branchSession.getBranchId())));
+            Assertions.assertFalse(lockManager.isLockable("other:1", "my_test_resource", "ht2:3"));
+            Assertions.assertTrue(lockManager.releaseGlobalSessionLock(found));
+            restored.removeGlobalSession(found);
+            Assertions.assertTrue(writeBehindLog.flush(5000L));
+            Assertions.assertNull(logStoreDataBaseDAO.queryGlobalTransactionDO(globalSession.getXid()));
+            Assertions.assertEquals(0, countLocks(globalSession.getXid()));
+        } finally {
+            lockManager.cleanAllLocks();
+            storeManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testMaxLag() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        LogStoreDataBaseDAO stalledLogStore = new LogStoreDataBaseDAO(dataSource) {
+            @Override
+            public boolean insertGlobalTransactionDO(GlobalTransactionDO globalTransactionDO) {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.insertGlobalTransactionDO(globalTransactionDO);
+            }
+        };
+        stalledLogStore.setDbType("h2");
+        stalledLogStore.setGlobalTable("global_table");
+        stalledLogStore.setBranchTable("branch_table");
+        stalledLogStore.initTransactionNameSize();
+        WriteBehindLog writeBehindLog = new WriteBehindLog(stalledLogStore, lockStoreDataBaseDAO, 0L, 100, 200L);
+        try {
+            GlobalTransactionDO first = newGlobalTransactionDO("hybrid:1", 1L);
+            Assertions.assertTrue(writeBehindLog.write(LogOperation.GLOBAL_ADD, first, false));
+            // the writer is stalled by the first change
+            Thread.sleep(200L);
+            Assertions.assertTrue(writeBehindLog.write(LogOperation.GLOBAL_UPDATE, first, false));
+            Thread.sleep(10L);
+            Assertions.assertTrue(writeBehindLog.getLag() > 0);
+            Assertions.assertFalse(writeBehindLog.write(LogOperation.GLOBAL_REMOVE, first, false));
+            Assertions.assertFalse(writeBehindLog.flush(100L));
+
+            stalled.countDown();
+            Assertions.assertTrue(writeBehindLog.flush(5000L));
+            Assertions.assertEquals(0L, writeBehindLog.getLag());
+            Assertions.assertTrue(writeBehindLog.write(LogOperation.GLOBAL_REMOVE, first, true));
+            Assertions.assertNull(stalledLogStore.queryGlobalTransactionDO(first.getXid()));
+        } finally {
+            stalled.countDown();
+            writeBehindLog.shutdown();
+        }
+    }
+
+    private static HybridSessionManager newSessionManager(HybridTransactionStoreManager storeManager)
+        throws Exception {
+        HybridSessionManager sessionManager = new HybridSessionManager("hybrid_test");
+        sessionManager.setTransactionStoreManager(storeManager);
+        return sessionManager;
+    }
+
+    private static BranchSession newBranchSession(GlobalSession globalSession, String lockKey) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(globalSession.getXid());
+        branchSession.setTransactionId(globalSession.getTransactionId());
+        branchSession.setBranchId(System.nanoTime());
+        branchSession.setBranchType(BranchType.AT);
+        branchSession.setResourceId("my_test_resource");
+        branchSession.setClientId("my_test_client");
+        branchSession.setStatus(BranchStatus.Registered);
+        branchSession.setLockKey(lockKey);
+        return branchSession;
+    }
+
+    private static GlobalTransactionDO newGlobalTransactionDO(String xid, long transactionId) {
+        GlobalTransactionDO globalTransactionDO = new GlobalTransactionDO();
+        globalTransactionDO.setXid(xid);
+        globalTransactionDO.setTransactionId(transactionId);
+        globalTransactionDO.setStatus(GlobalStatus.Begin.getCode());
+        globalTransactionDO.setApplicationId("demo-app");
+        globalTransactionDO.setTransactionServiceGroup("my_test_tx_group");
+        globalTransactionDO.setTransactionName("test");
+        globalTransactionDO.setTimeout(60000);
+        globalTransactionDO.setBeginTime(System.currentTimeMillis());
+        return globalTransactionDO;
+    }
+
+    private static int queryStatus(String xid) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement();
+             ResultSet rs = s.executeQuery("select status from global_table where xid = '" + xid + "'")) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    private static int countLocks(String xid) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement s = conn.createStatement();
+             ResultSet rs = s.executeQuery("select count(1) from lock_table where xid = '" + xid + "'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -17,6 +17,12 @@
 package io.seata.server.session.redis;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import com.github.fppt.jedismock.RedisServer;
 import io.seata.common.XID;
 import io.seata.core.exception.TransactionException;
@@ -26,13 +32,16 @@ import io.seata.core.model.GlobalStatus;
 import io.seata.server.UUIDGenerator;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionCondition;
 import io.seata.server.session.SessionManager;
 import io.seata.server.storage.redis.JedisPooledFactory;
 import io.seata.server.storage.redis.session.RedisSessionManager;
 import io.seata.server.storage.redis.store.RedisTransactionStoreManager;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
@@ -50,7 +59,16 @@ public class RedisSeesionManagerTest {
         JedisPoolConfig poolConfig = new JedisPoolConfig();
         poolConfig.setMinIdle(1);
         poolConfig.setMaxIdle(10);
-        JedisPooledFactory.getJedisPoolInstance(new JedisPool(poolConfig, "127.0.0.1", 6789, 60000));
+        JedisPool jedisPool =
+            JedisPooledFactory.getJedisPoolInstance(new JedisPool(poolConfig, "127.0.0.1", 6789, 60000));
+        // the pool may be left by another test with the idle connections to its stopped server, reconnect them
+        List<Jedis> idles = new ArrayList<>();
+        for (int i = jedisPool.getNumIdle(); i > 0; i--) {
+            Jedis jedis = jedisPool.getResource();
+            jedis.quit();
+            idles.add(jedis);
+        }
+        idles.forEach(Jedis::close);
         RedisTransactionStoreManager transactionStoreManager = RedisTransactionStoreManager.getInstance();
         RedisSessionManager redisSessionManager = new RedisSessionManager();
         redisSessionManager.setTransactionStoreManager(transactionStoreManager);
@@ -158,6 +176,84 @@ public class RedisSeesionManagerTest {
         sessionManager.updateBranchSessionStatus(branchSession, BranchStatus.PhaseOne_Timeout);
     }
 
+    @Test
+    public void test_findGlobalSessionsByStatus() throws Exception {
+        GlobalSession begin = newGlobalSession();
+        sessionManager.addGlobalSession(begin);
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(begin.getXid());
+        branchSession.setTransactionId(begin.getTransactionId());
+        branchSession.setBranchId(UUIDGenerator.generateUUID());
+        branchSession.setResourceId("tb_1");
+        branchSession.setBranchType(BranchType.AT);
+        branchSession.setStatus(BranchStatus.Registered);
+        sessionManager.addBranchSession(begin, branchSession);
+
+        GlobalSession committing = newGlobalSession();
+        sessionManager.addGlobalSession(committing);
+        sessionManager.updateGlobalSessionStatus(committing, GlobalStatus.Committing);
+
+        GlobalSession removed = newGlobalSession();
+        sessionManager.addGlobalSession(removed);
+        sessionManager.removeGlobalSession(removed);
+
+        List<GlobalSession> sessions = sessionManager.findGlobalSessions(
+            new SessionCondition(new GlobalStatus[] {GlobalStatus.Begin}));
+        Map<String, GlobalSession> sessionMap = sessions.stream().collect(
+            Collectors.toMap(GlobalSession::getXid, Function.identity()));
+        Assertions.assertTrue(sessionMap.containsKey(begin.getXid()));
+        Assertions.assertEquals(1, sessionMap.get(begin.getXid()).getBranchSessions().size());
+        Assertions.assertFalse(sessionMap.containsKey(committing.getXid()));
+        Assertions.assertFalse(sessionMap.containsKey(removed.getXid()));
+
+        sessions = sessionManager.findGlobalSessions(
+            new SessionCondition(new GlobalStatus[] {GlobalStatus.Committing}));
+        Assertions.assertTrue(sessions.stream().anyMatch(session -> session.getXid().equals(committing.getXid())));
+        Assertions.assertTrue(sessions.stream().allMatch(session -> session.getStatus() == GlobalStatus.Committing));
+    }
+
+    @Test
+    public void test_findGlobalSessionsByStatusesSharesLimit() throws Exception {
+        List<GlobalSession> begins = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            GlobalSession begin = newGlobalSession();
+            sessionManager.addGlobalSession(begin);
+            begins.add(begin);
+        }
+        GlobalSession timeoutRollbacking = newGlobalSession();
+        sessionManager.addGlobalSession(timeoutRollbacking);
+        sessionManager.updateGlobalSessionStatus(timeoutRollbacking, GlobalStatus.TimeoutRollbacking);
+
+        // the later status is not starved by the begin sessions filling the query limit
+        List<GlobalSession> sessions = sessionManager.findGlobalSessions(
+            new SessionCondition(new GlobalStatus[] {GlobalStatus.Begin, GlobalStatus.TimeoutRollbacking}));
+        Assertions.assertEquals(100, sessions.size());
+        Assertions.assertTrue(sessions.stream().anyMatch(
+            session -> session.getXid().equals(timeoutRollbacking.getXid())));
+
+        for (GlobalSession begin : begins) {
+            sessionManager.removeGlobalSession(begin);
+        }
+        sessionManager.removeGlobalSession(timeoutRollbacking);
+    }
+
+    @Test
+    public void test_indexStatuses() {
+        try (Jedis jedis = JedisPooledFactory.getJedisInstance()) {
+            // the done marker is set and the lock of the indexing node is released
+            Assertions.assertTrue(jedis.exists("SEATA_STATUS_INDEXED"));
+            Assertions.assertFalse(jedis.exists("SEATA_STATUS_INDEXING"));
+        }
+    }
+
+    private static GlobalSession newGlobalSession() {
+        GlobalSession session = GlobalSession.createGlobalSession("test", "test", "test123", 100);
+        session.setXid(XID.generateXID(session.getTransactionId()));
+        session.setBeginTime(System.currentTimeMillis());
+        session.setStatus(GlobalStatus.Begin);
+        return session;
+    }
+
     @AfterAll
     public static void after() {
         server.stop();
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+/**
+ * The type Jedis pooled factory test.
+ */
+public class JedisPooledFactoryTest {
+
+    @Test
+    public void testGroupBySlot() {
+        List<String> keys = Arrays.asList("SEATA_ROW_LOCK_{a}1", "SEATA_ROW_LOCK_{b}1", "SEATA_ROW_LOCK_{a}2",
+            "SEATA_GLOBAL_LOCK_{b}xid");
+        Collection<List<String>> single = JedisPooledFactory.groupBySlot(keys, key -> key, false);
+        Assertions.assertEquals(1, single.size());
+        Assertions.assertEquals(keys, single.iterator().next());
+
+        List<List<String>> groups = new ArrayList<>(JedisPooledFactory.groupBySlot(keys, key -> key, true));
+        Assertions.assertEquals(2, groups.size());
+        Assertions.assertEquals(Arrays.asList("SEATA_ROW_LOCK_{a}1", "SEATA_ROW_LOCK_{a}2"), groups.get(0));
+        Assertions.assertEquals(Arrays.asList("SEATA_ROW_LOCK_{b}1", "SEATA_GLOBAL_LOCK_{b}xid"), groups.get(1));
+        for (List<String> group : groups) {
+            Set<Integer> slots = new HashSet<>();
+            group.forEach(key -> slots.add(JedisClusterCRC16.getSlot(key)));
+            Assertions.assertEquals(1, slots.size());
+        }
+    }
+
+    @Test
+    public void testGetTransactionTag() {
+        Assertions.assertEquals("", JedisPooledFactory.getTransactionTag(130L, false, 64));
+        Assertions.assertEquals("{2}", JedisPooledFactory.getTransactionTag(130L, true, 64));
+        Assertions.assertEquals("{0}", JedisPooledFactory.getTransactionTag(130L, true, 1));
+
+        Assertions.assertEquals(Arrays.asList(""), JedisPooledFactory.getTransactionTags(false, 64));
+        List<String> tags = JedisPooledFactory.getTransactionTags(true, 4);
+        Assertions.assertEquals(Arrays.asList("{0}", "{1}", "{2}", "{3}"), tags);
+        for (long transactionId = 0; transactionId < 16; transactionId++) {
+            Assertions.assertTrue(tags.contains(JedisPooledFactory.getTransactionTag(transactionId, true, 4)));
+        }
+    }
+
+    @Test
+    public void testGetHashTag() {
+        Assertions.assertEquals("jdbc:mysql://127.0.0.1:3306/seata", JedisPooledFactory.getHashTag(
+            "jdbc:mysql://127.0.0.1:3306/seata", false));
+        Assertions.assertEquals("{jdbc:mysql://127.0.0.1:3306/seata}", JedisPooledFactory.getHashTag(
+            "jdbc:mysql://127.0.0.1:3306/seata", true));
+
+        // the members of a group share the group in the single mode, and are spread over the shards in the cluster
+        String table = "jdbc:mysql://127.0.0.1:3306/seata^^^t";
+        Assertions.assertEquals(table, JedisPooledFactory.getHashTag(table, "1", false, 64));
+        Set<String> tags = new HashSet<>();
+        for (int pk = 0; pk < 100; pk++) {
+            String tag = JedisPooledFactory.getHashTag(table, String.valueOf(pk), true, 8);
+            Assertions.assertTrue(tag.startsWith("{" + table + "#") && tag.endsWith("}"));
+            Assertions.assertEquals(tag, JedisPooledFactory.getHashTag(table, String.valueOf(pk), true, 8));
+            tags.add(tag);
+        }
+        Assertions.assertEquals(8, tags.size());
+    }
+}
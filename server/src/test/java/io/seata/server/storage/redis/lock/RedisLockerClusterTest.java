@@ -0,0 +1,249 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis.lock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import io.seata.core.lock.RowLock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Builder;
+import redis.clients.jedis.BuilderFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * The slot by slot acquiring of the cluster mode, on an in-memory redis which checks that the commands of a
+ * connection are in the slot it is opened for.
+ */
+public class RedisLockerClusterTest {
+
+    private static final String XID = "127.0.0.1:8091:1001";
+
+    private static final String GLOBAL_LOCK_KEY = "SEATA_GLOBAL_LOCK_" + XID;
+
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+
+    private final Set<String> brokenKeys = new HashSet<>();
+
+    private final RedisLocker locker = new RedisLocker(true) {
+        @Override
+        <T> T execute(String key, Function<Jedis, T> callback) {
+            return callback.apply(new SlotJedis(JedisClusterCRC16.getSlot(key)));
+        }
+    };
+
+    @BeforeEach
+    public void check() {
+        // the rows and the hash of the xid are in three slots
+        Set<Integer> slots = new HashSet<>(Arrays.asList(JedisClusterCRC16.getSlot(rowLockKey("1")),
+            JedisClusterCRC16.getSlot(rowLockKey("2")), JedisClusterCRC16.getSlot(GLOBAL_LOCK_KEY)));
+        Assertions.assertEquals(3, slots.size());
+    }
+
+    @Test
+    public void testAcquireAndRelease() {
+        Assertions.assertTrue(locker.acquireLock(rowLocks(XID, 1L, "1", "2")));
+        Assertions.assertEquals(XID, hget(rowLockKey("1"), "xid"));
+        Assertions.assertEquals(XID, hget(rowLockKey("2"), "xid"));
+        Assertions.assertEquals("1", hget(GLOBAL_LOCK_KEY, rowLockKey("1")));
+        Assertions.assertEquals("1", hget(GLOBAL_LOCK_KEY, rowLockKey("2")));
+
+        Assertions.assertTrue(locker.releaseLock(XID, 1L));
+        Assertions.assertTrue(hashes.isEmpty());
+    }
+
+    @Test
+    public void testReacquireKeepsIndex() {
+        Assertions.assertTrue(locker.acquireLock(rowLocks(XID, 1L, "1")));
+        String other = "127.0.0.1:8091:1002";
+        Assertions.assertTrue(locker.acquireLock(rowLocks(other, 2L, "2")));
+        // the row 1 is held by the xid before, it is kept when the later slot conflicts
+        Assertions.assertFalse(locker.acquireLock(rowLocks(XID, 3L, "1", "2")));
+        Assertions.assertEquals(XID, hget(rowLockKey("1"), "xid"));
+        Assertions.assertEquals("1", hget(GLOBAL_LOCK_KEY, rowLockKey("1")));
+        Assertions.assertNull(hget(GLOBAL_LOCK_KEY, rowLockKey("2")));
+        Assertions.assertEquals(other, hget(rowLockKey("2"), "xid"));
+    }
+
+    @Test
+    public void testConflictInLaterSlot() {
+        String other = "127.0.0.1:8091:1002";
+        Assertions.assertTrue(locker.acquireLock(rowLocks(other, 2L, "2")));
+        Assertions.assertFalse(locker.acquireLock(rowLocks(XID, 1L, "1", "2")));
+        Assertions.assertFalse(hashes.containsKey(rowLockKey("1")));
+        Assertions.assertFalse(hashes.containsKey(GLOBAL_LOCK_KEY));
+        Assertions.assertEquals(other, hget(rowLockKey("2"), "xid"));
+    }
+
+    @Test
+    public void testFailureInLaterSlot() {
+        // the row lock of the later slot can not be read as a hash
+        brokenKeys.add(rowLockKey("2"));
+        Assertions.assertThrows(JedisDataException.class,
+            () -> locker.acquireLock(rowLocks(XID, 1L, "1", "2")));
+        // the row 1 is released, the row 2 is left in the hash of the xid for the release of the transaction
+        Assertions.assertFalse(hashes.containsKey(rowLockKey("1")));
+        Assertions.assertNull(hget(GLOBAL_LOCK_KEY, rowLockKey("1")));
+        Assertions.assertEquals("1", hget(GLOBAL_LOCK_KEY, rowLockKey("2")));
+
+        brokenKeys.clear();
+        Assertions.assertTrue(locker.releaseLock(XID, 1L));
+        Assertions.assertTrue(hashes.isEmpty());
+    }
+
+    private String hget(String key, String field) {
+        return hashes.getOrDefault(key, new HashMap<>()).get(field);
+    }
+
+    private static String rowLockKey(String pk) {
+        return "SEATA_ROW_LOCK_res^^^t^^^" + pk;
+    }
+
+    private static List<RowLock> rowLocks(String xid, long branchId, String... pks) {
+        List<RowLock> rowLocks = new ArrayList<>();
+        for (String pk : pks) {
+            RowLock rowLock = new RowLock();
+            rowLock.setXid(xid);
+            rowLock.setTransactionId(Long.parseLong(xid.substring(xid.lastIndexOf(':') + 1)));
+            rowLock.setBranchId(branchId);
+            rowLock.setResourceId("res");
+            rowLock.setTableName("t");
+            rowLock.setPk(pk);
+            rowLocks.add(rowLock);
+        }
+        return rowLocks;
+    }
+
+    private static <T> Response<T> response(Builder<T> builder, Object data) {
+        Response<T> response = new Response<>(builder);
+        response.set(data);
+        return response;
+    }
+
+    /**
+     * A connection to the node of a slot, without the lua scripts.
+     */
+    private class SlotJedis extends Jedis {
+
+        private final int slot;
+
+        SlotJedis(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String scriptLoad(String script) {
+            throw new JedisDataException("ERR unknown command 'SCRIPT'");
+        }
+
+        @Override
+        public Map<String, String> hgetAll(String key) {
+            return new HashMap<>(hash(key, false));
+        }
+
+        @Override
+        public Long hdel(String key, String... fields) {
+            Map<String, String> hash = hash(key, false);
+            long count = Arrays.stream(fields).filter(field -> hash.remove(field) != null).count();
+            if (hash.isEmpty()) {
+                hashes.remove(key);
+            }
+            return count;
+        }
+
+        @Override
+        public Pipeline pipelined() {
+            return new Pipeline() {
+                @Override
+                public Response<String> hget(String key, String field) {
+                    Object value;
+                    try {
+                        value = encode(hash(key, false).get(field));
+                    } catch (JedisDataException e) {
+                        value = e;
+                    }
+                    return response(BuilderFactory.STRING, value);
+                }
+
+                @Override
+                public Response<Long> hsetnx(String key, String field, String value) {
+                    return response(BuilderFactory.LONG, hash(key, true).putIfAbsent(field, value) == null ? 1L : 0L);
+                }
+
+                @Override
+                public Response<Long> hset(String key, String field, String value) {
+                    return response(BuilderFactory.LONG, hash(key, true).put(field, value) == null ? 1L : 0L);
+                }
+
+                @Override
+                public Response<String> hmset(String key, Map<String, String> hash) {
+                    hash(key, true).putAll(hash);
+                    return response(BuilderFactory.STRING, encode("OK"));
+                }
+
+                @Override
+                public Response<Long> hdel(String key, String... fields) {
+                    return response(BuilderFactory.LONG, SlotJedis.this.hdel(key, fields));
+                }
+
+                @Override
+                public Response<Long> del(String key) {
+                    checkSlot(key);
+                    return response(BuilderFactory.LONG, hashes.remove(key) == null ? 0L : 1L);
+                }
+
+                @Override
+                public void sync() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private Map<String, String> hash(String key, boolean create) {
+            checkSlot(key);
+            if (brokenKeys.contains(key)) {
+                throw new JedisDataException(
+                    "WRONGTYPE Operation against a key holding the wrong kind of value");
+            }
+            return create ? hashes.computeIfAbsent(key, k -> new HashMap<>()) : hashes.getOrDefault(key,
+                new HashMap<>());
+        }
+
+        private void checkSlot(String key) {
+            Assertions.assertEquals(slot, JedisClusterCRC16.getSlot(key), "the key is out of the slot: " + key);
+        }
+
+        private byte[] encode(String value) {
+            return value == null ? null : SafeEncoder.encode(value);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.storage.redis.lock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import redis.clients.jedis.Jedis;
+
+/**
+ * The lua scripts of the redis locker, run by a redis in docker. The redis mock of the other tests does not run the
+ * scripts, so this test is skipped without docker.
+ */
+public class RedisLockerScriptTest {
+
+    private static final String GLOBAL_LOCK_KEY = "SEATA_GLOBAL_LOCK_xid-1";
+
+    private static GenericContainer<?> redis;
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    public static void start() {
+        boolean dockerAvailable;
+        try {
+            DockerClientFactory.instance().client();
+            dockerAvailable = true;
+        } catch (IllegalStateException e) {
+            dockerAvailable = false;
+        }
+        Assumptions.assumeTrue(dockerAvailable, "docker is not available");
+        redis = new GenericContainer<>("redis:5.0.9").withExposedPorts(6379);
+        redis.start();
+        jedis = new Jedis(redis.getContainerIpAddress(), redis.getMappedPort(6379));
+    }
+
+    @AfterAll
+    public static void stop() {
+        if (jedis != null) {
+            jedis.close();
+        }
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @BeforeEach
+    public void clean() {
+        jedis.flushAll();
+    }
+
+    @Test
+    public void testAcquireConflict() {
+        Assertions.assertEquals(Arrays.asList("r1", "r2"), acquire("xid-1", 1L, GLOBAL_LOCK_KEY, "r1", "r2"));
+        Assertions.assertEquals("xid-1", jedis.hget("r1", "xid"));
+        Assertions.assertEquals("1", jedis.hget("r1", "branchId"));
+        Assertions.assertEquals("t", jedis.hget("r1", "tableName"));
+        Assertions.assertEquals("r2", jedis.hget("r2", "pk"));
+        Assertions.assertEquals("1", jedis.hget(GLOBAL_LOCK_KEY, "r2"));
+
+        // all or nothing, the free row of a conflicting acquire is not locked
+        Assertions.assertEquals(0L, acquire("xid-2", 2L, null, "r3", "r2"));
+        Assertions.assertFalse(jedis.exists("r3"));
+        Assertions.assertEquals("xid-1", jedis.hget("r2", "xid"));
+
+        Assertions.assertEquals(0L, lockable("xid-2", "r3", "r1"));
+        Assertions.assertEquals(1L, lockable("xid-2", "r3"));
+        Assertions.assertEquals(1L, lockable("xid-1", "r1", "r3"));
+    }
+
+    @Test
+    public void testAcquireReentrant() {
+        Assertions.assertEquals(Arrays.asList("r1", "r2"), acquire("xid-1", 1L, GLOBAL_LOCK_KEY, "r1", "r2"));
+
+        // only the new rows are locked by the later branch, the rows locked before keep their branch
+        Assertions.assertEquals(Collections.singletonList("r3"),
+            acquire("xid-1", 2L, GLOBAL_LOCK_KEY, "r1", "r3"));
+        Assertions.assertEquals("1", jedis.hget("r1", "branchId"));
+        Assertions.assertEquals("2", jedis.hget("r3", "branchId"));
+        Assertions.assertEquals("1", jedis.hget(GLOBAL_LOCK_KEY, "r1"));
+        Assertions.assertEquals("2", jedis.hget(GLOBAL_LOCK_KEY, "r3"));
+
+        Assertions.assertEquals(Collections.emptyList(), acquire("xid-1", 3L, GLOBAL_LOCK_KEY, "r2", "r3"));
+    }
+
+    @Test
+    public void testPartialRelease() {
+        Assertions.assertEquals(Arrays.asList("r1", "r2", "r3"),
+            acquire("xid-1", 1L, GLOBAL_LOCK_KEY, "r1", "r2", "r3"));
+
+        Assertions.assertEquals(1L, release("xid-1", GLOBAL_LOCK_KEY, "r1", "r3"));
+        Assertions.assertFalse(jedis.exists("r1"));
+        Assertions.assertFalse(jedis.exists("r3"));
+        Assertions.assertEquals("xid-1", jedis.hget("r2", "xid"));
+        Assertions.assertEquals(Collections.singleton("r2"), jedis.hkeys(GLOBAL_LOCK_KEY));
+
+        // the rows held by another xid are not released
+        Assertions.assertEquals(1L, release("xid-2", null, "r2"));
+        Assertions.assertEquals("xid-1", jedis.hget("r2", "xid"));
+
+        Assertions.assertEquals(Collections.singletonList("r1"), acquire("xid-2", 2L, null, "r1"));
+        Assertions.assertEquals(0L, acquire("xid-2", 2L, null, "r2"));
+    }
+
+    private static Object acquire(String xid, long branchId, String globalLockKey, String... rowLockKeys) {
+        List<String> keys = new ArrayList<>(Arrays.asList(rowLockKeys));
+        List<String> args = new ArrayList<>();
+        args.add(xid);
+        args.add(xid.substring(xid.indexOf('-') + 1));
+        for (String rowLockKey : rowLockKeys) {
+            args.addAll(Arrays.asList(String.valueOf(branchId), "jdbc:mysql://127.0.0.1:3306/seata", "t", rowLockKey));
+        }
+        if (globalLockKey != null) {
+            keys.add(globalLockKey);
+        }
+        return jedis.eval(RedisLocker.ACQUIRE_SCRIPT, keys, args);
+    }
+
+    private static Object release(String xid, String globalLockKey, String... rowLockKeys) {
+        List<String> keys = new ArrayList<>(Arrays.asList(rowLockKeys));
+        if (globalLockKey != null) {
+            keys.add(globalLockKey);
+        }
+        return jedis.eval(RedisLocker.RELEASE_SCRIPT, keys, Arrays.asList(xid, String.valueOf(rowLockKeys.length)));
+    }
+
+    private static Object lockable(String xid, String... rowLockKeys) {
+        return jedis.eval(RedisLocker.LOCKABLE_SCRIPT, Arrays.asList(rowLockKeys), Collections.singletonList(xid));
+    }
+}
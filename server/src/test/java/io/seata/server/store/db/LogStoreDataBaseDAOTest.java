@@ -15,11 +15,14 @@
  */
 package io.seata.server.store.db;
 
+import io.seata.common.exception.StoreException;
 import io.seata.common.util.CollectionUtils;
 import io.seata.common.util.IOUtil;
 import io.seata.core.store.BranchTransactionDO;
 import io.seata.core.store.GlobalTransactionDO;
+import io.seata.server.storage.db.store.LogStoreBatchWriter;
 import io.seata.server.storage.db.store.LogStoreDataBaseDAO;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
 import org.apache.commons.dbcp2.BasicDataSource;
 
 import org.h2.store.fs.FileUtils;
@@ -32,7 +35,11 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 /**
@@ -70,7 +77,7 @@ public class LogStoreDataBaseDAOTest {
             } catch (Exception e) {
             }
 //            xid, transaction_id, status, application_id, transaction_service_group, transaction_name, timeout, begin_time, application_data, gmt_create, gmt_modified
-            s.execute("CREATE TABLE global_table ( xid varchar(96) primary key,  transaction_id long , STATUS int,  application_id varchar(32), transaction_service_group varchar(32) ,transaction_name varchar(128) ,timeout int,  begin_time long, application_data varchar(500), gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6) ) ");
+            s.execute("CREATE TABLE global_table ( xid varchar(96) primary key,  transaction_id long , STATUS int,  application_id varchar(32), transaction_service_group varchar(32) ,transaction_name varchar(128) ,timeout int,  begin_time long, application_data varchar(500), gmt_create TIMESTAMP(6) ,gmt_modified TIMESTAMP(6), deadline long as (begin_time + timeout) ) ");
             System.out.println("create table global_table success.");
 
             try {
@@ -626,6 +633,183 @@ public class LogStoreDataBaseDAOTest {
         }
     }
 
+    @Test
+    public void writeBatch() throws SQLException {
+        GlobalTransactionDO globalTransactionDO = newGlobalTransactionDO("abc-123:5001", 5001);
+        List<LogOperation> logOperations = new ArrayList<>();
+        List<Object> transactionDOs = new ArrayList<>();
+        logOperations.add(LogOperation.GLOBAL_ADD);
+        transactionDOs.add(globalTransactionDO);
+        for (int i = 0; i < 3; i++) {
+            logOperations.add(LogOperation.BRANCH_ADD);
+            transactionDOs.add(newBranchTransactionDO("abc-123:5001", 5001, 50010 + i));
+        }
+        BranchTransactionDO updated = newBranchTransactionDO("abc-123:5001", 5001, 50010);
+        updated.setStatus(2);
+        logOperations.add(LogOperation.BRANCH_UPDATE);
+        transactionDOs.add(updated);
+        logOperations.add(LogOperation.BRANCH_REMOVE);
+        transactionDOs.add(newBranchTransactionDO("abc-123:5001", 5001, 50012));
+        // the update of a missing row fails without failing the batch
+        logOperations.add(LogOperation.BRANCH_UPDATE);
+        transactionDOs.add(newBranchTransactionDO("abc-123:5001", 5001, 50019));
+
+        boolean[] results = logStoreDataBaseDAO.writeBatch(logOperations, transactionDOs);
+        Assertions.assertArrayEquals(new boolean[] {true, true, true, true, true, true, false}, results);
+
+        Assertions.assertNotNull(logStoreDataBaseDAO.queryGlobalTransactionDO("abc-123:5001"));
+        List<BranchTransactionDO> branchTransactionDOs = logStoreDataBaseDAO.queryBranchTransactionDO("abc-123:5001");
+        Assertions.assertEquals(2, branchTransactionDOs.size());
+        for (BranchTransactionDO branchTransactionDO : branchTransactionDOs) {
+            Assertions.assertEquals(branchTransactionDO.getBranchId() == 50010 ? 2 : 1,
+                branchTransactionDO.getStatus());
+        }
+
+        // a failed batch is rolled back as a whole
+        logOperations = new ArrayList<>();
+        transactionDOs = new ArrayList<>();
+        logOperations.add(LogOperation.BRANCH_ADD);
+        transactionDOs.add(newBranchTransactionDO("abc-123:5001", 5001, 50013));
+        logOperations.add(LogOperation.BRANCH_ADD);
+        transactionDOs.add(newBranchTransactionDO("abc-123:5001", 5001, 50011));
+        List<LogOperation> duplicatedOperations = logOperations;
+        List<Object> duplicatedDOs = transactionDOs;
+        Assertions.assertThrows(StoreException.class,
+            () -> logStoreDataBaseDAO.writeBatch(duplicatedOperations, duplicatedDOs));
+        Assertions.assertEquals(2, logStoreDataBaseDAO.queryBranchTransactionDO("abc-123:5001").size());
+
+        logStoreDataBaseDAO.deleteBranchTransactionDO(newBranchTransactionDO("abc-123:5001", 5001, 50010));
+        logStoreDataBaseDAO.deleteBranchTransactionDO(newBranchTransactionDO("abc-123:5001", 5001, 50011));
+        logStoreDataBaseDAO.deleteGlobalTransactionDO(globalTransactionDO);
+    }
+
+    @Test
+    public void batchWriter() throws Exception {
+        LogStoreBatchWriter batchWriter = new LogStoreBatchWriter(logStoreDataBaseDAO, 2, 16);
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long transactionId = 6000 + i;
+                String xid = "abc-123:" + transactionId;
+                futures.add(executor.submit(() -> {
+                    boolean result = batchWriter.write(LogOperation.GLOBAL_ADD,
+                        newGlobalTransactionDO(xid, transactionId), transactionId);
+                    for (int j = 0; j < 10; j++) {
+                        result &= batchWriter.write(LogOperation.BRANCH_ADD,
+                            newBranchTransactionDO(xid, transactionId, transactionId * 100 + j), transactionId);
+                    }
+                    for (int j = 0; j < 5; j++) {
+                        result &= batchWriter.write(LogOperation.BRANCH_REMOVE,
+                            newBranchTransactionDO(xid, transactionId, transactionId * 100 + j), transactionId);
+                    }
+                    return result;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assertions.assertTrue(future.get());
+            }
+            executor.shutdown();
+
+            for (int i = 0; i < 8; i++) {
+                long transactionId = 6000 + i;
+                String xid = "abc-123:" + transactionId;
+                Assertions.assertNotNull(logStoreDataBaseDAO.queryGlobalTransactionDO(xid));
+                Assertions.assertEquals(5, logStoreDataBaseDAO.queryBranchTransactionDO(xid).size());
+            }
+            // a failed write gets its own failure
+            Assertions.assertThrows(StoreException.class, () -> batchWriter.write(LogOperation.GLOBAL_ADD,
+                newGlobalTransactionDO("abc-123:6000", 6000), 6000));
+
+            for (int i = 0; i < 8; i++) {
+                long transactionId = 6000 + i;
+                String xid = "abc-123:" + transactionId;
+                for (int j = 5; j < 10; j++) {
+                    Assertions.assertTrue(batchWriter.write(LogOperation.BRANCH_REMOVE,
+                        newBranchTransactionDO(xid, transactionId, transactionId * 100 + j), transactionId));
+                }
+                Assertions.assertTrue(batchWriter.write(LogOperation.GLOBAL_REMOVE,
+                    newGlobalTransactionDO(xid, transactionId), transactionId));
+            }
+        } finally {
+            batchWriter.shutdown();
+        }
+        // the writes after the shutdown fail instead of waiting for the stopped writers
+        Assertions.assertThrows(StoreException.class, () -> batchWriter.write(LogOperation.GLOBAL_ADD,
+            newGlobalTransactionDO("abc-123:6100", 6100), 6100));
+    }
+
+    @Test
+    public void queryTimeoutGlobalTransactionDO() throws SQLException {
+        long now = System.currentTimeMillis();
+        GlobalTransactionDO expired = newGlobalTransactionDO("abc-123:timeout1", 91001);
+        expired.setBeginTime(now - 3000);
+        expired.setTimeout(1000);
+        GlobalTransactionDO earlier = newGlobalTransactionDO("abc-123:timeout2", 91002);
+        earlier.setBeginTime(now - 5000);
+        earlier.setTimeout(1000);
+        GlobalTransactionDO committing = newGlobalTransactionDO("abc-123:timeout3", 91003);
+        committing.setBeginTime(now - 3000);
+        committing.setTimeout(1000);
+        committing.setStatus(2);
+        GlobalTransactionDO alive = newGlobalTransactionDO("abc-123:timeout4", 91004);
+        alive.setBeginTime(now);
+        alive.setTimeout(60000);
+        Assertions.assertTrue(logStoreDataBaseDAO.insertGlobalTransactionDO(expired));
+        Assertions.assertTrue(logStoreDataBaseDAO.insertGlobalTransactionDO(earlier));
+        Assertions.assertTrue(logStoreDataBaseDAO.insertGlobalTransactionDO(committing));
+        Assertions.assertTrue(logStoreDataBaseDAO.insertGlobalTransactionDO(alive));
+
+        try {
+            List<String> xids = new ArrayList<>();
+            for (GlobalTransactionDO globalTransactionDO : logStoreDataBaseDAO.queryTimeoutGlobalTransactionDO(now,
+                100)) {
+                if (globalTransactionDO.getXid().startsWith("abc-123:timeout")) {
+                    xids.add(globalTransactionDO.getXid());
+                }
+            }
+            // only the expired begin transactions, in the order of the deadline
+            Assertions.assertEquals(2, xids.size());
+            Assertions.assertEquals(earlier.getXid(), xids.get(0));
+            Assertions.assertEquals(expired.getXid(), xids.get(1));
+        } finally {
+            Connection conn = null;
+            try {
+                conn = dataSource.getConnection();
+                conn.createStatement().execute("delete from global_table where xid like 'abc-123:timeout%'");
+            } finally {
+                IOUtil.close(conn);
+            }
+        }
+    }
+
+    private static GlobalTransactionDO newGlobalTransactionDO(String xid, long transactionId) {
+        GlobalTransactionDO globalTransactionDO = new GlobalTransactionDO();
+        globalTransactionDO.setXid(xid);
+        globalTransactionDO.setApplicationData("abc=878");
+        globalTransactionDO.setTransactionServiceGroup("abc");
+        globalTransactionDO.setTransactionName("test");
+        globalTransactionDO.setTransactionId(transactionId);
+        globalTransactionDO.setTimeout(20);
+        globalTransactionDO.setBeginTime(System.currentTimeMillis());
+        globalTransactionDO.setApplicationId("test");
+        globalTransactionDO.setStatus(1);
+        return globalTransactionDO;
+    }
+
+    private static BranchTransactionDO newBranchTransactionDO(String xid, long transactionId, long branchId) {
+        BranchTransactionDO branchTransactionDO = new BranchTransactionDO();
+        branchTransactionDO.setXid(xid);
+        branchTransactionDO.setTransactionId(transactionId);
+        branchTransactionDO.setBranchId(branchId);
+        branchTransactionDO.setResourceId("qqqq");
+        branchTransactionDO.setBranchType("AT");
+        branchTransactionDO.setStatus(1);
+        branchTransactionDO.setClientId("abc");
+        branchTransactionDO.setApplicationData("abc=878");
+        return branchTransactionDO;
+    }
+
     @AfterAll
     public static void clearStoreDB(){
         FileUtils.deleteRecursive("db_store", true);
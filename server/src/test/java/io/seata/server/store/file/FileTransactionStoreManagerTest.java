@@ -19,6 +19,7 @@ import io.seata.server.UUIDGenerator;
 import io.seata.server.session.BranchSession;
 import io.seata.server.session.GlobalSession;
 import io.seata.server.session.SessionManager;
+import io.seata.server.storage.file.FlushDiskMode;
 import io.seata.server.storage.file.session.FileSessionManager;
 import io.seata.server.store.StoreConfig;
 import io.seata.server.store.TransactionStoreManager;
@@ -35,6 +36,9 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author ggndnn
@@ -74,6 +78,41 @@ public class FileTransactionStoreManagerTest {
         }
     }
 
+    @Test
+    public void testSyncGroupCommit() throws Exception {
+        File seataFile = Files.newTemporaryFile();
+        FileTransactionStoreManager fileTransactionStoreManager = null;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            FileTransactionStoreManager storeManager = new FileTransactionStoreManager(seataFile.getAbsolutePath(),
+                null, FlushDiskMode.SYNC_MODEL);
+            fileTransactionStoreManager = storeManager;
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    boolean result = true;
+                    for (int j = 0; j < 50; j++) {
+                        result &= storeManager.writeSession(TransactionStoreManager.LogOperation.GLOBAL_ADD,
+                            new GlobalSession("demo-app", "my_test_tx_group", "test", 60000));
+                    }
+                    return result;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assertions.assertTrue(future.get());
+            }
+            List<TransactionWriteStore> list = fileTransactionStoreManager.readWriteStore(2000, false);
+            Assertions.assertNotNull(list);
+            Assertions.assertEquals(400, list.size());
+        } finally {
+            executor.shutdownNow();
+            if (fileTransactionStoreManager != null) {
+                fileTransactionStoreManager.shutdown();
+            }
+            Assertions.assertTrue(seataFile.delete());
+        }
+    }
+
     @Test
     public void testFindTimeoutAndSave() throws Exception {
         File seataFile = Files.newTemporaryFile();
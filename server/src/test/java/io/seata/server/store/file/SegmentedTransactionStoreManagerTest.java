@@ -0,0 +1,213 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.store.file;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionManager;
+import io.seata.server.storage.file.FlushDiskMode;
+import io.seata.server.storage.file.TransactionWriteStore;
+import io.seata.server.storage.file.store.SegmentedTransactionStoreManager;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.assertj.core.util.Files;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * The type Segmented transaction store manager test.
+ */
+public class SegmentedTransactionStoreManagerTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private File dir;
+
+    @BeforeEach
+    public void init() {
+        dir = Files.newTemporaryFolder();
+    }
+
+    @AfterEach
+    public void clean() {
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testWriteAndRecover() throws Exception {
+        List<GlobalSession> sessions = new ArrayList<>();
+        SegmentedTransactionStoreManager storeManager = newStoreManager(null);
+        try {
+            for (int i = 0; i < 100; i++) {
+                GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test-" + i, 60000);
+                sessions.add(globalSession);
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, globalSession));
+            }
+            Assertions.assertTrue(storeManager.getSegmentCount() > 1);
+        } finally {
+            storeManager.shutdown();
+        }
+
+        storeManager = newStoreManager(null);
+        try {
+            List<TransactionWriteStore> stores = readAll(storeManager);
+            Assertions.assertEquals(sessions.size(), stores.size());
+            for (int i = 0; i < sessions.size(); i++) {
+                Assertions.assertEquals(LogOperation.GLOBAL_ADD, stores.get(i).getOperate());
+                Assertions.assertEquals(sessions.get(i).getXid(),
+                    ((GlobalSession)stores.get(i).getSessionRequest()).getXid());
+            }
+            // continue writing after the recovered frames
+            GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test", 60000);
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, globalSession));
+        } finally {
+            storeManager.shutdown();
+        }
+
+        storeManager = newStoreManager(null);
+        try {
+            Assertions.assertEquals(sessions.size() + 1, readAll(storeManager).size());
+        } finally {
+            storeManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        List<GlobalSession> liveSessions = new ArrayList<>();
+        SessionManager sessionManager = Mockito.mock(SessionManager.class);
+        Mockito.when(sessionManager.allSessions()).thenReturn(liveSessions);
+        SegmentedTransactionStoreManager storeManager = newStoreManager(sessionManager);
+        GlobalSession live = null;
+        try {
+            List<GlobalSession> sessions = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test-" + i, 60000);
+                sessions.add(globalSession);
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, globalSession));
+            }
+            // the first session pins the oldest segment
+            live = sessions.get(0);
+            liveSessions.add(live);
+            for (GlobalSession globalSession : sessions.subList(1, sessions.size())) {
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_REMOVE, globalSession));
+            }
+            Assertions.assertTrue(storeManager.getSegmentCount() > 1);
+
+            storeManager.compact();
+            Assertions.assertEquals(1, storeManager.getSegmentCount());
+        } finally {
+            storeManager.shutdown();
+        }
+
+        storeManager = newStoreManager(null);
+        try {
+            Set<Long> recovered = new HashSet<>();
+            for (TransactionWriteStore store : readAll(storeManager)) {
+                long transactionId = ((GlobalSession)store.getSessionRequest()).getTransactionId();
+                if (store.getOperate() == LogOperation.GLOBAL_REMOVE) {
+                    recovered.remove(transactionId);
+                } else {
+                    recovered.add(transactionId);
+                }
+            }
+            Assertions.assertEquals(1, recovered.size());
+            Assertions.assertTrue(recovered.contains(live.getTransactionId()));
+        } finally {
+            storeManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompactAfterRestart() throws Exception {
+        List<GlobalSession> liveSessions = new ArrayList<>();
+        SessionManager sessionManager = Mockito.mock(SessionManager.class);
+        Mockito.when(sessionManager.allSessions()).thenReturn(liveSessions);
+        SegmentedTransactionStoreManager storeManager = newStoreManager(sessionManager);
+        GlobalSession live = new GlobalSession("demo-app", "my_test_tx_group", "test-live", 60000);
+        try {
+            // the branch of a global session which is never logged
+            BranchSession orphan = new BranchSession();
+            orphan.setXid("orphan");
+            orphan.setTransactionId(1L);
+            orphan.setBranchId(2L);
+            orphan.setBranchType(BranchType.AT);
+            orphan.setResourceId("demo-resource");
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.BRANCH_ADD, orphan));
+            // the finished sessions are washed at the restart without a remove record
+            for (int i = 0; i < 100; i++) {
+                GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test-" + i, 60000);
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, globalSession));
+                globalSession.setStatus(GlobalStatus.Committed);
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_UPDATE, globalSession));
+            }
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, live));
+        } finally {
+            storeManager.shutdown();
+        }
+
+        storeManager = newStoreManager(sessionManager);
+        try {
+            int segmentCount = storeManager.getSegmentCount();
+            Assertions.assertTrue(segmentCount > 1);
+            readAll(storeManager);
+            // the sessions being restored are kept
+            storeManager.compact();
+            Assertions.assertEquals(segmentCount, storeManager.getSegmentCount());
+
+            liveSessions.add(live);
+            storeManager.onSessionsReloaded();
+            storeManager.compact();
+            Assertions.assertEquals(1, storeManager.getSegmentCount());
+        } finally {
+            storeManager.shutdown();
+        }
+
+        storeManager = newStoreManager(null);
+        try {
+            List<TransactionWriteStore> stores = readAll(storeManager);
+            // only the records of the active segment are left
+            Assertions.assertTrue(stores.size() < 201);
+            Assertions.assertEquals(live.getXid(),
+                ((GlobalSession)stores.get(stores.size() - 1).getSessionRequest()).getXid());
+        } finally {
+            storeManager.shutdown();
+        }
+    }
+
+    private SegmentedTransactionStoreManager newStoreManager(SessionManager sessionManager) throws Exception {
+        return new SegmentedTransactionStoreManager(new File(dir, "root.data").getAbsolutePath(), sessionManager,
+            FlushDiskMode.SYNC_MODEL, SEGMENT_SIZE, 0, 100);
+    }
+
+    private static List<TransactionWriteStore> readAll(SegmentedTransactionStoreManager storeManager) {
+        List<TransactionWriteStore> stores = new ArrayList<>();
+        while (storeManager.hasRemaining(false)) {
+            stores.addAll(storeManager.readWriteStore(10, false));
+        }
+        return stores;
+    }
+}
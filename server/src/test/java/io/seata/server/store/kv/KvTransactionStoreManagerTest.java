@@ -0,0 +1,215 @@
+/*
+ *  Copyright 1999-2019 Seata.io Group.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.seata.server.store.kv;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.seata.core.model.BranchStatus;
+import io.seata.core.model.BranchType;
+import io.seata.core.model.GlobalStatus;
+import io.seata.server.session.BranchSession;
+import io.seata.server.session.GlobalSession;
+import io.seata.server.session.SessionCondition;
+import io.seata.server.storage.file.FlushDiskMode;
+import io.seata.server.storage.kv.KvStore;
+import io.seata.server.storage.kv.store.KvTransactionStoreManager;
+import io.seata.server.store.TransactionStoreManager.LogOperation;
+import org.assertj.core.util.Files;
+import org.h2.mvstore.MVMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The type Kv transaction store manager test.
+ */
+public class KvTransactionStoreManagerTest {
+
+    private File dir;
+
+    @BeforeEach
+    public void init() {
+        dir = Files.newTemporaryFolder();
+    }
+
+    @AfterEach
+    public void clean() {
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testWriteAndRead() {
+        KvTransactionStoreManager storeManager = newStoreManager();
+        GlobalSession later = newGlobalSession(1000L, GlobalStatus.Begin);
+        GlobalSession earlier = newGlobalSession(500L, GlobalStatus.Begin);
+        GlobalSession committing = newGlobalSession(100L, GlobalStatus.Committing);
+        try {
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, later));
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, earlier));
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, committing));
+            BranchSession branchSession = newBranchSession(later, 2L);
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.BRANCH_ADD, branchSession));
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.BRANCH_ADD, newBranchSession(later, 1L)));
+            branchSession.setStatus(BranchStatus.PhaseOne_Done);
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.BRANCH_UPDATE, branchSession));
+
+            GlobalSession globalSession = storeManager.readSession(later.getXid(), true);
+            Assertions.assertEquals(later.getTransactionId(), globalSession.getTransactionId());
+            Assertions.assertEquals(2, globalSession.getBranchSessions().size());
+            Assertions.assertEquals(1L, globalSession.getBranchSessions().get(0).getBranchId());
+            Assertions.assertEquals(BranchStatus.PhaseOne_Done, globalSession.getBranch(2L).getStatus());
+            Assertions.assertTrue(storeManager.readSession(later.getXid(), false).getBranchSessions().isEmpty());
+            Assertions.assertEquals(later.getXid(),
+                storeManager.readSession(newCondition(later.getTransactionId())).get(0).getXid());
+
+            // in the order of the deadlines
+            List<GlobalSession> sessions = storeManager.readSession(new GlobalStatus[] {GlobalStatus.Begin});
+            Assertions.assertEquals(2, sessions.size());
+            Assertions.assertEquals(earlier.getXid(), sessions.get(0).getXid());
+            Assertions.assertEquals(later.getXid(), sessions.get(1).getXid());
+
+            // the status index follows the updates
+            earlier.setStatus(GlobalStatus.Committing);
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_UPDATE, earlier));
+            Assertions.assertEquals(1, storeManager.readSession(new GlobalStatus[] {GlobalStatus.Begin}).size());
+            Assertions.assertEquals(2, storeManager.readSession(new GlobalStatus[] {GlobalStatus.Committing}).size());
+
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_REMOVE, committing));
+            Assertions.assertNull(storeManager.readSession(committing.getXid(), true));
+            Assertions.assertNull(storeManager.readSession(newCondition(committing.getTransactionId())));
+        } finally {
+            storeManager.shutdown();
+        }
+
+        // the sessions are recovered from the disk
+        storeManager = newStoreManager();
+        try {
+            GlobalSession globalSession = storeManager.readSession(later.getXid(), true);
+            Assertions.assertEquals(2, globalSession.getBranchSessions().size());
+            List<GlobalSession> sessions = storeManager.readSession(new GlobalStatus[] {GlobalStatus.Begin,
+                GlobalStatus.Committing});
+            Assertions.assertEquals(2, sessions.size());
+
+            Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_REMOVE, later));
+            Assertions.assertEquals(1, storeManager.readSession(new GlobalStatus[] {GlobalStatus.Begin,
+                GlobalStatus.Committing}).size());
+        } finally {
+            storeManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadSessionSharesLimit() {
+        KvTransactionStoreManager storeManager = newStoreManager(4);
+        try {
+            for (int i = 0; i < 5; i++) {
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD,
+                    newGlobalSession(1000L, GlobalStatus.Begin)));
+            }
+            for (int i = 0; i < 2; i++) {
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD,
+                    newGlobalSession(1000L, GlobalStatus.Committing)));
+            }
+            // the later statuses are not starved by the earlier ones
+            List<GlobalSession> sessions = storeManager.readSession(new GlobalStatus[] {GlobalStatus.Begin,
+                GlobalStatus.Committing});
+            Assertions.assertEquals(4, sessions.size());
+            Assertions.assertEquals(2, sessions.stream().filter(s -> s.getStatus() == GlobalStatus.Committing).count());
+            Assertions.assertEquals(2, storeManager.readSession(new GlobalStatus[] {GlobalStatus.Committing,
+                GlobalStatus.Rollbacking}).size());
+        } finally {
+            storeManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadSessionSkipsRejected() {
+        KvTransactionStoreManager storeManager = newStoreManager(2);
+        try {
+            Set<String> rejected = new HashSet<>();
+            for (int i = 0; i < 5; i++) {
+                GlobalSession globalSession = newGlobalSession(1000L, GlobalStatus.RollbackRetrying);
+                Assertions.assertTrue(storeManager.writeSession(LogOperation.GLOBAL_ADD, globalSession));
+                if (i < 3) {
+                    rejected.add(globalSession.getXid());
+                }
+            }
+            // the rejected sessions do not take up the limit
+            List<GlobalSession> sessions = storeManager.readSession(
+                new GlobalStatus[] {GlobalStatus.RollbackRetrying}, xid -> !rejected.contains(xid));
+            Assertions.assertEquals(2, sessions.size());
+            Assertions.assertTrue(sessions.stream().noneMatch(s -> rejected.contains(s.getXid())));
+        } finally {
+            storeManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedWriteRolledBack() {
+        KvStore kvStore = new KvStore(dir.getAbsolutePath(), FlushDiskMode.SYNC_MODEL, 1000L);
+        try {
+            MVMap<String, String> map = kvStore.openMap("test");
+            kvStore.write(() -> map.put("committed", "1"));
+            Assertions.assertThrows(IllegalStateException.class, () -> kvStore.write(() -> {
+                map.put("failed", "1");
+                throw new IllegalStateException("failed in the middle");
+            }));
+            // the part of the failed write is not left in the store
+            Assertions.assertNull(map.get("failed"));
+            Assertions.assertEquals("1", map.get("committed"));
+        } finally {
+            kvStore.close();
+        }
+    }
+
+    private KvTransactionStoreManager newStoreManager() {
+        return newStoreManager(100);
+    }
+
+    private KvTransactionStoreManager newStoreManager(int logQueryLimit) {
+        return new KvTransactionStoreManager(new KvStore(dir.getAbsolutePath(), FlushDiskMode.SYNC_MODEL, 1000L),
+            logQueryLimit);
+    }
+
+    private static SessionCondition newCondition(long transactionId) {
+        SessionCondition sessionCondition = new SessionCondition();
+        sessionCondition.setTransactionId(transactionId);
+        return sessionCondition;
+    }
+
+    private static GlobalSession newGlobalSession(long timeout, GlobalStatus status) {
+        GlobalSession globalSession = new GlobalSession("demo-app", "my_test_tx_group", "test", (int)timeout);
+        globalSession.setBeginTime(System.currentTimeMillis());
+        globalSession.setStatus(status);
+        return globalSession;
+    }
+
+    private static BranchSession newBranchSession(GlobalSession globalSession, long branchId) {
+        BranchSession branchSession = new BranchSession();
+        branchSession.setXid(globalSession.getXid());
+        branchSession.setTransactionId(globalSession.getTransactionId());
+        branchSession.setBranchId(branchId);
+        branchSession.setBranchType(BranchType.AT);
+        branchSession.setResourceId("my_test_resource");
+        branchSession.setClientId("my_test_client");
+        branchSession.setStatus(BranchStatus.Registered);
+        return branchSession;
+    }
+}